@@ -0,0 +1,174 @@
+package org.verapdf.crawler.classifier;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decides the type of a crawled document. The first bytes of the content are the most reliable source,
+ * then the Content-Type header, and the suffix of the URL path is used only when both are inconclusive.
+ */
+public final class DocumentClassifier {
+    // Number of leading content bytes enough to recognize every supported format
+    public static final int HEADER_LENGTH = 128;
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final byte[] PDF_MAGIC = "%PDF".getBytes(ASCII);
+    private static final byte[] OLE2_MAGIC = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+    private static final int ZIP_NAME_LENGTH_OFFSET = 26;
+    private static final int ZIP_EXTRA_LENGTH_OFFSET = 28;
+    private static final int ZIP_NAME_OFFSET = 30;
+    private static final String ODF_MIMETYPE_ENTRY = "mimetype";
+    private static final String ODF_MIMETYPE_PREFIX = "application/vnd.oasis.opendocument.";
+    private static final String[] OOXML_ENTRY_PREFIXES = {"[Content_Types].xml", "_rels/", "docProps/", "word/", "xl/", "ppt/"};
+    private static final String OOXML_CONTENT_TYPE_PREFIX = "application/vnd.openxmlformats-officedocument.";
+
+    private static final Map<String, DocumentType> CONTENT_TYPES = new HashMap<>();
+    private static final Map<String, DocumentType> SUFFIXES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("application/pdf", DocumentType.PDF);
+        CONTENT_TYPES.put("application/x-pdf", DocumentType.PDF);
+        CONTENT_TYPES.put("application/msword", DocumentType.MICROSOFT);
+        CONTENT_TYPES.put("application/vnd.ms-excel", DocumentType.MICROSOFT);
+        CONTENT_TYPES.put("application/vnd.ms-powerpoint", DocumentType.MICROSOFT);
+
+        SUFFIXES.put("pdf", DocumentType.PDF);
+        SUFFIXES.put("odt", DocumentType.ODF);
+        SUFFIXES.put("ods", DocumentType.ODF);
+        SUFFIXES.put("odp", DocumentType.ODF);
+        SUFFIXES.put("doc", DocumentType.MICROSOFT);
+        SUFFIXES.put("xls", DocumentType.MICROSOFT);
+        SUFFIXES.put("ppt", DocumentType.MICROSOFT);
+        SUFFIXES.put("docx", DocumentType.OOXML);
+        SUFFIXES.put("xlsx", DocumentType.OOXML);
+        SUFFIXES.put("pptx", DocumentType.OOXML);
+    }
+
+    private DocumentClassifier() {
+    }
+
+    /**
+     * @param contentType value of the Content-Type header, may be null
+     * @param header first bytes of the content, may be null
+     * @param headerLength number of valid bytes in header
+     * @param url document url, may be null
+     */
+    public static DocumentType classify(String contentType, byte[] header, int headerLength, String url) {
+        DocumentType type = classifyByContent(header, headerLength);
+        if (type == DocumentType.UNKNOWN) {
+            type = classifyByContentType(contentType);
+        }
+        if (type == DocumentType.UNKNOWN) {
+            type = classifyBySuffix(url);
+        }
+        return type;
+    }
+
+    public static DocumentType classifyByContent(byte[] header, int headerLength) {
+        if (header == null) {
+            return DocumentType.UNKNOWN;
+        }
+        int length = Math.min(headerLength, header.length);
+        if (startsWith(header, length, PDF_MAGIC)) {
+            return DocumentType.PDF;
+        }
+        if (startsWith(header, length, OLE2_MAGIC)) {
+            return DocumentType.MICROSOFT;
+        }
+        if (startsWith(header, length, ZIP_MAGIC)) {
+            return classifyZip(header, length);
+        }
+        return DocumentType.UNKNOWN;
+    }
+
+    public static DocumentType classifyByContentType(String contentType) {
+        if (contentType == null) {
+            return DocumentType.UNKNOWN;
+        }
+        int parameters = contentType.indexOf(';');
+        String mimeType = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+        DocumentType type = CONTENT_TYPES.get(mimeType);
+        if (type != null) {
+            return type;
+        }
+        if (mimeType.startsWith(ODF_MIMETYPE_PREFIX)) {
+            return DocumentType.ODF;
+        }
+        if (mimeType.startsWith(OOXML_CONTENT_TYPE_PREFIX)) {
+            return DocumentType.OOXML;
+        }
+        return DocumentType.UNKNOWN;
+    }
+
+    // Suffix of the last path segment, query and fragment are ignored
+    public static DocumentType classifyBySuffix(String url) {
+        if (url == null) {
+            return DocumentType.UNKNOWN;
+        }
+        int end = url.length();
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = url.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+        int dot = url.lastIndexOf('.', end - 1);
+        if (dot < 0 || url.lastIndexOf('/', end - 1) > dot) {
+            return DocumentType.UNKNOWN;
+        }
+        DocumentType type = SUFFIXES.get(url.substring(dot + 1, end).toLowerCase(Locale.ROOT));
+        return type == null ? DocumentType.UNKNOWN : type;
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // ODF packages start with an uncompressed "mimetype" entry, OOXML packages with one of their part names
+    private static DocumentType classifyZip(byte[] header, int length) {
+        if (length < ZIP_NAME_OFFSET) {
+            return DocumentType.UNKNOWN;
+        }
+        int nameLength = readShort(header, ZIP_NAME_LENGTH_OFFSET);
+        int extraLength = readShort(header, ZIP_EXTRA_LENGTH_OFFSET);
+        int nameEnd = Math.min(ZIP_NAME_OFFSET + nameLength, length);
+        String name = new String(header, ZIP_NAME_OFFSET, nameEnd - ZIP_NAME_OFFSET, ASCII);
+        if (ODF_MIMETYPE_ENTRY.equals(name)) {
+            int contentStart = ZIP_NAME_OFFSET + nameLength + extraLength;
+            if (contentStart < length) {
+                String mimeType = new String(header, contentStart, length - contentStart, ASCII);
+                if (mimeType.startsWith(ODF_MIMETYPE_PREFIX)) {
+                    return DocumentType.ODF;
+                }
+            }
+            return DocumentType.UNKNOWN;
+        }
+        for (String prefix : OOXML_ENTRY_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return DocumentType.OOXML;
+            }
+        }
+        return DocumentType.UNKNOWN;
+    }
+
+    private static boolean startsWith(byte[] data, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8);
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,34 @@
+package org.verapdf.crawler.classifier;
+
+public enum DocumentType {
+    PDF("pdf"),
+    ODF("odf"),
+    MICROSOFT("microsoft"),
+    OOXML("ooxml"),
+    UNKNOWN("unknown");
+
+    private final String name;
+
+    DocumentType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isOfficeDocument() {
+        return this == ODF || this == MICROSOFT || this == OOXML;
+    }
+
+    public static DocumentType fromName(String name) {
+        if (name != null) {
+            for (DocumentType type : values()) {
+                if (type.name.equals(name)) {
+                    return type;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,86 @@
+package org.verapdf.crawler.extentionModules;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Flat file store for fetched documents. Every document is kept once as {@code <directory>/<sha256><suffix>},
+ * each notification gets its own hard link {@code <directory>/refs/<sha256>-<uuid><suffix>} to that object.
+ * The consumer deletes its ref when done and removes the object once no other ref links to it.
+ * Since refs are hard links, deleting the object never takes data away from a ref created concurrently.
+ */
+public class ContentAddressedSpool {
+    public static final String REFS_DIRECTORY = "refs";
+    private static final String TEMP_DIRECTORY = "tmp";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path objects;
+    private final Path refs;
+    private final Path temp;
+
+    public ContentAddressedSpool(File directory) throws IOException {
+        this.objects = directory.toPath();
+        this.refs = objects.resolve(REFS_DIRECTORY);
+        this.temp = objects.resolve(TEMP_DIRECTORY);
+        Files.createDirectories(refs);
+        Files.createDirectories(temp);
+    }
+
+    // Copies the content into the spool, hashing it on the way, and returns the ref for the consumer
+    public File store(InputStream content, String suffix) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        Path tempFile = Files.createTempFile(temp, "fetch", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            String hash = toHex(digest.digest());
+            Path object = objects.resolve(hash + suffix);
+            Path ref = refs.resolve(hash + "-" + UUID.randomUUID() + suffix);
+            if (Files.exists(object)) {
+                try {
+                    Files.createLink(ref, object);
+                    return ref.toFile();
+                } catch (NoSuchFileException e) {
+                    // Object was released meanwhile, publish this copy instead
+                }
+            }
+            Files.move(tempFile, ref, StandardCopyOption.ATOMIC_MOVE);
+            try {
+                Files.createLink(object, ref);
+            } catch (FileAlreadyExistsException e) {
+                // Same content was published by another thread, this ref keeps its own copy
+            }
+            return ref.toFile();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            result[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(result);
+    }
+}
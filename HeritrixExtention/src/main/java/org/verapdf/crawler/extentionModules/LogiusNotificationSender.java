@@ -0,0 +1,341 @@
+package org.verapdf.crawler.extentionModules;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers notifications about crawled documents to Logius in the background.
+ * Notifications are collected in a bounded queue and posted as newline delimited JSON batches,
+ * HttpURLConnection keeps the connection to Logius alive between batches.
+ * When the queue is full or Logius is unavailable notifications are appended to a spill file,
+ * which is sent once Logius answers again, so a crawler thread never waits for Logius.
+ * The spill file is replayed from a checkpoint of the delivered bytes, so a failed replay resumes where it stopped.
+ * Batches Logius rejects as invalid are never retried, they are written to a dead letter file instead.
+ */
+public class LogiusNotificationSender implements Runnable {
+    private static final Logger logger = Logger.getLogger(LogiusNotificationSender.class.getName());
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 60000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long MIN_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60000;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final URL endpoint;
+    private final File spillFile;
+    private final File replayFile;
+    private final File checkpointFile;
+    private final File rejectedFile;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final BlockingQueue<String> queue;
+    private final Object spillLock = new Object();
+    // Notifications which did not fit into the queue, written to the spill file in batches
+    private final List<String> overflow = new ArrayList<>();
+    private volatile boolean isRunning;
+    private Thread thread;
+    private long backoffMs = MIN_BACKOFF_MS;
+
+    public LogiusNotificationSender(String endpointUrl, File spillFile, int queueCapacity, int batchSize, long flushIntervalMs) throws IOException {
+        this.endpoint = new URL(endpointUrl);
+        this.spillFile = spillFile;
+        this.replayFile = new File(spillFile.getPath() + ".replay");
+        this.checkpointFile = new File(spillFile.getPath() + ".replay.offset");
+        this.rejectedFile = new File(spillFile.getPath() + ".rejected");
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        isRunning = true;
+        thread = new Thread(this, "LogiusNotificationSender " + endpoint.getPath());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Sends what is left in the queue, notifications which could not be delivered stay in the spill file
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        isRunning = false;
+        thread.interrupt();
+        try {
+            thread.join(READ_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        flushOverflow();
+        List<String> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            spill(rest);
+        }
+    }
+
+    // Never blocks, the notification goes to the spill file if the queue is full
+    public void send(String notification) {
+        if (!queue.offer(notification)) {
+            List<String> full = null;
+            synchronized (overflow) {
+                overflow.add(notification);
+                if (overflow.size() >= batchSize) {
+                    full = new ArrayList<>(overflow);
+                    overflow.clear();
+                }
+            }
+            if (full != null) {
+                spill(full);
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        logger.info("Notification sender for " + endpoint + " started");
+        List<String> batch = new ArrayList<>(batchSize);
+        while (isRunning || !queue.isEmpty()) {
+            try {
+                String first = isRunning ? queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    if (!postWithRetries(batch)) {
+                        spill(batch);
+                    }
+                    batch.clear();
+                }
+                flushOverflow();
+                if (queue.isEmpty() && isRunning) {
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                // Stop was requested, remaining notifications are sent without waiting
+                if (!batch.isEmpty()) {
+                    spill(batch);
+                    batch.clear();
+                }
+            }
+        }
+        logger.info("Notification sender for " + endpoint + " stopped");
+    }
+
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': builder.append("\\\""); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.toString();
+    }
+
+    // Not delivered notifications stay in the replay file, the next replay starts after the checkpoint
+    void replaySpill() throws InterruptedException {
+        synchronized (spillLock) {
+            if (!replayFile.exists()) {
+                if (!spillFile.exists() || !spillFile.renameTo(replayFile)) {
+                    return;
+                }
+                checkpointFile.delete();
+            }
+        }
+        long position = readCheckpoint();
+        int sent = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (InputStream input = new BufferedInputStream(new FileInputStream(replayFile))) {
+            skipFully(input, position);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int next;
+            do {
+                next = input.read();
+                if (next != -1 && next != '\n') {
+                    line.write(next);
+                    continue;
+                }
+                position += line.size() + (next == -1 ? 0 : 1);
+                if (line.size() > 0) {
+                    batch.add(new String(line.toByteArray(), UTF_8));
+                    line.reset();
+                }
+                if (batch.size() == batchSize || (next == -1 && !batch.isEmpty())) {
+                    if (!postWithRetries(batch)) {
+                        return;
+                    }
+                    sent += batch.size();
+                    batch.clear();
+                    writeCheckpoint(position);
+                }
+            } while (next != -1);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to read spilled notifications from " + replayFile, e);
+            return;
+        }
+        if (!replayFile.delete()) {
+            logger.warning("Failed to delete " + replayFile);
+        }
+        checkpointFile.delete();
+        logger.info(sent + " spilled notifications sent to " + endpoint);
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // False if the batch is to be sent again later, a batch rejected by Logius is written to the dead letter file
+    private boolean postWithRetries(List<String> batch) throws InterruptedException {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                post(batch);
+                backoffMs = MIN_BACKOFF_MS;
+                return true;
+            } catch (RejectedBatchException e) {
+                logger.log(Level.SEVERE, batch.size() + " notifications rejected by " + endpoint + ", written to " + rejectedFile, e);
+                append(rejectedFile, batch);
+                return true;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to send " + batch.size() + " notifications to " + endpoint + ", attempt " + attempt, e);
+                if (!isRunning || attempt == MAX_ATTEMPTS) {
+                    return false;
+                }
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+        return false;
+    }
+
+    private void post(List<String> batch) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/x-ndjson");
+        connection.setDoOutput(true);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), UTF_8))) {
+            for (String notification : batch) {
+                writer.write(notification);
+                writer.write('\n');
+            }
+        }
+        int code = connection.getResponseCode();
+        // The body has to be read completely to return the connection to the keep-alive cache
+        InputStream response = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (response != null) {
+            try (InputStream stream = response) {
+                byte[] buffer = new byte[1024];
+                while (stream.read(buffer) != -1) {
+                    // discard
+                }
+            }
+        }
+        // Client errors other than timeouts and throttling mean the same batch will never be accepted
+        if (code >= 400 && code < 500 && code != HttpURLConnection.HTTP_CLIENT_TIMEOUT && code != HTTP_TOO_MANY_REQUESTS) {
+            throw new RejectedBatchException(code);
+        }
+        if (code >= 300) {
+            throw new IOException("Response code from logius: " + code);
+        }
+    }
+
+    private void spill(List<String> notifications) {
+        synchronized (spillLock) {
+            append(spillFile, notifications);
+        }
+    }
+
+    private static void append(File file, List<String> notifications) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8))) {
+            for (String notification : notifications) {
+                writer.write(notification);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to write " + notifications.size() + " notifications to " + file, e);
+        }
+    }
+
+    private void flushOverflow() {
+        List<String> rest;
+        synchronized (overflow) {
+            if (overflow.isEmpty()) {
+                return;
+            }
+            rest = new ArrayList<>(overflow);
+            overflow.clear();
+        }
+        spill(rest);
+    }
+
+    // Number of bytes of the replay file which were already delivered
+    private long readCheckpoint() {
+        if (!checkpointFile.exists()) {
+            return 0;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(checkpointFile), UTF_8))) {
+            String line = reader.readLine();
+            return line == null ? 0 : Long.parseLong(line.trim());
+        } catch (IOException | NumberFormatException e) {
+            logger.log(Level.WARNING, "Failed to read " + checkpointFile + ", spilled notifications are replayed from the start", e);
+            return 0;
+        }
+    }
+
+    // Failed write only makes the next replay send delivered notifications once more
+    private void writeCheckpoint(long position) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(checkpointFile), UTF_8)) {
+            writer.write(Long.toString(position));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to write " + checkpointFile, e);
+        }
+    }
+
+    private static void skipFully(InputStream input, long count) throws IOException {
+        while (count > 0) {
+            long skipped = input.skip(count);
+            if (skipped <= 0) {
+                return;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static class RejectedBatchException extends IOException {
+        RejectedBatchException(int code) {
+            super("Response code from logius: " + code);
+        }
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,133 @@
+package org.verapdf.crawler.extentionModules;
+
+import org.apache.commons.httpclient.Header;
+import org.archive.modules.CrawlURI;
+import org.archive.modules.writer.MirrorWriterProcessor;
+import org.verapdf.crawler.classifier.DocumentClassifier;
+import org.verapdf.crawler.classifier.DocumentType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Base for processors which report crawled documents to Logius through LogiusNotificationSender
+public abstract class LogiusNotifyingProcessor extends MirrorWriterProcessor {
+    private static final Logger logger = Logger.getLogger(LogiusNotifyingProcessor.class.getName());
+    private static final String A_DOCUMENT_TYPE = "logius-document-type";
+    protected static final String DEFAULT_LAST_MODIFIED = "Last-Modified: Thu, 01 Jan 1970 00:00:01 GMT";
+
+    private String logiusUrl;
+    private int notificationQueueCapacity = 10000;
+    private int notificationBatchSize = 500;
+    private long notificationFlushIntervalMs = 1000;
+    private LogiusNotificationSender sender;
+
+    public String getLogiusUrl() {
+        return logiusUrl;
+    }
+
+    public void setLogiusUrl(String logiusUrl) {
+        this.logiusUrl = logiusUrl;
+    }
+
+    public int getNotificationQueueCapacity() {
+        return notificationQueueCapacity;
+    }
+
+    public void setNotificationQueueCapacity(int notificationQueueCapacity) {
+        this.notificationQueueCapacity = notificationQueueCapacity;
+    }
+
+    public int getNotificationBatchSize() {
+        return notificationBatchSize;
+    }
+
+    public void setNotificationBatchSize(int notificationBatchSize) {
+        this.notificationBatchSize = notificationBatchSize;
+    }
+
+    public long getNotificationFlushIntervalMs() {
+        return notificationFlushIntervalMs;
+    }
+
+    public void setNotificationFlushIntervalMs(long notificationFlushIntervalMs) {
+        this.notificationFlushIntervalMs = notificationFlushIntervalMs;
+    }
+
+    // Logius endpoint relative to logiusUrl which accepts batches of notifications
+    protected abstract String getNotificationPath();
+
+    @Override
+    public synchronized void start() {
+        super.start();
+        if (sender == null) {
+            // Spill file is kept in the job launch directory next to the mirror
+            File spillFile = new File(getPath().getFile().getAbsoluteFile().getParentFile(),
+                    getBeanName() + "_notifications.spill");
+            try {
+                sender = new LogiusNotificationSender(logiusUrl + getNotificationPath(), spillFile,
+                        notificationQueueCapacity, notificationBatchSize, notificationFlushIntervalMs);
+                sender.start();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to start notification sender for " + logiusUrl, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (sender != null) {
+            sender.stop();
+            sender = null;
+        }
+        super.stop();
+    }
+
+    protected void notifyLogius(String notification) {
+        LogiusNotificationSender currentSender = sender;
+        if (currentSender != null) {
+            currentSender.send(notification);
+        } else {
+            logger.warning("Notification sender is not running, notification dropped: " + notification);
+        }
+    }
+
+    // Type is computed once per URI, as both processors of the disposition chain ask for it
+    protected static DocumentType getDocumentType(CrawlURI curi) {
+        DocumentType type = (DocumentType) curi.getData().get(A_DOCUMENT_TYPE);
+        if (type == null) {
+            byte[] header = new byte[DocumentClassifier.HEADER_LENGTH];
+            int headerLength = readContentHeader(curi, header);
+            type = DocumentClassifier.classify(curi.getContentType(), header, headerLength, curi.getURI());
+            curi.getData().put(A_DOCUMENT_TYPE, type);
+        }
+        return type;
+    }
+
+    protected static String getLastModified(CrawlURI curi) {
+        Header header = curi.getHttpMethod().getResponseHeader("Last-Modified");
+        if(header != null) {
+            return header.toString().substring(0, header.toString().length() - 2);
+        }
+        return DEFAULT_LAST_MODIFIED;
+    }
+
+    private static int readContentHeader(CrawlURI curi, byte[] header) {
+        if (curi.getRecorder() == null) {
+            return 0;
+        }
+        try (InputStream content = curi.getRecorder().getContentReplayInputStream()) {
+            int length = 0;
+            int read;
+            while (length < header.length && (read = content.read(header, length, header.length - length)) != -1) {
+                length += read;
+            }
+            return length;
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Failed to read content of " + curi.getURI(), e);
+            return 0;
+        }
+    }
+}
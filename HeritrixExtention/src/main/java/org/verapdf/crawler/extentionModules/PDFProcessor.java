@@ -1,55 +1,72 @@
 package org.verapdf.crawler.extentionModules;
 
-import org.apache.commons.httpclient.Header;
 import org.archive.modules.CrawlURI;
-import org.archive.modules.writer.MirrorWriterProcessor;
+import org.verapdf.crawler.classifier.DocumentType;
 
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-public class PDFProcessor extends MirrorWriterProcessor {
-    public String getLogiusUrl() {
-        return logiusUrl;
+// Stores fetched PDFs in a content-addressed spool instead of the mirror tree and sends them for validation
+public class PDFProcessor extends LogiusNotifyingProcessor {
+    private static final Logger logger = Logger.getLogger(PDFProcessor.class.getName());
+    private static final String PDF_SUFFIX = ".pdf";
+
+    private String spoolDirectory;
+    private ContentAddressedSpool spool;
+
+    // Absolute path of the spool shared by jobs, spool directory in the job launch directory by default
+    public String getSpoolDirectory() {
+        return spoolDirectory;
     }
 
-    public void setLogiusUrl(String logiusUrl) {
-        this.logiusUrl = logiusUrl;
+    public void setSpoolDirectory(String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
     }
 
-    private String logiusUrl;
+    @Override
+    protected String getNotificationPath() {
+        return "api/validation/bulk";
+    }
 
     @Override
-    protected void innerProcess(CrawlURI curi) {
-        super.innerProcess(curi);
-        String baseDir = getPath().getFile().getAbsolutePath();
-        String mps = (String)curi.getData().get(A_MIRROR_PATH);
-        String time = "Last-Modified: Thu, 01 Jan 1970 00:00:01 GMT";
-        Header header = curi.getHttpMethod().getResponseHeader("Last-Modified");
-        if(header != null) {
-            time = header.toString().substring(0, header.toString().length() - 2);
+    public synchronized void start() {
+        super.start();
+        if (spool == null) {
+            File directory = spoolDirectory != null ? new File(spoolDirectory) :
+                    new File(getPath().getFile().getAbsoluteFile().getParentFile(), "spool");
+            try {
+                spool = new ContentAddressedSpool(directory);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to create spool in " + directory, e);
+            }
         }
+    }
 
-        try {
-            String data = "{\"filepath\":\"" + baseDir + File.separator + mps +
-                    "\", \"jobDirectory\":\"" + baseDir + "\", \"" +
-                    "time\":\"" + time + "\", \"uri\":\"" + curi.getURI() + "\"}";
-            URL url = new URL(logiusUrl + "api/validation");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type","application/json");
-            connection.setDoOutput(true);
-            DataOutputStream wr = new DataOutputStream(connection.getOutputStream());
-            wr.writeBytes(data);
-            wr.flush();
-            wr.close();
-            int code = connection.getResponseCode();
-            if(code != 204) {
-                System.out.println("Response code from logius: " + code);
-            }
+    @Override
+    protected boolean shouldProcess(CrawlURI curi) {
+        return getDocumentType(curi) == DocumentType.PDF;
+    }
+
+    @Override
+    protected void innerProcess(CrawlURI curi) {
+        if (spool == null || curi.getRecorder() == null) {
+            return;
+        }
+        File file;
+        try (InputStream content = curi.getRecorder().getContentReplayInputStream()) {
+            file = spool.store(content, PDF_SUFFIX);
         } catch (IOException e) {
-            System.out.println("PDF processor error");
-            e.printStackTrace();
+            logger.log(Level.WARNING, "Failed to spool " + curi.getURI(), e);
+            return;
         }
+        String baseDir = getPath().getFile().getAbsolutePath();
+        String time = getLastModified(curi);
+
+        String data = "{\"filepath\":\"" + LogiusNotificationSender.escape(file.getAbsolutePath()) +
+                "\", \"jobDirectory\":\"" + LogiusNotificationSender.escape(baseDir) + "\", \"" +
+                "time\":\"" + LogiusNotificationSender.escape(time) + "\", \"uri\":\"" +
+                LogiusNotificationSender.escape(curi.getURI()) + "\"}";
+        notifyLogius(data);
     }
-}
\ No newline at end of file
+}
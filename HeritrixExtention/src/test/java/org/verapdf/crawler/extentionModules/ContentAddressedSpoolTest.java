@@ -0,0 +1,134 @@
+package org.verapdf.crawler.extentionModules;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ContentAddressedSpoolTest {
+    // SHA-256 of "hello"
+    private static final String HELLO_HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File directory;
+    private ContentAddressedSpool spool;
+
+    @Before
+    public void createSpool() throws IOException {
+        directory = folder.newFolder("spool");
+        spool = new ContentAddressedSpool(directory);
+    }
+
+    @Test
+    public void documentIsStoredUnderItsHash() throws IOException {
+        File ref = store("hello", ".pdf");
+
+        assertEquals(new File(directory, ContentAddressedSpool.REFS_DIRECTORY), ref.getParentFile());
+        assertTrue(ref.getName().startsWith(HELLO_HASH + "-"));
+        assertTrue(ref.getName().endsWith(".pdf"));
+        File object = new File(directory, HELLO_HASH + ".pdf");
+        assertEquals("hello", read(object));
+        assertEquals("hello", read(ref));
+        assertEquals(2, getLinkCount(object));
+    }
+
+    @Test
+    public void sameContentIsKeptOnce() throws IOException {
+        File first = store("hello", ".pdf");
+        File second = store("hello", ".pdf");
+
+        assertNotEquals(first, second);
+        File object = new File(directory, HELLO_HASH + ".pdf");
+        assertEquals(3, getLinkCount(object));
+        assertEquals(1, listObjects().size());
+    }
+
+    @Test
+    public void differentContentGetsOwnObject() throws IOException {
+        store("hello", ".pdf");
+        store("world", ".pdf");
+
+        assertEquals(2, listObjects().size());
+    }
+
+    @Test
+    public void refOutlivesReleasedObject() throws IOException {
+        File first = store("hello", ".pdf");
+        File object = new File(directory, HELLO_HASH + ".pdf");
+        // Consumer removes its ref and then the object without other refs
+        Files.delete(first.toPath());
+        Files.delete(object.toPath());
+
+        File second = store("hello", ".pdf");
+
+        assertEquals("hello", read(second));
+        assertEquals("hello", read(object));
+        assertEquals(2, getLinkCount(object));
+    }
+
+    @Test
+    public void temporaryFilesAreRemoved() throws IOException {
+        store("hello", ".pdf");
+        store("hello", ".pdf");
+
+        String[] temporary = new File(directory, "tmp").list();
+        assertNotNull(temporary);
+        assertEquals(0, temporary.length);
+    }
+
+    @Test
+    public void concurrentStoresOfSameContentKeepEveryRef() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<File>> refs = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                refs.add(executor.submit(new Callable<File>() {
+                    @Override
+                    public File call() throws IOException {
+                        return store("hello", ".pdf");
+                    }
+                }));
+            }
+            for (Future<File> ref : refs) {
+                assertEquals("hello", read(ref.get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, listObjects().size());
+    }
+
+    private File store(String content, String suffix) throws IOException {
+        return spool.store(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), suffix);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static int getLinkCount(File file) throws IOException {
+        return (Integer) Files.getAttribute(file.toPath(), "unix:nlink");
+    }
+
+    private List<String> listObjects() {
+        List<String> result = new ArrayList<>();
+        for (File file : directory.listFiles()) {
+            if (file.isFile()) {
+                result.add(file.getName());
+            }
+        }
+        return result;
+    }
+}
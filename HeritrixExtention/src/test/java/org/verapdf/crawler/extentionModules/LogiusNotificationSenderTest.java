@@ -0,0 +1,233 @@
+package org.verapdf.crawler.extentionModules;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.*;
+
+public class LogiusNotificationSenderTest {
+    private static final int BATCH_SIZE = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private HttpServer server;
+    // Notifications accepted by the stub in the order they arrived
+    private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+    // Status codes for the next requests, 200 once they run out
+    private final Queue<Integer> responses = new ConcurrentLinkedQueue<>();
+    private volatile int requestCount;
+    private File spillFile;
+    private LogiusNotificationSender sender;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/notifications", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                List<String> lines = new ArrayList<>();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines.add(line);
+                    }
+                }
+                requestCount++;
+                Integer code = responses.poll();
+                if (code == null) {
+                    code = lines.contains("rejected") ? 400 : 200;
+                }
+                if (code == 200) {
+                    received.addAll(lines);
+                }
+                exchange.sendResponseHeaders(code, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        spillFile = new File(folder.getRoot(), "notifications.spill");
+        sender = new LogiusNotificationSender("http://localhost:" + server.getAddress().getPort() + "/notifications",
+                spillFile, 100, BATCH_SIZE, 50);
+    }
+
+    @After
+    public void stopServer() {
+        sender.stop();
+        server.stop(0);
+    }
+
+    @Test
+    public void queuedNotificationsAreDelivered() throws Exception {
+        sender.start();
+        List<String> notifications = notifications(0, 25);
+        for (String notification : notifications) {
+            sender.send(notification);
+        }
+
+        waitForDelivery(25);
+
+        assertEquals(notifications, received);
+        assertFalse(spillFile.exists());
+    }
+
+    @Test
+    public void failedPostIsRetried() throws Exception {
+        responses.add(503);
+        responses.add(503);
+        sender.start();
+        sender.send("first");
+
+        waitForDelivery(1);
+
+        assertEquals(Collections.singletonList("first"), received);
+        assertEquals(3, requestCount);
+    }
+
+    @Test
+    public void spillFileIsReplayed() throws Exception {
+        List<String> notifications = notifications(0, 25);
+        write(spillFile, notifications);
+
+        sender.replaySpill();
+
+        assertEquals(notifications, received);
+        assertEquals(3, requestCount);
+        assertFalse(spillFile.exists());
+        assertFalse(getReplayFile().exists());
+        assertFalse(getCheckpointFile().exists());
+    }
+
+    @Test
+    public void failedReplayResumesFromCheckpoint() throws Exception {
+        List<String> notifications = notifications(0, 35);
+        write(spillFile, notifications);
+        responses.add(200);
+        responses.add(200);
+        responses.add(503);
+
+        sender.replaySpill();
+
+        assertEquals(notifications.subList(0, 20), received);
+        assertTrue(getReplayFile().exists());
+        assertEquals(Long.toString(getSize(notifications.subList(0, 20))), read(getCheckpointFile()));
+
+        // Notifications spilled meanwhile wait for the next replay
+        write(spillFile, notifications(35, 5));
+        sender.replaySpill();
+
+        assertEquals(notifications, received);
+        assertFalse(getReplayFile().exists());
+        assertFalse(getCheckpointFile().exists());
+
+        sender.replaySpill();
+        assertEquals(notifications(0, 40), received);
+    }
+
+    @Test
+    public void replayOfFileWithoutLastNewlineSendsLastLine() throws Exception {
+        Files.write(spillFile.toPath(), "first\nsecond".getBytes(StandardCharsets.UTF_8));
+
+        sender.replaySpill();
+
+        assertEquals(Arrays.asList("first", "second"), received);
+    }
+
+    @Test
+    public void rejectedBatchIsSetAsideAndReplayContinues() throws Exception {
+        List<String> notifications = notifications(0, 10);
+        notifications.add("rejected");
+        notifications.addAll(notifications(10, 19));
+        write(spillFile, notifications);
+
+        sender.replaySpill();
+
+        assertEquals(3, requestCount);
+        assertEquals(notifications.subList(0, 10), received.subList(0, 10));
+        assertEquals(notifications.subList(20, 30), received.subList(10, 20));
+        assertEquals(notifications.subList(10, 20), Files.readAllLines(getRejectedFile().toPath(), StandardCharsets.UTF_8));
+        assertFalse(getReplayFile().exists());
+        assertFalse(getCheckpointFile().exists());
+    }
+
+    @Test
+    public void overflowIsSpilledInBatches() throws Exception {
+        sender = new LogiusNotificationSender("http://localhost:" + server.getAddress().getPort() + "/notifications",
+                spillFile, 1, BATCH_SIZE, 50);
+        List<String> notifications = notifications(0, 1 + BATCH_SIZE + 3);
+        for (String notification : notifications) {
+            sender.send(notification);
+        }
+
+        // First notification is queued, the last ones wait for a full batch
+        assertEquals(1, sender.getQueueSize());
+        assertEquals(notifications.subList(1, 1 + BATCH_SIZE), Files.readAllLines(spillFile.toPath(), StandardCharsets.UTF_8));
+
+        sender.start();
+        waitForDelivery(notifications.size());
+
+        assertEquals(new HashSet<>(notifications), new HashSet<>(received));
+        assertEquals(notifications.size(), received.size());
+    }
+
+    private List<String> notifications(int from, int count) {
+        List<String> result = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            result.add("{\"url\":\"http://example.com/" + i + ".pdf\"}");
+        }
+        return result;
+    }
+
+    private void waitForDelivery(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20000;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, received.size());
+    }
+
+    private File getReplayFile() {
+        return new File(spillFile.getPath() + ".replay");
+    }
+
+    private File getCheckpointFile() {
+        return new File(spillFile.getPath() + ".replay.offset");
+    }
+
+    private File getRejectedFile() {
+        return new File(spillFile.getPath() + ".rejected");
+    }
+
+    private static void write(File file, List<String> lines) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static long getSize(List<String> lines) {
+        long result = 0;
+        for (String line : lines) {
+            result += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        return result;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Stand-in for the veraPDF launcher, set as verapdfPath of VeraPDFService for replay benchmarks.
+# Prints a canned machine readable report for the last argument after a configurable delay.
+# Environment variables (inherited from VeraPDFService):
+#   FAKE_VERAPDF_LATENCY_MS        delay before the report, 500 by default
+#   FAKE_VERAPDF_JITTER_MS         upper bound of a random delay added to the latency, 0 by default
+#   FAKE_VERAPDF_INVALID_PERCENT   share of non-compliant reports, 50 by default
+#   FAKE_VERAPDF_FAILED_RULES      failed rules in a non-compliant report, 5 by default
+#   FAKE_VERAPDF_FAILURE_PERCENT   share of reports with a processing error, 0 by default
+#   FAKE_VERAPDF_CRASH_PERCENT     share of runs which exit with an error and no report, 0 by default
+
+FILE="${@: -1}"
+LATENCY_MS=${FAKE_VERAPDF_LATENCY_MS:-500}
+JITTER_MS=${FAKE_VERAPDF_JITTER_MS:-0}
+INVALID_PERCENT=${FAKE_VERAPDF_INVALID_PERCENT:-50}
+FAILED_RULES=${FAKE_VERAPDF_FAILED_RULES:-5}
+FAILURE_PERCENT=${FAKE_VERAPDF_FAILURE_PERCENT:-0}
+CRASH_PERCENT=${FAKE_VERAPDF_CRASH_PERCENT:-0}
+
+if [ "$JITTER_MS" -gt 0 ]; then
+    LATENCY_MS=$((LATENCY_MS + RANDOM % (JITTER_MS + 1)))
+fi
+sleep "$(awk "BEGIN { print $LATENCY_MS / 1000 }")"
+
+if [ $((RANDOM % 100)) -lt "$CRASH_PERCENT" ]; then
+    echo "Simulated crash on $FILE" >&2
+    exit 1
+fi
+
+echo '<?xml version="1.0" encoding="utf-8"?>'
+echo '<report><jobs><job>'
+echo "<item><name>$FILE</name></item>"
+if [ $((RANDOM % 100)) -lt "$FAILURE_PERCENT" ]; then
+    echo '<taskResult type="VALIDATE" isExecuted="true" isSuccess="false">'
+    echo "<exceptionMessage>Simulated processing error on $FILE</exceptionMessage></taskResult>"
+elif [ $((RANDOM % 100)) -lt "$INVALID_PERCENT" ]; then
+    echo '<validationReport profileName="PDF/A-1B validation profile" isCompliant="false">'
+    echo "<details passedRules=\"100\" failedRules=\"$FAILED_RULES\">"
+    for ((i = 1; i <= FAILED_RULES; i++)); do
+        echo "<rule specification=\"ISO 19005-1:2005\" clause=\"6.1.$i\" testNumber=\"$i\" status=\"failed\">"
+        echo "<description>Simulated rule $i</description></rule>"
+    done
+    echo '</details></validationReport>'
+else
+    echo '<validationReport profileName="PDF/A-1B validation profile" isCompliant="true">'
+    echo '<details passedRules="100" failedRules="0"/></validationReport>'
+fi
+echo '</job></jobs></report>'
@@ -0,0 +1,24 @@
+package org.verapdf.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class CommandLineOptions {
+    private CommandLineOptions() {
+    }
+
+    // Arguments are pairs of --name value
+    public static Map<String, String> parse(String[] args) {
+        Map<String, String> result = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            result.put(args[i].substring(2), args[i + 1]);
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("No value for " + args[args.length - 1]);
+        }
+        return result;
+    }
+}
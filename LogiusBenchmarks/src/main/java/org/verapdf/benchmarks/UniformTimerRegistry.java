@@ -0,0 +1,26 @@
+package org.verapdf.benchmarks;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+
+/**
+ * Timers keep every sample instead of the exponentially decaying default, so that percentiles cover the whole run.
+ */
+public class UniformTimerRegistry extends MetricRegistry {
+    private static final int RESERVOIR_SIZE = 100_000;
+
+    @Override
+    public Timer timer(String name) {
+        Metric metric = getMetrics().get(name);
+        if (metric instanceof Timer) {
+            return (Timer) metric;
+        }
+        try {
+            return register(name, new Timer(new UniformReservoir(RESERVOIR_SIZE)));
+        } catch (IllegalArgumentException e) {
+            return super.timer(name);
+        }
+    }
+}
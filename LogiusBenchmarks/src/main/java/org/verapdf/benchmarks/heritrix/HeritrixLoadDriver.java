@@ -0,0 +1,308 @@
+package org.verapdf.benchmarks.heritrix;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.verapdf.benchmarks.CommandLineOptions;
+import org.verapdf.benchmarks.UniformTimerRegistry;
+import org.verapdf.crawler.app.configuration.HttpClientSettings;
+import org.verapdf.crawler.app.engine.CrawlConfigurationTemplate;
+import org.verapdf.crawler.app.engine.HeritrixClient;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the Heritrix control plane of Logius at scale: batches of crawl jobs are created, built and launched
+ * through HeritrixClient as CrawlJobScheduler does, every poll interval the status of all active jobs is
+ * reconciled as in the scheduler, finished jobs are reported and torn down as ControlResource does, and
+ * batch status pages are emulated by reports of every job of some batches. Runs against an embedded
+ * HeritrixSimulator unless --heritrix-url is given. Reports latency of every operation as a table and as JSON.
+ *
+ * Options:
+ *   --jobs N                  number of crawl jobs, 1000 by default
+ *   --batch-size N            crawl jobs per batch, 50 by default
+ *   --max-active N            limit of jobs active in Heritrix as maxActiveCrawlJobs, all jobs by default
+ *   --max-connections N       connection pool size of HeritrixClient, 50 by default
+ *   --poll-interval-ms MS     interval of status reconciliation, 1000 by default
+ *   --report-batches N        batch status pages requested per poll interval, 1 by default
+ *   --template FILE           sample_configuration.cxml for job configurations, the bundled one by default
+ *   --heritrix-url URL        Heritrix (or a standalone simulator) to use instead of the embedded simulator
+ *   --username NAME           Heritrix login, admin by default
+ *   --password PASSWORD       Heritrix password, logius by default
+ *   --output FILE             JSON result file, heritrix-load-result.json by default
+ *   --timeout-minutes M       run is aborted after this time, 30 by default
+ *   other options are passed to the embedded simulator, e.g. --min-crawl-ms 5000 --latency-ms 20
+ */
+public class HeritrixLoadDriver {
+    private static final String METRICS_PREFIX = "heritrix_load.";
+    private static final String HERITRIX_REQUESTS = "logius.heritrix.requests";
+    private static final String TEMPLATE_RESOURCE = "/sample_configuration.cxml";
+    private static final List<String> DRIVER_OPTIONS = Arrays.asList("jobs", "batch-size", "max-active",
+            "max-connections", "poll-interval-ms", "report-batches", "template", "heritrix-url", "output", "timeout-minutes");
+
+    private final HeritrixClient client;
+    private final MetricRegistry registry;
+    private final int maxActive;
+    private final Deque<String> pendingJobs = new ArrayDeque<>();
+    private final Map<String, String> batches = new HashMap<>();
+    private final Set<String> launchingJobs = ConcurrentHashMap.newKeySet();
+    private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+    private final Set<String> finishedJobs = ConcurrentHashMap.newKeySet();
+    private final Set<String> failedJobs = ConcurrentHashMap.newKeySet();
+    private final Random random = new Random(1);
+    private int maxObservedActive;
+
+    private HeritrixLoadDriver(HeritrixClient client, MetricRegistry registry, int jobs, int batchSize, int maxActive) {
+        this.client = client;
+        this.registry = registry;
+        this.maxActive = maxActive;
+        for (int i = 0; i < jobs; i++) {
+            String job = UUID.randomUUID().toString();
+            pendingJobs.add(job);
+            batches.put(job, "batch-" + i / batchSize);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        Map<String, String> simulatorOptions = new HashMap<>(options);
+        simulatorOptions.keySet().removeAll(DRIVER_OPTIONS);
+        String username = options.getOrDefault("username", "admin");
+        String password = options.getOrDefault("password", "logius");
+        int jobs = Integer.parseInt(options.getOrDefault("jobs", "1000"));
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "50"));
+        int maxActive = Integer.parseInt(options.getOrDefault("max-active", String.valueOf(jobs)));
+        long pollIntervalMs = Long.parseLong(options.getOrDefault("poll-interval-ms", "1000"));
+        int reportBatches = Integer.parseInt(options.getOrDefault("report-batches", "1"));
+
+        HeritrixSimulator simulator = null;
+        String url = options.get("heritrix-url");
+        if (url == null) {
+            simulator = new HeritrixSimulator(HeritrixSimulator.parseSettings(simulatorOptions));
+            simulator.start(0, null);
+            url = simulator.getUrl();
+            System.out.println("Embedded Heritrix simulator is listening at " + url);
+        }
+        HttpClientSettings connection = new HttpClientSettings();
+        connection.setMaxConnections(Integer.parseInt(options.getOrDefault("max-connections", "50")));
+        MetricRegistry registry = new UniformTimerRegistry();
+        Map<String, Object> result;
+        try (HeritrixClient client = new HeritrixClient(url, username, password, connection)) {
+            client.setConfigurationTemplate(new CrawlConfigurationTemplate(getTemplate(options.get("template")), Collections.emptyMap()));
+            client.setMetrics(new PipelineMetrics(registry));
+            HeritrixLoadDriver driver = new HeritrixLoadDriver(client, registry, jobs, batchSize, maxActive);
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.MINUTES.toNanos(Long.parseLong(options.getOrDefault("timeout-minutes", "30")));
+            driver.run(pollIntervalMs, reportBatches, deadline);
+            result = driver.buildResult(jobs, (System.nanoTime() - start) / 1e9);
+        }
+        if (simulator != null) {
+            result.put("simulatorStates", simulator.getStateCounts());
+            simulator.close();
+        }
+        printResult(result);
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File output = new File(options.getOrDefault("output", "heritrix-load-result.json"));
+        mapper.writeValue(output, result);
+        System.out.println("Result is saved to " + output.getAbsolutePath());
+        System.exit(result.get("finishedJobs").equals(jobs) ? 0 : 1);
+    }
+
+    private void run(long pollIntervalMs, int reportBatches, long deadline) throws InterruptedException {
+        while ((!pendingJobs.isEmpty() || !launchingJobs.isEmpty() || !activeJobs.isEmpty()) && System.nanoTime() < deadline) {
+            launchPendingJobs();
+            reconcile();
+            reportBatches(reportBatches);
+            System.out.println(String.format("pending %d, launching %d, active %d, finished %d, failed %d",
+                    pendingJobs.size(), launchingJobs.size(), activeJobs.size(), finishedJobs.size(), failedJobs.size()));
+            Thread.sleep(pollIntervalMs);
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // Same chain of calls as CrawlJobScheduler.launch
+    private void launchPendingJobs() {
+        while (!pendingJobs.isEmpty() && launchingJobs.size() + activeJobs.size() < maxActive) {
+            String job = pendingJobs.poll();
+            List<String> crawlUrls = Arrays.asList("http://" + job + ".example.com", "https://" + job + ".example.com");
+            launchingJobs.add(job);
+            Timer.Context time = timer("launch").time();
+            client.createJobAsync(job, crawlUrls, CrawlConfigurationTemplate.DEFAULT_PROFILE)
+                    .thenCompose(created -> client.buildJobAsync(job))
+                    .thenCompose(built -> client.launchJobAsync(job))
+                    .whenComplete((launched, e) -> {
+                        time.stop();
+                        if (e == null) {
+                            activeJobs.add(job);
+                        } else {
+                            failed("launch", job, e);
+                        }
+                        launchingJobs.remove(job);
+                    });
+        }
+        maxObservedActive = Math.max(maxObservedActive, launchingJobs.size() + activeJobs.size());
+    }
+
+    // Status of all active jobs is requested at once as in CrawlJobScheduler.releaseFinishedJobs,
+    // finished jobs are then reported and torn down as ControlResource does on a status request
+    private void reconcile() {
+        Timer.Context roundTime = timer("reconcile_round").time();
+        Map<String, CompletableFuture<Boolean>> statuses = new HashMap<>();
+        for (String job : activeJobs) {
+            Timer.Context time = timer("status_check").time();
+            statuses.put(job, client.isJobFinishedAsync(job).whenComplete((finished, e) -> time.stop()));
+        }
+        List<CompletableFuture<?>> finishing = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<Boolean>> status : statuses.entrySet()) {
+            String job = status.getKey();
+            try {
+                if (status.getValue().join()) {
+                    activeJobs.remove(job);
+                    Timer.Context time = timer("finish").time();
+                    finishing.add(report(job)
+                            .thenCompose(report -> client.getValidPDFReportUriAsync(job))
+                            .thenCompose(reportUri -> client.teardownJobAsync(job))
+                            .whenComplete((tornDown, e) -> {
+                                time.stop();
+                                if (e == null) {
+                                    finishedJobs.add(job);
+                                } else {
+                                    failed("finish", job, e);
+                                }
+                            }));
+                }
+            } catch (RuntimeException e) {
+                failed("status_check", job, e);
+            }
+        }
+        for (CompletableFuture<?> future : finishing) {
+            future.exceptionally(e -> null).join();
+        }
+        roundTime.stop();
+    }
+
+    // Batch status page requests a report of every launched job of the batch
+    private void reportBatches(int count) {
+        List<String> jobs = new ArrayList<>(activeJobs);
+        for (int i = 0; i < count && !jobs.isEmpty(); i++) {
+            String batch = batches.get(jobs.get(random.nextInt(jobs.size())));
+            Timer.Context time = timer("batch_report").time();
+            List<CompletableFuture<?>> reports = new ArrayList<>();
+            for (String job : jobs) {
+                if (batch.equals(batches.get(job))) {
+                    reports.add(report(job).exceptionally(e -> {
+                        registry.meter(METRICS_PREFIX + "errors.job_report").mark();
+                        return null;
+                    }));
+                }
+            }
+            CompletableFuture.allOf(reports.toArray(new CompletableFuture[reports.size()])).join();
+            time.stop();
+        }
+    }
+
+    // Heritrix calls of HeritrixReporter.getReport
+    private CompletableFuture<String> report(String job) {
+        Timer.Context time = timer("job_report").time();
+        CompletableFuture<List<String>> crawlUrls = client.getListOfCrawlUrlsAsync(job);
+        CompletableFuture<String> status = client.getCurrentJobStatusAsync(job);
+        CompletableFuture<Integer> downloaded = client.getDownloadedCountAsync(job);
+        return CompletableFuture.allOf(crawlUrls, status, downloaded)
+                .thenApply(reported -> crawlUrls.join().get(0) + " " + status.join() + " " + downloaded.join())
+                .whenComplete((report, e) -> time.stop());
+    }
+
+    private void failed(String operation, String job, Throwable e) {
+        failedJobs.add(job);
+        registry.meter(METRICS_PREFIX + "errors." + operation).mark();
+        System.err.println("Error on " + operation + " of crawl job " + job + ": " + e);
+    }
+
+    private Timer timer(String operation) {
+        return registry.timer(METRICS_PREFIX + operation);
+    }
+
+    private static File getTemplate(String path) throws IOException {
+        if (path != null) {
+            return new File(path);
+        }
+        File result = File.createTempFile("sample_configuration", ".cxml");
+        result.deleteOnExit();
+        try (InputStream template = HeritrixLoadDriver.class.getResourceAsStream(TEMPLATE_RESOURCE)) {
+            Files.copy(template, result.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return result;
+    }
+
+    private Map<String, Object> buildResult(int jobs, double seconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobs", jobs);
+        result.put("finishedJobs", finishedJobs.size());
+        result.put("failedJobs", failedJobs.size());
+        result.put("maxActiveJobs", maxObservedActive);
+        result.put("seconds", seconds);
+        Timer requests = registry.timer(HERITRIX_REQUESTS);
+        result.put("heritrixRequests", requests.getCount());
+        result.put("heritrixRequestsPerSecond", requests.getCount() / seconds);
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            if (entry.getValue().getCount() == 0) {
+                continue;
+            }
+            String name = entry.getKey().equals(HERITRIX_REQUESTS) ? "heritrix_request" : entry.getKey().substring(METRICS_PREFIX.length());
+            Snapshot snapshot = entry.getValue().getSnapshot();
+            Map<String, Object> operation = new LinkedHashMap<>();
+            operation.put("count", entry.getValue().getCount());
+            operation.put("p50Ms", toMillis(snapshot.getMedian()));
+            operation.put("p95Ms", toMillis(snapshot.get95thPercentile()));
+            operation.put("p99Ms", toMillis(snapshot.get99thPercentile()));
+            operation.put("maxMs", toMillis(snapshot.getMax()));
+            operations.put(name, operation);
+        }
+        result.put("operations", operations);
+        Map<String, Long> errors = new LinkedHashMap<>();
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            if (entry.getKey().startsWith(METRICS_PREFIX + "errors.")) {
+                errors.put(entry.getKey().substring((METRICS_PREFIX + "errors.").length()), entry.getValue().getCount());
+            }
+        }
+        result.put("errors", errors);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printResult(Map<String, Object> result) {
+        System.out.println(String.format("%nFinished %d of %d crawl jobs (%d failed) in %.1f s, up to %d active, %.1f Heritrix requests/s",
+                result.get("finishedJobs"), result.get("jobs"), result.get("failedJobs"), result.get("seconds"),
+                result.get("maxActiveJobs"), result.get("heritrixRequestsPerSecond")));
+        System.out.println(String.format("%-20s %8s %10s %10s %10s %10s", "Operation", "Count", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) result.get("operations")).entrySet()) {
+            Map<String, Object> operation = (Map<String, Object>) entry.getValue();
+            System.out.println(String.format("%-20s %8d %10.1f %10.1f %10.1f %10.1f", entry.getKey(), operation.get("count"),
+                    operation.get("p50Ms"), operation.get("p95Ms"), operation.get("p99Ms"), operation.get("maxMs")));
+        }
+        System.out.println("Errors: " + result.get("errors"));
+        if (result.containsKey("simulatorStates")) {
+            System.out.println("Simulator job states: " + result.get("simulatorStates"));
+        }
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,465 @@
+package org.verapdf.benchmarks.heritrix;
+
+import com.sun.net.httpserver.BasicAuthenticator;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.verapdf.benchmarks.CommandLineOptions;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stand-in for the Heritrix 3 REST API used by Logius, for control plane load tests without a real crawler.
+ * Implements engine page and job creation, job actions (build, launch, pause, unpause, terminate, teardown),
+ * crawler-beans.cxml upload and download and the job status page as XML and HTML. Jobs do not crawl,
+ * their progress is scripted by {@link SimulatorSettings}. POST requests are answered with a redirect
+ * to the same page as Heritrix does.
+ *
+ * Options of the standalone simulator:
+ *   --port N                 listening port, 8443 by default
+ *   --keystore FILE          serve HTTPS with the key from this JKS keystore, plain HTTP if not given
+ *   --keystore-password P    password of the keystore and of the key
+ *   other options set the same named fields of SimulatorSettings, e.g. --min-crawl-ms 5000
+ */
+public class HeritrixSimulator implements Closeable {
+    private static final String XML_TYPE = "application/xml";
+    private static final String CONFIGURATION_FILE = "crawler-beans.cxml";
+    private static final String JOB_PATH = "/engine/job/";
+    private static final String JOBDIR_PATH = "/jobdir/" + CONFIGURATION_FILE;
+    private static final long SALT_CRAWL_TIME = 1;
+    private static final long SALT_ABORT = 2;
+    private static final int BACKLOG = 1024;
+
+    private final SimulatorSettings settings;
+    private final Map<String, SimulatedJob> jobs = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private String url;
+
+    public HeritrixSimulator(SimulatorSettings settings) {
+        if (settings.getMinCrawlMs() > settings.getMaxCrawlMs()) {
+            throw new IllegalArgumentException("minCrawlMs is greater than maxCrawlMs");
+        }
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "8443"));
+        SSLContext sslContext = null;
+        if (options.containsKey("keystore")) {
+            sslContext = createSslContext(new File(options.get("keystore")), options.getOrDefault("keystore-password", ""));
+        }
+        options.remove("port");
+        options.remove("keystore");
+        options.remove("keystore-password");
+        HeritrixSimulator simulator = new HeritrixSimulator(parseSettings(options));
+        simulator.start(port, sslContext);
+        System.out.println("Heritrix simulator is listening at " + simulator.getUrl());
+    }
+
+    // Options are named after settings fields in dashed form, e.g. min-crawl-ms for minCrawlMs
+    public static SimulatorSettings parseSettings(Map<String, String> options) {
+        SimulatorSettings result = new SimulatorSettings();
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            String value = option.getValue();
+            switch (option.getKey()) {
+                case "seed": result.setSeed(Long.parseLong(value)); break;
+                case "threads": result.setThreads(Integer.parseInt(value)); break;
+                case "username": result.setUsername(value.isEmpty() ? null : value); break;
+                case "password": result.setPassword(value); break;
+                case "jobs-directory": result.setJobsDirectory(new File(value)); break;
+                case "latency-ms": result.setLatencyMs(Long.parseLong(value)); break;
+                case "latency-jitter-ms": result.setLatencyJitterMs(Long.parseLong(value)); break;
+                case "build-latency-ms": result.setBuildLatencyMs(Long.parseLong(value)); break;
+                case "launch-latency-ms": result.setLaunchLatencyMs(Long.parseLong(value)); break;
+                case "preparing-ms": result.setPreparingMs(Long.parseLong(value)); break;
+                case "min-crawl-ms": result.setMinCrawlMs(Long.parseLong(value)); break;
+                case "max-crawl-ms": result.setMaxCrawlMs(Long.parseLong(value)); break;
+                case "downloads-per-second": result.setDownloadsPerSecond(Integer.parseInt(value)); break;
+                case "abort-percent": result.setAbortPercent(Integer.parseInt(value)); break;
+                case "error-percent": result.setErrorPercent(Integer.parseInt(value)); break;
+                default: throw new IllegalArgumentException("Unknown simulator option " + option.getKey());
+            }
+        }
+        return result;
+    }
+
+    public static SSLContext createSslContext(File keystoreFile, String password) throws IOException, GeneralSecurityException {
+        KeyStore keystore = KeyStore.getInstance("JKS");
+        try (InputStream input = new FileInputStream(keystoreFile)) {
+            keystore.load(input, password.toCharArray());
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keystore, password.toCharArray());
+        SSLContext result = SSLContext.getInstance("TLS");
+        result.init(keyManagers.getKeyManagers(), null, null);
+        return result;
+    }
+
+    // Port 0 picks a free port; sslContext is null for plain HTTP
+    public void start(int port, SSLContext sslContext) throws IOException {
+        if (!settings.getJobsDirectory().isDirectory() && !settings.getJobsDirectory().mkdirs()) {
+            throw new IOException("Can not create " + settings.getJobsDirectory());
+        }
+        InetSocketAddress address = new InetSocketAddress("localhost", port);
+        if (sslContext == null) {
+            server = HttpServer.create(address, BACKLOG);
+        } else {
+            HttpsServer httpsServer = HttpsServer.create(address, BACKLOG);
+            httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+            server = httpsServer;
+        }
+        HttpContext context = server.createContext("/engine", this::handle);
+        if (settings.getUsername() != null) {
+            context.setAuthenticator(new BasicAuthenticator("Heritrix") {
+                @Override
+                public boolean checkCredentials(String username, String password) {
+                    return settings.getUsername().equals(username) && settings.getPassword().equals(password);
+                }
+            });
+        }
+        executor = Executors.newFixedThreadPool(settings.getThreads());
+        server.setExecutor(executor);
+        server.start();
+        url = (sslContext == null ? "http" : "https") + "://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    // Base URL to be used as heritrixUrl of Logius
+    public String getUrl() {
+        return url;
+    }
+
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    // Number of jobs in each state, for the load driver to compare with what Logius sees
+    public Map<SimulatedJob.State, Integer> getStateCounts() {
+        long now = System.currentTimeMillis();
+        Map<SimulatedJob.State, Integer> result = new EnumMap<>(SimulatedJob.State.class);
+        for (SimulatedJob job : jobs.values()) {
+            result.merge(job.getState(now), 1, Integer::sum);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    //<editor-fold desc="Request handling">
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            Map<String, String> form = "POST".equals(method) ? readForm(exchange) : Collections.emptyMap();
+            delay(form.get("action"));
+            if (settings.getErrorPercent() > 0 && ThreadLocalRandom.current().nextInt(100) < settings.getErrorPercent()) {
+                send(exchange, 500, "text/plain", "Simulated error");
+            } else if (path.equals("/engine") || path.equals("/engine/")) {
+                handleEngine(exchange, method, form);
+            } else if (path.startsWith(JOB_PATH) && path.endsWith(JOBDIR_PATH)) {
+                handleConfiguration(exchange, method, path.substring(JOB_PATH.length(), path.length() - JOBDIR_PATH.length()));
+            } else if (path.startsWith(JOB_PATH) && path.indexOf('/', JOB_PATH.length()) < 0) {
+                handleJob(exchange, method, form, path.substring(JOB_PATH.length()));
+            } else {
+                send(exchange, 404, "text/plain", "Not found");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleEngine(HttpExchange exchange, String method, Map<String, String> form) throws IOException {
+        if ("POST".equals(method)) {
+            String job = form.get("createpath");
+            if ("create".equals(form.get("action")) && job != null && !job.isEmpty() && !job.contains("/")) {
+                createJob(job);
+            }
+            redirect(exchange, "/engine");
+        } else if (isXmlRequested(exchange)) {
+            StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone='yes'?>\n<engine>\n")
+                    .append("  <heritrixVersion>3.2.0-simulator</heritrixVersion>\n")
+                    .append("  <jobsDir>").append(escape(settings.getJobsDirectory().getAbsolutePath())).append("</jobsDir>\n")
+                    .append("  <jobs>\n");
+            long now = System.currentTimeMillis();
+            for (SimulatedJob job : jobs.values()) {
+                xml.append("    <value>\n      <shortName>").append(escape(job.getName())).append("</shortName>\n")
+                        .append("      <url>").append(escape(url)).append("engine/job/").append(escape(job.getName())).append("</url>\n")
+                        .append("      <statusDescription>").append(job.getStatusDescription(now)).append("</statusDescription>\n")
+                        .append("    </value>\n");
+            }
+            xml.append("  </jobs>\n</engine>\n");
+            send(exchange, 200, XML_TYPE, xml.toString());
+        } else {
+            send(exchange, 200, "text/html", "<html><head><title>Heritrix Engine</title></head><body>\n<h1>Heritrix Engine 3.2.0-simulator</h1>\n<p>" +
+                    jobs.size() + " jobs</p>\n</body></html>\n");
+        }
+    }
+
+    private void handleJob(HttpExchange exchange, String method, Map<String, String> form, String name) throws IOException {
+        SimulatedJob job = jobs.get(name);
+        if (job == null) {
+            send(exchange, 404, "text/plain", "No such job " + name);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if ("POST".equals(method)) {
+            String action = form.getOrDefault("action", "");
+            switch (action) {
+                case "build":
+                    job.build();
+                    break;
+                case "launch":
+                    File launchDirectory = job.launch(now);
+                    if (launchDirectory != null) {
+                        writeLaunchDirectory(job, launchDirectory);
+                    }
+                    break;
+                case "pause":
+                    job.pause(now);
+                    break;
+                case "unpause":
+                    job.unpause(now);
+                    break;
+                case "terminate":
+                    job.terminate(now);
+                    break;
+                case "teardown":
+                    job.teardown(now);
+                    break;
+                default:
+                    // Heritrix ignores unknown actions as well
+            }
+            redirect(exchange, JOB_PATH + name);
+        } else if (isXmlRequested(exchange)) {
+            send(exchange, 200, XML_TYPE, buildStatusXml(job, now));
+        } else {
+            send(exchange, 200, "text/html", buildStatusHtml(job, now));
+        }
+    }
+
+    private void handleConfiguration(HttpExchange exchange, String method, String name) throws IOException {
+        SimulatedJob job = jobs.get(name);
+        if (job == null) {
+            send(exchange, 404, "text/plain", "No such job " + name);
+        } else if ("PUT".equals(method)) {
+            byte[] configuration = readAll(exchange.getRequestBody());
+            Files.write(new File(job.getDirectory(), CONFIGURATION_FILE).toPath(), configuration);
+            job.setConfiguration(configuration);
+            send(exchange, 200, "text/plain", "");
+        } else if (job.getConfiguration() == null) {
+            send(exchange, 404, "text/plain", "No " + CONFIGURATION_FILE + " in job " + name);
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", XML_TYPE);
+            exchange.sendResponseHeaders(200, job.getConfiguration().length);
+            exchange.getResponseBody().write(job.getConfiguration());
+        }
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="Private helpers">
+
+    private void createJob(String name) throws IOException {
+        if (jobs.containsKey(name)) { // Heritrix keeps the existing job
+            return;
+        }
+        File directory = new File(settings.getJobsDirectory(), name);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can not create " + directory);
+        }
+        long range = settings.getMaxCrawlMs() - settings.getMinCrawlMs() + 1;
+        long crawlMs = settings.getMinCrawlMs() + Long.remainderUnsigned(hash(SALT_CRAWL_TIME, name), range);
+        boolean isAborting = Long.remainderUnsigned(hash(SALT_ABORT, name), 100) < settings.getAbortPercent();
+        jobs.putIfAbsent(name, new SimulatedJob(name, directory, crawlMs, isAborting, settings.getPreparingMs(),
+                settings.getDownloadsPerSecond()));
+    }
+
+    // Heritrix copies configuration into the launch directory, Logius reads it from there for finished jobs
+    private static void writeLaunchDirectory(SimulatedJob job, File launchDirectory) throws IOException {
+        File logs = new File(launchDirectory, "logs");
+        File mirror = new File(launchDirectory, "mirror");
+        if (!logs.isDirectory() && !logs.mkdirs() || !mirror.isDirectory() && !mirror.mkdirs()) {
+            throw new IOException("Can not create " + launchDirectory);
+        }
+        Files.write(new File(launchDirectory, CONFIGURATION_FILE).toPath(), job.getConfiguration());
+        Files.write(new File(logs, "crawl.log").toPath(), new byte[0]);
+    }
+
+    private String buildStatusXml(SimulatedJob job, long now) {
+        String status = job.getStatusDescription(now);
+        SimulatedJob.State state = job.getState(now);
+        long downloaded = job.getDownloadedCount(now);
+        long total = job.getTotalCount();
+        long queued = state == SimulatedJob.State.FINISHED ? 0 : total - downloaded;
+        long elapsed = job.getRunningMs(now);
+        File launchDirectory = job.getLaunchDirectory();
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone='yes'?>\n<job>\n");
+        xml.append("  <shortName>").append(escape(job.getName())).append("</shortName>\n");
+        if (state != SimulatedJob.State.UNBUILT && state != SimulatedJob.State.READY) {
+            xml.append("  <crawlControllerState>").append(state).append("</crawlControllerState>\n");
+        }
+        if (job.getExitStatus() != null) {
+            xml.append("  <crawlExitStatus>").append(job.getExitStatus()).append("</crawlExitStatus>\n");
+        }
+        xml.append("  <statusDescription>").append(status).append("</statusDescription>\n");
+        xml.append("  <availableActions>\n");
+        for (String action : getAvailableActions(state)) {
+            xml.append("    <value>").append(action).append("</value>\n");
+        }
+        xml.append("  </availableActions>\n");
+        xml.append("  <launchCount>").append(job.getLaunchCount()).append("</launchCount>\n");
+        if (job.getLaunchCount() > 0) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            xml.append("  <lastLaunch>").append(format.format(new Date(job.getLastLaunch()))).append("</lastLaunch>\n");
+        }
+        xml.append("  <isProfile>false</isProfile>\n");
+        xml.append("  <primaryConfig>").append(escape(new File(job.getDirectory(), CONFIGURATION_FILE).getAbsolutePath()))
+                .append("</primaryConfig>\n");
+        xml.append("  <url>").append(escape(url)).append("engine/job/").append(escape(job.getName())).append("</url>\n");
+        if (launchDirectory != null) {
+            xml.append("  <uriTotalsReport>\n")
+                    .append("    <downloadedUriCount>").append(downloaded).append("</downloadedUriCount>\n")
+                    .append("    <queuedUriCount>").append(queued).append("</queuedUriCount>\n")
+                    .append("    <totalUriCount>").append(downloaded + queued).append("</totalUriCount>\n")
+                    .append("    <futureUriCount>0</futureUriCount>\n")
+                    .append("  </uriTotalsReport>\n");
+            xml.append("  <rateReport>\n")
+                    .append("    <currentDocsPerSecond>").append(state == SimulatedJob.State.RUNNING ? settings.getDownloadsPerSecond() : 0)
+                    .append("</currentDocsPerSecond>\n")
+                    .append("    <averageDocsPerSecond>").append(elapsed > 0 ? downloaded * 1000.0 / elapsed : 0.0)
+                    .append("</averageDocsPerSecond>\n")
+                    .append("  </rateReport>\n");
+            xml.append("  <elapsedReport>\n")
+                    .append("    <elapsedMilliseconds>").append(elapsed).append("</elapsedMilliseconds>\n")
+                    .append("  </elapsedReport>\n");
+        }
+        xml.append("</job>\n");
+        return xml.toString();
+    }
+
+    // Logius takes the crawl log link of this page to find the launch directory of the job
+    private String buildStatusHtml(SimulatedJob job, long now) {
+        File launchDirectory = job.getLaunchDirectory();
+        File directory = launchDirectory == null ? job.getDirectory() : launchDirectory;
+        return "<html><head><title>Job " + escape(job.getName()) + "</title></head><body>\n" +
+                "<h1>Job <i>" + escape(job.getName()) + "</i> (" + job.getLaunchCount() + " launches)</h1>\n" +
+                "<div>Job is " + job.getStatusDescription(now) + "</div>\n" +
+                "<h3>Crawl Log <a href=\"/engine/anypath/" + escape(directory.getAbsolutePath()) +
+                "/logs/crawl.log?format=paged\">more</a></h3>\n" +
+                "</body></html>\n";
+    }
+
+    private static List<String> getAvailableActions(SimulatedJob.State state) {
+        switch (state) {
+            case UNBUILT:
+                return Collections.singletonList("build");
+            case READY:
+                return Arrays.asList("launch", "teardown");
+            case PREPARING:
+            case RUNNING:
+                return Arrays.asList("pause", "terminate");
+            case PAUSED:
+                return Arrays.asList("unpause", "terminate");
+            default:
+                return Collections.singletonList("teardown");
+        }
+    }
+
+    private void delay(String action) throws InterruptedException {
+        long latency = settings.getLatencyMs();
+        if (settings.getLatencyJitterMs() > 0) {
+            latency += ThreadLocalRandom.current().nextLong(settings.getLatencyJitterMs() + 1);
+        }
+        if ("build".equals(action)) {
+            latency += settings.getBuildLatencyMs();
+        } else if ("launch".equals(action)) {
+            latency += settings.getLaunchLatencyMs();
+        }
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+
+    private static boolean isXmlRequested(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains(XML_TYPE);
+    }
+
+    private static Map<String, String> readForm(HttpExchange exchange) throws IOException {
+        Map<String, String> result = new HashMap<>();
+        String body = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                result.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return result;
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            result.write(buffer, 0, read);
+        }
+        return result.toByteArray();
+    }
+
+    private static void redirect(HttpExchange exchange, String location) throws IOException {
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(303, -1);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+        exchange.sendResponseHeaders(status, content.length == 0 ? -1 : content.length);
+        if (content.length > 0) {
+            exchange.getResponseBody().write(content);
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    // SplitMix64 finalizer over seed, salt and job name
+    private long hash(long salt, String name) {
+        long result = settings.getSeed() * 0x9E3779B97F4A7C15L + salt * 0xC2B2AE3D27D4EB4FL + name.hashCode();
+        result = (result ^ (result >>> 30)) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+        return result ^ (result >>> 31);
+    }
+
+    //</editor-fold>
+}
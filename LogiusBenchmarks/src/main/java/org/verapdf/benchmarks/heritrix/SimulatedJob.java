@@ -0,0 +1,188 @@
+package org.verapdf.benchmarks.heritrix;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Heritrix job with scripted progress: after launch the job is PREPARING for a while, then RUNNING
+ * until its running time is used up, downloading at a constant rate. The running time and the exit
+ * status are chosen by the simulator when the job is created.
+ */
+class SimulatedJob {
+    enum State { UNBUILT, READY, PREPARING, RUNNING, PAUSED, FINISHED }
+
+    private final String name;
+    private final File directory;
+    private final long crawlMs;
+    private final boolean isAborting;
+    private final long preparingMs;
+    private final int downloadsPerSecond;
+
+    private State state = State.UNBUILT;
+    private byte[] configuration;
+    private File launchDirectory;
+    private int launchCount;
+    private long lastLaunch;
+    // Running time before the last pause and start of the current running period
+    private long runningMs;
+    private long runningSince;
+    private String exitStatus;
+
+    SimulatedJob(String name, File directory, long crawlMs, boolean isAborting, long preparingMs, int downloadsPerSecond) {
+        this.name = name;
+        this.directory = directory;
+        this.crawlMs = crawlMs;
+        this.isAborting = isAborting;
+        this.preparingMs = preparingMs;
+        this.downloadsPerSecond = downloadsPerSecond;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    synchronized File getLaunchDirectory() {
+        return launchDirectory;
+    }
+
+    synchronized byte[] getConfiguration() {
+        return configuration;
+    }
+
+    synchronized void setConfiguration(byte[] configuration) {
+        this.configuration = configuration;
+    }
+
+    synchronized boolean build() {
+        if (state != State.UNBUILT || configuration == null) {
+            return false;
+        }
+        state = State.READY;
+        return true;
+    }
+
+    // Returns launch directory if the job has been launched
+    synchronized File launch(long now) {
+        if (state != State.READY) {
+            return null;
+        }
+        state = State.PREPARING;
+        launchCount++;
+        lastLaunch = now;
+        runningMs = 0;
+        runningSince = now + preparingMs;
+        exitStatus = null;
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        launchDirectory = new File(directory, format.format(new Date(now)));
+        return launchDirectory;
+    }
+
+    synchronized void pause(long now) {
+        update(now);
+        if (state == State.RUNNING) {
+            runningMs += now - runningSince;
+            state = State.PAUSED;
+        }
+    }
+
+    synchronized void unpause(long now) {
+        update(now);
+        if (state == State.PAUSED) {
+            runningSince = now;
+            state = State.RUNNING;
+        }
+    }
+
+    synchronized void terminate(long now) {
+        update(now);
+        if (isActive()) {
+            runningMs = getRunningMs(now);
+            finish("ABORTED");
+        }
+    }
+
+    // Heritrix keeps the job directory and configuration, the job needs to be built again
+    synchronized void teardown(long now) {
+        terminate(now);
+        state = State.UNBUILT;
+    }
+
+    synchronized State getState(long now) {
+        update(now);
+        return state;
+    }
+
+    synchronized String getStatusDescription(long now) {
+        update(now);
+        switch (state) {
+            case UNBUILT:
+                return "Unbuilt";
+            case READY:
+                return "Ready";
+            case FINISHED:
+                return "Finished: " + exitStatus;
+            default:
+                return "Active: " + state;
+        }
+    }
+
+    synchronized String getExitStatus() {
+        return exitStatus;
+    }
+
+    synchronized int getLaunchCount() {
+        return launchCount;
+    }
+
+    synchronized long getLastLaunch() {
+        return lastLaunch;
+    }
+
+    synchronized long getDownloadedCount(long now) {
+        update(now);
+        return getRunningMs(now) * downloadsPerSecond / 1000;
+    }
+
+    synchronized long getTotalCount() {
+        return crawlMs * downloadsPerSecond / 1000;
+    }
+
+    synchronized long getRunningMs(long now) {
+        update(now);
+        if (state == State.RUNNING) {
+            return Math.min(crawlMs, runningMs + now - runningSince);
+        }
+        return runningMs;
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private boolean isActive() {
+        return state == State.PREPARING || state == State.RUNNING || state == State.PAUSED;
+    }
+
+    // Moves the job along its script up to the given time
+    private void update(long now) {
+        if (state == State.PREPARING && now >= runningSince) {
+            state = State.RUNNING;
+        }
+        if (state == State.RUNNING && runningMs + now - runningSince >= crawlMs) {
+            runningMs = crawlMs;
+            finish(isAborting ? "ABORTED" : "FINISHED");
+        }
+    }
+
+    private void finish(String status) {
+        state = State.FINISHED;
+        exitStatus = status;
+    }
+
+    //</editor-fold>
+}
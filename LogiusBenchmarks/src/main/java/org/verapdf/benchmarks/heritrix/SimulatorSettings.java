@@ -0,0 +1,152 @@
+package org.verapdf.benchmarks.heritrix;
+
+import java.io.File;
+
+public class SimulatorSettings {
+    private long seed = 1;
+    private int threads = 64;
+    private String username = "admin";
+    private String password = "logius";
+    private File jobsDirectory = new File(System.getProperty("java.io.tmpdir"), "heritrix-simulator");
+    private long latencyMs = 0;
+    private long latencyJitterMs = 0;
+    private long buildLatencyMs = 0;
+    private long launchLatencyMs = 0;
+    private long preparingMs = 1000;
+    private long minCrawlMs = 10000;
+    private long maxCrawlMs = 60000;
+    private int downloadsPerSecond = 20;
+    private int abortPercent = 0;
+    private int errorPercent = 0;
+
+    // Same seed gives every job the same script
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Request handler threads, latency of a request keeps its thread busy as in Heritrix
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    // Basic authentication is required if username is set
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    // Job configurations and launch directories are written here, so that Logius can read them as from Heritrix
+    public File getJobsDirectory() {
+        return jobsDirectory;
+    }
+
+    public void setJobsDirectory(File jobsDirectory) {
+        this.jobsDirectory = jobsDirectory;
+    }
+
+    // Delay before every response
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    // Upper bound of a pseudo-random delay added to latencyMs
+    public long getLatencyJitterMs() {
+        return latencyJitterMs;
+    }
+
+    public void setLatencyJitterMs(long latencyJitterMs) {
+        this.latencyJitterMs = latencyJitterMs;
+    }
+
+    // Additional delay of build action, Heritrix builds the Spring context of the job on it
+    public long getBuildLatencyMs() {
+        return buildLatencyMs;
+    }
+
+    public void setBuildLatencyMs(long buildLatencyMs) {
+        this.buildLatencyMs = buildLatencyMs;
+    }
+
+    public long getLaunchLatencyMs() {
+        return launchLatencyMs;
+    }
+
+    public void setLaunchLatencyMs(long launchLatencyMs) {
+        this.launchLatencyMs = launchLatencyMs;
+    }
+
+    // Time a launched job stays in PREPARING state
+    public long getPreparingMs() {
+        return preparingMs;
+    }
+
+    public void setPreparingMs(long preparingMs) {
+        this.preparingMs = preparingMs;
+    }
+
+    // Running time of a job is chosen per job between minCrawlMs and maxCrawlMs, pauses are not counted
+    public long getMinCrawlMs() {
+        return minCrawlMs;
+    }
+
+    public void setMinCrawlMs(long minCrawlMs) {
+        this.minCrawlMs = minCrawlMs;
+    }
+
+    public long getMaxCrawlMs() {
+        return maxCrawlMs;
+    }
+
+    public void setMaxCrawlMs(long maxCrawlMs) {
+        this.maxCrawlMs = maxCrawlMs;
+    }
+
+    public int getDownloadsPerSecond() {
+        return downloadsPerSecond;
+    }
+
+    public void setDownloadsPerSecond(int downloadsPerSecond) {
+        this.downloadsPerSecond = downloadsPerSecond;
+    }
+
+    // Share of jobs which end with ABORTED exit status instead of FINISHED
+    public int getAbortPercent() {
+        return abortPercent;
+    }
+
+    public void setAbortPercent(int abortPercent) {
+        this.abortPercent = abortPercent;
+    }
+
+    // Share of requests answered with 500
+    public int getErrorPercent() {
+        return errorPercent;
+    }
+
+    public void setErrorPercent(int errorPercent) {
+        this.errorPercent = errorPercent;
+    }
+}
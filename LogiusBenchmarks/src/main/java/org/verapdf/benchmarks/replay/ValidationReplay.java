@@ -0,0 +1,226 @@
+package org.verapdf.benchmarks.replay;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.dropwizard.configuration.YamlConfigurationFactory;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import org.verapdf.benchmarks.CommandLineOptions;
+import org.verapdf.benchmarks.UniformTimerRegistry;
+import org.verapdf.crawler.app.configuration.LogiusConfiguration;
+import org.verapdf.crawler.app.resources.ResourceManager;
+import org.verapdf.crawler.app.configuration.ValidationLaneSettings;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.app.site.DocumentGenerator;
+import org.verapdf.crawler.app.site.DocumentKind;
+import org.verapdf.crawler.domain.validation.ValidationJobData;
+import org.verapdf.crawler.repository.document.ValidatedPDFDao;
+import org.verapdf.crawler.repository.jobs.BatchJobDao;
+import org.verapdf.crawler.validation.ValidationService;
+import org.verapdf.crawler.validation.VerapdfServiceBalancer;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a corpus through the validation pipeline of Logius: validation jobs are seeded into validation_jobs
+ * of the configured database and validated by an in-process ValidationService on the configured VeraPDFService
+ * instances, usually running the fake veraPDF executable. Reports end-to-end documents per second and
+ * percentiles of every pipeline stage as a table and as JSON.
+ *
+ * Options:
+ *   --config FILE          Logius config file with database, VeraPDFService instances and validation lanes (required)
+ *   --corpus DIR           replay copies of the files of a recorded corpus
+ *   --synthetic N          replay N generated PDF files (default if no corpus is given, 1000 files)
+ *   --min-size BYTES       smallest generated file, 4096 by default
+ *   --max-size BYTES       largest generated file, 1048576 by default
+ *   --not-pdfa-percent P   share of generated files without PDF/A claim, rejected by triage, 0 by default
+ *   --work-dir DIR         directory for job files, system temporary directory by default
+ *   --output FILE          JSON result file, replay-result.json by default
+ *   --timeout-minutes M    replay is aborted after this time, 60 by default
+ */
+public class ValidationReplay {
+    private static final String LAST_MODIFIED = "Last-Modified: Tue, 15 Nov 2016 08:12:31 GMT";
+    private static final String METRICS_PREFIX = "logius.validation.";
+    private static final int SEED_BATCH_SIZE = 500;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        if (!options.containsKey("config")) {
+            System.err.println("Usage: ValidationReplay --config logius.yml [--corpus DIR | --synthetic N] [options]");
+            System.exit(2);
+        }
+        LogiusConfiguration configuration = new YamlConfigurationFactory<>(LogiusConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "dw").build(new File(options.get("config")));
+        String crawlJobId = "replay-" + UUID.randomUUID();
+        File workDirectory = new File(options.getOrDefault("work-dir", System.getProperty("java.io.tmpdir")), crawlJobId);
+        File jobDirectory = new File(workDirectory, crawlJobId + "/replay/jobdir");
+        if (!jobDirectory.mkdirs()) {
+            throw new IOException("Can not create " + jobDirectory);
+        }
+
+        List<File> files = options.containsKey("corpus") ?
+                copyCorpus(new File(options.get("corpus")), workDirectory) :
+                generateCorpus(Integer.parseInt(options.getOrDefault("synthetic", "1000")),
+                        Long.parseLong(options.getOrDefault("min-size", "4096")),
+                        Long.parseLong(options.getOrDefault("max-size", "1048576")),
+                        Integer.parseInt(options.getOrDefault("not-pdfa-percent", "0")), workDirectory);
+        System.out.println("Prepared " + files.size() + " files in " + workDirectory);
+
+        MetricRegistry registry = new UniformTimerRegistry();
+        DataSource dataSource = ResourceManager.createMySqlDatasource(configuration.getCredentials());
+        List<ValidationLaneSettings> lanes = configuration.getEffectiveValidationLanes();
+        Set<String> verapdfUrls = new LinkedHashSet<>();
+        for (ValidationLaneSettings lane : lanes) {
+            verapdfUrls.addAll(lane.getVerapdfUrls());
+        }
+        VerapdfServiceBalancer balancer = new VerapdfServiceBalancer(verapdfUrls,
+                TimeUnit.SECONDS.toMillis(configuration.getVerapdfHealthCheckIntervalSeconds()));
+        ValidationService service = new ValidationService(lanes, dataSource, new ValidatedPDFDao(dataSource),
+                new BatchJobDao(dataSource), configuration.isPdfTriageEnabled(), new PipelineMetrics(registry), balancer, configuration.isVerapdfUploadEnabled());
+        seed(service, files, jobDirectory, crawlJobId);
+        int documents = service.getQueueSize();
+        System.out.println("Seeded " + files.size() + " validation jobs of crawl job " + crawlJobId + ", " + documents + " jobs queued");
+
+        Thread balancerThread = new Thread(balancer, "replay-balancer");
+        balancerThread.setDaemon(true);
+        balancerThread.start();
+        Thread serviceThread = new Thread(service, "replay-validation");
+        serviceThread.setDaemon(true);
+        long start = System.nanoTime();
+        serviceThread.start();
+        long deadline = start + TimeUnit.MINUTES.toNanos(Long.parseLong(options.getOrDefault("timeout-minutes", "60")));
+        while (service.getQueueSize() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int validated = documents - service.getQueueSize();
+        balancer.stop();
+
+        Map<String, Object> result = buildResult(registry, crawlJobId, documents, validated, seconds);
+        printResult(result);
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File output = new File(options.getOrDefault("output", "replay-result.json"));
+        mapper.writeValue(output, result);
+        System.out.println("Result is saved to " + output.getAbsolutePath());
+        System.exit(validated == documents ? 0 : 1);
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // Every job gets its own copy, as ValidationService deletes files of completed jobs
+    private static List<File> copyCorpus(File corpus, File workDirectory) throws IOException {
+        File[] sources = corpus.listFiles(File::isFile);
+        if (sources == null || sources.length == 0) {
+            throw new IOException("No files in corpus " + corpus);
+        }
+        Arrays.sort(sources);
+        List<File> result = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++) {
+            File copy = new File(workDirectory, i + ".pdf");
+            Files.copy(sources[i].toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            result.add(copy);
+        }
+        return result;
+    }
+
+    private static List<File> generateCorpus(int count, long minSize, long maxSize, int notPdfaPercent,
+                                             File workDirectory) throws IOException {
+        DocumentGenerator generator = new DocumentGenerator();
+        Random random = new Random(count);
+        List<File> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File file = new File(workDirectory, i + ".pdf");
+            long size = minSize + (long) (random.nextDouble() * (maxSize - minSize + 1));
+            DocumentKind kind = random.nextInt(100) < notPdfaPercent ? DocumentKind.PDF : DocumentKind.PDFA;
+            try (OutputStream output = new FileOutputStream(file)) {
+                generator.write(kind, size, i, output);
+            }
+            result.add(file);
+        }
+        return result;
+    }
+
+    private static void seed(ValidationService service, List<File> files, File jobDirectory, String crawlJobId) {
+        List<ValidationJobData> batch = new ArrayList<>();
+        for (File file : files) {
+            ValidationJobData data = new ValidationJobData();
+            data.setFilepath(file.getAbsolutePath());
+            data.setJobDirectory(jobDirectory.getAbsolutePath());
+            data.setUri("http://replay.local/" + crawlJobId + "/" + file.getName());
+            data.setTime(LAST_MODIFIED);
+            batch.add(data);
+            if (batch.size() == SEED_BATCH_SIZE) {
+                service.addJobs(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            service.addJobs(batch);
+        }
+    }
+
+    private static Map<String, Object> buildResult(MetricRegistry registry, String crawlJobId, int documents,
+                                                   int validated, double seconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("crawlJobId", crawlJobId);
+        result.put("documents", documents);
+        result.put("validatedDocuments", validated);
+        result.put("seconds", seconds);
+        result.put("documentsPerSecond", validated / seconds);
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            if (!entry.getKey().startsWith(METRICS_PREFIX) || entry.getValue().getCount() == 0) {
+                continue;
+            }
+            Snapshot snapshot = entry.getValue().getSnapshot();
+            Map<String, Object> stage = new LinkedHashMap<>();
+            stage.put("count", entry.getValue().getCount());
+            stage.put("p50Ms", toMillis(snapshot.getMedian()));
+            stage.put("p95Ms", toMillis(snapshot.get95thPercentile()));
+            stage.put("p99Ms", toMillis(snapshot.get99thPercentile()));
+            stage.put("maxMs", toMillis(snapshot.getMax()));
+            stages.put(entry.getKey().substring(METRICS_PREFIX.length()), stage);
+        }
+        result.put("stages", stages);
+        Map<String, Long> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            if (entry.getKey().startsWith(METRICS_PREFIX + "results.")) {
+                results.put(entry.getKey().substring((METRICS_PREFIX + "results.").length()), entry.getValue().getCount());
+            }
+        }
+        result.put("results", results);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printResult(Map<String, Object> result) {
+        System.out.println(String.format("%nValidated %d of %d documents in %.1f s: %.2f documents/s",
+                result.get("validatedDocuments"), result.get("documents"), result.get("seconds"), result.get("documentsPerSecond")));
+        System.out.println(String.format("%-30s %8s %10s %10s %10s %10s", "Stage", "Count", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) result.get("stages")).entrySet()) {
+            Map<String, Object> stage = (Map<String, Object>) entry.getValue();
+            System.out.println(String.format("%-30s %8d %10.1f %10.1f %10.1f %10.1f", entry.getKey(), stage.get("count"),
+                    stage.get("p50Ms"), stage.get("p95Ms"), stage.get("p99Ms"), stage.get("maxMs")));
+        }
+        System.out.println("Results: " + result.get("results"));
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    //</editor-fold>
+}
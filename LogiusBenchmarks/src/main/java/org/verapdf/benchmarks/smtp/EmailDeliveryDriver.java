@@ -0,0 +1,140 @@
+package org.verapdf.benchmarks.smtp;
+
+import io.dropwizard.configuration.YamlConfigurationFactory;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import com.codahale.metrics.MetricRegistry;
+import org.verapdf.benchmarks.CommandLineOptions;
+import org.verapdf.crawler.app.configuration.LogiusConfiguration;
+import org.verapdf.crawler.app.email.EmailOutbox;
+import org.verapdf.crawler.app.email.SmtpMailer;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.app.resources.ResourceManager;
+import org.verapdf.crawler.domain.email.EmailServer;
+import org.verapdf.crawler.repository.email.EmailOutboxDao;
+
+import javax.mail.MessagingException;
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers notifications to an embedded SmtpStandIn and reports messages per second and SMTP connections used:
+ * first with a new connection per message, as notifications were sent before the outbox, then over the reused
+ * connection of SmtpMailer. With --config the whole outbox is run as well: notifications are written to the
+ * email_outbox table of the configured database and delivered, retried and given up by EmailOutbox.
+ *
+ * Options:
+ *   --messages N            number of notifications, 1000 by default
+ *   --latency-ms MS         delay of every SMTP reply, 0 by default
+ *   --failure-percent P     messages rejected by the stand-in with a temporary error, 0 by default
+ *   --config FILE           Logius config file whose database is used for the outbox run, use a separate database
+ *   --retry-delay-seconds S first retry delay of the outbox run, 1 by default
+ *   --timeout-minutes M     outbox run is aborted after this time, 10 by default
+ */
+public class EmailDeliveryDriver {
+    private static final String RECIPIENT = "logius-driver@example.com";
+    private static final String SUBJECT = "Crawl job";
+    private static final String TEXT = "Batch job was finished successfully. List of crawled domains:\nexample.com";
+    private static final long POLL_INTERVAL_MS = 100;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        int messages = Integer.parseInt(options.getOrDefault("messages", "1000"));
+        long latencyMs = Long.parseLong(options.getOrDefault("latency-ms", "0"));
+        int failurePercent = Integer.parseInt(options.getOrDefault("failure-percent", "0"));
+
+        try (SmtpStandIn standIn = new SmtpStandIn(latencyMs, failurePercent)) {
+            standIn.start(0);
+            EmailServer emailServer = createEmailServer(standIn.getPort());
+
+            int connections = standIn.getConnectionCount();
+            int received = standIn.getMessageCount();
+            long start = System.nanoTime();
+            int failed = 0;
+            for (int i = 0; i < messages; i++) {
+                try (SmtpMailer mailer = new SmtpMailer(emailServer)) {
+                    mailer.send(RECIPIENT, SUBJECT, TEXT);
+                } catch (MessagingException e) {
+                    failed++;
+                }
+            }
+            printResult("connection per message", standIn, start, connections, received, failed);
+
+            connections = standIn.getConnectionCount();
+            received = standIn.getMessageCount();
+            start = System.nanoTime();
+            failed = 0;
+            try (SmtpMailer mailer = new SmtpMailer(emailServer)) {
+                for (int i = 0; i < messages; i++) {
+                    try {
+                        mailer.send(RECIPIENT, SUBJECT, TEXT);
+                    } catch (MessagingException e) {
+                        failed++;
+                    }
+                }
+            }
+            printResult("reused connection", standIn, start, connections, received, failed);
+
+            if (options.containsKey("config")) {
+                runOutbox(options, emailServer, standIn, messages);
+            }
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private static EmailServer createEmailServer(int port) {
+        EmailServer emailServer = new EmailServer();
+        emailServer.host = "localhost";
+        emailServer.port = Integer.toString(port);
+        emailServer.address = "logius@example.com";
+        emailServer.startTls = false;
+        return emailServer;
+    }
+
+    private static void runOutbox(Map<String, String> options, EmailServer emailServer, SmtpStandIn standIn,
+                                  int messages) throws Exception {
+        LogiusConfiguration configuration = new YamlConfigurationFactory<>(LogiusConfiguration.class,
+                Validators.newValidator(), Jackson.newObjectMapper(), "dw").build(new File(options.get("config")));
+        emailServer.retryDelaySeconds = Long.parseLong(options.getOrDefault("retry-delay-seconds", "1"));
+        emailServer.pollIntervalSeconds = 1;
+        EmailOutboxDao dao = new EmailOutboxDao(ResourceManager.createMySqlDatasource(configuration.getCredentials()));
+        if (dao.getPendingCount() > 0) {
+            System.err.println("email_outbox of the database has pending notifications, use a separate database");
+            System.exit(2);
+        }
+        MetricRegistry registry = new MetricRegistry();
+        EmailOutbox outbox = new EmailOutbox(dao, new SmtpMailer(emailServer), emailServer, new PipelineMetrics(registry));
+
+        int connections = standIn.getConnectionCount();
+        int received = standIn.getMessageCount();
+        long start = System.nanoTime();
+        Thread sender = new Thread(outbox);
+        sender.start();
+        for (int i = 0; i < messages; i++) {
+            outbox.send(RECIPIENT, SUBJECT, TEXT);
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(
+                Long.parseLong(options.getOrDefault("timeout-minutes", "10")));
+        while (dao.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+        sender.interrupt();
+        sender.join();
+        int given = messages - (standIn.getMessageCount() - received);
+        printResult("outbox", standIn, start, connections, received, given);
+        System.out.println("  failed attempts " + registry.meter("logius.smtp.failures").getCount()
+                + ", still pending " + dao.getPendingCount());
+    }
+
+    private static void printResult(String name, SmtpStandIn standIn, long startNanos, int connectionsBefore,
+                                    int receivedBefore, int failed) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        int received = standIn.getMessageCount() - receivedBefore;
+        System.out.printf("%-24s %6d delivered, %4d not delivered, %6d connections, %8.1f messages/s%n", name,
+                received, failed, standIn.getConnectionCount() - connectionsBefore, received / seconds);
+    }
+
+    //</editor-fold>
+}
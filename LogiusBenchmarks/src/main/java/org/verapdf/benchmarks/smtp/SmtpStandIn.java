@@ -0,0 +1,178 @@
+package org.verapdf.benchmarks.smtp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.benchmarks.CommandLineOptions;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plain SMTP server for delivery tests of Logius notifications without a real mail server. Accepts every sender
+ * and recipient, keeps received messages in memory and counts connections, so that reuse of connections is
+ * visible. Supports HELO, EHLO (without extensions, so clients neither start TLS nor authenticate), MAIL, RCPT,
+ * DATA, RSET, NOOP and QUIT. Every command can be delayed, and a share of messages can be rejected with a
+ * temporary error after DATA, which is what a client retries.
+ *
+ * Options of the standalone server:
+ *   --port N                listening port, 2525 by default
+ *   --latency-ms MS         delay of every reply, 0 by default
+ *   --failure-percent P     messages rejected with 451, 0 by default
+ */
+public class SmtpStandIn implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+
+    private final long latencyMs;
+    private volatile int failurePercent;
+    private final List<String> messages = new ArrayList<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger rejectedCount = new AtomicInteger();
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+
+    public SmtpStandIn(long latencyMs, int failurePercent) {
+        this.latencyMs = latencyMs;
+        this.failurePercent = failurePercent;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = CommandLineOptions.parse(args);
+        SmtpStandIn standIn = new SmtpStandIn(Long.parseLong(options.getOrDefault("latency-ms", "0")),
+                Integer.parseInt(options.getOrDefault("failure-percent", "0")));
+        standIn.start(Integer.parseInt(options.getOrDefault("port", "2525")));
+        System.out.println("SMTP stand-in listens on port " + standIn.getPort());
+    }
+
+    // Port 0 takes any free port
+    public void start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        executor = Executors.newCachedThreadPool();
+        executor.submit(this::accept);
+    }
+
+    // Takes effect from the next message, so that tests can let a mail server fail and recover
+    public void setFailurePercent(int failurePercent) {
+        this.failurePercent = failurePercent;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    // Accepted messages as received after DATA, with headers
+    public List<String> getMessages() {
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    public int getMessageCount() {
+        synchronized (messages) {
+            return messages.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                executor.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.error("Error on accepting SMTP connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket ignored = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            reply(out, "220 localhost SMTP stand-in");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                switch (command) {
+                    case "HELO":
+                    case "EHLO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "MAIL":
+                    case "RCPT":
+                    case "RSET":
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String message = readData(in);
+                        if (failurePercent > 0 && ThreadLocalRandom.current().nextInt(100) < failurePercent) {
+                            rejectedCount.incrementAndGet();
+                            reply(out, "451 Requested action aborted: local error in processing");
+                        } else {
+                            synchronized (messages) {
+                                messages.add(message);
+                            }
+                            reply(out, "250 OK");
+                        }
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        reply(out, "500 Command not recognized");
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Connection is dropped by the client or the stand-in is closed
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder message = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // Leading dot of a line is doubled by the client
+            message.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return message.toString();
+    }
+
+    private void reply(Writer out, String reply) throws IOException, InterruptedException {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        out.write(reply + "\r\n");
+        out.flush();
+    }
+
+    //</editor-fold>
+}
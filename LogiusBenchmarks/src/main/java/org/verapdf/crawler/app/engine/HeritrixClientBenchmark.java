@@ -0,0 +1,67 @@
+package org.verapdf.crawler.app.engine;
+
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of Heritrix responses and building of seed SURTs, for jobs with different numbers of seeds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeritrixClientBenchmark {
+
+    @Param({"1", "1000"})
+    public int seeds;
+
+    private String configuration;
+    private byte[] status;
+    private String url;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("<beans>\n<bean id=\"longerOverrides\">\n<property name=\"properties\">\n<props>\n");
+        builder.append("<prop key=\"seeds.textSource.value\">\n# URLS HERE\n");
+        for (int i = 0; i < seeds; i++) {
+            builder.append("http://www.domain").append(i).append(".example.com/\n");
+        }
+        builder.append("</prop>\n</props>\n</property>\n</bean>\n</beans>\n");
+        configuration = builder.toString();
+
+        builder = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<job>\n<shortName>benchmark</shortName>\n");
+        builder.append("<crawlControllerState>RUNNING</crawlControllerState>\n");
+        builder.append("<statusDescription>Active: RUNNING</statusDescription>\n<uriTotalsReport>\n");
+        for (int i = 0; i < seeds; i++) {
+            builder.append("<downloadedUriCount>").append(i).append("</downloadedUriCount>\n");
+        }
+        builder.append("</uriTotalsReport>\n</job>\n");
+        status = builder.toString().getBytes(StandardCharsets.UTF_8);
+        url = "https://www.subdomain.domain" + seeds + ".example.com/path/to/start/page.html";
+    }
+
+    @Benchmark
+    public List<String> getListOfCrawlUrlsFromXml() {
+        return HeritrixClient.getListOfCrawlUrlsFromXml(configuration);
+    }
+
+    @Benchmark
+    public String buildSurt() {
+        return CrawlConfigurationTemplate.buildSurt(url);
+    }
+
+    // Includes parsing of the response, as done for every status request
+    @Benchmark
+    public String getJobStatus() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(status));
+        return HeritrixClient.getJobStatusFromXml(document);
+    }
+}
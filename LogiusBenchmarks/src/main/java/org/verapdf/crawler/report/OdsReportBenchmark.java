@@ -0,0 +1,77 @@
+package org.verapdf.crawler.report;
+
+import org.openjdk.jmh.annotations.*;
+import org.verapdf.crawler.domain.report.CrawlJobReport;
+import org.verapdf.crawler.domain.report.PDFValidationStatistics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of the ODS report from the bundled template, for reports with different numbers of listed documents.
+ * Every invocation is a full report, so it is measured as single shot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OdsReportBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private File template;
+    private File output;
+    private CrawlJobReport report;
+    private List<String> officeFiles;
+    private List<String> invalidPdfFiles;
+    private List<String> ooxmlFiles;
+
+    @Setup
+    public void setUp() throws IOException {
+        template = File.createTempFile("sample_report", ".ods");
+        output = File.createTempFile("report", ".ods");
+        try (InputStream content = OdsReportBenchmark.class.getResourceAsStream("/sample_report.ods")) {
+            Files.copy(content, template.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Rows are split between the three document lists of the report
+        officeFiles = createUrls("doc", rows / 3);
+        invalidPdfFiles = createUrls("pdf", rows / 3);
+        ooxmlFiles = createUrls("docx", rows - 2 * (rows / 3));
+        report = new CrawlJobReport("benchmark", "http://www.example.com/", "finished", rows);
+        report.setPdfStatistics(new PDFValidationStatistics(new ArrayList<>(), invalidPdfFiles.size(), rows));
+        report.setNumberOfODFDocuments(rows);
+        report.setNumberOfOfficeDocuments(officeFiles.size());
+        report.setNumberOfOoxmlDocuments(ooxmlFiles.size());
+    }
+
+    @TearDown
+    public void tearDown() {
+        template.delete();
+        output.delete();
+    }
+
+    @Benchmark
+    public File writeODSReport() throws IOException {
+        HeritrixReporter.writeODSReport(template, output, report, LocalDateTime.of(2017, 1, 1, 0, 0),
+                officeFiles, invalidPdfFiles, ooxmlFiles);
+        return output;
+    }
+
+    private static List<String> createUrls(String extension, int count) {
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add("http://www.example.com/documents/" + (i % 100) + "/document" + i + "." + extension);
+        }
+        return result;
+    }
+}
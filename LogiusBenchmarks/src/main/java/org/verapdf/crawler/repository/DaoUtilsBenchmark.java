@@ -0,0 +1,24 @@
+package org.verapdf.crawler.repository;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of Last-Modified values reported by Heritrix to SQL time, done for every inserted document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoUtilsBenchmark {
+
+    public String lastModified = "Last-Modified: Tue, 15 Nov 2016 08:12:31 GMT";
+
+    @Benchmark
+    public String getSqlTimeFromLastmodified() {
+        return DaoUtils.getSqlTimeFromLastmodified(lastModified);
+    }
+}
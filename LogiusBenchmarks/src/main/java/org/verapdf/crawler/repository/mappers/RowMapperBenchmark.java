@@ -0,0 +1,91 @@
+package org.verapdf.crawler.repository.mappers;
+
+import org.openjdk.jmh.annotations.*;
+import org.verapdf.crawler.domain.crawling.BatchJob;
+import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.domain.report.PdfPropertyStatistics;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a single row by the row mappers, over an in-memory result set so that only the mapper is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private final CrawlJobMapper crawlJobMapper = new CrawlJobMapper();
+    private final BatchJobMapper batchJobMapper = new BatchJobMapper();
+    private final PdfPropertyStatisticsMapper pdfPropertyStatisticsMapper = new PdfPropertyStatisticsMapper();
+    private ResultSet crawlJobRow;
+    private ResultSet batchJobRow;
+    private ResultSet pdfPropertyStatisticsRow;
+
+    // Values are in the order of the columns selected by the DAOs
+    @Setup
+    public void setUp() {
+        crawlJobRow = createResultSet(
+                "0b5dc8bd-7a39-4ec4-8b41-4b2ce23cd1a4",
+                "https://localhost:8443/engine/job/0b5dc8bd-7a39-4ec4-8b41-4b2ce23cd1a4",
+                "http://www.example.com/",
+                Timestamp.valueOf("2017-05-10 12:00:00"),
+                true,
+                "finished",
+                Timestamp.valueOf("2017-05-11 08:30:15"));
+        batchJobRow = createResultSet(
+                "5e2d1f3a-9f43-4e0b-a1a2-cc0a3c1d2f11",
+                "user@example.com",
+                Timestamp.valueOf("2015-01-01 00:00:00"),
+                false,
+                1,
+                Timestamp.valueOf("2017-05-10 11:59:58"));
+        pdfPropertyStatisticsRow = createResultSet("1.4", "PDF version", 1234);
+    }
+
+    @Benchmark
+    public CurrentJob mapCrawlJob() throws SQLException {
+        return crawlJobMapper.mapRow(crawlJobRow, 0);
+    }
+
+    @Benchmark
+    public BatchJob mapBatchJob() throws SQLException {
+        return batchJobMapper.mapRow(batchJobRow, 0);
+    }
+
+    @Benchmark
+    public PdfPropertyStatistics mapPdfPropertyStatistics() throws SQLException {
+        return pdfPropertyStatisticsMapper.mapRow(pdfPropertyStatisticsRow, 0);
+    }
+
+    // Result set positioned on a single row, supports the getters by column index used by the mappers
+    private static ResultSet createResultSet(Object... row) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object value = args != null && args.length == 1 && args[0] instanceof Integer ? row[(Integer) args[0] - 1] : null;
+                    switch (method.getName()) {
+                        case "getString":
+                            return value == null ? null : value.toString();
+                        case "getTimestamp":
+                            return value;
+                        case "getBoolean":
+                            return value != null && (Boolean) value;
+                        case "getInt":
+                            return value == null ? 0 : (Integer) value;
+                        case "getLong":
+                            return value == null ? 0L : ((Number) value).longValue();
+                        case "wasNull":
+                            return false;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
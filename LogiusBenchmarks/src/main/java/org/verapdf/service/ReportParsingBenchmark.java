@@ -0,0 +1,64 @@
+package org.verapdf.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.verapdf.crawler.domain.validation.VeraPDFValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of veraPDF machine readable reports into validation results, for reports with different numbers of failed rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportParsingBenchmark {
+
+    @Param({"0", "10", "200"})
+    public int failedRules;
+
+    private File report;
+
+    @Setup
+    public void setUp() throws IOException {
+        report = File.createTempFile("benchmark", ".xml");
+        report.deleteOnExit();
+        Files.write(report.toPath(), buildReport(failedRules).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        report.delete();
+    }
+
+    @Benchmark
+    public VeraPDFValidationResult parseReport() throws Exception {
+        return VeraPDFProcessor.parseReport(report);
+    }
+
+    static String buildReport(int failedRules) {
+        StringBuilder result = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<report>\n<jobs>\n<job>\n");
+        result.append("<item size=\"1048576\"><name>/tmp/document.pdf</name></item>\n");
+        result.append("<validationReport profileName=\"PDF/A-1B validation profile\" statement=\"\" isCompliant=\"")
+                .append(failedRules == 0).append("\">\n");
+        result.append("<details passedRules=\"100\" failedRules=\"").append(failedRules)
+                .append("\" passedChecks=\"5000\" failedChecks=\"").append(failedRules).append("\">\n");
+        for (int i = 0; i < failedRules; i++) {
+            result.append("<rule specification=\"ISO 19005-1:2005\" clause=\"6.").append(i % 9 + 1).append(".").append(i % 7 + 1)
+                    .append("\" testNumber=\"").append(i % 5 + 1).append("\" status=\"failed\" passedChecks=\"0\" failedChecks=\"1\">\n");
+            result.append("<description>Synthetic rule ").append(i).append("</description>\n");
+            result.append("<object>PDDocument</object>\n<test>false</test>\n");
+            result.append("<check status=\"failed\"><context>root</context></check>\n</rule>\n");
+        }
+        result.append("</details>\n</validationReport>\n");
+        result.append("<duration start=\"0\" finish=\"1\">00:00:00.001</duration>\n");
+        result.append("</job>\n</jobs>\n</report>\n");
+        return result.toString();
+    }
+}
@@ -0,0 +1,269 @@
+package org.verapdf.crawler.app.email;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.verapdf.benchmarks.smtp.SmtpStandIn;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.domain.email.EmailServer;
+import org.verapdf.crawler.domain.email.OutboxEmail;
+import org.verapdf.crawler.repository.email.EmailOutboxDao;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+// Delivery runs against the SMTP stand-in of the benchmarks, the outbox table is kept in memory
+public class EmailOutboxTest {
+    private final MetricRegistry registry = new MetricRegistry();
+    private final InMemoryOutboxDao dao = new InMemoryOutboxDao();
+    private SmtpStandIn standIn;
+    private EmailServer emailServer;
+    private SmtpMailer mailer;
+
+    @Before
+    public void startStandIn() throws IOException {
+        standIn = new SmtpStandIn(0, 0);
+        standIn.start(0);
+        emailServer = new EmailServer();
+        emailServer.host = "localhost";
+        emailServer.port = Integer.toString(standIn.getPort());
+        emailServer.address = "logius@example.com";
+        emailServer.startTls = false;
+        emailServer.maxAttempts = 3;
+        emailServer.retryDelaySeconds = 10;
+        mailer = new SmtpMailer(emailServer);
+    }
+
+    @After
+    public void stopStandIn() throws IOException {
+        mailer.close();
+        standIn.close();
+    }
+
+    @Test
+    public void dueEmailsAreDeliveredOverOneConnection() {
+        EmailOutbox outbox = createOutbox();
+        outbox.send("first@example.com", "Crawl job", "Batch job was finished");
+        outbox.send("second@example.com", "Crawl job", "Batch job was finished");
+
+        assertEquals(2, outbox.deliverDue());
+
+        assertEquals(2, standIn.getMessageCount());
+        assertEquals(1, standIn.getConnectionCount());
+        assertTrue(standIn.getMessages().get(0).contains("Subject: Crawl job"));
+        assertTrue(standIn.getMessages().get(0).contains("Batch job was finished"));
+        assertEquals(0, outbox.getPendingCount());
+        assertEquals(0, outbox.deliverDue());
+    }
+
+    @Test
+    public void failedEmailIsRetriedWithBackoff() {
+        EmailOutbox outbox = createOutbox();
+        standIn.setFailurePercent(100);
+        outbox.send("user@example.com", "Crawl job", "Batch job was finished");
+
+        outbox.deliverDue();
+        InMemoryOutboxDao.Row row = dao.rows.get(0);
+        assertEquals(1, row.attempts);
+        assertEquals(Long.valueOf(10), row.nextAttemptTime);
+        assertNotNull(row.lastError);
+        // Not due before the retry delay
+        assertEquals(0, outbox.deliverDue());
+
+        dao.now = 10;
+        outbox.deliverDue();
+        assertEquals(2, row.attempts);
+        assertEquals(Long.valueOf(10 + 20), row.nextAttemptTime);
+
+        standIn.setFailurePercent(0);
+        dao.now = 30;
+        outbox.deliverDue();
+        assertEquals(1, standIn.getMessageCount());
+        assertNotNull(row.sentTime);
+        assertNull(row.nextAttemptTime);
+        assertEquals(2, standIn.getRejectedCount());
+        assertEquals(2, registry.meter("logius.smtp.failures").getCount());
+    }
+
+    @Test
+    public void emailIsGivenUpAfterMaxAttempts() {
+        EmailOutbox outbox = createOutbox();
+        standIn.setFailurePercent(100);
+        outbox.send("user@example.com", "Crawl job", "Batch job was finished");
+
+        for (int i = 0; i < emailServer.maxAttempts; i++) {
+            dao.now += 1000;
+            assertEquals(1, outbox.deliverDue());
+        }
+
+        InMemoryOutboxDao.Row row = dao.rows.get(0);
+        assertEquals(emailServer.maxAttempts, row.attempts);
+        assertNull(row.nextAttemptTime);
+        assertNull(row.sentTime);
+        assertEquals(0, outbox.getPendingCount());
+        dao.now += 1000;
+        assertEquals(0, outbox.deliverDue());
+        assertEquals(emailServer.maxAttempts, standIn.getRejectedCount());
+    }
+
+    @Test
+    public void pendingEmailsToAddressAreMergedIntoDigest() {
+        emailServer.digestWindowSeconds = 60;
+        EmailOutbox outbox = createOutbox();
+        outbox.send("user@example.com", "First job", "First text");
+        outbox.send("other@example.com", "Other job", "Other text");
+        dao.now = 30;
+        outbox.send("user@example.com", "Second job", "Second text");
+
+        assertEquals(0, outbox.deliverDue());
+
+        // Second notification is not due yet, but goes with the digest instead of starting a new window
+        dao.now = 60;
+        assertEquals(2, outbox.deliverDue());
+
+        List<String> messages = standIn.getMessages();
+        assertEquals(2, messages.size());
+        String digest = messages.get(0);
+        assertTrue(digest.contains("Subject: Logius notifications (2)"));
+        assertTrue(digest.contains("First job"));
+        assertTrue(digest.contains("Second text"));
+        assertTrue(messages.get(1).contains("Subject: Other job"));
+        assertEquals(0, outbox.getPendingCount());
+        dao.now = 1000;
+        assertEquals(0, outbox.deliverDue());
+    }
+
+    @Test
+    public void failedDigestKeepsPartsOnOneSchedule() {
+        emailServer.digestWindowSeconds = 60;
+        EmailOutbox outbox = createOutbox();
+        standIn.setFailurePercent(100);
+        outbox.send("user@example.com", "First job", "First text");
+        dao.now = 30;
+        outbox.send("user@example.com", "Second job", "Second text");
+
+        dao.now = 60;
+        outbox.deliverDue();
+
+        for (InMemoryOutboxDao.Row row : dao.rows) {
+            assertEquals(1, row.attempts);
+            assertEquals(Long.valueOf(70), row.nextAttemptTime);
+        }
+
+        standIn.setFailurePercent(0);
+        dao.now = 70;
+        assertEquals(2, outbox.deliverDue());
+        assertEquals(1, standIn.getMessageCount());
+        assertEquals(0, outbox.getPendingCount());
+    }
+
+    private EmailOutbox createOutbox() {
+        return new EmailOutbox(dao, mailer, emailServer, new PipelineMetrics(registry));
+    }
+
+    // Same selection and update rules as the statements of EmailOutboxDao, with a clock set by the test
+    private static class InMemoryOutboxDao extends EmailOutboxDao {
+        private final List<Row> rows = new ArrayList<>();
+        private long now;
+
+        InMemoryOutboxDao() {
+            super(mock(DataSource.class));
+        }
+
+        @Override
+        public void addEmail(String recipient, String subject, String text, long delaySeconds) {
+            Row row = new Row(rows.size() + 1, recipient, subject, text);
+            row.nextAttemptTime = now + delaySeconds;
+            rows.add(row);
+        }
+
+        @Override
+        public List<OutboxEmail> getDueEmails(int limit) {
+            List<OutboxEmail> result = new ArrayList<>();
+            for (Row row : rows) {
+                if (row.sentTime == null && row.nextAttemptTime != null && row.nextAttemptTime <= now && result.size() < limit) {
+                    result.add(row.toEmail());
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public List<OutboxEmail> getPendingEmails(String recipient) {
+            List<OutboxEmail> result = new ArrayList<>();
+            for (Row row : rows) {
+                if (row.recipient.equals(recipient) && row.sentTime == null && row.nextAttemptTime != null) {
+                    result.add(row.toEmail());
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void setSent(List<OutboxEmail> emails) {
+            for (OutboxEmail email : emails) {
+                Row row = getRow(email);
+                row.sentTime = now;
+                row.nextAttemptTime = null;
+            }
+        }
+
+        @Override
+        public void setFailed(OutboxEmail email, int attempts, long retryDelaySeconds, String error) {
+            Row row = getRow(email);
+            row.attempts = attempts;
+            row.nextAttemptTime = now + retryDelaySeconds;
+            row.lastError = error;
+        }
+
+        @Override
+        public void setGivenUp(OutboxEmail email, int attempts, String error) {
+            Row row = getRow(email);
+            row.attempts = attempts;
+            row.nextAttemptTime = null;
+            row.lastError = error;
+        }
+
+        @Override
+        public int getPendingCount() {
+            int result = 0;
+            for (Row row : rows) {
+                if (row.sentTime == null && row.nextAttemptTime != null) {
+                    result++;
+                }
+            }
+            return result;
+        }
+
+        private Row getRow(OutboxEmail email) {
+            return rows.get((int) email.getId() - 1);
+        }
+
+        private static class Row {
+            private final long id;
+            private final String recipient;
+            private final String subject;
+            private final String text;
+            private int attempts;
+            private Long nextAttemptTime;
+            private Long sentTime;
+            private String lastError;
+
+            private Row(long id, String recipient, String subject, String text) {
+                this.id = id;
+                this.recipient = recipient;
+                this.subject = subject;
+                this.text = text;
+            }
+
+            private OutboxEmail toEmail() {
+                return new OutboxEmail(id, recipient, subject, text, null, attempts);
+            }
+        }
+    }
+}
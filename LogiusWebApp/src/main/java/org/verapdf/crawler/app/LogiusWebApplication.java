@@ -3,15 +3,25 @@ package org.verapdf.crawler.app;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.verapdf.crawler.app.configuration.LogiusConfiguration;
+import org.verapdf.crawler.app.configuration.ValidationLaneSettings;
+import org.verapdf.crawler.app.engine.CrawlConfigurationTemplate;
 import org.verapdf.crawler.app.engine.HeritrixClient;
 import io.dropwizard.Application;
 import io.dropwizard.assets.AssetsBundle;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import org.glassfish.jersey.media.sse.SseFeature;
 import org.verapdf.crawler.app.healthchecks.HeritrixHealthCheck;
 import org.verapdf.crawler.app.healthchecks.VeraPDFServiceHealthCheck;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.app.metrics.PrometheusMetricsServlet;
 import org.verapdf.crawler.app.resources.ResourceManager;
 
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class LogiusWebApplication extends Application<LogiusConfiguration> {
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
     public static void main(String[] args) throws Exception {
@@ -35,19 +45,41 @@ public class LogiusWebApplication extends Application<LogiusConfiguration> {
         environment.jersey().setUrlPattern("/api/*");
         final ResourceManager resourceManager;
         try {
-            HeritrixClient client = new HeritrixClient("https://localhost:8443/",
+            HeritrixClient client = new HeritrixClient(configuration.getHeritrixUrl(),
                     configuration.getHeritrixLogin(),
-                    configuration.getHeritrixPassword());
+                    configuration.getHeritrixPassword(),
+                    configuration.getHeritrixConnection());
             client.setBaseDirectory(configuration.getResourcePath());
-            resourceManager = new ResourceManager( client,
-                    configuration.getEmailServer(),
-                    configuration.getVerapdfUrl(),
-                    configuration.getCredentials());
+            client.setConfigurationTemplate(new CrawlConfigurationTemplate(
+                    new File(configuration.getResourcePath() + "sample_configuration.cxml"),
+                    configuration.getCrawlProfiles()));
+            environment.lifecycle().manage(new Managed() {
+                @Override
+                public void start() { }
+
+                @Override
+                public void stop() throws Exception {
+                    client.close();
+                }
+            });
+            PipelineMetrics metrics = new PipelineMetrics(environment.metrics());
+            client.setMetrics(metrics);
+            resourceManager = new ResourceManager(client, configuration, metrics);
             environment.jersey().register(resourceManager.getInfoResourse());
             environment.jersey().register(resourceManager.getReportResource());
             environment.jersey().register(resourceManager.getControlResource());
+            environment.jersey().register(SseFeature.class);
+            environment.jersey().register(resourceManager.getBatchProgressResource());
             environment.healthChecks().register("heritrix", new HeritrixHealthCheck(client));
-            environment.healthChecks().register("verapdf", new VeraPDFServiceHealthCheck(configuration.getVerapdfUrl()));
+            Set<String> verapdfUrls = new LinkedHashSet<>();
+            for (ValidationLaneSettings lane : configuration.getEffectiveValidationLanes()) {
+                verapdfUrls.addAll(lane.getVerapdfUrls());
+            }
+            for (String verapdfUrl : verapdfUrls) {
+                environment.healthChecks().register("verapdf " + verapdfUrl, new VeraPDFServiceHealthCheck(verapdfUrl));
+            }
+            environment.admin().addServlet("prometheus", new PrometheusMetricsServlet(environment.metrics()))
+                    .addMapping("/prometheus");
         } catch (Exception e) {
             logger.error("Error on logius web application startup", e);
             e.printStackTrace();
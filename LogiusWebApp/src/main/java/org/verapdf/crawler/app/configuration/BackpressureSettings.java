@@ -0,0 +1,121 @@
+package org.verapdf.crawler.app.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class BackpressureSettings {
+    private boolean enabled = true;
+    private long checkIntervalSeconds = 30;
+    private long queueHighWatermark = 50000;
+    private long queueLowWatermark = 10000;
+    private long drainHighWatermarkSeconds = 7200;
+    private long drainLowWatermarkSeconds = 1800;
+    private String spoolDirectory;
+    private int diskUsageHighPercent = 90;
+    private int diskUsageLowPercent = 75;
+    private int jobsPerCheck = 2;
+
+    // Crawl jobs are never paused by Logius if disabled
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty
+    public long getCheckIntervalSeconds() {
+        return checkIntervalSeconds;
+    }
+
+    @JsonProperty
+    public void setCheckIntervalSeconds(long checkIntervalSeconds) {
+        this.checkIntervalSeconds = checkIntervalSeconds;
+    }
+
+    // Documents waiting for validation, crawl jobs are paused above the high watermark and resumed below the low one
+    @JsonProperty
+    public long getQueueHighWatermark() {
+        return queueHighWatermark;
+    }
+
+    @JsonProperty
+    public void setQueueHighWatermark(long queueHighWatermark) {
+        this.queueHighWatermark = queueHighWatermark;
+    }
+
+    @JsonProperty
+    public long getQueueLowWatermark() {
+        return queueLowWatermark;
+    }
+
+    @JsonProperty
+    public void setQueueLowWatermark(long queueLowWatermark) {
+        this.queueLowWatermark = queueLowWatermark;
+    }
+
+    // Time to validate the queue at the current validator throughput
+    @JsonProperty
+    public long getDrainHighWatermarkSeconds() {
+        return drainHighWatermarkSeconds;
+    }
+
+    @JsonProperty
+    public void setDrainHighWatermarkSeconds(long drainHighWatermarkSeconds) {
+        this.drainHighWatermarkSeconds = drainHighWatermarkSeconds;
+    }
+
+    @JsonProperty
+    public long getDrainLowWatermarkSeconds() {
+        return drainLowWatermarkSeconds;
+    }
+
+    @JsonProperty
+    public void setDrainLowWatermarkSeconds(long drainLowWatermarkSeconds) {
+        this.drainLowWatermarkSeconds = drainLowWatermarkSeconds;
+    }
+
+    // Directory of the document spool of Heritrix, disk usage is not watched if not set
+    @JsonProperty
+    public String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    @JsonProperty
+    public void setSpoolDirectory(String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    @JsonProperty
+    public int getDiskUsageHighPercent() {
+        return diskUsageHighPercent;
+    }
+
+    @JsonProperty
+    public void setDiskUsageHighPercent(int diskUsageHighPercent) {
+        this.diskUsageHighPercent = diskUsageHighPercent;
+    }
+
+    @JsonProperty
+    public int getDiskUsageLowPercent() {
+        return diskUsageLowPercent;
+    }
+
+    @JsonProperty
+    public void setDiskUsageLowPercent(int diskUsageLowPercent) {
+        this.diskUsageLowPercent = diskUsageLowPercent;
+    }
+
+    // Crawl jobs paused or resumed at most per check
+    @JsonProperty
+    public int getJobsPerCheck() {
+        return jobsPerCheck;
+    }
+
+    @JsonProperty
+    public void setJobsPerCheck(int jobsPerCheck) {
+        this.jobsPerCheck = jobsPerCheck;
+    }
+}
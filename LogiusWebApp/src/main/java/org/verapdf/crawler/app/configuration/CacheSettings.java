@@ -0,0 +1,37 @@
+package org.verapdf.crawler.app.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class CacheSettings {
+    private long maxSize = 10000;
+    private long expireAfterWriteSeconds = 60;
+
+    public CacheSettings() {}
+
+    public CacheSettings(long maxSize, long expireAfterWriteSeconds) {
+        this.maxSize = maxSize;
+        this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+    }
+
+    // Zero disables caching
+    @JsonProperty
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    @JsonProperty
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    // Bounds staleness of entries changed bypassing the DAO, e.g. by another Logius instance
+    @JsonProperty
+    public long getExpireAfterWriteSeconds() {
+        return expireAfterWriteSeconds;
+    }
+
+    @JsonProperty
+    public void setExpireAfterWriteSeconds(long expireAfterWriteSeconds) {
+        this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+    }
+}
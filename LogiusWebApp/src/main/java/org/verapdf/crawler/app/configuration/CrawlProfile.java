@@ -0,0 +1,132 @@
+package org.verapdf.crawler.app.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// Heritrix performance settings applied to crawler-beans.cxml, unset values keep the template defaults
+public class CrawlProfile {
+    private Integer maxToeThreads;
+    private Integer minDelayMs;
+    private Integer maxDelayMs;
+    private Double delayFactor;
+    private Integer respectCrawlDelayUpToSeconds;
+    private Integer maxRetries;
+    private Integer retryDelaySeconds;
+    private Long queueTotalBudget;
+    private Integer balanceReplenishAmount;
+    private List<String> extractors;
+    private List<String> sheets;
+
+    @JsonProperty
+    public Integer getMaxToeThreads() {
+        return maxToeThreads;
+    }
+
+    @JsonProperty
+    public void setMaxToeThreads(Integer maxToeThreads) {
+        this.maxToeThreads = maxToeThreads;
+    }
+
+    @JsonProperty
+    public Integer getMinDelayMs() {
+        return minDelayMs;
+    }
+
+    @JsonProperty
+    public void setMinDelayMs(Integer minDelayMs) {
+        this.minDelayMs = minDelayMs;
+    }
+
+    @JsonProperty
+    public Integer getMaxDelayMs() {
+        return maxDelayMs;
+    }
+
+    @JsonProperty
+    public void setMaxDelayMs(Integer maxDelayMs) {
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    @JsonProperty
+    public Double getDelayFactor() {
+        return delayFactor;
+    }
+
+    @JsonProperty
+    public void setDelayFactor(Double delayFactor) {
+        this.delayFactor = delayFactor;
+    }
+
+    @JsonProperty
+    public Integer getRespectCrawlDelayUpToSeconds() {
+        return respectCrawlDelayUpToSeconds;
+    }
+
+    @JsonProperty
+    public void setRespectCrawlDelayUpToSeconds(Integer respectCrawlDelayUpToSeconds) {
+        this.respectCrawlDelayUpToSeconds = respectCrawlDelayUpToSeconds;
+    }
+
+    @JsonProperty
+    public Integer getMaxRetries() {
+        return maxRetries;
+    }
+
+    @JsonProperty
+    public void setMaxRetries(Integer maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    @JsonProperty
+    public Integer getRetryDelaySeconds() {
+        return retryDelaySeconds;
+    }
+
+    @JsonProperty
+    public void setRetryDelaySeconds(Integer retryDelaySeconds) {
+        this.retryDelaySeconds = retryDelaySeconds;
+    }
+
+    @JsonProperty
+    public Long getQueueTotalBudget() {
+        return queueTotalBudget;
+    }
+
+    @JsonProperty
+    public void setQueueTotalBudget(Long queueTotalBudget) {
+        this.queueTotalBudget = queueTotalBudget;
+    }
+
+    @JsonProperty
+    public Integer getBalanceReplenishAmount() {
+        return balanceReplenishAmount;
+    }
+
+    @JsonProperty
+    public void setBalanceReplenishAmount(Integer balanceReplenishAmount) {
+        this.balanceReplenishAmount = balanceReplenishAmount;
+    }
+
+    // Names of extractor beans kept in the fetch chain, i.e. extractorHtml, extractorCss, extractorJs, extractorSwf
+    @JsonProperty
+    public List<String> getExtractors() {
+        return extractors;
+    }
+
+    @JsonProperty
+    public void setExtractors(List<String> extractors) {
+        this.extractors = extractors;
+    }
+
+    // Names of settings sheets from the template applied to every crawled URI, i.e. veryPolite or smallBudget
+    @JsonProperty
+    public List<String> getSheets() {
+        return sheets;
+    }
+
+    @JsonProperty
+    public void setSheets(List<String> sheets) {
+        this.sheets = sheets;
+    }
+}
@@ -0,0 +1,61 @@
+package org.verapdf.crawler.app.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class HttpClientSettings {
+    private int maxConnections = 50;
+    private int connectTimeoutMs = 5000;
+    private int socketTimeoutMs = 60000;
+    private int connectionRequestTimeoutMs = 60000;
+    private long keepAliveMs = 30000;
+
+    @JsonProperty
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @JsonProperty
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    @JsonProperty
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    @JsonProperty
+    public void setConnectTimeoutMs(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    @JsonProperty
+    public int getSocketTimeoutMs() {
+        return socketTimeoutMs;
+    }
+
+    @JsonProperty
+    public void setSocketTimeoutMs(int socketTimeoutMs) {
+        this.socketTimeoutMs = socketTimeoutMs;
+    }
+
+    @JsonProperty
+    public int getConnectionRequestTimeoutMs() {
+        return connectionRequestTimeoutMs;
+    }
+
+    @JsonProperty
+    public void setConnectionRequestTimeoutMs(int connectionRequestTimeoutMs) {
+        this.connectionRequestTimeoutMs = connectionRequestTimeoutMs;
+    }
+
+    @JsonProperty
+    public long getKeepAliveMs() {
+        return keepAliveMs;
+    }
+
+    @JsonProperty
+    public void setKeepAliveMs(long keepAliveMs) {
+        this.keepAliveMs = keepAliveMs;
+    }
+}
@@ -2,16 +2,38 @@ package org.verapdf.crawler.app.configuration;
 
 import org.verapdf.crawler.domain.database.MySqlCredentials;
 import org.verapdf.crawler.domain.email.EmailServer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class LogiusConfiguration extends Configuration {
     private EmailServer emailServer;
     private MySqlCredentials credentials;
+    private String heritrixUrl = "https://localhost:8443/";
+    private HttpClientSettings heritrixConnection = new HttpClientSettings();
     private String heritrixLogin;
     private String heritrixPassword;
     private String resourcePath;
     private String verapdfUrl;
+    private List<String> verapdfUrls = new ArrayList<>();
+    private int verapdfHealthCheckIntervalSeconds = 10;
+    private boolean verapdfUploadEnabled = false;
+    private int maxActiveCrawlJobs = 10;
+    private int bulkInsertBatchSize = 500;
+    private boolean pdfTriageEnabled = true;
+    private Map<String, CrawlProfile> crawlProfiles = new HashMap<>();
+    private List<ValidationLaneSettings> validationLanes = new ArrayList<>();
+    private CacheSettings jobCache = new CacheSettings();
+    private BackpressureSettings backpressure = new BackpressureSettings();
+    private long batchProgressRefreshMs = 1000;
+    private long batchStatusReconcileSeconds = 5;
+    private long finishedBatchStatusReconcileSeconds = 300;
 
     @JsonProperty
     public MySqlCredentials getCredentials() {
@@ -33,6 +55,36 @@ public class LogiusConfiguration extends Configuration {
         this.verapdfUrl = verapdfUrl;
     }
 
+    @JsonProperty
+    public List<String> getVerapdfUrls() {
+        return verapdfUrls;
+    }
+
+    @JsonProperty
+    public void setVerapdfUrls(List<String> verapdfUrls) {
+        this.verapdfUrls = verapdfUrls;
+    }
+
+    @JsonProperty
+    public int getVerapdfHealthCheckIntervalSeconds() {
+        return verapdfHealthCheckIntervalSeconds;
+    }
+
+    @JsonProperty
+    public void setVerapdfHealthCheckIntervalSeconds(int verapdfHealthCheckIntervalSeconds) {
+        this.verapdfHealthCheckIntervalSeconds = verapdfHealthCheckIntervalSeconds;
+    }
+
+    @JsonProperty
+    public boolean isVerapdfUploadEnabled() {
+        return verapdfUploadEnabled;
+    }
+
+    @JsonProperty
+    public void setVerapdfUploadEnabled(boolean verapdfUploadEnabled) {
+        this.verapdfUploadEnabled = verapdfUploadEnabled;
+    }
+
     @JsonProperty
     public String getResourcePath() {
         return resourcePath;
@@ -43,6 +95,26 @@ public class LogiusConfiguration extends Configuration {
         this.resourcePath = resourcePath;
     }
 
+    @JsonProperty
+    public String getHeritrixUrl() {
+        return heritrixUrl;
+    }
+
+    @JsonProperty
+    public void setHeritrixUrl(String heritrixUrl) {
+        this.heritrixUrl = heritrixUrl;
+    }
+
+    @JsonProperty
+    public HttpClientSettings getHeritrixConnection() {
+        return heritrixConnection;
+    }
+
+    @JsonProperty
+    public void setHeritrixConnection(HttpClientSettings heritrixConnection) {
+        this.heritrixConnection = heritrixConnection;
+    }
+
     @JsonProperty
     public String getHeritrixLogin() {
         return heritrixLogin;
@@ -72,4 +144,134 @@ public class LogiusConfiguration extends Configuration {
     public void setEmailServer(EmailServer emailServer) {
         this.emailServer = emailServer;
     }
+
+    @JsonProperty
+    public int getMaxActiveCrawlJobs() {
+        return maxActiveCrawlJobs;
+    }
+
+    @JsonProperty
+    public void setMaxActiveCrawlJobs(int maxActiveCrawlJobs) {
+        this.maxActiveCrawlJobs = maxActiveCrawlJobs;
+    }
+
+    @JsonProperty
+    public int getBulkInsertBatchSize() {
+        return bulkInsertBatchSize;
+    }
+
+    @JsonProperty
+    public void setBulkInsertBatchSize(int bulkInsertBatchSize) {
+        this.bulkInsertBatchSize = bulkInsertBatchSize;
+    }
+
+    @JsonProperty
+    public boolean isPdfTriageEnabled() {
+        return pdfTriageEnabled;
+    }
+
+    @JsonProperty
+    public void setPdfTriageEnabled(boolean pdfTriageEnabled) {
+        this.pdfTriageEnabled = pdfTriageEnabled;
+    }
+
+    @JsonProperty
+    public Map<String, CrawlProfile> getCrawlProfiles() {
+        return crawlProfiles;
+    }
+
+    @JsonProperty
+    public void setCrawlProfiles(Map<String, CrawlProfile> crawlProfiles) {
+        this.crawlProfiles = crawlProfiles;
+    }
+
+    @JsonProperty
+    public List<ValidationLaneSettings> getValidationLanes() {
+        return validationLanes;
+    }
+
+    @JsonProperty
+    public void setValidationLanes(List<ValidationLaneSettings> validationLanes) {
+        this.validationLanes = validationLanes;
+    }
+
+    // Cache of crawl jobs and batch jobs read by the DAOs
+    @JsonProperty
+    public CacheSettings getJobCache() {
+        return jobCache;
+    }
+
+    @JsonProperty
+    public void setJobCache(CacheSettings jobCache) {
+        this.jobCache = jobCache;
+    }
+
+    // Pausing of crawl jobs while validation falls behind crawling
+    @JsonProperty
+    public BackpressureSettings getBackpressure() {
+        return backpressure;
+    }
+
+    @JsonProperty
+    public void setBackpressure(BackpressureSettings backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    // Interval between refreshes of progress of batch jobs watched over /api/progress
+    @JsonProperty
+    public long getBatchProgressRefreshMs() {
+        return batchProgressRefreshMs;
+    }
+
+    @JsonProperty
+    public void setBatchProgressRefreshMs(long batchProgressRefreshMs) {
+        this.batchProgressRefreshMs = batchProgressRefreshMs;
+    }
+
+    // Interval between rounds of the reconciler which updates crawl jobs and batch jobs from Heritrix
+    @JsonProperty
+    public long getBatchStatusReconcileSeconds() {
+        return batchStatusReconcileSeconds;
+    }
+
+    @JsonProperty
+    public void setBatchStatusReconcileSeconds(long batchStatusReconcileSeconds) {
+        this.batchStatusReconcileSeconds = batchStatusReconcileSeconds;
+    }
+
+    // Finished batch jobs are reconciled less often, only their document counts change
+    @JsonProperty
+    public long getFinishedBatchStatusReconcileSeconds() {
+        return finishedBatchStatusReconcileSeconds;
+    }
+
+    @JsonProperty
+    public void setFinishedBatchStatusReconcileSeconds(long finishedBatchStatusReconcileSeconds) {
+        this.finishedBatchStatusReconcileSeconds = finishedBatchStatusReconcileSeconds;
+    }
+
+    // Shared VeraPDFService instances, verapdfUrl alone if the list is not set.
+    // Without any instance documents are validated only by pull workers.
+    @JsonIgnore
+    public List<String> getEffectiveVerapdfUrls() {
+        if (verapdfUrls == null || verapdfUrls.isEmpty()) {
+            return verapdfUrl == null ? Collections.<String>emptyList() : Collections.singletonList(verapdfUrl);
+        }
+        return verapdfUrls;
+    }
+
+    // Single lane validating every file on shared instances unless lanes are configured,
+    // lanes without own instances use the shared ones
+    @JsonIgnore
+    public List<ValidationLaneSettings> getEffectiveValidationLanes() {
+        if (validationLanes == null || validationLanes.isEmpty()) {
+            return Collections.singletonList(new ValidationLaneSettings("default", null, getEffectiveVerapdfUrls()));
+        }
+        for (ValidationLaneSettings lane : validationLanes) {
+            if (lane.getVerapdfUrls() == null || lane.getVerapdfUrls().isEmpty()) {
+                lane.setVerapdfUrls(getEffectiveVerapdfUrls());
+            }
+        }
+        return validationLanes;
+    }
 }
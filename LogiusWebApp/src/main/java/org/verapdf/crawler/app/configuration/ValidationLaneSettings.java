@@ -0,0 +1,103 @@
+package org.verapdf.crawler.app.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ValidationLaneSettings {
+    private String name;
+    private Long maxFileSize;
+    private List<String> verapdfUrls = new ArrayList<>();
+    private Integer concurrency;
+    private int baseTimeoutSeconds = 300;
+    private int timeoutSecondsPerMegabyte = 0;
+    private int maxRetries = 2;
+
+    public ValidationLaneSettings() {}
+
+    public ValidationLaneSettings(String name, Long maxFileSize, List<String> verapdfUrls) {
+        this.name = name;
+        this.maxFileSize = maxFileSize;
+        this.verapdfUrls = verapdfUrls;
+    }
+
+    @JsonProperty
+    public String getName() {
+        return name;
+    }
+
+    @JsonProperty
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    // Largest file in bytes routed to this lane, no limit if not set
+    @JsonProperty
+    public Long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    @JsonProperty
+    public void setMaxFileSize(Long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    // VeraPDFService instances dedicated to the lane, instances from verapdfUrls of Logius config if not set
+    @JsonProperty
+    public List<String> getVerapdfUrls() {
+        return verapdfUrls;
+    }
+
+    @JsonProperty
+    public void setVerapdfUrls(List<String> verapdfUrls) {
+        this.verapdfUrls = verapdfUrls;
+    }
+
+    // Number of documents of the lane validated simultaneously, one per instance of the lane by default
+    @JsonProperty
+    public Integer getConcurrency() {
+        return concurrency;
+    }
+
+    @JsonProperty
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    @JsonProperty
+    public int getBaseTimeoutSeconds() {
+        return baseTimeoutSeconds;
+    }
+
+    @JsonProperty
+    public void setBaseTimeoutSeconds(int baseTimeoutSeconds) {
+        this.baseTimeoutSeconds = baseTimeoutSeconds;
+    }
+
+    @JsonProperty
+    public int getTimeoutSecondsPerMegabyte() {
+        return timeoutSecondsPerMegabyte;
+    }
+
+    @JsonProperty
+    public void setTimeoutSecondsPerMegabyte(int timeoutSecondsPerMegabyte) {
+        this.timeoutSecondsPerMegabyte = timeoutSecondsPerMegabyte;
+    }
+
+    @JsonProperty
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    @JsonProperty
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    // Validation timeout grows with file size, so that large documents are not cut off by the budget of small ones
+    public long getTimeoutSeconds(long fileSize) {
+        long megabytes = (fileSize + 1024 * 1024 - 1) / (1024 * 1024);
+        return baseTimeoutSeconds + megabytes * timeoutSecondsPerMegabyte;
+    }
+}
@@ -0,0 +1,145 @@
+package org.verapdf.crawler.app.email;
+
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.domain.email.EmailServer;
+import org.verapdf.crawler.domain.email.OutboxEmail;
+import org.verapdf.crawler.repository.email.EmailOutboxDao;
+
+import javax.mail.MessagingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notifications are written to the email_outbox table and delivered by a background thread, so that a slow or
+ * unavailable mail server neither blocks the caller nor loses notifications. Failed deliveries are retried with
+ * exponential backoff. With a digest window, notifications to one address are collected and sent as one message.
+ */
+public class EmailOutbox implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final int BATCH_SIZE = 100;
+    private static final String DIGEST_SEPARATOR = "\n\n----------------------------------------\n\n";
+
+    private final EmailOutboxDao dao;
+    private final SmtpMailer mailer;
+    private final EmailServer emailServer;
+    private final PipelineMetrics metrics;
+    private final Object wakeUp = new Object();
+    private boolean isWakeUpRequested;
+
+    public EmailOutbox(EmailOutboxDao dao, SmtpMailer mailer, EmailServer emailServer, PipelineMetrics metrics) {
+        this.dao = dao;
+        this.mailer = mailer;
+        this.emailServer = emailServer;
+        this.metrics = metrics;
+    }
+
+    public void send(String recipient, String subject, String text) {
+        dao.addEmail(recipient, subject, text, emailServer.digestWindowSeconds);
+        // Without digests the notification is due at once, otherwise it waits for the window anyway
+        if (emailServer.digestWindowSeconds <= 0) {
+            synchronized (wakeUp) {
+                isWakeUpRequested = true;
+                wakeUp.notifyAll();
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return dao.getPendingCount();
+    }
+
+    @Override
+    public void run() {
+        long pollIntervalMs = emailServer.pollIntervalSeconds * 1000;
+        try {
+            while (true) {
+                try {
+                    while (deliverDue() == BATCH_SIZE) {
+                        // Backlog, next batch is taken at once
+                    }
+                    mailer.closeIfIdle();
+                } catch (Exception e) {
+                    logger.error("Email outbox error", e);
+                }
+                synchronized (wakeUp) {
+                    if (!isWakeUpRequested) {
+                        wakeUp.wait(pollIntervalMs);
+                    }
+                    isWakeUpRequested = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.info("Email outbox stopped");
+        } finally {
+            mailer.close();
+        }
+    }
+
+    // One pass over due notifications, returns the number of notifications taken
+    int deliverDue() {
+        List<OutboxEmail> due = dao.getDueEmails(BATCH_SIZE);
+        if (emailServer.digestWindowSeconds <= 0) {
+            for (OutboxEmail email : due) {
+                deliver(email, email.getSubject(), email.getText(), Collections.singletonList(email));
+            }
+            return due.size();
+        }
+        Map<String, OutboxEmail> recipients = new LinkedHashMap<>();
+        for (OutboxEmail email : due) {
+            recipients.putIfAbsent(email.getRecipient(), email);
+        }
+        for (OutboxEmail first : recipients.values()) {
+            // Digest takes notifications to the address which are not due yet, they would start a new window otherwise
+            List<OutboxEmail> digest = dao.getPendingEmails(first.getRecipient());
+            if (digest.size() <= 1) {
+                deliver(first, first.getSubject(), first.getText(), Collections.singletonList(first));
+                continue;
+            }
+            List<String> texts = new ArrayList<>();
+            for (OutboxEmail email : digest) {
+                texts.add(email.getSubject() + "\n\n" + email.getText());
+            }
+            String subject = "Logius notifications (" + digest.size() + ")";
+            deliver(first, subject, String.join(DIGEST_SEPARATOR, texts), digest);
+        }
+        return due.size();
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // Attempts of the digest are counted by its first notification, all parts follow its schedule
+    private void deliver(OutboxEmail first, String subject, String text, List<OutboxEmail> emails) {
+        try (Timer.Context ignored = metrics.getSmtpRequests().time()) {
+            mailer.send(first.getRecipient(), subject, text);
+        } catch (MessagingException | RuntimeException e) {
+            metrics.getSmtpFailures().mark();
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            for (OutboxEmail email : emails) {
+                int attempts = Math.max(email.getAttempts(), first.getAttempts()) + 1;
+                if (attempts >= emailServer.maxAttempts) {
+                    logger.error("Email to " + email.getRecipient() + " is given up after " + attempts + " attempts", e);
+                    dao.setGivenUp(email, attempts, error);
+                } else {
+                    dao.setFailed(email, attempts, getRetryDelaySeconds(attempts), error);
+                }
+            }
+            logger.warn("Email sending error at address " + first.getRecipient() + ": " + error);
+            return;
+        }
+        dao.setSent(emails);
+        logger.info("Notification email was sent at " + first.getRecipient());
+    }
+
+    private long getRetryDelaySeconds(int attempts) {
+        // Capped exponent, so that a large number of attempts does not overflow
+        return emailServer.retryDelaySeconds << Math.min(attempts - 1, 20);
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,105 @@
+package org.verapdf.crawler.app.email;
+
+import org.verapdf.crawler.domain.email.EmailServer;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.Closeable;
+import java.util.Properties;
+
+/**
+ * Sends messages over one SMTP connection, which is opened on the first message and reused by the following ones
+ * until it is idle for too long or dropped. Not meant for concurrent senders, calls are serialized.
+ */
+public class SmtpMailer implements Closeable {
+    private final Session session;
+    private final String from;
+    private final long idleTimeoutMs;
+    private Transport transport;
+    private long lastUsedTime;
+    private int connectionCount;
+
+    public SmtpMailer(EmailServer emailServer) {
+        Properties properties = new Properties();
+        properties.setProperty("mail.transport.protocol", "smtp");
+        properties.setProperty("mail.smtp.host", emailServer.host);
+        properties.setProperty("mail.smtp.port", emailServer.port);
+        properties.setProperty("mail.smtp.starttls.enable", Boolean.toString(emailServer.startTls));
+        boolean isAuthenticated = emailServer.user != null && !emailServer.user.isEmpty();
+        properties.setProperty("mail.smtp.auth", Boolean.toString(isAuthenticated));
+        // Own session, the default one is shared by the whole JVM and keeps the properties it was first created with
+        this.session = isAuthenticated
+                ? Session.getInstance(properties, new GMailAuthenticator(emailServer.user, emailServer.password))
+                : Session.getInstance(properties);
+        this.from = emailServer.address;
+        this.idleTimeoutMs = emailServer.idleTimeoutSeconds * 1000;
+    }
+
+    public synchronized void send(String recipient, String subject, String text) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(from));
+        message.addRecipient(Message.RecipientType.TO, new InternetAddress(recipient));
+        message.setSubject(subject);
+        message.setText(text);
+        message.saveChanges();
+
+        boolean isReused = transport != null;
+        try {
+            getTransport().sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            // Rejected by the server over a working connection, the connection stays open
+            if (transport != null && transport.isConnected()) {
+                throw e;
+            }
+            close();
+            // Connection was dropped while unused, e.g. by the server timeout, the message is sent over a new one
+            if (!isReused) {
+                throw e;
+            }
+            getTransport().sendMessage(message, message.getAllRecipients());
+        }
+        lastUsedTime = System.currentTimeMillis();
+    }
+
+    public synchronized void closeIfIdle() {
+        if (transport != null && System.currentTimeMillis() - lastUsedTime >= idleTimeoutMs) {
+            close();
+        }
+    }
+
+    // Connections opened so far, one per message would mean that the connection is not reused
+    public synchronized int getConnectionCount() {
+        return connectionCount;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // Connection is dropped anyway
+            }
+            transport = null;
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // Connection is not checked before use, that costs a NOOP round trip per message
+    private Transport getTransport() throws MessagingException {
+        if (transport == null) {
+            Transport created = session.getTransport();
+            created.connect();
+            transport = created;
+            connectionCount++;
+        }
+        return transport;
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,290 @@
+package org.verapdf.crawler.app.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.app.configuration.BackpressureSettings;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.domain.crawling.BackpressureStatus;
+import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.repository.jobs.CrawlJobDao;
+import org.verapdf.crawler.repository.jobs.ThrottledCrawlJobDao;
+import org.verapdf.crawler.validation.ValidationService;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Pauses crawl jobs in Heritrix while validation falls behind crawling and resumes them once it catches up.
+ * Watches the validation queue depth, the time to validate the queue at the current validator throughput and
+ * usage of the spool disk. While one of them is above its high watermark and still growing, the busiest running
+ * jobs (with most documents waiting for validation) are paused, a few per check, and queued jobs are not launched.
+ * Once all of them are below their low watermarks, paused jobs are resumed in the order they were paused, a few
+ * per check, and launches continue after the last one.
+ */
+public class BackpressureController implements Runnable {
+    public static final String STATUS_PAUSED = "paused";
+    public static final String STATUS_RUNNING = "running";
+    public static final String ACTION_PAUSE = "pauses";
+    public static final String ACTION_RESUME = "resumes";
+
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+
+    private final HeritrixClient client;
+    private final CrawlJobScheduler scheduler;
+    private final ValidationService validationService;
+    private final CrawlJobDao crawlJobDao;
+    private final ThrottledCrawlJobDao throttledCrawlJobDao;
+    private final BackpressureSettings settings;
+    private final PipelineMetrics metrics;
+    // Reasons by crawl job id in the order jobs were paused, guarded by this
+    private final Map<String, String> pausedJobs = new LinkedHashMap<>();
+    private volatile boolean isThrottling;
+    private volatile String reason;
+    private volatile Pressure lastPressure;
+
+    public BackpressureController(HeritrixClient client, CrawlJobScheduler scheduler, ValidationService validationService,
+                                  CrawlJobDao crawlJobDao, ThrottledCrawlJobDao throttledCrawlJobDao,
+                                  BackpressureSettings settings, PipelineMetrics metrics) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.validationService = validationService;
+        this.crawlJobDao = crawlJobDao;
+        this.throttledCrawlJobDao = throttledCrawlJobDao;
+        this.settings = settings;
+        this.metrics = metrics;
+        // Jobs paused before restart stay paused until the first check finds validation caught up
+        pausedJobs.putAll(throttledCrawlJobDao.getJobs());
+        if (!pausedJobs.isEmpty()) {
+            isThrottling = true;
+            reason = pausedJobs.values().iterator().next();
+            scheduler.setLaunchesHeld(true);
+        }
+    }
+
+    // Reason if the job is paused by Logius, null otherwise
+    public synchronized String getPauseReason(String crawlJobId) {
+        return pausedJobs.get(crawlJobId);
+    }
+
+    public synchronized int getPausedJobCount() {
+        return pausedJobs.size();
+    }
+
+    public boolean isThrottling() {
+        return isThrottling;
+    }
+
+    // Job paused or resumed by the user is left to the user
+    public void release(String crawlJobId) {
+        boolean isRemoved;
+        synchronized (this) {
+            isRemoved = pausedJobs.remove(crawlJobId) != null;
+        }
+        if (isRemoved) {
+            throttledCrawlJobDao.removeJob(crawlJobId);
+            logger.info("Crawl job " + crawlJobId + " is no longer paused by backpressure");
+        }
+    }
+
+    public BackpressureStatus getStatus() {
+        Pressure pressure = lastPressure;
+        BackpressureStatus result = new BackpressureStatus();
+        result.setThrottling(isThrottling);
+        result.setReason(reason);
+        result.setLaunchesHeld(scheduler.areLaunchesHeld());
+        result.setQueuedDocuments(pressure == null ? validationService.getQueueSize() : pressure.queuedDocuments);
+        result.setEstimatedDrainSeconds(pressure == null ? -1 : pressure.drainSeconds);
+        result.setDiskUsagePercent(pressure == null ? -1 : pressure.diskUsagePercent);
+        synchronized (this) {
+            result.setPausedJobs(new LinkedHashMap<>(pausedJobs));
+        }
+        return result;
+    }
+
+    @Override
+    public void run() {
+        logger.info("Backpressure controller started");
+        while (true) {
+            try {
+                check();
+            } catch (Exception e) {
+                logger.error("Backpressure controller error", e);
+            }
+            try {
+                Thread.sleep(settings.getCheckIntervalSeconds() * 1000);
+            } catch (InterruptedException e) {
+                logger.info("Backpressure controller stopped");
+                return;
+            }
+        }
+    }
+
+    void check() {
+        forgetStoppedJobs();
+        Pressure pressure = measure();
+        Pressure previous = lastPressure;
+        lastPressure = pressure;
+        // Disabled controller only resumes jobs it paused before
+        String overload = settings.isEnabled() ? pressure.getOverload(settings) : null;
+        if (overload != null) {
+            reason = overload;
+            boolean wasThrottling = isThrottling;
+            if (!wasThrottling) {
+                isThrottling = true;
+                scheduler.setLaunchesHeld(true);
+                logger.warn("Validation falls behind crawling, " + overload);
+            }
+            // Paused jobs need time to take effect, more are paused only while the backlog keeps growing
+            if (!wasThrottling || previous == null || pressure.isGrowing(previous)) {
+                pauseBusiestJobs(overload);
+            }
+        } else if (isThrottling && (!settings.isEnabled() || pressure.isRelieved(settings))) {
+            resumeJobs();
+            synchronized (this) {
+                if (!pausedJobs.isEmpty()) {
+                    return;
+                }
+            }
+            isThrottling = false;
+            reason = null;
+            scheduler.setLaunchesHeld(false);
+            logger.info("Validation caught up with crawling, crawl job launches resumed");
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private Pressure measure() {
+        Pressure result = new Pressure();
+        result.queuedDocuments = validationService.getQueueSize();
+        result.drainSeconds = validationService.getEstimatedDrainSeconds();
+        result.diskUsagePercent = -1;
+        if (settings.getSpoolDirectory() != null) {
+            File spool = new File(settings.getSpoolDirectory());
+            long totalSpace = spool.getTotalSpace();
+            // Zero if the directory does not exist
+            if (totalSpace > 0) {
+                result.diskUsagePercent = (int) (100 - spool.getUsableSpace() * 100 / totalSpace);
+            }
+        }
+        return result;
+    }
+
+    private void pauseBusiestJobs(String overload) {
+        Map<String, Integer> queuedDocuments = validationService.getQueuedDocumentsByCrawlJob();
+        // Jobs launched before restart are known only from their queued documents
+        Set<String> candidates = new HashSet<>(scheduler.getLaunchedJobs());
+        candidates.addAll(queuedDocuments.keySet());
+        candidates.remove(null);
+        synchronized (this) {
+            candidates.removeAll(pausedJobs.keySet());
+        }
+        List<String> busiest = new ArrayList<>(candidates);
+        busiest.sort(Comparator.comparing((String job) -> queuedDocuments.getOrDefault(job, 0)).reversed());
+        int paused = 0;
+        for (String job : busiest) {
+            if (paused >= settings.getJobsPerCheck()) {
+                break;
+            }
+            if (isRunning(crawlJobDao.getCrawlJob(job)) && pause(job, overload)) {
+                paused++;
+            }
+        }
+    }
+
+    private boolean pause(String job, String overload) {
+        try {
+            client.pauseJob(job);
+        } catch (Exception e) {
+            logger.error("Error on pausing crawl job " + job, e);
+            return false;
+        }
+        crawlJobDao.setStatus(job, STATUS_PAUSED);
+        throttledCrawlJobDao.addJob(job, overload);
+        synchronized (this) {
+            pausedJobs.put(job, overload);
+        }
+        metrics.getBackpressureActions(ACTION_PAUSE).mark();
+        logger.info("Crawl job " + job + " paused, " + overload);
+        return true;
+    }
+
+    private void resumeJobs() {
+        List<String> oldest;
+        synchronized (this) {
+            oldest = new ArrayList<>(pausedJobs.keySet());
+        }
+        for (String job : oldest.subList(0, Math.min(oldest.size(), settings.getJobsPerCheck()))) {
+            try {
+                client.unpauseJob(job);
+            } catch (Exception e) {
+                logger.error("Error on resuming crawl job " + job, e);
+                continue;
+            }
+            crawlJobDao.setStatus(job, STATUS_RUNNING);
+            release(job);
+            metrics.getBackpressureActions(ACTION_RESUME).mark();
+            logger.info("Crawl job " + job + " resumed");
+        }
+    }
+
+    // Jobs paused by Logius and then terminated, torn down or removed are not resumed
+    private void forgetStoppedJobs() {
+        List<String> jobs;
+        synchronized (this) {
+            jobs = new ArrayList<>(pausedJobs.keySet());
+        }
+        for (String job : jobs) {
+            CurrentJob crawlJob = crawlJobDao.getCrawlJob(job);
+            if (crawlJob == null || !isInHeritrix(crawlJob)) {
+                release(job);
+            }
+        }
+    }
+
+    private static boolean isRunning(CurrentJob crawlJob) {
+        return crawlJob != null && isInHeritrix(crawlJob) && !STATUS_PAUSED.equals(crawlJob.getStatus());
+    }
+
+    // Finish time is written for all launched jobs on startup, job URL is set only once the job is torn down
+    private static boolean isInHeritrix(CurrentJob crawlJob) {
+        return crawlJob.isLaunched() && crawlJob.getJobURL().equals("");
+    }
+
+    private static class Pressure {
+        private long queuedDocuments;
+        // -1 while validator throughput is unknown
+        private long drainSeconds;
+        // -1 if the spool disk is not watched
+        private int diskUsagePercent;
+
+        // Description of the first high watermark crossed, null if none is
+        String getOverload(BackpressureSettings settings) {
+            if (queuedDocuments > settings.getQueueHighWatermark()) {
+                return String.format("validation queue of %d documents is above %d", queuedDocuments,
+                        settings.getQueueHighWatermark());
+            }
+            if (drainSeconds > settings.getDrainHighWatermarkSeconds()) {
+                return String.format("validation of the queue takes %d s, above %d s", drainSeconds,
+                        settings.getDrainHighWatermarkSeconds());
+            }
+            if (diskUsagePercent > settings.getDiskUsageHighPercent()) {
+                return String.format("spool disk is %d%% full, above %d%%", diskUsagePercent,
+                        settings.getDiskUsageHighPercent());
+            }
+            return null;
+        }
+
+        boolean isRelieved(BackpressureSettings settings) {
+            return queuedDocuments < settings.getQueueLowWatermark()
+                    && drainSeconds < settings.getDrainLowWatermarkSeconds()
+                    && diskUsagePercent < settings.getDiskUsageLowPercent();
+        }
+
+        boolean isGrowing(Pressure previous) {
+            return queuedDocuments > previous.queuedDocuments || diskUsagePercent > previous.diskUsagePercent;
+        }
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,194 @@
+package org.verapdf.crawler.app.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.app.configuration.CrawlProfile;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Heritrix job configuration built from sample_configuration.cxml. The template is parsed once,
+ * every crawl profile is applied to it on startup and the result is kept as text split around
+ * the seed placeholders, so rendering a job configuration is plain string concatenation.
+ */
+public class CrawlConfigurationTemplate {
+    public static final String DEFAULT_PROFILE = "default";
+
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final String CONTACT_URL_PLACEHOLDER = "******";
+    private static final String SEEDS_PLACEHOLDER = "######";
+    private static final Set<String> REQUIRED_EXTRACTORS = new HashSet<>(Arrays.asList("extractorHttp", "extractorHtml"));
+
+    private final Map<String, String[]> renderedProfiles = new HashMap<>();
+
+    public CrawlConfigurationTemplate(File templateFile, Map<String, CrawlProfile> profiles) throws IOException {
+        try {
+            Document template = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(templateFile);
+            renderedProfiles.put(DEFAULT_PROFILE, split(serialize(template)));
+            for (Map.Entry<String, CrawlProfile> profile : profiles.entrySet()) {
+                Document document = (Document) template.cloneNode(true);
+                applyProfile(document, profile.getValue());
+                renderedProfiles.put(profile.getKey(), split(serialize(document)));
+                logger.info("Crawl profile " + profile.getKey() + " loaded");
+            }
+        } catch (ParserConfigurationException | SAXException | TransformerException e) {
+            throw new IOException("Failed to prepare crawl configuration template " + templateFile, e);
+        }
+    }
+
+    public boolean hasProfile(String profile) {
+        return renderedProfiles.containsKey(profile);
+    }
+
+    public Set<String> getProfileNames() {
+        return Collections.unmodifiableSet(renderedProfiles.keySet());
+    }
+
+    public byte[] render(List<String> crawlUrls, String profile) {
+        String[] parts = renderedProfiles.get(profile == null ? DEFAULT_PROFILE : profile);
+        if (parts == null) {
+            throw new IllegalArgumentException("Unknown crawl profile " + profile);
+        }
+        StringBuilder seeds = new StringBuilder();
+        for (String url : crawlUrls) {
+            seeds.append(escape(url));
+            seeds.append(" " + System.lineSeparator());
+            seeds.append(" " + System.lineSeparator());
+            seeds.append(buildSurt(url));
+        }
+        StringBuilder result = new StringBuilder(parts[0].length() + parts[1].length() + parts[2].length() + seeds.length() + 256);
+        result.append(parts[0]).append(escape(crawlUrls.get(0))).append(parts[1]).append(seeds).append(parts[2]);
+        return result.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String buildSurt(String url) {
+        String[] parts = url.split("(?<=://)|\\.");
+        parts[parts.length - 1] = parts[parts.length - 1].split("/",2)[0];
+        StringBuilder builder = new StringBuilder("+");
+        builder.append("http://");
+        builder.append("(");
+        for(int i = parts.length - 1; i > 0; i--) {
+            builder.append(parts[i]);
+            builder.append(",");
+        }
+        builder.append(System.lineSeparator());
+        return builder.toString();
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private static void applyProfile(Document document, CrawlProfile profile) {
+        Element controller = getBean(document, "crawlController");
+        setProperty(controller, "maxToeThreads", profile.getMaxToeThreads());
+
+        Element disposition = getBean(document, "disposition");
+        setProperty(disposition, "minDelayMs", profile.getMinDelayMs());
+        setProperty(disposition, "maxDelayMs", profile.getMaxDelayMs());
+        setProperty(disposition, "delayFactor", profile.getDelayFactor());
+        setProperty(disposition, "respectCrawlDelayUpToSeconds", profile.getRespectCrawlDelayUpToSeconds());
+
+        Element frontier = getBean(document, "frontier");
+        setProperty(frontier, "maxRetries", profile.getMaxRetries());
+        setProperty(frontier, "retryDelaySeconds", profile.getRetryDelaySeconds());
+        setProperty(frontier, "queueTotalBudget", profile.getQueueTotalBudget());
+        setProperty(frontier, "balanceReplenishAmount", profile.getBalanceReplenishAmount());
+
+        if (profile.getExtractors() != null) {
+            NodeList refs = getBean(document, "fetchProcessors").getElementsByTagName("ref");
+            for (int i = refs.getLength() - 1; i >= 0; i--) {
+                Element ref = (Element) refs.item(i);
+                String bean = ref.getAttribute("bean");
+                if (bean.startsWith("extractor") && !REQUIRED_EXTRACTORS.contains(bean) && !profile.getExtractors().contains(bean)) {
+                    ref.getParentNode().removeChild(ref);
+                }
+            }
+        }
+
+        if (profile.getSheets() != null && !profile.getSheets().isEmpty()) {
+            // Apply the sheets to every URI of the crawl
+            Element association = document.createElement("bean");
+            association.setAttribute("class", "org.archive.crawler.spring.DecideRuledSheetAssociation");
+            Element rules = document.createElement("property");
+            rules.setAttribute("name", "rules");
+            Element acceptRule = document.createElement("bean");
+            acceptRule.setAttribute("class", "org.archive.modules.deciderules.AcceptDecideRule");
+            rules.appendChild(acceptRule);
+            association.appendChild(rules);
+            Element sheetNames = document.createElement("property");
+            sheetNames.setAttribute("name", "targetSheetNames");
+            Element list = document.createElement("list");
+            for (String sheet : profile.getSheets()) {
+                Element value = document.createElement("value");
+                value.setTextContent(sheet);
+                list.appendChild(value);
+            }
+            sheetNames.appendChild(list);
+            association.appendChild(sheetNames);
+            document.getDocumentElement().appendChild(association);
+        }
+    }
+
+    private static Element getBean(Document document, String id) {
+        NodeList beans = document.getElementsByTagName("bean");
+        for (int i = 0; i < beans.getLength(); i++) {
+            Element bean = (Element) beans.item(i);
+            if (id.equals(bean.getAttribute("id"))) {
+                return bean;
+            }
+        }
+        throw new IllegalStateException("Bean " + id + " is missing in crawl configuration template");
+    }
+
+    private static void setProperty(Element bean, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        for (Node child = bean.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element && "property".equals(child.getNodeName()) && name.equals(((Element) child).getAttribute("name"))) {
+                ((Element) child).setAttribute("value", value.toString());
+                return;
+            }
+        }
+        Element property = bean.getOwnerDocument().createElement("property");
+        property.setAttribute("name", name);
+        property.setAttribute("value", value.toString());
+        bean.appendChild(property);
+    }
+
+    private static String serialize(Document document) throws TransformerException {
+        StringWriter writer = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    private static String[] split(String configuration) {
+        int contactUrl = configuration.indexOf(CONTACT_URL_PLACEHOLDER);
+        int seeds = configuration.indexOf(SEEDS_PLACEHOLDER);
+        if (contactUrl < 0 || seeds < contactUrl) {
+            throw new IllegalStateException("Crawl configuration template has no seed placeholders");
+        }
+        return new String[] {configuration.substring(0, contactUrl),
+                configuration.substring(contactUrl + CONTACT_URL_PLACEHOLDER.length(), seeds),
+                configuration.substring(seeds + SEEDS_PLACEHOLDER.length())};
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,258 @@
+package org.verapdf.crawler.app.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.domain.crawling.QueuedCrawlJob;
+import org.verapdf.crawler.repository.jobs.CrawlJobDao;
+import org.verapdf.crawler.repository.jobs.CrawlJobQueueDao;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps crawl jobs in a persistent launch queue and starts them in Heritrix
+ * while the number of active jobs is below the configured limit.
+ * Batches are served round robin, so a big batch does not delay small ones.
+ */
+public class CrawlJobScheduler implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final long POLL_INTERVAL_MS = 10 * 1000;
+
+    private final HeritrixClient client;
+    private final CrawlJobDao crawlJobDao;
+    private final CrawlJobQueueDao crawlJobQueueDao;
+    private final int maxActiveJobs;
+    private final ExecutorService launcher;
+    private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+    private final Set<String> launchingJobs = ConcurrentHashMap.newKeySet();
+    // Batch id -> jobs of that batch which wait for launch, guarded by this
+    private final LinkedHashMap<String, Deque<QueuedCrawlJob>> pendingJobs = new LinkedHashMap<>();
+    private volatile boolean isRunning;
+    private volatile boolean areLaunchesHeld;
+
+    public CrawlJobScheduler(HeritrixClient client, CrawlJobDao crawlJobDao, CrawlJobQueueDao crawlJobQueueDao,
+                             int maxActiveJobs) {
+        this.client = client;
+        this.crawlJobDao = crawlJobDao;
+        this.crawlJobQueueDao = crawlJobQueueDao;
+        this.maxActiveJobs = maxActiveJobs;
+        // Heritrix calls are asynchronous, this thread only records their results in database
+        this.launcher = Executors.newSingleThreadExecutor();
+        // Jobs launched before restart keep their slots until Heritrix reports them finished
+        for (CurrentJob job : crawlJobDao.getRunningJobs()) {
+            activeJobs.add(job.getId());
+        }
+        for (QueuedCrawlJob job : crawlJobQueueDao.getQueuedJobs()) {
+            addPendingJob(job);
+        }
+    }
+
+    public void enqueue(List<QueuedCrawlJob> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        crawlJobQueueDao.addJobs(jobs);
+        synchronized (this) {
+            for (QueuedCrawlJob job : jobs) {
+                addPendingJob(job);
+            }
+            notifyAll();
+        }
+    }
+
+    public boolean cancel(String crawlJobId) {
+        boolean isRemoved = false;
+        synchronized (this) {
+            Iterator<Deque<QueuedCrawlJob>> iterator = pendingJobs.values().iterator();
+            while (iterator.hasNext()) {
+                Deque<QueuedCrawlJob> batchJobs = iterator.next();
+                isRemoved |= batchJobs.removeIf(job -> job.getCrawlJobId().equals(crawlJobId));
+                if (batchJobs.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+        if (isRemoved) {
+            crawlJobQueueDao.removeJob(crawlJobId);
+            crawlJobDao.setStatus(crawlJobId, CurrentJob.STATUS_CANCELLED);
+            crawlJobDao.writeFinishTime(crawlJobId);
+            logger.info("Crawl job " + crawlJobId + " removed from launch queue");
+        }
+        return isRemoved;
+    }
+
+    public void jobFinished(String crawlJobId) {
+        if (activeJobs.remove(crawlJobId)) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    // Position of the job in launch order starting from 1, 0 if job is not queued
+    public synchronized int getQueuePosition(String crawlJobId) {
+        List<QueuedCrawlJob> queue = getQueue();
+        for (int i = 0; i < queue.size(); i++) {
+            if (queue.get(i).getCrawlJobId().equals(crawlJobId)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // Queued jobs in the order they will be launched
+    public synchronized List<QueuedCrawlJob> getQueue() {
+        List<Iterator<QueuedCrawlJob>> batches = new ArrayList<>();
+        for (Deque<QueuedCrawlJob> batchJobs : pendingJobs.values()) {
+            batches.add(batchJobs.iterator());
+        }
+        List<QueuedCrawlJob> result = new ArrayList<>();
+        while (!batches.isEmpty()) {
+            Iterator<Iterator<QueuedCrawlJob>> iterator = batches.iterator();
+            while (iterator.hasNext()) {
+                Iterator<QueuedCrawlJob> batch = iterator.next();
+                result.add(batch.next());
+                if (!batch.hasNext()) {
+                    iterator.remove();
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getActiveJobCount() {
+        return activeJobs.size();
+    }
+
+    // Jobs running in Heritrix, without the ones being launched
+    public Set<String> getLaunchedJobs() {
+        Set<String> result = new HashSet<>(activeJobs);
+        result.removeAll(launchingJobs);
+        return result;
+    }
+
+    // Queued jobs are not launched while held, e.g. while validation falls behind crawling
+    public void setLaunchesHeld(boolean areLaunchesHeld) {
+        this.areLaunchesHeld = areLaunchesHeld;
+        if (!areLaunchesHeld) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    public boolean areLaunchesHeld() {
+        return areLaunchesHeld;
+    }
+
+    public void stop() {
+        isRunning = false;
+        launcher.shutdown();
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void run() {
+        isRunning = true;
+        logger.info("Crawl job scheduler started, maximum number of active jobs is " + maxActiveJobs);
+        while (isRunning) {
+            try {
+                schedule();
+            }
+            catch (Exception e) {
+                logger.error("Crawl job scheduler error", e);
+            }
+            synchronized (this) {
+                try {
+                    wait(POLL_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    logger.error("Crawl job scheduler was interrupted", e);
+                    return;
+                }
+            }
+        }
+    }
+
+    // One pass of the scheduler loop, launches complete in the background
+    void schedule() {
+        releaseFinishedJobs();
+        launchPendingJobs();
+    }
+
+    private void releaseFinishedJobs() {
+        Map<String, CompletableFuture<Boolean>> statuses = new HashMap<>();
+        for (String job : activeJobs) {
+            if (!launchingJobs.contains(job)) {
+                statuses.put(job, client.isJobFinishedAsync(job));
+            }
+        }
+        for (Map.Entry<String, CompletableFuture<Boolean>> status : statuses.entrySet()) {
+            try {
+                if (status.getValue().get()) {
+                    activeJobs.remove(status.getKey());
+                    logger.info("Crawl job " + status.getKey() + " finished, launch slot released");
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (Exception e) {
+                logger.error("Error on status check for crawl job " + status.getKey(), e);
+            }
+        }
+    }
+
+    private void launchPendingJobs() {
+        QueuedCrawlJob job;
+        while (!areLaunchesHeld && activeJobs.size() < maxActiveJobs && (job = pollPendingJob()) != null) {
+            activeJobs.add(job.getCrawlJobId());
+            launch(job);
+        }
+    }
+
+    private void launch(QueuedCrawlJob job) {
+        String id = job.getCrawlJobId();
+        launchingJobs.add(id);
+        client.createJobAsync(id, job.getCrawlUrls(), job.getCrawlProfile())
+                .thenCompose(created -> client.buildJobAsync(id))
+                .thenCompose(built -> client.launchJobAsync(id))
+                .whenCompleteAsync((launched, e) -> {
+                    if (e == null) {
+                        crawlJobDao.setJobLaunched(id);
+                        logger.info("Crawl job " + id + " on " + job.getCrawlUrls().get(0) + " launched");
+                    } else {
+                        logger.error("Error on launch of crawl job " + id, e);
+                        activeJobs.remove(id);
+                        crawlJobDao.setStatus(id, CurrentJob.STATUS_FAILED);
+                        crawlJobDao.writeFinishTime(id);
+                    }
+                    crawlJobQueueDao.removeJob(id);
+                    launchingJobs.remove(id);
+                }, launcher);
+    }
+
+    private synchronized QueuedCrawlJob pollPendingJob() {
+        Iterator<Map.Entry<String, Deque<QueuedCrawlJob>>> iterator = pendingJobs.entrySet().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, Deque<QueuedCrawlJob>> batch = iterator.next();
+        iterator.remove();
+        QueuedCrawlJob result = batch.getValue().poll();
+        if (!batch.getValue().isEmpty()) { // Move the batch to the end of the round
+            pendingJobs.put(batch.getKey(), batch.getValue());
+        }
+        return result;
+    }
+
+    private synchronized void addPendingJob(QueuedCrawlJob job) {
+        pendingJobs.computeIfAbsent(job.getBatchJobId(), batch -> new ArrayDeque<>()).add(job);
+    }
+}
@@ -1,54 +1,72 @@
 package org.verapdf.crawler.app.engine;
 
+import com.codahale.metrics.Timer;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.entity.FileEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.client.StandardHttpRequestRetryHandler;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+import org.verapdf.crawler.app.configuration.HttpClientSettings;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
-import java.net.MalformedURLException;
+import java.net.ConnectException;
 import java.net.URL;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
-public class HeritrixClient {
+public class HeritrixClient implements Closeable {
+
+    private static final int MAX_RETRIES = 3;
 
     public static String baseDirectory;
     private final String baseUrl;
-    private HttpClient httpClient;
+    private final CloseableHttpAsyncClient httpClient;
+    private CrawlConfigurationTemplate configurationTemplate;
+    private PipelineMetrics metrics;
 
-    public HeritrixClient(String url, String username, String password) throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException, MalformedURLException {
+    public HeritrixClient(String url, String username, String password, HttpClientSettings settings) throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException, IOException {
         baseUrl = url;
         // Configure credential provider
         URL domain = new URL(baseUrl);
@@ -58,120 +76,156 @@ public class HeritrixClient {
                 new AuthScope(targetHost.getHostName(), targetHost.getPort()),
                 new UsernamePasswordCredentials(username, password));
         // Configure http client to ignore certificate issues
-        httpClient = HttpClients.custom()
-                .setSSLSocketFactory(new SSLConnectionSocketFactory(SSLContexts.custom()
+        Registry<SchemeIOSessionStrategy> sessionStrategies = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", new SSLIOSessionStrategy(SSLContexts.custom()
                         .loadTrustMaterial(null, (x509Certificates, s) -> true)
-                        .build(), (s, sslSession) -> true)).setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE).setDefaultCredentialsProvider(credsProvider)
-                        .setRetryHandler(new StandardHttpRequestRetryHandler(3, true)).build();
+                        .build(), NoopHostnameVerifier.INSTANCE))
+                .build();
+        // All requests go to the same Heritrix engine, so the whole pool is available to a single route
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                        .setConnectTimeout(settings.getConnectTimeoutMs())
+                        .setSoTimeout(settings.getSocketTimeoutMs())
+                        .build()), sessionStrategies);
+        connectionManager.setMaxTotal(settings.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(settings.getMaxConnections());
+        httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultCredentialsProvider(credsProvider)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(settings.getConnectTimeoutMs())
+                        .setSocketTimeout(settings.getSocketTimeoutMs())
+                        .setConnectionRequestTimeout(settings.getConnectionRequestTimeoutMs())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> settings.getKeepAliveMs())
+                .build();
+        httpClient.start();
     }
 
     public void setBaseDirectory(String baseDirectory) { HeritrixClient.baseDirectory = baseDirectory; }
     public String getBaseDirectory() { return baseDirectory; }
 
-    public void setHttpClient(HttpClient httpClient) {
-        this.httpClient = httpClient;
+    public void setConfigurationTemplate(CrawlConfigurationTemplate configurationTemplate) { this.configurationTemplate = configurationTemplate; }
+    public CrawlConfigurationTemplate getConfigurationTemplate() { return configurationTemplate; }
+    public void setMetrics(PipelineMetrics metrics) { this.metrics = metrics; }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
     }
 
     public boolean testHeritrixAvailability() throws IOException {
-        HttpGet get = new HttpGet(baseUrl + "engine");
-        boolean result = httpClient.execute(get).getStatusLine().getStatusCode() == 200;
-        get.releaseConnection();
-        return result;
+        return await(send(new HttpGet(baseUrl + "engine"))).getStatusLine().getStatusCode() == 200;
     }
 
     public int getDownloadedCount(String job) throws IOException, ParserConfigurationException, SAXException {
-        String status = getFullStatus(job);
-        DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        InputSource is = new InputSource();
-        is.setCharacterStream(new StringReader(status));
-        Document doc = db.parse(is);
-        NodeList nodes = doc.getElementsByTagName("uriTotalsReport");
-        nodes = ((Element)nodes.item(0)).getElementsByTagName("downloadedUriCount");
-        return Integer.parseInt(nodes.item(0).getTextContent());
+        return await(getDownloadedCountAsync(job));
+    }
+
+    public CompletableFuture<Integer> getDownloadedCountAsync(String job) {
+        return getFullStatusAsync(job).thenApply(doc -> {
+            NodeList nodes = doc.getElementsByTagName("uriTotalsReport");
+            nodes = ((Element)nodes.item(0)).getElementsByTagName("downloadedUriCount");
+            return Integer.parseInt(nodes.item(0).getTextContent());
+        });
     }
 
     public void unpauseJob(String job) throws IOException {
-        HttpPost post = new HttpPost(baseUrl + "engine/job/" + job);
-        post.setEntity(new StringEntity("action=unpause"));
+        await(unpauseJobAsync(job));
+    }
 
-        httpClient.execute(post);
-        post.releaseConnection();
+    public CompletableFuture<Void> unpauseJobAsync(String job) {
+        return sendJobAction(job, "unpause");
     }
 
     public void pauseJob(String job) throws IOException{
-        HttpPost post = new HttpPost(baseUrl + "engine/job/" + job);
-        post.setEntity(new StringEntity("action=pause"));
+        await(pauseJobAsync(job));
+    }
 
-        httpClient.execute(post);
-        post.releaseConnection();
+    public CompletableFuture<Void> pauseJobAsync(String job) {
+        return sendJobAction(job, "pause");
     }
 
     public void terminateJob(String job) throws IOException{
-        HttpPost post = new HttpPost(baseUrl + "engine/job/" + job);
-        post.setEntity(new StringEntity("action=terminate"));
+        await(terminateJobAsync(job));
+    }
 
-        httpClient.execute(post);
-        post.releaseConnection();
+    public CompletableFuture<Void> terminateJobAsync(String job) {
+        return sendJobAction(job, "terminate");
     }
 
     public void teardownJob(String job) throws IOException{
-        HttpPost post = new HttpPost(baseUrl + "engine/job/" + job);
-        post.setEntity(new StringEntity("action=teardown"));
+        await(teardownJobAsync(job));
+    }
 
-        httpClient.execute(post);
-        post.releaseConnection();
+    public CompletableFuture<Void> teardownJobAsync(String job) {
+        return sendJobAction(job, "teardown");
     }
 
     public String createJob(String job, List<String> crawlUrls) throws IOException{
-        HttpPost post = new HttpPost(baseUrl + "engine/");
-        post.setEntity(new StringEntity("createpath=" + job +"&action=create"));
+        return await(createJobAsync(job, crawlUrls, CrawlConfigurationTemplate.DEFAULT_PROFILE));
+    }
 
-        httpClient.execute(post);
-        post.releaseConnection();
+    public String createJob(String job, List<String> crawlUrls, String crawlProfile) throws IOException{
+        return await(createJobAsync(job, crawlUrls, crawlProfile));
+    }
 
-        String configurationFile = createCrawlConfiguration(job, crawlUrls, baseDirectory + job + "_configuration.cxml");
-        submitConfigFile(job, configurationFile);
-        new File(configurationFile).delete();
+    public CompletableFuture<String> createJobAsync(String job, List<String> crawlUrls, String crawlProfile) {
+        HttpPost post = new HttpPost(baseUrl + "engine/");
+        post.setEntity(new StringEntity("createpath=" + job +"&action=create", StandardCharsets.UTF_8));
 
-        return job;
+        return execute(post)
+                .thenCompose(response -> submitConfiguration(job, configurationTemplate.render(crawlUrls, crawlProfile)))
+                .thenApply(response -> job);
     }
 
     public void launchJob(String job) throws IOException{
-        HttpPost post = new HttpPost(baseUrl + "engine/job/" + job);
-        post.setEntity(new StringEntity("action=launch"));
+        await(launchJobAsync(job));
+    }
 
-        httpClient.execute(post);
-        post.releaseConnection();
+    public CompletableFuture<Void> launchJobAsync(String job) {
+        return sendJobAction(job, "launch");
     }
 
     public void buildJob(String job) throws IOException{
-        HttpPost post = new HttpPost(baseUrl + "engine/job/" + job);
-        post.setEntity(new StringEntity("action=build"));
+        await(buildJobAsync(job));
+    }
 
-        httpClient.execute(post);
-        post.releaseConnection();
+    public CompletableFuture<Void> buildJobAsync(String job) {
+        return sendJobAction(job, "build");
     }
 
     public String getCurrentJobStatus(String job) throws IOException, ParserConfigurationException, SAXException {
-        String status = getFullStatus(job);
+        return await(getCurrentJobStatusAsync(job));
+    }
 
-        DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        InputSource is = new InputSource();
-        is.setCharacterStream(new StringReader(status));
-        Document doc = db.parse(is);
-        NodeList nodes = doc.getElementsByTagName("statusDescription");
-        return nodes.item(0).getTextContent().split(":")[1].toLowerCase();
+    public CompletableFuture<String> getCurrentJobStatusAsync(String job) {
+        return getFullStatusAsync(job).thenApply(HeritrixClient::getJobStatusFromXml);
+    }
+
+    public static String getJobStatusFromXml(Document status) {
+        NodeList nodes = status.getElementsByTagName("statusDescription");
+        // Description is like "Finished: FINISHED" or "Unbuilt" for jobs without the second part
+        String description = nodes.item(0).getTextContent();
+        return description.substring(description.lastIndexOf(':') + 1).trim().toLowerCase();
     }
 
     public boolean isJobFinished(String job) throws IOException, ParserConfigurationException, SAXException {
-        return getCurrentJobStatus(job).startsWith("finished") || getCurrentJobStatus(job).startsWith("aborted");
+        return await(isJobFinishedAsync(job));
+    }
+
+    public CompletableFuture<Boolean> isJobFinishedAsync(String job) {
+        return getCurrentJobStatusAsync(job).thenApply(status -> status.startsWith("finished") || status.startsWith("aborted"));
     }
 
     public List<String> getListOfCrawlUrls(String job) throws IOException {
-        HttpGet get = new HttpGet(baseUrl + "engine/job/" + job + "/jobdir/crawler-beans.cxml");
-        String configXml = getResponseAsString(httpClient.execute(get));
-        get.releaseConnection();
-        return getListOfCrawlUrlsFromXml(configXml);
+        return await(getListOfCrawlUrlsAsync(job));
+    }
+
+    public CompletableFuture<List<String>> getListOfCrawlUrlsAsync(String job) {
+        return getResponseAsString(new HttpGet(baseUrl + "engine/job/" + job + "/jobdir/crawler-beans.cxml"))
+                .thenApply(HeritrixClient::getListOfCrawlUrlsFromXml);
     }
 
     public static List<String> getListOfCrawlUrlsFromXml(String configXml) {
@@ -182,39 +236,18 @@ public class HeritrixClient {
         return result;
     }
 
-    private static String createCrawlConfiguration(String job, List<String> crawlUrls, String targetfileName) throws IOException {
-
-        StringBuilder sb = new StringBuilder();
-        for(String url: crawlUrls) {
-            sb.append(url);
-            sb.append(" " + System.lineSeparator());
-            String surt = buildSurt(url);
-            sb.append(" " + System.lineSeparator());
-            sb.append(surt);
-        }
-
-        File source = new File(baseDirectory + "sample_configuration.cxml");
-        File destination = new File(targetfileName);
-        Files.copy(source.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
-
-        Charset charset = StandardCharsets.UTF_8;
-
-        String content = new String(Files.readAllBytes(destination.toPath()), charset);
-        content = content.replace("******", crawlUrls.get(0));
-        content = content.replace("######", sb.toString());
-        Files.write(destination.toPath(), content.getBytes(charset));
-        return targetfileName;
+    public String getValidPDFReportUri(String job) throws IOException {
+        return await(getValidPDFReportUriAsync(job));
     }
 
-    public String getValidPDFReportUri(String job) throws IOException {
-        HttpGet get = new HttpGet(baseUrl + "engine/job/" + job);
-        String status = getResponseAsString(httpClient.execute(get));
-        get.releaseConnection();
-        String result = getBetweenStrings(status, "<h3>Crawl Log <a href=\"", "?format=paged");
-        result = baseUrl + result;
-        result = result.replace("logs/crawl.log","mirror/Valid_PDF_Report.txt");
-        result = result.replace("//engine", "/engine");
-        return result;
+    public CompletableFuture<String> getValidPDFReportUriAsync(String job) {
+        return getResponseAsString(new HttpGet(baseUrl + "engine/job/" + job)).thenApply(status -> {
+            String result = getBetweenStrings(status, "<h3>Crawl Log <a href=\"", "?format=paged");
+            result = baseUrl + result;
+            result = result.replace("logs/crawl.log","mirror/Valid_PDF_Report.txt");
+            result = result.replace("//engine", "/engine");
+            return result;
+        });
     }
 
     public String getConfig(String jobUrl) throws IOException {
@@ -224,57 +257,118 @@ public class HeritrixClient {
             file = new File(jobDirectory + "crawler-beans.cxml");
         }
         byte[] encoded = Files.readAllBytes(Paths.get(file.getAbsolutePath()));
-        /*String config = getLogFileByURL(jobUrl + "sample_configuration.cxml");
-        if(config.equals("")) {
-            config = getLogFileByURL(jobUrl + "crawler-beans.cxml");
-        }*/
         return new String(encoded);
     }
 
-    /*private String getLogFileByURL(String url) throws IOException {
-        HttpGet get = new HttpGet(url);
-        InputStream response = httpClient.execute(get).getEntity().getContent();
-        Scanner sc = new Scanner(response);
-        StringBuilder result = new StringBuilder();
-        while(sc.hasNext()) {
-            result.append(sc.nextLine() + System.lineSeparator());
-        }
-        get.releaseConnection();
-        if(result.toString().contains("The page you are looking for does not exist"))
-            return "";
-        return result.toString();
-    }*/
-
     //<editor-fold desc="Private helpers">
 
-    private String getResponseAsString(HttpResponse response) throws IOException {
-        BufferedReader rd = new BufferedReader(
-                new InputStreamReader(response.getEntity().getContent()));
+    // Heritrix rejects actions with error pages, they fail the future like connection errors do
+    private CompletableFuture<HttpResponse> execute(HttpUriRequest request) {
+        return send(request).thenApply(response -> {
+            int status = response.getStatusLine().getStatusCode();
+            if (status < 200 || status >= 300) {
+                throw new CompletionException(new HttpResponseException(status, request.getMethod() + " "
+                        + request.getURI() + " failed: " + response.getStatusLine().getReasonPhrase()));
+            }
+            return response;
+        });
+    }
+
+    // Responses are fully consumed by the async client, so the connection is back in the pool when the future completes
+    private CompletableFuture<HttpResponse> send(HttpUriRequest request) {
+        if (metrics == null) {
+            return send(request, MAX_RETRIES);
+        }
+        Timer.Context time = metrics.getHeritrixRequests().time();
+        return send(request, MAX_RETRIES).whenComplete((response, error) -> time.stop());
+    }
+
+    private CompletableFuture<HttpResponse> send(HttpUriRequest request, int retriesLeft) {
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        httpClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (retriesLeft > 0 && isRetriable(request, e)) {
+                    send(request, retriesLeft - 1).whenComplete((response, retryError) -> {
+                        if (retryError == null) {
+                            result.complete(response);
+                        } else {
+                            result.completeExceptionally(retryError);
+                        }
+                    });
+                } else {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        return result;
+    }
 
-        StringBuilder result = new StringBuilder();
-        String line;
-        while ((line = rd.readLine()) != null) {
-            result.append(line);
+    // Actions are posted, a post which may have reached Heritrix is not repeated, e.g. to not create a job twice
+    private static boolean isRetriable(HttpUriRequest request, Exception e) {
+        if (e instanceof ConnectException || e instanceof ConnectTimeoutException) {
+            return true;
         }
-        return result.toString();
+        return e instanceof IOException && !HttpPost.METHOD_NAME.equals(request.getMethod());
+    }
+
+    private CompletableFuture<Void> sendJobAction(String job, String action) {
+        HttpPost post = new HttpPost(baseUrl + "engine/job/" + job);
+        post.setEntity(new StringEntity("action=" + action, StandardCharsets.UTF_8));
+        return execute(post).thenApply(response -> null);
+    }
+
+    private CompletableFuture<String> getResponseAsString(HttpUriRequest request) {
+        return execute(request).thenApply(response -> {
+            try {
+                return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
     }
 
-    private String getFullStatus(String job) throws IOException {
+    private CompletableFuture<Document> getFullStatusAsync(String job) {
         HttpGet get = new HttpGet(baseUrl + "engine/job/" + job);
         get.setHeader("Accept","application/xml");
 
-        String result = getResponseAsString(httpClient.execute(get));
-        get.releaseConnection();
-        return result;
+        return execute(get).thenApply(response -> {
+            try (InputStream content = response.getEntity().getContent()) {
+                return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(content);
+            } catch (IOException | SAXException | ParserConfigurationException e) {
+                throw new CompletionException(e);
+            }
+        });
     }
 
-    private void submitConfigFile(String job, String filename) throws IOException {
-        File file = new File(filename);
+    private CompletableFuture<HttpResponse> submitConfiguration(String job, byte[] configuration) {
         HttpPut put = new HttpPut(baseUrl + "engine/job/" + job + "/jobdir/crawler-beans.cxml");
-        FileEntity entity = new FileEntity(file);
-        put.setEntity(entity);
-        httpClient.execute(put);
-        put.releaseConnection();
+        put.setEntity(new ByteArrayEntity(configuration, ContentType.APPLICATION_XML));
+        return execute(put);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Heritrix response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
     }
 
     private static String getBetweenStrings(String text, String textFrom, String textTo) {
@@ -293,18 +387,5 @@ public class HeritrixClient {
         return result;
     }
 
-    private static String buildSurt(String url) {
-        String[] parts = url.split("(?<=://)|\\.");
-        parts[parts.length - 1] = parts[parts.length - 1].split("/",2)[0];
-        StringBuilder builder = new StringBuilder("+");
-        builder.append("http://");
-        builder.append("(");
-        for(int i = parts.length - 1; i > 0; i--) {
-            builder.append(parts[i]);
-            builder.append(",");
-        }
-        builder.append(System.lineSeparator());
-        return builder.toString();
-    }
     //</editor-fold>
 }
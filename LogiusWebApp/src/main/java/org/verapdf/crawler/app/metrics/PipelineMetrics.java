@@ -0,0 +1,83 @@
+package org.verapdf.crawler.app.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.verapdf.crawler.repository.ReadThroughCache;
+
+/**
+ * Names and accessors of the metrics describing the document pipeline, so that every component
+ * registers its metrics in the Dropwizard registry under the same scheme.
+ */
+public class PipelineMetrics {
+    public static final String STAGE_QUEUE_WAIT = "queue_wait";
+    public static final String STAGE_FILE_TRANSFER = "file_transfer";
+    public static final String STAGE_VERAPDF_PROCESS = "verapdf_process";
+    public static final String STAGE_REPORT_PARSE = "report_parse";
+    public static final String STAGE_DB_PERSIST = "db_persist";
+
+    public static final String RESULT_VALID = "valid";
+    public static final String RESULT_INVALID = "invalid";
+    public static final String RESULT_FAILED = "failed";
+
+    private static final String PREFIX = "logius";
+
+    private final MetricRegistry registry;
+
+    public PipelineMetrics(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    // Documents reported by Heritrix, by document type name
+    public Meter getReceivedDocuments(String type) {
+        return registry.meter(MetricRegistry.name(PREFIX, "documents", "received", type));
+    }
+
+    public Meter getValidationResults(String result) {
+        return registry.meter(MetricRegistry.name(PREFIX, "validation", "results", result));
+    }
+
+    public Timer getStage(String stage) {
+        return registry.timer(MetricRegistry.name(PREFIX, "validation", "stage", stage));
+    }
+
+    public Timer getLaneLatency(String lane) {
+        return registry.timer(MetricRegistry.name(PREFIX, "validation", "lane", lane, "latency"));
+    }
+
+    public Timer getHeritrixRequests() {
+        return registry.timer(MetricRegistry.name(PREFIX, "heritrix", "requests"));
+    }
+
+    public Timer getSmtpRequests() {
+        return registry.timer(MetricRegistry.name(PREFIX, "smtp", "requests"));
+    }
+
+    public Meter getSmtpFailures() {
+        return registry.meter(MetricRegistry.name(PREFIX, "smtp", "failures"));
+    }
+
+    // Crawl jobs paused or resumed because of validation backlog
+    public Meter getBackpressureActions(String action) {
+        return registry.meter(MetricRegistry.name(PREFIX, "backpressure", action));
+    }
+
+    public void registerCache(ReadThroughCache<?> cache, String name) {
+        registerGauge(() -> cache.getStats().hitRate(), "cache", name, "hit_rate");
+        registerGauge(() -> cache.getStats().hitCount(), "cache", name, "hits");
+        registerGauge(() -> cache.getStats().missCount(), "cache", name, "misses");
+        registerGauge(() -> cache.getStats().evictionCount(), "cache", name, "evictions");
+        registerGauge(cache::getSize, "cache", name, "size");
+    }
+
+    public <T> void registerGauge(Gauge<T> gauge, String... names) {
+        String name = MetricRegistry.name(PREFIX, names);
+        registry.remove(name);
+        registry.register(name, gauge);
+    }
+}
@@ -0,0 +1,134 @@
+package org.verapdf.crawler.app.metrics;
+
+import com.codahale.metrics.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the metric registry in Prometheus text exposition format, for the admin connector.
+ * Timers are reported in seconds; gauges with non-numeric values are skipped.
+ */
+public class PrometheusMetricsServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double NANOSECONDS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final MetricRegistry registry;
+    // Metrics already reported as colliding, to warn once instead of on every scrape
+    private final Set<String> collidingMetrics = ConcurrentHashMap.newKeySet();
+
+    public PrometheusMetricsServlet(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+        PrintWriter writer = response.getWriter();
+        write(writer);
+        writer.flush();
+    }
+
+    // Metric whose sanitized name repeats one already written, e.g. a.b after a_b, is skipped
+    void write(PrintWriter writer) {
+        Set<String> names = new HashSet<>();
+        for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+            Double value = toDouble(entry.getValue().getValue());
+            String name = sanitize(entry.getKey());
+            if (value != null && reserve(names, entry.getKey(), name)) {
+                writeValue(writer, name, "gauge", value);
+            }
+        }
+        for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+            String name = sanitize(entry.getKey());
+            if (reserve(names, entry.getKey(), name)) {
+                writeValue(writer, name, "gauge", entry.getValue().getCount());
+            }
+        }
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            String name = sanitize(entry.getKey());
+            if (reserve(names, entry.getKey(), name + "_total", name + "_m1_rate")) {
+                writeValue(writer, name + "_total", "counter", entry.getValue().getCount());
+                writeValue(writer, name + "_m1_rate", "gauge", entry.getValue().getOneMinuteRate());
+            }
+        }
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+            String name = sanitize(entry.getKey());
+            if (reserve(names, entry.getKey(), name, name + "_count", name + "_sum")) {
+                writeSummary(writer, name, entry.getValue().getSnapshot(), entry.getValue().getCount(), 1);
+            }
+        }
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            String name = sanitize(entry.getKey()) + "_seconds";
+            if (reserve(names, entry.getKey(), name, name + "_count", name + "_sum", name + "_m1_rate")) {
+                writeSummary(writer, name, entry.getValue().getSnapshot(), entry.getValue().getCount(), NANOSECONDS_PER_SECOND);
+                writeValue(writer, name + "_m1_rate", "gauge", entry.getValue().getOneMinuteRate());
+            }
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private static void writeValue(PrintWriter writer, String name, String type, double value) {
+        writer.println("# TYPE " + name + " " + type);
+        writer.println(name + " " + value);
+    }
+
+    private static void writeSummary(PrintWriter writer, String name, Snapshot snapshot, long count, double divisor) {
+        writer.println("# TYPE " + name + " summary");
+        writeQuantile(writer, name, "0.5", snapshot.getMedian() / divisor);
+        writeQuantile(writer, name, "0.75", snapshot.get75thPercentile() / divisor);
+        writeQuantile(writer, name, "0.95", snapshot.get95thPercentile() / divisor);
+        writeQuantile(writer, name, "0.99", snapshot.get99thPercentile() / divisor);
+        // Reservoir keeps no running total, the sum is estimated from the mean of the sampled values
+        writer.println(name + "_sum " + snapshot.getMean() * count / divisor);
+        writer.println(name + "_count " + count);
+    }
+
+    private static void writeQuantile(PrintWriter writer, String name, String quantile, double value) {
+        writer.println(name + "{quantile=\"" + quantile + "\"} " + value);
+    }
+
+    private boolean reserve(Set<String> names, String metric, String... exposedNames) {
+        for (String name : exposedNames) {
+            if (names.contains(name)) {
+                if (collidingMetrics.add(metric)) {
+                    logger.warn("Metric " + metric + " is not exported to Prometheus, name " + name + " is already taken");
+                }
+                return false;
+            }
+        }
+        names.addAll(Arrays.asList(exposedNames));
+        return true;
+    }
+
+    private static Double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1.0 : 0.0;
+        }
+        return null;
+    }
+
+    private static String sanitize(String name) {
+        String result = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+        return Character.isDigit(result.charAt(0)) ? "_" + result : result;
+    }
+
+    //</editor-fold>
+}
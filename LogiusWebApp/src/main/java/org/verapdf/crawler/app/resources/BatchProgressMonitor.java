@@ -0,0 +1,198 @@
+package org.verapdf.crawler.app.resources;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.glassfish.jersey.media.sse.SseBroadcaster;
+import org.glassfish.jersey.server.BroadcasterListener;
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.domain.report.CrawlJobReport;
+
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refreshes progress of watched batch jobs in one background thread and pushes it to every viewer as server-sent
+ * events: a snapshot of all crawl job reports on connect and reports of changed crawl jobs afterwards. Heritrix and
+ * database are queried once per refresh of a batch job, regardless of the number of viewers.
+ */
+public class BatchProgressMonitor implements Runnable {
+    public static final String EVENT_SNAPSHOT = "snapshot";
+    public static final String EVENT_UPDATE = "update";
+    public static final String EVENT_FAILURE = "failure";
+
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    // Comment sent to idle streams, so that closed connections are detected and proxies keep open ones
+    private static final long HEARTBEAT_INTERVAL_MS = 15000;
+
+    private final ControlResource controlResource;
+    private final long refreshIntervalMs;
+    private final ObjectMapper mapper = Jackson.newObjectMapper();
+    private final Map<String, BatchProgress> batches = new ConcurrentHashMap<>();
+
+    BatchProgressMonitor(ControlResource controlResource, long refreshIntervalMs) {
+        this.controlResource = controlResource;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    public EventOutput subscribe(String batchJobId) {
+        EventOutput output = new EventOutput();
+        while (true) {
+            BatchProgress progress = batches.computeIfAbsent(batchJobId, id -> new BatchProgress());
+            synchronized (progress) {
+                // Batch could be dropped by the monitor between lookup and lock
+                if (progress.isRemoved) {
+                    continue;
+                }
+                progress.add(output);
+                if (progress.reports != null) {
+                    try {
+                        output.write(buildEvent(EVENT_SNAPSHOT, progress.version, progress.reports.values()));
+                    } catch (IOException e) {
+                        logger.error("Error on sending progress snapshot of batch job " + batchJobId, e);
+                    }
+                }
+            }
+            return output;
+        }
+    }
+
+    public int getSubscriberCount() {
+        int result = 0;
+        for (BatchProgress progress : batches.values()) {
+            result += progress.getSubscriberCount();
+        }
+        return result;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            for (Map.Entry<String, BatchProgress> entry : batches.entrySet()) {
+                try {
+                    refresh(entry.getKey(), entry.getValue());
+                } catch (Exception e) {
+                    logger.error("Batch progress monitor error", e);
+                }
+            }
+            try {
+                Thread.sleep(refreshIntervalMs);
+            } catch (InterruptedException e) {
+                logger.info("Batch progress monitor stopped");
+                return;
+            }
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private void refresh(String batchJobId, BatchProgress progress) throws IOException {
+        synchronized (progress) {
+            if (progress.getSubscriberCount() == 0) {
+                progress.isRemoved = true;
+                batches.remove(batchJobId, progress);
+                return;
+            }
+        }
+        List<CrawlJobReport> reports;
+        try {
+            reports = controlResource.getBatchJob(batchJobId);
+        } catch (RuntimeException e) {
+            logger.error("Error on refreshing progress of batch job " + batchJobId, e);
+            synchronized (progress) {
+                progress.broadcaster.broadcast(new OutboundEvent.Builder().name(EVENT_FAILURE).data(String.class, batchJobId).build());
+                progress.broadcaster.closeAll();
+                progress.isRemoved = true;
+                batches.remove(batchJobId, progress);
+            }
+            return;
+        }
+        Map<String, String> current = new LinkedHashMap<>();
+        for (CrawlJobReport report : reports) {
+            // Report is missing if Heritrix could not be reached, previous one is kept
+            if (report != null) {
+                current.put(report.getId(), mapper.writeValueAsString(report));
+            }
+        }
+        long now = System.currentTimeMillis();
+        synchronized (progress) {
+            if (progress.reports == null) {
+                progress.reports = current;
+                progress.version++;
+                progress.broadcast(buildEvent(EVENT_SNAPSHOT, progress.version, current.values()), now);
+                return;
+            }
+            List<String> changed = new ArrayList<>();
+            for (Map.Entry<String, String> report : current.entrySet()) {
+                if (!report.getValue().equals(progress.reports.put(report.getKey(), report.getValue()))) {
+                    changed.add(report.getValue());
+                }
+            }
+            if (!changed.isEmpty()) {
+                progress.version++;
+                progress.broadcast(buildEvent(EVENT_UPDATE, progress.version, changed), now);
+            } else if (now - progress.lastEventTime >= HEARTBEAT_INTERVAL_MS) {
+                progress.broadcast(new OutboundEvent.Builder().comment("heartbeat").build(), now);
+            }
+        }
+    }
+
+    // Reports are serialized once per refresh and shared by all viewers
+    private static OutboundEvent buildEvent(String name, long version, Iterable<String> reports) {
+        return new OutboundEvent.Builder()
+                .name(name)
+                .id(Long.toString(version))
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(String.class, "[" + String.join(",", reports) + "]")
+                .build();
+    }
+
+    private static class BatchProgress implements BroadcasterListener<OutboundEvent> {
+        private final SseBroadcaster broadcaster = new SseBroadcaster();
+        private final Map<ChunkedOutput<OutboundEvent>, Boolean> outputs = new ConcurrentHashMap<>();
+        // Latest report of every crawl job as JSON, null until the first refresh
+        private Map<String, String> reports;
+        private long version;
+        private long lastEventTime;
+        private boolean isRemoved;
+
+        BatchProgress() {
+            broadcaster.add(this);
+        }
+
+        void add(EventOutput output) {
+            outputs.put(output, true);
+            broadcaster.add(output);
+        }
+
+        void broadcast(OutboundEvent event, long now) {
+            broadcaster.broadcast(event);
+            lastEventTime = now;
+        }
+
+        int getSubscriberCount() {
+            return outputs.size();
+        }
+
+        @Override
+        public void onException(ChunkedOutput<OutboundEvent> output, Exception exception) {
+            outputs.remove(output);
+        }
+
+        @Override
+        public void onClose(ChunkedOutput<OutboundEvent> output) {
+            outputs.remove(output);
+        }
+    }
+
+    //</editor-fold>
+}
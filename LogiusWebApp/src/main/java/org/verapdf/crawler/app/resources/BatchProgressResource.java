@@ -0,0 +1,27 @@
+package org.verapdf.crawler.app.resources;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.SseFeature;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+
+@Path("/progress")
+public class BatchProgressResource {
+
+    private final BatchProgressMonitor monitor;
+
+    BatchProgressResource(BatchProgressMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    // Stream of snapshot and update events with crawl job reports of the batch job
+    @GET
+    @Path("/{job}")
+    @Produces(SseFeature.SERVER_SENT_EVENTS)
+    public EventOutput getBatchJobProgress(@PathParam("job") String job) {
+        return monitor.subscribe(job);
+    }
+}
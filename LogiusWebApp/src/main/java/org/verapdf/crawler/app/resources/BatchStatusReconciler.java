@@ -0,0 +1,173 @@
+package org.verapdf.crawler.app.resources;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.app.email.EmailOutbox;
+import org.verapdf.crawler.app.engine.BackpressureController;
+import org.verapdf.crawler.app.engine.CrawlJobScheduler;
+import org.verapdf.crawler.app.engine.HeritrixClient;
+import org.verapdf.crawler.domain.crawling.BatchJob;
+import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.domain.report.CrawlJobReport;
+import org.verapdf.crawler.report.HeritrixReporter;
+import org.verapdf.crawler.repository.jobs.BatchJobDao;
+import org.verapdf.crawler.repository.jobs.BatchStatusDao;
+import org.verapdf.crawler.repository.jobs.CrawlJobDao;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves crawl jobs and batch jobs through their states: takes the status of every crawl job from Heritrix, records
+ * finished jobs, tears them down, marks finished batch jobs and queues notifications to their report address. Reports
+ * of all crawl jobs are stored in the batch_status read model, which is all the status endpoints read.
+ */
+public class BatchStatusReconciler implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+
+    private final HeritrixClient client;
+    private final HeritrixReporter reporter;
+    private final CrawlJobScheduler scheduler;
+    private final BackpressureController backpressure;
+    private final CrawlJobDao crawlJobDao;
+    private final BatchJobDao batchJobDao;
+    private final BatchStatusDao batchStatusDao;
+    private final EmailOutbox emailOutbox;
+    private final long intervalMs;
+    private final long finishedIntervalMs;
+    // Batch jobs which should be reconciled before the next round, e.g. just created ones
+    private final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+
+    BatchStatusReconciler(HeritrixClient client, HeritrixReporter reporter, CrawlJobScheduler scheduler,
+                          BackpressureController backpressure, CrawlJobDao crawlJobDao, BatchJobDao batchJobDao, BatchStatusDao batchStatusDao,
+                          EmailOutbox emailOutbox, long intervalMs, long finishedIntervalMs) {
+        this.client = client;
+        this.reporter = reporter;
+        this.scheduler = scheduler;
+        this.backpressure = backpressure;
+        this.crawlJobDao = crawlJobDao;
+        this.batchJobDao = batchJobDao;
+        this.batchStatusDao = batchStatusDao;
+        this.emailOutbox = emailOutbox;
+        this.intervalMs = intervalMs;
+        this.finishedIntervalMs = finishedIntervalMs;
+    }
+
+    public void requestReconcile(String batchJobId) {
+        requests.add(batchJobId);
+    }
+
+    @Override
+    public void run() {
+        long nextRound = 0;
+        long nextFinishedRound = 0;
+        while (true) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now >= nextRound) {
+                    // Documents of finished batch jobs may still be validated, so their counts are refreshed less often
+                    boolean includeFinished = now >= nextFinishedRound;
+                    for (BatchJob batchJob : batchJobDao.getBatchJobs()) {
+                        if (includeFinished || !batchJob.isFinished()) {
+                            reconcile(batchJob);
+                        }
+                    }
+                    nextRound = now + intervalMs;
+                    if (includeFinished) {
+                        nextFinishedRound = now + finishedIntervalMs;
+                    }
+                }
+                String requested = requests.poll(Math.max(1, nextRound - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (requested != null) {
+                    reconcile(batchJobDao.getBatchJob(requested));
+                }
+            } catch (InterruptedException e) {
+                logger.info("Batch status reconciler stopped");
+                return;
+            } catch (Exception e) {
+                logger.error("Batch status reconciler error", e);
+            }
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private void reconcile(BatchJob batchJob) {
+        boolean isBatchJobFinished = true;
+        List<String> crawlJobs = batchJob.getCrawlJobs();
+        for (int i = 0; i < crawlJobs.size(); i++) {
+            String crawlJobId = crawlJobs.get(i);
+            CrawlJobReport report = reconcileCrawlJob(crawlJobId, batchJob.getCrawlSinceTime());
+            // Heritrix could not be reached, the last stored report is kept
+            if (report == null) {
+                isBatchJobFinished = false;
+                continue;
+            }
+            CurrentJob crawlJob = crawlJobDao.getCrawlJob(crawlJobId);
+            try {
+                batchStatusDao.saveReport(batchJob.getId(), i, report, crawlJob);
+            } catch (Exception e) {
+                logger.error("Error on saving status of crawl job " + crawlJobId, e);
+            }
+            if (crawlJob.getFinishTime() == null) {
+                isBatchJobFinished = false;
+            }
+        }
+        if (isBatchJobFinished && !batchJob.isFinished()) {
+            List<String> domains = new ArrayList<>();
+            for (String crawlJobId : crawlJobs) {
+                domains.add(crawlJobDao.getCrawlUrl(crawlJobId));
+            }
+            // Notification is queued first, so that a failure in between repeats it rather than loses it
+            if (batchJob.getEmailAddress() != null && !batchJob.getEmailAddress().equals("")) {
+                String subject = "Crawl job";
+                String text = "Batch job was finished successfully. List of crawled domains:\n" + String.join("\n ", domains);
+                emailOutbox.send(batchJob.getEmailAddress(), subject, text);
+            }
+            batchJobDao.setJobFinished(batchJob.getId());
+        }
+    }
+
+    private CrawlJobReport reconcileCrawlJob(String job, LocalDateTime crawlSince) {
+        try {
+            CurrentJob crawlJob = crawlJobDao.getCrawlJob(job);
+            if (!crawlJob.isLaunched()) {
+                CrawlJobReport result = reporter.getPendingReport(crawlJob, crawlSince);
+                result.setQueuePosition(scheduler.getQueuePosition(job));
+                return result;
+            }
+            // Job URL is set once the finished job is recorded and torn down in Heritrix
+            if (!crawlJob.getJobURL().equals("")) {
+                return reporter.getFinishedReport(crawlJob, crawlSince);
+            }
+            CrawlJobReport result = reporter.getReport(job, crawlSince);
+            crawlJobDao.setStatus(job, result.getStatus());
+            result.setPausedReason(backpressure.getPauseReason(job));
+            CurrentJob jobData = crawlJobDao.getCrawlJob(job);
+
+            if (result.getStatus().startsWith("finished") || result.getStatus().startsWith("aborted")) {
+                if (!jobData.isFinished()) {
+                    crawlJobDao.setJobFinished(job, true);
+                }
+                // Job is recorded as finished after teardown, so that a failed teardown is retried in the next round
+                String jobUrl = client.getValidPDFReportUri(job).replace("mirror/Valid_PDF_Report.txt", "");
+                client.teardownJob(jobData.getId());
+                scheduler.jobFinished(jobData.getId());
+                crawlJobDao.setJobUrl(job, jobUrl);
+                logger.info("Writing finish time for job " + job);
+                crawlJobDao.writeFinishTime(job);
+            }
+            return result;
+        }
+        catch (Exception e) {
+            logger.error("Error on job data request", e);
+        }
+        return null;
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,101 @@
+package org.verapdf.crawler.app.resources;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.verapdf.crawler.domain.report.BulkIngestResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reads newline delimited JSON notifications from a request body line by line with Jackson streaming parser
+ * and hands them to the writer in batches, so the body is never kept in memory as a whole.
+ * A line is rejected if it is not a single JSON object, if the converter throws IllegalArgumentException
+ * or if the batch containing it could not be written to database. Nested values of an object are skipped.
+ */
+class BulkNotificationReader {
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private BulkNotificationReader() {}
+
+    static <T> BulkIngestResult read(InputStream body, int batchSize, Function<Map<String, String>, T> converter,
+                                     Consumer<List<T>> writer) throws IOException {
+        BulkIngestResult result = new BulkIngestResult();
+        List<T> batch = new ArrayList<>(batchSize);
+        List<Integer> batchLines = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                batch.add(converter.apply(parseLine(line)));
+                batchLines.add(lineNumber);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Rejected notification on line " + lineNumber + ": " + e.getMessage());
+                result.reject(lineNumber);
+            }
+            if (batch.size() == batchSize) {
+                writeBatch(batch, batchLines, writer, result);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, batchLines, writer, result);
+        }
+        return result;
+    }
+
+    private static <T> void writeBatch(List<T> batch, List<Integer> batchLines, Consumer<List<T>> writer,
+                                       BulkIngestResult result) {
+        try {
+            writer.accept(batch);
+            result.accept(batch.size());
+        } catch (DataAccessException e) {
+            logger.error("Error on writing " + batch.size() + " notifications", e);
+            for (Integer lineNumber : batchLines) {
+                result.reject(lineNumber);
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private static Map<String, String> parseLine(String line) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Notification is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value.isScalarValue()) {
+                    fields.put(name, value == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parser.getCurrentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new IOException("Unexpected content after notification");
+            }
+        }
+        return fields;
+    }
+}
@@ -3,66 +3,88 @@ package org.verapdf.crawler.app.resources;
 import com.codahale.metrics.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.classifier.DocumentClassifier;
+import org.verapdf.crawler.classifier.DocumentType;
 import org.verapdf.crawler.domain.crawling.*;
 import org.verapdf.crawler.domain.email.EmailAddress;
-import org.verapdf.crawler.domain.email.EmailServer;
 import org.verapdf.crawler.domain.office.OfficeDocumentData;
+import org.verapdf.crawler.domain.report.BulkIngestResult;
 import org.verapdf.crawler.domain.report.CrawlJobReport;
+import org.verapdf.crawler.domain.validation.LeasedValidationJob;
 import org.verapdf.crawler.domain.validation.ValidationJobData;
-import org.verapdf.crawler.app.email.SendEmail;
+import org.verapdf.crawler.domain.validation.ValidationJobResult;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.app.engine.BackpressureController;
+import org.verapdf.crawler.app.engine.CrawlJobScheduler;
 import org.verapdf.crawler.app.engine.HeritrixClient;
-import org.verapdf.crawler.report.HeritrixReporter;
+import org.verapdf.crawler.repository.DaoUtils;
 import org.verapdf.crawler.repository.document.InsertDocumentDao;
 import org.verapdf.crawler.repository.jobs.BatchJobDao;
+import org.verapdf.crawler.repository.jobs.BatchStatusDao;
 import org.verapdf.crawler.repository.jobs.CrawlJobDao;
 import org.verapdf.crawler.validation.ValidationService;
 
 import javax.sql.DataSource;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Produces(MediaType.APPLICATION_JSON)
 @Path("/")
 public class ControlResource {
 
-    private static final String[] ODF_SUFFIXES = {".odt", ".ods", ".odp"};
-    private static final String[] OFFICE_SUFFIXES = {".doc", ".xls", ".ppt"};
-    private static final String[] OOXML_SUFFIXES = {".docx", ".xlsx", ".pptx"};
+    // Newline delimited JSON, used by Heritrix extension to send notifications in batches
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String PDF_DOCUMENT_TYPE = "pdf";
+    private static final int MAX_LEASE_COUNT = 100;
+    private static final int MAX_LEASE_WAIT_SECONDS = 60;
 
     @Context
     private UriInfo uriInfo;
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
 
     private final HeritrixClient client;
-    private final HeritrixReporter reporter;
-    private final EmailServer emailServer;
     private final ValidationService service;
     private final ResourceManager resourceManager;
     private final CrawlJobDao crawlJobDao;
     private final InsertDocumentDao insertDocumentDao;
     private final BatchJobDao batchJobDao;
+    private final BatchStatusDao batchStatusDao;
+    private final BatchStatusReconciler reconciler;
+    private final CrawlJobScheduler scheduler;
+    private final BackpressureController backpressure;
+    private final int bulkInsertBatchSize;
+    private final PipelineMetrics metrics;
 
-    ControlResource(HeritrixClient client, HeritrixReporter reporter,
-                    EmailServer emailServer, ValidationService service,
+    ControlResource(HeritrixClient client, ValidationService service,
                     ResourceManager resourceManager, CrawlJobDao crawlJobDao,
-                    DataSource dataSource, BatchJobDao batchJobDao) {
+                    DataSource dataSource, BatchJobDao batchJobDao, BatchStatusDao batchStatusDao,
+                    BatchStatusReconciler reconciler, CrawlJobScheduler scheduler, BackpressureController backpressure,
+                    int bulkInsertBatchSize, PipelineMetrics metrics) {
         this.client = client;
-        this.reporter = reporter;
-        this.emailServer = emailServer;
         this.service = service;
         this.resourceManager = resourceManager;
         this.crawlJobDao = crawlJobDao;
         this.insertDocumentDao = new InsertDocumentDao(dataSource);
         this.batchJobDao = batchJobDao;
+        this.batchStatusDao = batchStatusDao;
+        this.reconciler = reconciler;
+        this.scheduler = scheduler;
+        this.backpressure = backpressure;
+        this.bulkInsertBatchSize = bulkInsertBatchSize;
+        this.metrics = metrics;
     }
 
     @POST
@@ -71,6 +93,7 @@ public class ControlResource {
     public void pauseJob(@PathParam("job") String job) {
         try {
             client.pauseJob(job);
+            backpressure.release(job);
             crawlJobDao.setStatus(job, "paused");
             logger.info("Crawl job on "+ crawlJobDao.getCrawlUrl(job) + " paused");
         }
@@ -85,6 +108,7 @@ public class ControlResource {
     public void unpauseJob(@PathParam("job") String job) {
         try {
             client.unpauseJob(job);
+            backpressure.release(job);
             crawlJobDao.setStatus(job, "running");
             logger.info("Crawl job on "+ crawlJobDao.getCrawlUrl(job) + " unpaused");
         }
@@ -98,6 +122,9 @@ public class ControlResource {
     @Path("/terminate/{job}")
     public void terminateJob(@PathParam("job") String job) {
         try {
+            if (scheduler.cancel(job)) {
+                return;
+            }
             client.terminateJob(job);
             logger.info("Crawl job on "+ crawlJobDao.getCrawlUrl(job) + " terminated");
         }
@@ -111,6 +138,9 @@ public class ControlResource {
     @Path("/delete/{job}")
     public void deleteJob(@PathParam("job") String job) {
         try {
+            if (scheduler.cancel(job)) {
+                return;
+            }
             client.terminateJob(job);
             logger.info("Crawl job on "+ crawlJobDao.getCrawlUrl(job) + " deleted");
         }
@@ -119,20 +149,36 @@ public class ControlResource {
         }
     }
 
+    // Job is crawled again from the start, it waits in the launch queue like a new one
     @POST
     @Timed
     @Path("/restart/{job}")
-    public void restartJob(@PathParam("job") String job) {
+    public void restartJob(@PathParam("job") String job, @QueryParam("crawlProfile") String crawlProfile) {
+        if (crawlProfile != null && !client.getConfigurationTemplate().hasProfile(crawlProfile)) {
+            throw new BadRequestException("Unknown crawl profile " + crawlProfile);
+        }
+        CurrentJob currentJob = crawlJobDao.getCrawlJob(job);
+        if (currentJob == null) {
+            throw new NotFoundException("No crawl job " + job);
+        }
+        if (scheduler.getQueuePosition(job) != 0) {
+            return;
+        }
         try {
-            CurrentJob currentJob = crawlJobDao.getCrawlJob(job);
-            List<String> list = new ArrayList<>();
-            list.add(currentJob.getCrawlURL());
-            crawlJobDao.setJobFinished(job, false);
-            client.teardownJob(job);
-            client.createJob(job, list);
-            client.buildJob(job);
-            client.launchJob(job);
-            logger.info("Crawl job on "+ currentJob.getCrawlURL() + " restarted");
+            // Job URL is set once the job is torn down
+            if (currentJob.isLaunched() && currentJob.getJobURL().equals("")) {
+                client.teardownJob(job);
+            }
+            scheduler.jobFinished(job);
+            backpressure.release(job);
+            crawlJobDao.setJobQueued(job);
+            List<String> batchIds = batchJobDao.getBatchJobIds(job);
+            scheduler.enqueue(Collections.singletonList(new QueuedCrawlJob(job, batchIds.isEmpty() ? job : batchIds.get(0),
+                    Collections.singletonList(currentJob.getCrawlURL()), crawlProfile)));
+            for (String batchId : batchIds) {
+                reconciler.requestReconcile(batchId);
+            }
+            logger.info("Crawl job on "+ currentJob.getCrawlURL() + " queued for restart");
         }
         catch (Exception e) {
             logger.error("Error restarting job", e);
@@ -144,18 +190,31 @@ public class ControlResource {
     @Produces("text/plain")
     @Consumes(MediaType.APPLICATION_JSON)
     public String startBatchJob(StartBatchJobData jobData) {
+        if (jobData.getCrawlProfile() != null && !client.getConfigurationTemplate().hasProfile(jobData.getCrawlProfile())) {
+            throw new BadRequestException("Unknown crawl profile " + jobData.getCrawlProfile());
+        }
+        if (jobData.getPriority() != null && jobData.getPriority() < 1) {
+            throw new BadRequestException("Priority should be a positive number");
+        }
         String id = UUID.randomUUID().toString();
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         BatchJob batch = new BatchJob(id, jobData.getReportEmail(),
                 LocalDateTime.of(LocalDate.parse(jobData.getDate(), dateFormatter), LocalTime.MIN));
+        if (jobData.getPriority() != null) {
+            batch.setPriority(jobData.getPriority());
+        }
         logger.info("Batch job creation on domains: " + String.join(", ",jobData.getDomains()));
+        List<QueuedCrawlJob> newJobs = new ArrayList<>();
         for(String domain : jobData.getDomains()) {
-            batch.getCrawlJobs().add(startCrawlJob(domain, jobData.isDoOverwrite()));
+            batch.getCrawlJobs().add(startCrawlJob(id, domain, jobData.isDoOverwrite(), jobData.getCrawlProfile(), newJobs));
         }
         batchJobDao.addBatchJob(batch);
+        scheduler.enqueue(newJobs);
+        reconciler.requestReconcile(id);
         return id;
     }
 
+    // Read model maintained by BatchStatusReconciler, crawl jobs are reported as of its last round
     @GET
     @Timed
     @Produces(MediaType.APPLICATION_JSON)
@@ -164,27 +223,9 @@ public class ControlResource {
         if (resourceManager.getResourceUri() == null && uriInfo != null) {
             resourceManager.setResourceUri(uriInfo.getBaseUri().toString());
         }
-        List<CrawlJobReport> result = new ArrayList<>();
-        boolean isBatchJobFinished = true;
-        BatchJob job = batchJobDao.getBatchJob(jobId);
-        for(String crawlJobId: job.getCrawlJobs()) {
-            CrawlJobReport report = getJob(crawlJobId, job.getCrawlSinceTime());
-            result.add(report);
-            if(report.getFinishTime() == null) {
-                isBatchJobFinished = false;
-            }
-        }
-        if(isBatchJobFinished && !job.isFinished()) {
-            batchJobDao.setJobFinished(jobId);
-            List<String> domains = new ArrayList<>();
-            for(String crawlJobId: job.getCrawlJobs()) {
-                domains.add(crawlJobDao.getCrawlUrl(crawlJobId));
-            }
-            if(job.getEmailAddress() != null && !job.getEmailAddress().equals("")) {
-                String subject = "Crawl job";
-                String text = "Batch job was finished successfully. List of crawled domains:\n" + String.join("\n ", domains);
-                SendEmail.send(job.getEmailAddress(), subject, text, emailServer);
-            }
+        List<CrawlJobReport> result = batchStatusDao.getReports(jobId);
+        if (result.isEmpty() && !batchJobDao.doesBatchJobExist(jobId)) {
+            throw new NotFoundException("No batch job " + jobId);
         }
         return result;
     }
@@ -206,27 +247,169 @@ public class ControlResource {
         logger.info("Received information about PDF file");
         try {
             service.addJob(data);
+            metrics.getReceivedDocuments(PDF_DOCUMENT_TYPE).mark();
         }
         catch (IOException e) {
             logger.error("Error on adding file for validation", e);
         }
     }
 
+    @POST
+    @Timed
+    @Path("/validation/bulk")
+    @Consumes(NDJSON)
+    public BulkIngestResult addValidationJobs(InputStream notifications) throws IOException {
+        BulkIngestResult result = BulkNotificationReader.read(notifications, bulkInsertBatchSize,
+                ControlResource::toValidationJobData, jobs -> {
+                    service.addJobs(jobs);
+                    metrics.getReceivedDocuments(PDF_DOCUMENT_TYPE).mark(jobs.size());
+                });
+        logger.info("Received information about " + result.getAccepted() + " PDF files, " + result.getRejected() + " rejected");
+        return result;
+    }
+
+    // Long poll of pull workers for the next validation jobs
+    @POST
+    @Timed
+    @Path("/validation/lease")
+    public List<LeasedValidationJob> leaseValidationJobs(@QueryParam("count") @DefaultValue("1") int count,
+                                                         @QueryParam("wait") @DefaultValue("30") int waitSeconds) throws InterruptedException {
+        if (count < 1) {
+            throw new BadRequestException("Count should be a positive number");
+        }
+        return service.leaseJobs(Math.min(count, MAX_LEASE_COUNT),
+                TimeUnit.SECONDS.toMillis(Math.max(0, Math.min(waitSeconds, MAX_LEASE_WAIT_SECONDS))));
+    }
+
+    @GET
+    @Path("/validation/lease/{id}/file")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public Response getLeasedFile(@PathParam("id") long id) {
+        File file = service.getLeasedFile(id);
+        if (file == null || !file.isFile()) {
+            throw new NotFoundException("No active lease " + id);
+        }
+        return Response.ok(file).header(HttpHeaders.CONTENT_LENGTH, file.length()).build();
+    }
+
+    @POST
+    @Timed
+    @Path("/validation/results")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public BulkIngestResult addValidationResults(List<ValidationJobResult> results) {
+        BulkIngestResult result = new BulkIngestResult();
+        for (int i = 0; i < results.size(); i++) {
+            if (service.completeLeasedJob(results.get(i))) {
+                result.accept(1);
+            } else {
+                result.reject(i + 1);
+            }
+        }
+        logger.info("Received " + result.getAccepted() + " validation results, " + result.getRejected() + " rejected");
+        return result;
+    }
+
     @POST
     @Timed
     @Path("/office_document")
     @Consumes(MediaType.APPLICATION_JSON)
     public void addMicrosoftOfficeFile(OfficeDocumentData data) {
         logger.info("Received information about office document " + data.getFileUrl());
-        if(stringEndsWithItemFromList(data.getFileUrl(), ODF_SUFFIXES)) {
-            insertDocumentDao.addOdfFile(data.getFileUrl(), data.getJobId(), data.getLastModified());
+        DocumentType type = getDocumentType(data);
+        metrics.getReceivedDocuments(type.getName()).mark();
+        switch (type) {
+            case ODF:
+                insertDocumentDao.addOdfFile(data.getFileUrl(), data.getJobId(), data.getLastModified());
+                break;
+            case MICROSOFT:
+                insertDocumentDao.addMicrosoftOfficeFile(data.getFileUrl(), data.getJobId(), data.getLastModified());
+                break;
+            case OOXML:
+                insertDocumentDao.addOpenOfficeXMLFile(data.getFileUrl(), data.getJobId(), data.getLastModified());
+                break;
         }
-        if(stringEndsWithItemFromList(data.getFileUrl(), OFFICE_SUFFIXES)) {
-            insertDocumentDao.addMicrosoftOfficeFile(data.getFileUrl(), data.getJobId(), data.getLastModified());
+    }
+
+    @POST
+    @Timed
+    @Path("/office_document/bulk")
+    @Consumes(NDJSON)
+    public BulkIngestResult addMicrosoftOfficeFiles(InputStream notifications) throws IOException {
+        BulkIngestResult result = BulkNotificationReader.read(notifications, bulkInsertBatchSize,
+                ControlResource::toOfficeDocumentData, this::addOfficeDocuments);
+        logger.info("Received information about " + result.getAccepted() + " office documents, " + result.getRejected() + " rejected");
+        return result;
+    }
+
+    private void addOfficeDocuments(List<OfficeDocumentData> documents) {
+        List<OfficeDocumentData> odfFiles = new ArrayList<>();
+        List<OfficeDocumentData> officeFiles = new ArrayList<>();
+        List<OfficeDocumentData> ooxmlFiles = new ArrayList<>();
+        for (OfficeDocumentData document : documents) {
+            DocumentType type = getDocumentType(document);
+            metrics.getReceivedDocuments(type.getName()).mark();
+            switch (type) {
+                case ODF:
+                    odfFiles.add(document);
+                    break;
+                case MICROSOFT:
+                    officeFiles.add(document);
+                    break;
+                default:
+                    ooxmlFiles.add(document);
+            }
         }
-        if(stringEndsWithItemFromList(data.getFileUrl(), OOXML_SUFFIXES)) {
-            insertDocumentDao.addOpenOfficeXMLFile(data.getFileUrl(), data.getJobId(), data.getLastModified());
+        insertDocumentDao.addOdfFiles(odfFiles);
+        insertDocumentDao.addMicrosoftOfficeFiles(officeFiles);
+        insertDocumentDao.addOpenOfficeXMLFiles(ooxmlFiles);
+    }
+
+    private static ValidationJobData toValidationJobData(Map<String, String> fields) {
+        ValidationJobData data = new ValidationJobData();
+        data.setFilepath(getRequiredField(fields, "filepath"));
+        data.setJobDirectory(getRequiredField(fields, "jobDirectory"));
+        data.setUri(getRequiredField(fields, "uri"));
+        data.setTime(getLastModifiedField(fields, "time"));
+        return data;
+    }
+
+    private static OfficeDocumentData toOfficeDocumentData(Map<String, String> fields) {
+        OfficeDocumentData data = new OfficeDocumentData();
+        data.setJobId(getRequiredField(fields, "jobId"));
+        data.setFileUrl(getRequiredField(fields, "fileUrl"));
+        data.setLastModified(getLastModifiedField(fields, "lastModified"));
+        data.setDocumentType(fields.get("documentType"));
+        DocumentType type = getDocumentType(data);
+        if (!type.isOfficeDocument()) {
+            throw new IllegalArgumentException("Unsupported office document " + data.getFileUrl());
         }
+        data.setDocumentType(type.getName());
+        return data;
+    }
+
+    // Type is sent by Heritrix extension, URL suffix is used only for notifications without it
+    private static DocumentType getDocumentType(OfficeDocumentData data) {
+        DocumentType type = DocumentType.fromName(data.getDocumentType());
+        return type == DocumentType.UNKNOWN ? DocumentClassifier.classifyBySuffix(data.getFileUrl()) : type;
+    }
+
+    private static String getRequiredField(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Field " + name + " is missing");
+        }
+        return value;
+    }
+
+    // Time is validated here, so a malformed value rejects one line instead of the whole insert batch
+    private static String getLastModifiedField(Map<String, String> fields, String name) {
+        String value = getRequiredField(fields, name);
+        try {
+            DaoUtils.getSqlTimeFromLastmodified(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Field " + name + " has invalid value " + value);
+        }
+        return value;
     }
 
     private String trimUrl(String url) {
@@ -242,11 +425,7 @@ public class ControlResource {
         return url;
     }
 
-    private boolean stringEndsWithItemFromList(String string, String[] suffixes) {
-        return Arrays.stream(suffixes).parallel().anyMatch(string::endsWith);
-    }
-
-    private String startCrawlJob(String domain, boolean overwrite){
+    private String startCrawlJob(String batchId, String domain, boolean overwrite, String crawlProfile, List<QueuedCrawlJob> newJobs){
         // TODO: rework overwirite
         overwrite = false;
         try {
@@ -270,10 +449,8 @@ public class ControlResource {
                 }
 
                 String id = UUID.randomUUID().toString();
-                client.createJob(id, list);
-                client.buildJob(id);
-                client.launchJob(id);
-                crawlJobDao.addJob(new CurrentJob(id, "", trimUrl(domain), LocalDateTime.now()));
+                crawlJobDao.addJob(new CurrentJob(id, "", trimUrl(domain), LocalDateTime.now()), CurrentJob.STATUS_QUEUED);
+                newJobs.add(new QueuedCrawlJob(id, batchId, list, crawlProfile));
                 logger.info("Job creation on " + domain);
                 return id;
             }
@@ -283,42 +460,4 @@ public class ControlResource {
             return "";
         }
     }
-
-    private CrawlJobReport getJob(String job, LocalDateTime crawlSince) {
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm:ss");
-            String jobURL = crawlJobDao.getCrawlJob(job).getJobURL();
-            CrawlJobReport result;
-            if (jobURL.equals("")) {
-                result = reporter.getReport(job, crawlSince);
-            } else {
-                result = reporter.getReport(job, jobURL, crawlSince);
-            }
-            crawlJobDao.setStatus(job, result.getStatus());
-            CurrentJob jobData = crawlJobDao.getCrawlJob(job);
-
-            if (result.getStatus().startsWith("finished") || result.getStatus().startsWith("aborted")) {
-                if (!jobData.isFinished()) {
-                    crawlJobDao.setJobFinished(job, true);
-                }
-                if (jobData.getJobURL().equals("")) {
-                    crawlJobDao.setJobUrl(job, client.getValidPDFReportUri(job).replace("mirror/Valid_PDF_Report.txt", ""));
-                    logger.info("Writing finish time for job " + job);
-                    result.setFinishTime(crawlJobDao.writeFinishTime(job));
-                }
-                client.teardownJob(jobData.getId());
-            }
-
-            result.setStartTime(jobData.getStartTime().format(formatter) + " GMT");
-            if (jobData.getFinishTime() != null) {
-                result.setFinishTime(jobData.getFinishTime().format(formatter) + " GMT");
-            }
-            return result;
-        }
-        catch (Exception e) {
-            logger.error("Error on job data request", e);
-            e.printStackTrace();
-        }
-        return null;
-    }
 }
@@ -3,35 +3,68 @@ package org.verapdf.crawler.app.resources;
 import com.codahale.metrics.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.verapdf.crawler.domain.crawling.BatchJob;
+import org.verapdf.crawler.domain.crawling.BackpressureStatus;
 import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.domain.crawling.QueuedCrawlJob;
+import org.verapdf.crawler.domain.validation.ValidationLaneStatistics;
+import org.verapdf.crawler.domain.validation.ValidationQueueStatistics;
+import org.verapdf.crawler.domain.validation.VeraPDFServiceStatistics;
+import org.verapdf.crawler.app.engine.BackpressureController;
+import org.verapdf.crawler.app.engine.CrawlConfigurationTemplate;
+import org.verapdf.crawler.app.engine.CrawlJobScheduler;
 import org.verapdf.crawler.app.engine.HeritrixClient;
 import org.verapdf.crawler.repository.jobs.BatchJobDao;
 import org.verapdf.crawler.repository.jobs.CrawlJobDao;
 import org.verapdf.crawler.validation.ValidationService;
 import org.xml.sax.SAXException;
 
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Produces(MediaType.APPLICATION_JSON)
 @Path("/info")
 public class InfoResourse {
 
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String STATUS_RUNNING = "running";
+    private static final String STATUS_FINISHED = "finished";
 
     private final ValidationService validationService;
     private final BatchJobDao batchJobDao;
+    private final CrawlJobScheduler scheduler;
+    private final BackpressureController backpressure;
 
-    InfoResourse(ValidationService validationService, BatchJobDao batchJobDao) {
+    private final CrawlConfigurationTemplate configurationTemplate;
+
+    InfoResourse(ValidationService validationService, BatchJobDao batchJobDao, CrawlJobScheduler scheduler,
+                 BackpressureController backpressure, CrawlConfigurationTemplate configurationTemplate) {
         this.validationService = validationService;
         this.batchJobDao = batchJobDao;
+        this.scheduler = scheduler;
+        this.backpressure = backpressure;
+        this.configurationTemplate = configurationTemplate;
     }
 
     @GET
@@ -42,8 +75,34 @@ public class InfoResourse {
     @GET
     @Timed
     @Path("/list")
-    public List<BatchJob> getJobs() {
-        return batchJobDao.getBatchJobs();
+    public Response getJobs(@Context Request request) {
+        return conditionalResponse(request, batchJobDao::getBatchJobs);
+    }
+
+    // Dates are yyyy-MM-dd, createdTo is inclusive
+    @GET
+    @Timed
+    @Path("/batch_jobs")
+    public Response getBatchJobs(@QueryParam("status") String status,
+                                 @QueryParam("createdFrom") String createdFrom,
+                                 @QueryParam("createdTo") String createdTo,
+                                 @QueryParam("email") String email,
+                                 @QueryParam("after") String after,
+                                 @QueryParam("limit") @DefaultValue("50") int limit,
+                                 @Context Request request) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit should be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Boolean isFinished = parseStatus(status);
+        LocalDateTime from = parseDate(createdFrom, "createdFrom");
+        LocalDateTime to = parseDate(createdTo, "createdTo");
+        return conditionalResponse(request, () -> {
+            try {
+                return batchJobDao.getBatchJobs(isFinished, from, to == null ? null : to.plusDays(1), email, after, limit);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new BadRequestException("Invalid cursor " + after);
+            }
+        });
     }
 
     @GET
@@ -53,4 +112,89 @@ public class InfoResourse {
     public String getQueueSize() {
         return validationService.getQueueSize().toString();
     }
+
+    @GET
+    @Timed
+    @Path("/validation_queue")
+    public List<ValidationQueueStatistics> getValidationQueue() {
+        return validationService.getQueueStatistics();
+    }
+
+    @GET
+    @Timed
+    @Path("/validation_lanes")
+    public List<ValidationLaneStatistics> getValidationLanes() {
+        return validationService.getLaneStatistics();
+    }
+
+    @GET
+    @Timed
+    @Path("/validators")
+    public List<VeraPDFServiceStatistics> getValidators() {
+        return validationService.getValidatorStatistics();
+    }
+
+    @GET
+    @Timed
+    @Path("/crawl_queue")
+    public List<QueuedCrawlJob> getCrawlQueue() {
+        return scheduler.getQueue();
+    }
+
+    // Crawl jobs paused because validation falls behind crawling and the watermark which caused it
+    @GET
+    @Timed
+    @Path("/backpressure")
+    public BackpressureStatus getBackpressure() {
+        return backpressure.getStatus();
+    }
+
+    @GET
+    @Timed
+    @Path("/crawl_profiles")
+    public Set<String> getCrawlProfiles() {
+        return configurationTemplate.getProfileNames();
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // Batch job lists change only through BatchJobDao, so unchanged lists are answered with 304 without a query
+    private Response conditionalResponse(Request request, Supplier<Object> entity) {
+        EntityTag tag = new EntityTag(batchJobDao.getVersion());
+        Date lastModified = new Date(batchJobDao.getLastModified());
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(lastModified, tag);
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl).build();
+        }
+        return Response.ok(entity.get()).tag(tag).lastModified(lastModified).cacheControl(cacheControl).build();
+    }
+
+    private static Boolean parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        switch (status) {
+            case STATUS_RUNNING:
+                return false;
+            case STATUS_FINISHED:
+                return true;
+            default:
+                throw new BadRequestException("Status should be " + STATUS_RUNNING + " or " + STATUS_FINISHED);
+        }
+    }
+
+    private static LocalDateTime parseDate(String date, String name) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(LocalDate.parse(date), LocalTime.MIN);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid " + name + " date " + date);
+        }
+    }
+
+    //</editor-fold>
 }
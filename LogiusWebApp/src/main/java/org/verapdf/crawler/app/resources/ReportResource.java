@@ -67,8 +67,11 @@ public class ReportResource {
             logger.info("Job report requested for batch job " + job);
             List<CrawlJobReport> result = new ArrayList<>();
             for(String crawlJobId: batchJob.getCrawlJobs()) {
-                String jobURL = crawlJobDao.getCrawlJob(crawlJobId).getJobURL();
-                if (jobURL.equals("")) {
+                CurrentJob crawlJob = crawlJobDao.getCrawlJob(crawlJobId);
+                String jobURL = crawlJob.getJobURL();
+                if (!crawlJob.isLaunched()) {
+                    result.add(reporter.getPendingReport(crawlJob, batchJob.getCrawlSinceTime()));
+                } else if (jobURL.equals("")) {
                     result.add(reporter.getReport(crawlJobId, batchJob.getCrawlSinceTime()));
                 } else {
                     result.add(reporter.getReport(crawlJobId, jobURL, batchJob.getCrawlSinceTime()));
@@ -1,8 +1,15 @@
 package org.verapdf.crawler.app.resources;
 
+import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.verapdf.crawler.app.configuration.LogiusConfiguration;
+import org.verapdf.crawler.app.configuration.ValidationLaneSettings;
+import org.verapdf.crawler.app.email.EmailOutbox;
+import org.verapdf.crawler.app.engine.BackpressureController;
+import org.verapdf.crawler.app.email.SmtpMailer;
+import org.verapdf.crawler.app.engine.CrawlJobScheduler;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
 import org.verapdf.crawler.domain.crawling.BatchJob;
 import org.verapdf.crawler.domain.crawling.CurrentJob;
 import org.verapdf.crawler.domain.database.MySqlCredentials;
@@ -11,54 +18,110 @@ import org.verapdf.crawler.domain.report.CrawlJobReport;
 import org.verapdf.crawler.app.engine.HeritrixClient;
 import org.verapdf.crawler.report.HeritrixReporter;
 import org.verapdf.crawler.repository.document.ValidatedPDFDao;
+import org.verapdf.crawler.repository.email.EmailOutboxDao;
 import org.verapdf.crawler.repository.jobs.BatchJobDao;
+import org.verapdf.crawler.repository.jobs.BatchStatusDao;
 import org.verapdf.crawler.repository.jobs.CrawlJobDao;
+import org.verapdf.crawler.repository.jobs.CrawlJobQueueDao;
+import org.verapdf.crawler.repository.jobs.ThrottledCrawlJobDao;
 import org.verapdf.crawler.validation.ValidationService;
+import org.verapdf.crawler.validation.VerapdfServiceBalancer;
 
 import javax.sql.DataSource;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class ResourceManager {
     private final static String JDBC_DRIVER = "com.mysql.jdbc.Driver";
+    // Connector/J answers this query with a ping instead of executing it
+    private final static String VALIDATION_QUERY = "/* ping */ select 1";
+    private final static int PREPARED_STATEMENT_CACHE_SQL_LIMIT = 2048;
 
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
     private final InfoResourse infoResourse;
     private final ReportResource reportResource;
     private final ControlResource controlResource;
+    private final BatchProgressResource batchProgressResource;
     private final CrawlJobDao crawlJobDao;
+    private final CrawlJobScheduler crawlJobScheduler;
 
     private String resourceUri;
     private final ValidationService validationService;
+    private final VerapdfServiceBalancer balancer;
     private final EmailServer emailServer;
 
-    public ResourceManager(HeritrixClient client, EmailServer emailServer, String verapdfUrl, MySqlCredentials credentials) {
-        DataSource dataSource = createMySqlDatasource(credentials);
-        crawlJobDao = new CrawlJobDao(dataSource);
-        BatchJobDao batchJobDao = new BatchJobDao(dataSource);
+    public ResourceManager(HeritrixClient client, LogiusConfiguration configuration, PipelineMetrics metrics) {
+        DataSource dataSource = createMySqlDatasource(configuration.getCredentials());
+        crawlJobDao = new CrawlJobDao(dataSource, configuration.getJobCache());
+        BatchJobDao batchJobDao = new BatchJobDao(dataSource, configuration.getJobCache());
+        BatchStatusDao batchStatusDao = new BatchStatusDao(dataSource);
+        metrics.registerCache(crawlJobDao.getJobCache(), "crawl_jobs");
+        metrics.registerCache(crawlJobDao.getCrawlUrlCache(), "crawl_job_ids_by_url");
+        metrics.registerCache(batchJobDao.getCache(), "batch_jobs");
 
         HeritrixReporter reporter = new HeritrixReporter(client, dataSource, crawlJobDao);
-        this.emailServer = emailServer;
-
-        validationService = new ValidationService(verapdfUrl, dataSource, new ValidatedPDFDao(dataSource));
-        infoResourse = new InfoResourse(validationService, batchJobDao);
+        this.emailServer = configuration.getEmailServer();
+        EmailOutbox emailOutbox = new EmailOutbox(new EmailOutboxDao(dataSource), new SmtpMailer(emailServer),
+                emailServer, metrics);
+        metrics.registerGauge(emailOutbox::getPendingCount, "email", "pending");
+        crawlJobScheduler = new CrawlJobScheduler(client, crawlJobDao, new CrawlJobQueueDao(dataSource),
+                configuration.getMaxActiveCrawlJobs());
+
+        List<ValidationLaneSettings> lanes = configuration.getEffectiveValidationLanes();
+        Set<String> verapdfUrls = new LinkedHashSet<>();
+        for (ValidationLaneSettings lane : lanes) {
+            verapdfUrls.addAll(lane.getVerapdfUrls());
+        }
+        balancer = new VerapdfServiceBalancer(verapdfUrls,
+                TimeUnit.SECONDS.toMillis(configuration.getVerapdfHealthCheckIntervalSeconds()));
+        metrics.registerGauge(balancer::getUtilization, "verapdf", "utilization");
+        validationService = new ValidationService(lanes, dataSource, new ValidatedPDFDao(dataSource), batchJobDao,
+                configuration.isPdfTriageEnabled(), metrics, balancer, configuration.isVerapdfUploadEnabled());
+        BackpressureController backpressure = new BackpressureController(client, crawlJobScheduler, validationService,
+                crawlJobDao, new ThrottledCrawlJobDao(dataSource), configuration.getBackpressure(), metrics);
+        metrics.registerGauge(() -> backpressure.isThrottling() ? 1 : 0, "backpressure", "throttling");
+        metrics.registerGauge(backpressure::getPausedJobCount, "backpressure", "paused_jobs");
+        metrics.registerGauge(validationService::getEstimatedDrainSeconds, "validation", "queue", "drain_seconds");
+        infoResourse = new InfoResourse(validationService, batchJobDao, crawlJobScheduler, backpressure,
+                client.getConfigurationTemplate());
         reportResource = new ReportResource(reporter, crawlJobDao, batchJobDao);
-        controlResource = new ControlResource(client, reporter, emailServer,validationService,
-                this, crawlJobDao, dataSource, batchJobDao);
+        BatchStatusReconciler reconciler = new BatchStatusReconciler(client, reporter, crawlJobScheduler, backpressure,
+                crawlJobDao, batchJobDao, batchStatusDao, emailOutbox,
+                TimeUnit.SECONDS.toMillis(configuration.getBatchStatusReconcileSeconds()),
+                TimeUnit.SECONDS.toMillis(configuration.getFinishedBatchStatusReconcileSeconds()));
+        controlResource = new ControlResource(client, validationService, this, crawlJobDao, dataSource, batchJobDao,
+                batchStatusDao, reconciler, crawlJobScheduler, backpressure, configuration.getBulkInsertBatchSize(), metrics);
+        BatchProgressMonitor batchProgressMonitor = new BatchProgressMonitor(controlResource,
+                configuration.getBatchProgressRefreshMs());
+        metrics.registerGauge(batchProgressMonitor::getSubscriberCount, "progress", "subscribers");
+        batchProgressResource = new BatchProgressResource(batchProgressMonitor);
 
         for(BatchJob batchJob: batchJobDao.getBatchJobs()) {
             for (String jobId: batchJob.getCrawlJobs()) {
                 CurrentJob job = crawlJobDao.getCrawlJob(jobId);
-                if (job.getFinishTime() == null) {
+                if (job.getFinishTime() == null && !CurrentJob.STATUS_QUEUED.equals(job.getStatus())) {
                     crawlJobDao.writeFinishTime(job.getId());
                 }
             }
         }
 
-        new Thread(new StatusMonitor(batchJobDao, controlResource)).start();
+        new Thread(crawlJobScheduler).start();
+        new Thread(balancer).start();
+        new Thread(reconciler).start();
+        new Thread(emailOutbox).start();
+        new Thread(backpressure).start();
+        new Thread(batchProgressMonitor).start();
         validationService.start();
         new Thread(validationService).start();
         logger.info("Validation service started.");
     }
 
+    public BatchProgressResource getBatchProgressResource() {
+        return batchProgressResource;
+    }
+
     public InfoResourse getInfoResourse() {
         return infoResourse;
     }
@@ -77,12 +140,20 @@ public class ResourceManager {
 
     EmailServer getEmailServer() { return emailServer; }
 
-    private DataSource createMySqlDatasource(MySqlCredentials credentials) {
-        DataSource dataSource = new DriverManagerDataSource();
-        ((DriverManagerDataSource)dataSource).setDriverClassName(JDBC_DRIVER);
-        ((DriverManagerDataSource)dataSource).setUrl(credentials.connectionString);
-        ((DriverManagerDataSource)dataSource).setUsername(credentials.user);
-        ((DriverManagerDataSource)dataSource).setPassword(credentials.password);
-        return dataSource;
+    public static DataSource createMySqlDatasource(MySqlCredentials credentials) {
+        PoolProperties properties = new PoolProperties();
+        properties.setDriverClassName(JDBC_DRIVER);
+        properties.setUrl(credentials.connectionString);
+        properties.setUsername(credentials.user);
+        properties.setPassword(credentials.password);
+        properties.setMaxActive(credentials.maxConnections);
+        properties.setMaxIdle(credentials.maxConnections);
+        properties.setTestOnBorrow(true);
+        properties.setValidationQuery(VALIDATION_QUERY);
+        // Statements are prepared on the server once per connection and reused from the driver cache afterwards
+        properties.setConnectionProperties(String.format(
+                "useServerPrepStmts=true;cachePrepStmts=true;prepStmtCacheSize=%d;prepStmtCacheSqlLimit=%d",
+                credentials.preparedStatementCacheSize, PREPARED_STATEMENT_CACHE_SQL_LIMIT));
+        return new org.apache.tomcat.jdbc.pool.DataSource(properties);
     }
 }
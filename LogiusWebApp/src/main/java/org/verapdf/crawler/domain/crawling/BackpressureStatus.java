@@ -0,0 +1,92 @@
+package org.verapdf.crawler.domain.crawling;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+public class BackpressureStatus {
+    private boolean throttling;
+    private String reason;
+    private long queuedDocuments;
+    private long estimatedDrainSeconds;
+    private int diskUsagePercent;
+    private boolean launchesHeld;
+    private Map<String, String> pausedJobs;
+
+    public BackpressureStatus() {}
+
+    // Set from crossing of a high watermark until all paused jobs are resumed below the low ones
+    @JsonProperty
+    public boolean isThrottling() {
+        return throttling;
+    }
+
+    @JsonProperty
+    public void setThrottling(boolean throttling) {
+        this.throttling = throttling;
+    }
+
+    // Watermark which was crossed last
+    @JsonProperty
+    public String getReason() {
+        return reason;
+    }
+
+    @JsonProperty
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    @JsonProperty
+    public long getQueuedDocuments() {
+        return queuedDocuments;
+    }
+
+    @JsonProperty
+    public void setQueuedDocuments(long queuedDocuments) {
+        this.queuedDocuments = queuedDocuments;
+    }
+
+    // -1 while validator throughput is unknown
+    @JsonProperty
+    public long getEstimatedDrainSeconds() {
+        return estimatedDrainSeconds;
+    }
+
+    @JsonProperty
+    public void setEstimatedDrainSeconds(long estimatedDrainSeconds) {
+        this.estimatedDrainSeconds = estimatedDrainSeconds;
+    }
+
+    // -1 if spool disk is not watched
+    @JsonProperty
+    public int getDiskUsagePercent() {
+        return diskUsagePercent;
+    }
+
+    @JsonProperty
+    public void setDiskUsagePercent(int diskUsagePercent) {
+        this.diskUsagePercent = diskUsagePercent;
+    }
+
+    @JsonProperty
+    public boolean isLaunchesHeld() {
+        return launchesHeld;
+    }
+
+    @JsonProperty
+    public void setLaunchesHeld(boolean launchesHeld) {
+        this.launchesHeld = launchesHeld;
+    }
+
+    // Reasons by crawl job id, in the order jobs were paused
+    @JsonProperty
+    public Map<String, String> getPausedJobs() {
+        return pausedJobs;
+    }
+
+    @JsonProperty
+    public void setPausedJobs(Map<String, String> pausedJobs) {
+        this.pausedJobs = pausedJobs;
+    }
+}
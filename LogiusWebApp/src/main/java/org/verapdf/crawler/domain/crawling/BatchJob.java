@@ -16,6 +16,10 @@ public class BatchJob {
     private boolean isFinished;
     private final String emailAddress;
     private final LocalDateTime crawlSinceTime;
+    private int priority = DEFAULT_PRIORITY;
+    private LocalDateTime createdTime;
+
+    public static final int DEFAULT_PRIORITY = 1;
 
     public BatchJob(String id, String emailAddress, LocalDateTime crawlSinceTime) {
         crawlJobs = new ArrayList<>();
@@ -25,6 +29,14 @@ public class BatchJob {
         this.crawlSinceTime = crawlSinceTime;
     }
 
+    public BatchJob(BatchJob batchJob) {
+        this(batchJob.id, batchJob.emailAddress, batchJob.crawlSinceTime);
+        this.crawlJobs = new ArrayList<>(batchJob.crawlJobs);
+        this.isFinished = batchJob.isFinished;
+        this.priority = batchJob.priority;
+        this.createdTime = batchJob.createdTime;
+    }
+
     @JsonProperty
     public void setFinished(boolean finished) {
         isFinished = finished;
@@ -59,4 +71,26 @@ public class BatchJob {
     public void setCrawlJobs(List<String> crawlJobs) {
         this.crawlJobs = crawlJobs;
     }
+
+    // Set by the database when the batch job is inserted
+    @JsonProperty
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "uuuu-MM-dd HH:mm:ss")
+    public LocalDateTime getCreatedTime() {
+        return createdTime;
+    }
+
+    @JsonProperty
+    public void setCreatedTime(LocalDateTime createdTime) {
+        this.createdTime = createdTime;
+    }
+
+    @JsonProperty
+    public int getPriority() {
+        return priority;
+    }
+
+    @JsonProperty
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
 }
@@ -0,0 +1,27 @@
+package org.verapdf.crawler.domain.crawling;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class BatchJobPage {
+    private final List<BatchJob> batchJobs;
+    private final String nextCursor;
+
+    public BatchJobPage(List<BatchJob> batchJobs, String nextCursor) {
+        this.batchJobs = batchJobs;
+        this.nextCursor = nextCursor;
+    }
+
+    // Newest batch jobs first
+    @JsonProperty
+    public List<BatchJob> getBatchJobs() {
+        return batchJobs;
+    }
+
+    // Value of the after parameter for the next page, null on the last page
+    @JsonProperty
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -6,6 +6,11 @@ import java.time.LocalDateTime;
 
 public class CurrentJob {
 
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_ACTIVE = "active";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_CANCELLED = "cancelled";
+
     private final String id;
     private String jobURL;
     private final String crawlURL;
@@ -22,6 +27,13 @@ public class CurrentJob {
         this.startTime = startTime;
     }
 
+    public CurrentJob(CurrentJob job) {
+        this(job.id, job.jobURL, job.crawlURL, job.startTime);
+        this.finishTime = job.finishTime;
+        this.status = job.status;
+        this.isFinished = job.isFinished;
+    }
+
     @JsonProperty
     public String getId() {
         return id;
@@ -68,4 +80,9 @@ public class CurrentJob {
     public void setFinished(boolean isFinished) {
         this.isFinished = isFinished;
     }
+
+    // Jobs which are still waiting in the launch queue or were never launched do not exist in Heritrix
+    public boolean isLaunched() {
+        return !STATUS_QUEUED.equals(status) && !STATUS_FAILED.equals(status) && !STATUS_CANCELLED.equals(status);
+    }
 }
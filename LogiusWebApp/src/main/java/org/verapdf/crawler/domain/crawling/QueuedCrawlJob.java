@@ -0,0 +1,39 @@
+package org.verapdf.crawler.domain.crawling;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class QueuedCrawlJob {
+    private final String crawlJobId;
+    private final String batchJobId;
+    private final List<String> crawlUrls;
+    private final String crawlProfile;
+
+    public QueuedCrawlJob(String crawlJobId, String batchJobId, List<String> crawlUrls, String crawlProfile) {
+        this.crawlJobId = crawlJobId;
+        this.batchJobId = batchJobId;
+        this.crawlUrls = crawlUrls;
+        this.crawlProfile = crawlProfile;
+    }
+
+    @JsonProperty
+    public String getCrawlJobId() {
+        return crawlJobId;
+    }
+
+    @JsonProperty
+    public String getBatchJobId() {
+        return batchJobId;
+    }
+
+    @JsonProperty
+    public List<String> getCrawlUrls() {
+        return crawlUrls;
+    }
+
+    @JsonProperty
+    public String getCrawlProfile() {
+        return crawlProfile;
+    }
+}
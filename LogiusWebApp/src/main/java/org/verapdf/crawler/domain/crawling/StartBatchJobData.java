@@ -8,6 +8,8 @@ public class StartBatchJobData {
     private String date;
     private String reportEmail;
     private boolean doOverwrite;
+    private String crawlProfile;
+    private Integer priority;
 
     @JsonProperty
     public boolean isDoOverwrite() {
@@ -49,6 +51,26 @@ public class StartBatchJobData {
         this.reportEmail = reportEmail;
     }
 
+    @JsonProperty
+    public String getCrawlProfile() {
+        return crawlProfile;
+    }
+
+    @JsonProperty
+    public void setCrawlProfile(String crawlProfile) {
+        this.crawlProfile = crawlProfile;
+    }
+
+    @JsonProperty
+    public Integer getPriority() {
+        return priority;
+    }
+
+    @JsonProperty
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
     public StartBatchJobData() {
 
     }
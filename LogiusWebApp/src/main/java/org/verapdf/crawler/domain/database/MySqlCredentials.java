@@ -12,5 +12,13 @@ public class MySqlCredentials {
     @JsonProperty
     public String password;
 
+    // Size of the connection pool shared by all DAOs
+    @JsonProperty
+    public int maxConnections = 20;
+
+    // Prepared statements are cached on every pooled connection, both by the driver and by MySQL server
+    @JsonProperty
+    public int preparedStatementCacheSize = 250;
+
     public MySqlCredentials() {}
 }
@@ -19,6 +19,29 @@ public class EmailServer {
     @JsonProperty
     public String port;
 
+    // Disabled for plain SMTP servers, e.g. a local test server. Authentication is used only if user is set
+    @JsonProperty
+    public boolean startTls = true;
+
+    // Notifications are given up after this number of failed delivery attempts
+    @JsonProperty
+    public int maxAttempts = 6;
+
+    // Delay before the second attempt, doubled after every further failure
+    @JsonProperty
+    public long retryDelaySeconds = 30;
+
+    // Notifications to the same address within this time are sent as one digest message, 0 disables digests
+    @JsonProperty
+    public long digestWindowSeconds = 0;
+
+    @JsonProperty
+    public long pollIntervalSeconds = 5;
+
+    // SMTP connection is kept open between messages and closed after this idle time
+    @JsonProperty
+    public long idleTimeoutSeconds = 60;
+
     public EmailServer() {}
 
 }
@@ -0,0 +1,46 @@
+package org.verapdf.crawler.domain.email;
+
+import java.time.LocalDateTime;
+
+public class OutboxEmail {
+    private final long id;
+    private final String recipient;
+    private final String subject;
+    private final String text;
+    private final LocalDateTime createdTime;
+    private final int attempts;
+
+    public OutboxEmail(long id, String recipient, String subject, String text, LocalDateTime createdTime, int attempts) {
+        this.id = id;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.text = text;
+        this.createdTime = createdTime;
+        this.attempts = attempts;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public LocalDateTime getCreatedTime() {
+        return createdTime;
+    }
+
+    // Failed delivery attempts so far
+    public int getAttempts() {
+        return attempts;
+    }
+}
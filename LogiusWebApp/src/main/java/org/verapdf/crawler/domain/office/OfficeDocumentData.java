@@ -5,6 +5,7 @@ public class OfficeDocumentData {
     private String jobId;
     private String fileUrl;
     private String lastModified;
+    private String documentType;
     public String getJobId() {
         return jobId;
     }
@@ -29,4 +30,12 @@ public class OfficeDocumentData {
         this.lastModified = lastModified;
     }
 
+    public String getDocumentType() {
+        return documentType;
+    }
+
+    public void setDocumentType(String documentType) {
+        this.documentType = documentType;
+    }
+
 }
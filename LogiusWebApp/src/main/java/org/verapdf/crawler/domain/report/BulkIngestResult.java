@@ -0,0 +1,58 @@
+package org.verapdf.crawler.domain.report;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkIngestResult {
+    // Only the first rejected lines are listed to keep the response small
+    private static final int MAX_REJECTED_LINES = 1000;
+
+    private int accepted;
+    private int rejected;
+    private List<Integer> rejectedLines = new ArrayList<>();
+
+    public BulkIngestResult() {}
+
+    public void accept(int count) {
+        accepted += count;
+    }
+
+    public void reject(int lineNumber) {
+        rejected++;
+        if (rejectedLines.size() < MAX_REJECTED_LINES) {
+            rejectedLines.add(lineNumber);
+        }
+    }
+
+    @JsonProperty
+    public int getAccepted() {
+        return accepted;
+    }
+
+    @JsonProperty
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+
+    @JsonProperty
+    public int getRejected() {
+        return rejected;
+    }
+
+    @JsonProperty
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    @JsonProperty
+    public List<Integer> getRejectedLines() {
+        return rejectedLines;
+    }
+
+    @JsonProperty
+    public void setRejectedLines(List<Integer> rejectedLines) {
+        this.rejectedLines = rejectedLines;
+    }
+}
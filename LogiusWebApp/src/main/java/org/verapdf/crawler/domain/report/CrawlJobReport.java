@@ -10,6 +10,8 @@ public class CrawlJobReport {
     private int numberOfCrawledUrls;
     private String startTime;
     private String finishTime;
+    private int queuePosition;
+    private String pausedReason;
 
     private PDFValidationStatistics pdfStatistics;
     private int numberOfODFDocuments;
@@ -80,6 +82,21 @@ public class CrawlJobReport {
     @JsonProperty
     public void setStartTime(String startTime) { this.startTime = startTime; }
 
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    @JsonProperty
+    public int getQueuePosition() { return queuePosition; }
+
+    @JsonProperty
+    public void setQueuePosition(int queuePosition) { this.queuePosition = queuePosition; }
+
+    // Set while the job is paused by Logius because validation falls behind crawling
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty
+    public String getPausedReason() { return pausedReason; }
+
+    @JsonProperty
+    public void setPausedReason(String pausedReason) { this.pausedReason = pausedReason; }
+
     public String getFinishTime() { return finishTime; }
 
     public void setFinishTime(String finishTime) { this.finishTime = finishTime; }
@@ -0,0 +1,73 @@
+package org.verapdf.crawler.domain.validation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class LeasedValidationJob {
+    private long id;
+    private String uri;
+    private String filepath;
+    private long fileSize;
+    private long leaseSeconds;
+
+    public LeasedValidationJob() {}
+
+    public LeasedValidationJob(long id, String uri, String filepath, long fileSize, long leaseSeconds) {
+        this.id = id;
+        this.uri = uri;
+        this.filepath = filepath;
+        this.fileSize = fileSize;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    @JsonProperty
+    public long getId() {
+        return id;
+    }
+
+    @JsonProperty
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @JsonProperty
+    public String getUri() {
+        return uri;
+    }
+
+    @JsonProperty
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    // Path on the Logius machine, workers without access to it download the file from the lease
+    @JsonProperty
+    public String getFilepath() {
+        return filepath;
+    }
+
+    @JsonProperty
+    public void setFilepath(String filepath) {
+        this.filepath = filepath;
+    }
+
+    @JsonProperty
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @JsonProperty
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    // Job is given to another worker if no result is posted within this time
+    @JsonProperty
+    public long getLeaseSeconds() {
+        return leaseSeconds;
+    }
+
+    @JsonProperty
+    public void setLeaseSeconds(long leaseSeconds) {
+        this.leaseSeconds = leaseSeconds;
+    }
+}
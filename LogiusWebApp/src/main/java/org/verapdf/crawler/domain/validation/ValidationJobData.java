@@ -7,6 +7,10 @@ public class ValidationJobData {
     private String jobDirectory;
     private String uri;
     private String time;
+    private long id;
+    private String crawlJobId;
+    private long fileSize;
+    private Long timeAdded;
 
     public ValidationJobData() {}
 
@@ -33,4 +37,29 @@ public class ValidationJobData {
 
     @JsonProperty
     public void setTime(String time) { this.time = time; }
+
+    @JsonProperty
+    public long getId() { return id; }
+
+    @JsonProperty
+    public void setId(long id) { this.id = id; }
+
+    @JsonProperty
+    public String getCrawlJobId() { return crawlJobId; }
+
+    @JsonProperty
+    public void setCrawlJobId(String crawlJobId) { this.crawlJobId = crawlJobId; }
+
+    @JsonProperty
+    public long getFileSize() { return fileSize; }
+
+    @JsonProperty
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+    // Time of insertion into the validation queue in milliseconds since epoch, set by the database
+    @JsonProperty
+    public Long getTimeAdded() { return timeAdded; }
+
+    @JsonProperty
+    public void setTimeAdded(Long timeAdded) { this.timeAdded = timeAdded; }
 }
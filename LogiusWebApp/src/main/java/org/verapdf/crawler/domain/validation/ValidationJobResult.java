@@ -0,0 +1,35 @@
+package org.verapdf.crawler.domain.validation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ValidationJobResult {
+    private long id;
+    private VeraPDFValidationResult result;
+
+    public ValidationJobResult() {}
+
+    public ValidationJobResult(long id, VeraPDFValidationResult result) {
+        this.id = id;
+        this.result = result;
+    }
+
+    @JsonProperty
+    public long getId() {
+        return id;
+    }
+
+    @JsonProperty
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @JsonProperty
+    public VeraPDFValidationResult getResult() {
+        return result;
+    }
+
+    @JsonProperty
+    public void setResult(VeraPDFValidationResult result) {
+        this.result = result;
+    }
+}
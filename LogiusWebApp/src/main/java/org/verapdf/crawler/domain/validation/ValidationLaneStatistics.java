@@ -0,0 +1,124 @@
+package org.verapdf.crawler.domain.validation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ValidationLaneStatistics {
+    private String name;
+    private Long maxFileSize;
+    private int workers;
+    private int queuedDocuments;
+    private long queuedBytes;
+    private long validatedDocuments;
+    private long meanLatencyMs;
+    private long medianLatencyMs;
+    private long p95LatencyMs;
+    private long maxLatencyMs;
+
+    public ValidationLaneStatistics() {}
+
+    public ValidationLaneStatistics(String name, Long maxFileSize, int workers) {
+        this.name = name;
+        this.maxFileSize = maxFileSize;
+        this.workers = workers;
+    }
+
+    @JsonProperty
+    public String getName() {
+        return name;
+    }
+
+    @JsonProperty
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @JsonProperty
+    public Long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    @JsonProperty
+    public void setMaxFileSize(Long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    @JsonProperty
+    public int getWorkers() {
+        return workers;
+    }
+
+    @JsonProperty
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    @JsonProperty
+    public int getQueuedDocuments() {
+        return queuedDocuments;
+    }
+
+    @JsonProperty
+    public void setQueuedDocuments(int queuedDocuments) {
+        this.queuedDocuments = queuedDocuments;
+    }
+
+    @JsonProperty
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    @JsonProperty
+    public void setQueuedBytes(long queuedBytes) {
+        this.queuedBytes = queuedBytes;
+    }
+
+    @JsonProperty
+    public long getValidatedDocuments() {
+        return validatedDocuments;
+    }
+
+    @JsonProperty
+    public void setValidatedDocuments(long validatedDocuments) {
+        this.validatedDocuments = validatedDocuments;
+    }
+
+    @JsonProperty
+    public long getMeanLatencyMs() {
+        return meanLatencyMs;
+    }
+
+    @JsonProperty
+    public void setMeanLatencyMs(long meanLatencyMs) {
+        this.meanLatencyMs = meanLatencyMs;
+    }
+
+    @JsonProperty
+    public long getMedianLatencyMs() {
+        return medianLatencyMs;
+    }
+
+    @JsonProperty
+    public void setMedianLatencyMs(long medianLatencyMs) {
+        this.medianLatencyMs = medianLatencyMs;
+    }
+
+    @JsonProperty
+    public long getP95LatencyMs() {
+        return p95LatencyMs;
+    }
+
+    @JsonProperty
+    public void setP95LatencyMs(long p95LatencyMs) {
+        this.p95LatencyMs = p95LatencyMs;
+    }
+
+    @JsonProperty
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    @JsonProperty
+    public void setMaxLatencyMs(long maxLatencyMs) {
+        this.maxLatencyMs = maxLatencyMs;
+    }
+}
@@ -0,0 +1,69 @@
+package org.verapdf.crawler.domain.validation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ValidationQueueStatistics {
+    private String batchJobId;
+    private int priority;
+    private int queuedDocuments;
+    private long queuedBytes;
+    private long estimatedWaitSeconds;
+
+    public ValidationQueueStatistics() {}
+
+    public ValidationQueueStatistics(String batchJobId, int priority) {
+        this.batchJobId = batchJobId;
+        this.priority = priority;
+    }
+
+    @JsonProperty
+    public String getBatchJobId() {
+        return batchJobId;
+    }
+
+    @JsonProperty
+    public void setBatchJobId(String batchJobId) {
+        this.batchJobId = batchJobId;
+    }
+
+    @JsonProperty
+    public int getPriority() {
+        return priority;
+    }
+
+    @JsonProperty
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    @JsonProperty
+    public int getQueuedDocuments() {
+        return queuedDocuments;
+    }
+
+    @JsonProperty
+    public void setQueuedDocuments(int queuedDocuments) {
+        this.queuedDocuments = queuedDocuments;
+    }
+
+    @JsonProperty
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    @JsonProperty
+    public void setQueuedBytes(long queuedBytes) {
+        this.queuedBytes = queuedBytes;
+    }
+
+    // -1 until validation throughput has been measured
+    @JsonProperty
+    public long getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+
+    @JsonProperty
+    public void setEstimatedWaitSeconds(long estimatedWaitSeconds) {
+        this.estimatedWaitSeconds = estimatedWaitSeconds;
+    }
+}
@@ -0,0 +1,36 @@
+package org.verapdf.crawler.domain.validation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class VeraPDFServiceCapacity {
+    private int capacity;
+    private int inFlight;
+
+    public VeraPDFServiceCapacity() {}
+
+    public VeraPDFServiceCapacity(int capacity, int inFlight) {
+        this.capacity = capacity;
+        this.inFlight = inFlight;
+    }
+
+    // Number of documents the instance can validate simultaneously
+    @JsonProperty
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @JsonProperty
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @JsonProperty
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    @JsonProperty
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+}
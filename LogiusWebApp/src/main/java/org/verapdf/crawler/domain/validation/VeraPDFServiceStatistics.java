@@ -0,0 +1,84 @@
+package org.verapdf.crawler.domain.validation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class VeraPDFServiceStatistics {
+    private String url;
+    private boolean healthy;
+    private int capacity;
+    private int inFlight;
+    private long validatedDocuments;
+    private int consecutiveFailures;
+
+    public VeraPDFServiceStatistics() {}
+
+    public VeraPDFServiceStatistics(String url, boolean healthy, int capacity, int inFlight,
+                                    long validatedDocuments, int consecutiveFailures) {
+        this.url = url;
+        this.healthy = healthy;
+        this.capacity = capacity;
+        this.inFlight = inFlight;
+        this.validatedDocuments = validatedDocuments;
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    @JsonProperty
+    public String getUrl() {
+        return url;
+    }
+
+    @JsonProperty
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    @JsonProperty
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    @JsonProperty
+    public void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    @JsonProperty
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @JsonProperty
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @JsonProperty
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    @JsonProperty
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    @JsonProperty
+    public long getValidatedDocuments() {
+        return validatedDocuments;
+    }
+
+    @JsonProperty
+    public void setValidatedDocuments(long validatedDocuments) {
+        this.validatedDocuments = validatedDocuments;
+    }
+
+    @JsonProperty
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    @JsonProperty
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+}
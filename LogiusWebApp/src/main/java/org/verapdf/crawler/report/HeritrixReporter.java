@@ -50,6 +50,20 @@ public class HeritrixReporter {
         return result;
     }
 
+    // Report for a finished job which was already torn down in Heritrix
+    public CrawlJobReport getFinishedReport(CurrentJob crawlJob, LocalDateTime time) {
+        CrawlJobReport result = new CrawlJobReport(crawlJob.getId(), crawlJob.getCrawlURL(), "finished", 0);
+        setFields(result, crawlJob.getId(), time);
+        return result;
+    }
+
+    // Report for a job which is not present in Heritrix, i.e. still waits in the launch queue
+    public CrawlJobReport getPendingReport(CurrentJob crawlJob, LocalDateTime time) {
+        CrawlJobReport result = new CrawlJobReport(crawlJob.getId(), crawlJob.getCrawlURL(), crawlJob.getStatus(), 0);
+        setFields(result, crawlJob.getId(), time);
+        return result;
+    }
+
     private void setFields(CrawlJobReport report, String job, LocalDateTime time) {
         report.setPdfStatistics(reportDocumentDao.getValidationStatistics(job, time));
         report.setNumberOfODFDocuments(reportDocumentDao.getNumberOfOdfFilesForJob(job, time));
@@ -63,8 +77,17 @@ public class HeritrixReporter {
     }
 
     private File buildODSReport(CrawlJobReport reportData, LocalDateTime time) throws IOException {
-        File file = new File(HeritrixClient.baseDirectory + "sample_report.ods");
-        final Sheet totalSheet = SpreadSheet.createFromFile(file).getSheet(0);
+        File ODSReport = new File(HeritrixClient.baseDirectory + "report.ods");
+        writeODSReport(new File(HeritrixClient.baseDirectory + "sample_report.ods"), ODSReport, reportData, time,
+                reportDocumentDao.getMicrosoftOfficeFiles(reportData.getId(), time),
+                reportDocumentDao.getInvalidPdfFiles(reportData.getId(), time),
+                reportDocumentDao.getOoxmlFiles(reportData.getId(), time));
+        return ODSReport;
+    }
+
+    static void writeODSReport(File template, File output, CrawlJobReport reportData, LocalDateTime time,
+                               List<String> officeFiles, List<String> invalidPdfFiles, List<String> ooxmlFiles) throws IOException {
+        final Sheet totalSheet = SpreadSheet.createFromFile(template).getSheet(0);
         totalSheet.ensureColumnCount(2);
         if(time != null) {
             totalSheet.setValueAt(time.format(DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm:ss")) + " GMT", 1, 0);
@@ -84,13 +107,11 @@ public class HeritrixReporter {
                 reportData.getNumberOfOoxmlDocuments(), 1, 7);
 
         SpreadSheet spreadSheet = totalSheet.getSpreadSheet();
-        setStringsInSheet(spreadSheet.getSheet(1), reportDocumentDao.getMicrosoftOfficeFiles(reportData.getId(), time));
-        setStringsInSheet(spreadSheet.getSheet(2), reportDocumentDao.getInvalidPdfFiles(reportData.getId(), time));
-        setStringsInSheet(spreadSheet.getSheet(3), reportDocumentDao.getOoxmlFiles(reportData.getId(), time));
+        setStringsInSheet(spreadSheet.getSheet(1), officeFiles);
+        setStringsInSheet(spreadSheet.getSheet(2), invalidPdfFiles);
+        setStringsInSheet(spreadSheet.getSheet(3), ooxmlFiles);
 
-        File ODSReport = new File(HeritrixClient.baseDirectory + "report.ods");
-        totalSheet.getSpreadSheet().saveAs(ODSReport);
-        return ODSReport;
+        spreadSheet.saveAs(output);
     }
 
     public File buildODSReport(String job, LocalDateTime time) throws IOException, ParserConfigurationException, SAXException {
@@ -115,7 +136,7 @@ public class HeritrixReporter {
         return reportDocumentDao.getInvalidPdfFiles(job, time);
     }
 
-    private void setStringsInSheet(Sheet sheet, List<String> list) {
+    private static void setStringsInSheet(Sheet sheet, List<String> list) {
         int i = 1;
         sheet.ensureColumnCount(1);
         for(String line: list) {
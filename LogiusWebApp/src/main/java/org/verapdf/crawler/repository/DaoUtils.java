@@ -4,11 +4,12 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class DaoUtils {
+    // Formatters are immutable and thread safe, so they are shared by all DAOs and mappers
+    public static final DateTimeFormatter SQL_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter LAST_MODIFIED_FORMATTER = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'");
+
     public static String getSqlTimeFromLastmodified(String lastModified) {
-        lastModified = lastModified.substring(15);
-        DateTimeFormatter lastModifiedFormatter = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'");
-        LocalDateTime time = LocalDateTime.parse(lastModified, lastModifiedFormatter);
-        DateTimeFormatter sqlFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        return time.format(sqlFormatter);
+        LocalDateTime time = LocalDateTime.parse(lastModified.substring(15), LAST_MODIFIED_FORMATTER);
+        return time.format(SQL_TIME_FORMATTER);
     }
 }
@@ -0,0 +1,65 @@
+package org.verapdf.crawler.repository;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.verapdf.crawler.app.configuration.CacheSettings;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process cache of rows read by a DAO. Values are loaded on a miss and invalidated by the DAO after every
+ * update of the row. Callers get their own copy of a cached value, so that changing it does not change the cache.
+ */
+public class ReadThroughCache<V> {
+    private final Cache<String, V> cache;
+    private final UnaryOperator<V> copier;
+    // Incremented on every invalidation, a value loaded across an invalidation may be stale and is not stored
+    private final AtomicLong version = new AtomicLong();
+
+    public ReadThroughCache(CacheSettings settings, UnaryOperator<V> copier) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(settings.getMaxSize())
+                .expireAfterWrite(settings.getExpireAfterWriteSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.copier = copier;
+    }
+
+    // Loader returns null for missing rows, they are not cached
+    public V get(String key, Supplier<V> loader) {
+        V value = cache.getIfPresent(key);
+        if (value == null) {
+            long loadVersion = version.get();
+            value = loader.get();
+            if (value == null) {
+                return null;
+            }
+            if (version.get() == loadVersion) {
+                cache.put(key, value);
+            }
+        }
+        return copier.apply(value);
+    }
+
+    public void invalidate(String key) {
+        version.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+}
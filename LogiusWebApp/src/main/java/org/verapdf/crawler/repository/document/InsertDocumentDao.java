@@ -1,10 +1,13 @@
 package org.verapdf.crawler.repository.document;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.verapdf.crawler.domain.office.OfficeDocumentData;
 import org.verapdf.crawler.domain.validation.ValidationJobData;
 import org.verapdf.crawler.repository.DaoUtils;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 
 public class InsertDocumentDao {
     final static String DOCUMENTS_TABLE_NAME = "documents";
@@ -18,6 +21,10 @@ public class InsertDocumentDao {
     final static String TYPE_OOXML = "ooxml";
     final static String TYPE_ODF = "odf";
 
+    // Document type is a parameter, so that all types share one prepared statement
+    private final static String SQL_INSERT = String.format("insert into %s (%s, %s, %s, %s) values(?,?,?,?)", DOCUMENTS_TABLE_NAME,
+            FIELD_DOCUMENT_URL, FIELD_LAST_MODIFIED, FIELD_JOB_ID, FIELD_DOCUMENT_TYPE);
+
     private final JdbcTemplate template;
 
     public InsertDocumentDao(DataSource dataSource) {
@@ -25,32 +32,46 @@ public class InsertDocumentDao {
     }
 
     public void addInvalidPdfFile(ValidationJobData data, String jobId) {
-        template.update(String.format("insert into %s (%s, %s, %s, %s) values(?,?,?, '%s')", DOCUMENTS_TABLE_NAME,
-                FIELD_DOCUMENT_URL, FIELD_LAST_MODIFIED, FIELD_JOB_ID, FIELD_DOCUMENT_TYPE, TYPE_INVALID_PDF),
-                data.getUri(), data.getTime(), jobId);
+        template.update(SQL_INSERT, data.getUri(), data.getTime(), jobId, TYPE_INVALID_PDF);
     }
 
     public void addPdfFile(ValidationJobData data, String jobId) {
-        template.update(String.format("insert into %s (%s, %s, %s, %s) values(?,?,?, '%s')", DOCUMENTS_TABLE_NAME,
-                FIELD_DOCUMENT_URL, FIELD_LAST_MODIFIED, FIELD_JOB_ID, FIELD_DOCUMENT_TYPE, TYPE_VALID_PDF),
-                data.getUri(), data.getTime(), jobId);
+        template.update(SQL_INSERT, data.getUri(), data.getTime(), jobId, TYPE_VALID_PDF);
     }
 
     public void addMicrosoftOfficeFile(String fileUrl, String jobId, String lastModified) {
-        template.update(String.format("insert into %s (%s, %s, %s, %s) values(?,?,?, '%s')", DOCUMENTS_TABLE_NAME,
-                FIELD_DOCUMENT_URL, FIELD_LAST_MODIFIED, FIELD_JOB_ID, FIELD_DOCUMENT_TYPE, TYPE_MICROSOFT),
-                fileUrl, DaoUtils.getSqlTimeFromLastmodified(lastModified), jobId);
+        template.update(SQL_INSERT, fileUrl, DaoUtils.getSqlTimeFromLastmodified(lastModified), jobId, TYPE_MICROSOFT);
     }
 
     public void addOdfFile(String fileUrl, String jobId, String lastModified) {
-        template.update(String.format("insert into %s (%s, %s, %s, %s) values(?,?,?, '%s')", DOCUMENTS_TABLE_NAME,
-                FIELD_DOCUMENT_URL, FIELD_LAST_MODIFIED, FIELD_JOB_ID, FIELD_DOCUMENT_TYPE, TYPE_ODF),
-                fileUrl, DaoUtils.getSqlTimeFromLastmodified(lastModified), jobId);
+        template.update(SQL_INSERT, fileUrl, DaoUtils.getSqlTimeFromLastmodified(lastModified), jobId, TYPE_ODF);
+    }
+
+    public void addMicrosoftOfficeFiles(List<OfficeDocumentData> documents) {
+        addOfficeDocuments(documents, TYPE_MICROSOFT);
+    }
+
+    public void addOdfFiles(List<OfficeDocumentData> documents) {
+        addOfficeDocuments(documents, TYPE_ODF);
+    }
+
+    public void addOpenOfficeXMLFiles(List<OfficeDocumentData> documents) {
+        addOfficeDocuments(documents, TYPE_OOXML);
     }
 
     public void addOpenOfficeXMLFile(String fileUrl, String jobId, String lastModified) {
-        template.update(String.format("insert into %s (%s, %s, %s, %s) values(?,?,?, '%s')", DOCUMENTS_TABLE_NAME,
-                FIELD_DOCUMENT_URL, FIELD_LAST_MODIFIED, FIELD_JOB_ID, FIELD_DOCUMENT_TYPE, TYPE_OOXML),
-                fileUrl, DaoUtils.getSqlTimeFromLastmodified(lastModified), jobId);
+        template.update(SQL_INSERT, fileUrl, DaoUtils.getSqlTimeFromLastmodified(lastModified), jobId, TYPE_OOXML);
+    }
+
+    private void addOfficeDocuments(List<OfficeDocumentData> documents, String type) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(documents.size());
+        for (OfficeDocumentData document : documents) {
+            rows.add(new Object[] {document.getFileUrl(), DaoUtils.getSqlTimeFromLastmodified(document.getLastModified()),
+                    document.getJobId(), type});
+        }
+        template.batchUpdate(SQL_INSERT, rows);
     }
 }
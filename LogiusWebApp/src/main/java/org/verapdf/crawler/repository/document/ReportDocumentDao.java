@@ -3,16 +3,36 @@ package org.verapdf.crawler.repository.document;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.verapdf.crawler.domain.report.PDFValidationStatistics;
 import org.verapdf.crawler.domain.report.PdfPropertyStatistics;
+import org.verapdf.crawler.repository.DaoUtils;
 import org.verapdf.crawler.repository.mappers.FileUrlMapper;
 import org.verapdf.crawler.repository.mappers.PdfPropertyStatisticsMapper;
 
 import javax.sql.DataSource;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 
 public class ReportDocumentDao {
+    //<editor-fold desc="Statements">
+    private static final String SQL_SELECT_PROPERTY_STATISTICS = String.format("select any_value(%s.%s), any_value(%s), count(*) as `number` from ((%s inner join %s on %s.%s=%s.%s) inner join %s on %s.%s=%s.%s) where %s=? and %s>? group by %s",
+            ValidatedPDFDao.PROPERTIES_TABLE_NAME, ValidatedPDFDao.FIELD_PROPERTY_VALUE,
+            ValidatedPDFDao.FIELD_PDF_PROPERTY_READABLE_NAME, ValidatedPDFDao.PDF_PROPERTIES_TABLE_NAME,
+            ValidatedPDFDao.PROPERTIES_TABLE_NAME, ValidatedPDFDao.PDF_PROPERTIES_TABLE_NAME,
+            ValidatedPDFDao.FIELD_PDF_PROPERTY_NAME, ValidatedPDFDao.PROPERTIES_TABLE_NAME,
+            ValidatedPDFDao.FIELD_PROPERTY_NAME, InsertDocumentDao.DOCUMENTS_TABLE_NAME,
+            ValidatedPDFDao.PROPERTIES_TABLE_NAME, ValidatedPDFDao.FIELD_PROPERTIES_DOCUMENT_URL,
+            InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_URL,
+            InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED, ValidatedPDFDao.FIELD_PROPERTY_VALUE);
+    private static final String SQL_COUNT_DOCUMENTS = String.format("select count(*) from %s where %s=? and %s=? and %s>?",
+            InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_TYPE,
+            InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED);
+    private static final String SQL_SELECT_DOCUMENT_URLS = String.format("select %s from %s where %s=? and %s=? and %s>?",
+            InsertDocumentDao.FIELD_DOCUMENT_URL, InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_TYPE,
+            InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED);
+    //</editor-fold>
+
+    private static final PdfPropertyStatisticsMapper PROPERTY_STATISTICS_MAPPER = new PdfPropertyStatisticsMapper();
+    private static final FileUrlMapper FILE_URL_MAPPER = new FileUrlMapper();
+
     private final JdbcTemplate template;
 
     public ReportDocumentDao(DataSource dataSource) {
@@ -24,88 +44,53 @@ public class ReportDocumentDao {
     // inner join documents on document_properties.document_url = documents.document_url) group by value;
 
     public PDFValidationStatistics getValidationStatistics(String crawlJobId, LocalDateTime sinceTime) {
-        String sql = String.format("select any_value(%s.%s), any_value(%s), count(*) as `number` from ((%s inner join %s on %s.%s=%s.%s) inner join %s on %s.%s=%s.%s) where %s=? and %s>? group by %s",
-                ValidatedPDFDao.PROPERTIES_TABLE_NAME, ValidatedPDFDao.FIELD_PROPERTY_VALUE,
-                ValidatedPDFDao.FIELD_PDF_PROPERTY_READABLE_NAME, ValidatedPDFDao.PDF_PROPERTIES_TABLE_NAME,
-                ValidatedPDFDao.PROPERTIES_TABLE_NAME, ValidatedPDFDao.PDF_PROPERTIES_TABLE_NAME,
-                ValidatedPDFDao.FIELD_PDF_PROPERTY_NAME, ValidatedPDFDao.PROPERTIES_TABLE_NAME,
-                ValidatedPDFDao.FIELD_PROPERTY_NAME, InsertDocumentDao.DOCUMENTS_TABLE_NAME,
-                ValidatedPDFDao.PROPERTIES_TABLE_NAME, ValidatedPDFDao.FIELD_PROPERTIES_DOCUMENT_URL,
-                InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_URL,
-                InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED, ValidatedPDFDao.FIELD_PROPERTY_VALUE);
-        List<PdfPropertyStatistics> statistics = template.query(sql, new PdfPropertyStatisticsMapper(),crawlJobId, sinceTime);
+        String time = getSqlTimeString(sinceTime);
+        List<PdfPropertyStatistics> statistics = template.query(SQL_SELECT_PROPERTY_STATISTICS, PROPERTY_STATISTICS_MAPPER, crawlJobId, time);
         return new PDFValidationStatistics(statistics, getNumberOfInvalidFilesForJob(crawlJobId, sinceTime),
                 getNumberOfValidFilesForJob(crawlJobId, sinceTime));
     }
 
     //<editor-fold desc="Invalid pdf files">
     public Integer getNumberOfInvalidFilesForJob(String crawlJobId, LocalDateTime sinceTime) {
-        return template.queryForObject(String.format("select count(*) from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_TYPE,
-                InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new Object[] {InsertDocumentDao.TYPE_INVALID_PDF, crawlJobId, getSqlTimeString(sinceTime)}, Integer.class);
+        return countDocuments(InsertDocumentDao.TYPE_INVALID_PDF, crawlJobId, sinceTime);
     }
 
     public List<String> getInvalidPdfFiles(String crawlJobId, LocalDateTime sinceTime) {
-        return template.query(String.format("select %s from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.FIELD_DOCUMENT_URL, InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_TYPE,
-                InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new FileUrlMapper(), InsertDocumentDao.TYPE_INVALID_PDF, crawlJobId, getSqlTimeString(sinceTime));
+        return listDocuments(InsertDocumentDao.TYPE_INVALID_PDF, crawlJobId, sinceTime);
     }
     //</editor-fold>
     //<editor-fold desc="Valid pdf files">
     public Integer getNumberOfValidFilesForJob(String crawlJobId, LocalDateTime sinceTime) {
-        return template.queryForObject(String.format("select count(*) from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_TYPE,
-                InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new Object[] {InsertDocumentDao.TYPE_VALID_PDF, crawlJobId, getSqlTimeString(sinceTime)}, Integer.class);
+        return countDocuments(InsertDocumentDao.TYPE_VALID_PDF, crawlJobId, sinceTime);
     }
     //</editor-fold>
     //<editor-fold desc="ODF files">
 
     public Integer getNumberOfOdfFilesForJob(String crawlJobId, LocalDateTime sinceTime) {
-        return template.queryForObject(String.format("select count(*) from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_TYPE,
-                InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new Object[] {InsertDocumentDao.TYPE_ODF, crawlJobId, getSqlTimeString(sinceTime)}, Integer.class);
+        return countDocuments(InsertDocumentDao.TYPE_ODF, crawlJobId, sinceTime);
     }
 
     public List<String> getListOfODFFiles(String crawlJobId, LocalDateTime sinceTime) {
-        return template.query( String.format("select %s from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.FIELD_DOCUMENT_URL, InsertDocumentDao.DOCUMENTS_TABLE_NAME,
-                InsertDocumentDao.FIELD_DOCUMENT_TYPE, InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new FileUrlMapper(), InsertDocumentDao.TYPE_ODF, crawlJobId, getSqlTimeString(sinceTime));
+        return listDocuments(InsertDocumentDao.TYPE_ODF, crawlJobId, sinceTime);
     }
 
     //</editor-fold>
     //<editor-fold desc="Microsoft office files">
 
     public Integer getNumberOfMicrosoftFilesForJob(String crawlJobId, LocalDateTime sinceTime) {
-        return template.queryForObject(String.format("select count(*) from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_TYPE,
-                InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new Object[] {InsertDocumentDao.TYPE_MICROSOFT, crawlJobId, getSqlTimeString(sinceTime)}, Integer.class);
+        return countDocuments(InsertDocumentDao.TYPE_MICROSOFT, crawlJobId, sinceTime);
     }
 
     public List<String> getMicrosoftOfficeFiles(String crawlJobId, LocalDateTime sinceTime) {
-        return template.query( String.format("select %s from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.FIELD_DOCUMENT_URL, InsertDocumentDao.DOCUMENTS_TABLE_NAME,
-                InsertDocumentDao.FIELD_DOCUMENT_TYPE, InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new FileUrlMapper(), InsertDocumentDao.TYPE_MICROSOFT, crawlJobId, getSqlTimeString(sinceTime));
+        return listDocuments(InsertDocumentDao.TYPE_MICROSOFT, crawlJobId, sinceTime);
     }
 
     public Integer getNumberOfOoxmlFilesForJob(String crawlJobId, LocalDateTime sinceTime) {
-        return template.queryForObject(String.format("select count(*) from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.DOCUMENTS_TABLE_NAME, InsertDocumentDao.FIELD_DOCUMENT_TYPE,
-                InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new Object[] {InsertDocumentDao.TYPE_OOXML, crawlJobId, getSqlTimeString(sinceTime)}, Integer.class);
+        return countDocuments(InsertDocumentDao.TYPE_OOXML, crawlJobId, sinceTime);
     }
 
     public List<String> getOoxmlFiles(String crawlJobId, LocalDateTime sinceTime) {
-        return template.query( String.format("select %s from %s where %s=? and %s=? and %s>?",
-                InsertDocumentDao.FIELD_DOCUMENT_URL, InsertDocumentDao.DOCUMENTS_TABLE_NAME,
-                InsertDocumentDao.FIELD_DOCUMENT_TYPE, InsertDocumentDao.FIELD_JOB_ID, InsertDocumentDao.FIELD_LAST_MODIFIED),
-                new FileUrlMapper(), InsertDocumentDao.TYPE_OOXML, crawlJobId, getSqlTimeString(sinceTime));
+        return listDocuments(InsertDocumentDao.TYPE_OOXML, crawlJobId, sinceTime);
     }
 
     //</editor-fold>
@@ -153,11 +138,18 @@ public class ReportDocumentDao {
                         crawlJobId, sinceTime}, Integer.class);
     }
     */
-    private String getSqlTimeString(LocalDateTime time) {
+    private Integer countDocuments(String type, String crawlJobId, LocalDateTime sinceTime) {
+        return template.queryForObject(SQL_COUNT_DOCUMENTS, new Object[] {type, crawlJobId, getSqlTimeString(sinceTime)}, Integer.class);
+    }
+
+    private List<String> listDocuments(String type, String crawlJobId, LocalDateTime sinceTime) {
+        return template.query(SQL_SELECT_DOCUMENT_URLS, FILE_URL_MAPPER, type, crawlJobId, getSqlTimeString(sinceTime));
+    }
+
+    private static String getSqlTimeString(LocalDateTime time) {
         if(time == null) {
             return "0000-00-00 00:00:00";
         }
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        return time.format(formatter);
+        return time.format(DaoUtils.SQL_TIME_FORMATTER);
     }
 }
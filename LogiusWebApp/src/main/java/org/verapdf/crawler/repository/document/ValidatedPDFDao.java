@@ -3,6 +3,7 @@ package org.verapdf.crawler.repository.document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.verapdf.crawler.domain.validation.ValidationError;
 
 import javax.sql.DataSource;
@@ -31,6 +32,23 @@ public class ValidatedPDFDao {
 
     private final static String PROPERTY_PROCESSING_ERROR = "processing_error";
 
+    //<editor-fold desc="Statements">
+    private final static String SQL_SELECT_ERROR_ID = String.format("select %s from %s where %s=? and %s=? and %s=?",
+            FIELD_ID, VALIDATION_ERRORS_TABLE_NAME, FIELD_FLAVOUR, FIELD_CLAUSE, FIELD_TEST_NUMBER);
+    private final static String SQL_INSERT_ERROR = String.format("insert into %s (%s, %s, %s, %s) values (?, ?, ?, ?)",
+            VALIDATION_ERRORS_TABLE_NAME, FIELD_FLAVOUR, FIELD_CLAUSE, FIELD_TEST_NUMBER, FIELD_DESCRIPTION);
+    private final static String SQL_INSERT_DOCUMENT_ERROR = String.format("insert into %s (%s, %s) values (?, ?)",
+            VALIDATION_ERRORS_REFERENCE_TABLE_NAME, FIELD_ERRORS_DOCUMENT_URL, FIELD_ERROR_ID);
+    private final static String SQL_INSERT_PROPERTY = String.format("insert into %s (%s, %s, %s) values (?, ?, ?)",
+            PROPERTIES_TABLE_NAME, FIELD_PROPERTY_NAME, FIELD_PROPERTY_VALUE, FIELD_PROPERTIES_DOCUMENT_URL);
+    private final static String SQL_SELECT_PROPERTY = String.format("select %s from %s where %s=? and %s=?",
+            FIELD_PROPERTY_VALUE, PROPERTIES_TABLE_NAME, FIELD_PROPERTIES_DOCUMENT_URL, FIELD_PROPERTY_NAME);
+    private final static String SQL_SELECT_PDF_PROPERTIES = String.format("select %s, %s from %s",
+            FIELD_PDF_PROPERTY_NAME, FIELD_PDF_PROPERTY_XPATH, PDF_PROPERTIES_TABLE_NAME);
+    //</editor-fold>
+
+    private final static RowMapper<String> ID_MAPPER = (resultSet, i) -> resultSet.getString(1);
+
     private final JdbcTemplate template;
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
 
@@ -39,38 +57,28 @@ public class ValidatedPDFDao {
     }
 
     public void addErrorToDocument(ValidationError rule, String documentUrl) {
-        List<String> errors = template.query(String.format("select %s from %s where %s=? and %s=? and %s=?",
-                FIELD_ID, VALIDATION_ERRORS_TABLE_NAME, FIELD_FLAVOUR, FIELD_CLAUSE, FIELD_TEST_NUMBER), (resultSet, i) -> resultSet.getString("id"), rule.getSpecification(), rule.getClause(), rule.getTestNumber());
+        List<String> errors = template.query(SQL_SELECT_ERROR_ID, ID_MAPPER, rule.getSpecification(), rule.getClause(), rule.getTestNumber());
         if(errors.isEmpty()) { // There is no such error in database, need to insert and link to document
-            template.update(String.format("insert into %s (%s, %s, %s, %s) values (?, ?, ?, ?)", VALIDATION_ERRORS_TABLE_NAME,
-                    FIELD_FLAVOUR, FIELD_CLAUSE, FIELD_TEST_NUMBER, FIELD_DESCRIPTION),
-                    rule.getSpecification(), rule.getClause(), rule.getTestNumber(), rule.getDescription());
+            template.update(SQL_INSERT_ERROR, rule.getSpecification(), rule.getClause(), rule.getTestNumber(), rule.getDescription());
 
-            String newRuleId = template.query(String.format("select %s from %s where %s=? and %s=? and %s=?",
-                    FIELD_ID, VALIDATION_ERRORS_TABLE_NAME, FIELD_FLAVOUR, FIELD_CLAUSE, FIELD_TEST_NUMBER), (resultSet, i) -> resultSet.getString("id"), rule.getSpecification(), rule.getClause(), rule.getTestNumber()).get(0);
+            String newRuleId = template.query(SQL_SELECT_ERROR_ID, ID_MAPPER, rule.getSpecification(), rule.getClause(), rule.getTestNumber()).get(0);
 
-            template.update(String.format("insert into %s (%s, %s) values (?, ?)", VALIDATION_ERRORS_REFERENCE_TABLE_NAME,
-                    FIELD_ERRORS_DOCUMENT_URL, FIELD_ERROR_ID), documentUrl, newRuleId);
+            template.update(SQL_INSERT_DOCUMENT_ERROR, documentUrl, newRuleId);
         }
         else { // Error record already exists, only link it to document
-            template.update(String.format("insert into %s (%s, %s) values (?, ?)", VALIDATION_ERRORS_REFERENCE_TABLE_NAME,
-                    FIELD_ERRORS_DOCUMENT_URL, FIELD_ERROR_ID), documentUrl, errors.get(0));
+            template.update(SQL_INSERT_DOCUMENT_ERROR, documentUrl, errors.get(0));
         }
     }
 
     public void insertPropertyForDocument(String propertyName, String propertyValue, String documentUrl) {
         if(propertyValue != null) {
             logger.info("Inserting property " + propertyName + ":" + propertyValue + " for " + documentUrl);
-            template.update(String.format("insert into %s (%s, %s, %s) values (?, ?, ?)",
-                    PROPERTIES_TABLE_NAME, FIELD_PROPERTY_NAME, FIELD_PROPERTY_VALUE, FIELD_PROPERTIES_DOCUMENT_URL),
-                    propertyName, propertyValue, documentUrl);
+            template.update(SQL_INSERT_PROPERTY, propertyName, propertyValue, documentUrl);
         }
     }
 
     private String getPropertyForDocument(String propertyName, String documentUrl) {
-        return template.queryForObject(String.format("select %s from %s where %s=? and %s=?",
-                FIELD_PROPERTY_VALUE, PROPERTIES_TABLE_NAME, FIELD_PROPERTIES_DOCUMENT_URL, FIELD_PROPERTY_NAME),
-                new Object[]{documentUrl, propertyName}, String.class);
+        return template.queryForObject(SQL_SELECT_PROPERTY, new Object[]{documentUrl, propertyName}, String.class);
     }
 
     public void addProcessingError(String processingError, String documentUrl) {
@@ -82,8 +90,7 @@ public class ValidatedPDFDao {
     }
 
     public Map<String, String> getPdfPropertiesWithXpath() {
-        List<Map<String, Object>> results = template.queryForList(String.format("select %s, %s from %s",
-                FIELD_PDF_PROPERTY_NAME, FIELD_PDF_PROPERTY_XPATH, PDF_PROPERTIES_TABLE_NAME));
+        List<Map<String, Object>> results = template.queryForList(SQL_SELECT_PDF_PROPERTIES);
         Map<String, String> result = new HashMap<>();
         for(Map entry: results) {
             result.put(entry.get(FIELD_PDF_PROPERTY_NAME).toString(), entry.get(FIELD_PDF_PROPERTY_XPATH).toString());
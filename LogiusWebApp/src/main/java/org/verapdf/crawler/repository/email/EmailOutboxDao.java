@@ -0,0 +1,94 @@
+package org.verapdf.crawler.repository.email;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.verapdf.crawler.domain.email.OutboxEmail;
+import org.verapdf.crawler.repository.mappers.OutboxEmailMapper;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notifications waiting for delivery. Rows stay in the table after delivery with sent_time set; rows which were
+ * given up have neither sent_time nor next_attempt_time.
+ */
+public class EmailOutboxDao {
+    private static final String OUTBOX_TABLE_NAME = "email_outbox";
+    public static final String FIELD_ID = "id";
+    public static final String FIELD_RECIPIENT = "recipient";
+    public static final String FIELD_SUBJECT = "subject";
+    public static final String FIELD_TEXT = "text";
+    public static final String FIELD_CREATED_TIME = "created_time";
+    public static final String FIELD_ATTEMPTS = "attempts";
+    private static final String FIELD_NEXT_ATTEMPT_TIME = "next_attempt_time";
+    private static final String FIELD_SENT_TIME = "sent_time";
+    private static final String FIELD_LAST_ERROR = "last_error";
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    //<editor-fold desc="Statements">
+    // Times are taken from the database clock, so that the schedule does not depend on clocks of Logius instances
+    private static final String SQL_INSERT = String.format("insert into %s (%s, %s, %s, %s, %s) values (?,?,?,now(),date_add(now(), interval ? second))",
+            OUTBOX_TABLE_NAME, FIELD_RECIPIENT, FIELD_SUBJECT, FIELD_TEXT, FIELD_CREATED_TIME, FIELD_NEXT_ATTEMPT_TIME);
+    private static final String SQL_SELECT_DUE = String.format("select %s from %s where %s is null and %s<=now() order by %s limit ?",
+            OutboxEmailMapper.COLUMNS, OUTBOX_TABLE_NAME, FIELD_SENT_TIME, FIELD_NEXT_ATTEMPT_TIME, FIELD_ID);
+    private static final String SQL_SELECT_PENDING_BY_RECIPIENT = String.format("select %s from %s where %s=? and %s is null and %s is not null order by %s",
+            OutboxEmailMapper.COLUMNS, OUTBOX_TABLE_NAME, FIELD_RECIPIENT, FIELD_SENT_TIME, FIELD_NEXT_ATTEMPT_TIME, FIELD_ID);
+    private static final String SQL_SET_SENT = String.format("update %s set %s=now(), %s=null where %s=?",
+            OUTBOX_TABLE_NAME, FIELD_SENT_TIME, FIELD_NEXT_ATTEMPT_TIME, FIELD_ID);
+    private static final String SQL_SET_FAILED = String.format("update %s set %s=?, %s=date_add(now(), interval ? second), %s=? where %s=?",
+            OUTBOX_TABLE_NAME, FIELD_ATTEMPTS, FIELD_NEXT_ATTEMPT_TIME, FIELD_LAST_ERROR, FIELD_ID);
+    private static final String SQL_SET_GIVEN_UP = String.format("update %s set %s=?, %s=null, %s=? where %s=?",
+            OUTBOX_TABLE_NAME, FIELD_ATTEMPTS, FIELD_NEXT_ATTEMPT_TIME, FIELD_LAST_ERROR, FIELD_ID);
+    private static final String SQL_COUNT_PENDING = String.format("select count(*) from %s where %s is null and %s is not null",
+            OUTBOX_TABLE_NAME, FIELD_SENT_TIME, FIELD_NEXT_ATTEMPT_TIME);
+    //</editor-fold>
+
+    private static final OutboxEmailMapper MAPPER = new OutboxEmailMapper();
+    private final JdbcTemplate template;
+
+    public EmailOutboxDao(DataSource dataSource) {
+        this.template = new JdbcTemplate(dataSource);
+    }
+
+    public void addEmail(String recipient, String subject, String text, long delaySeconds) {
+        template.update(SQL_INSERT, recipient, subject, text, delaySeconds);
+    }
+
+    public List<OutboxEmail> getDueEmails(int limit) {
+        return template.query(SQL_SELECT_DUE, MAPPER, limit);
+    }
+
+    // Due and not yet due notifications to the address, used to build a digest
+    public List<OutboxEmail> getPendingEmails(String recipient) {
+        return template.query(SQL_SELECT_PENDING_BY_RECIPIENT, MAPPER, recipient);
+    }
+
+    public void setSent(List<OutboxEmail> emails) {
+        List<Object[]> args = new ArrayList<>();
+        for (OutboxEmail email : emails) {
+            args.add(new Object[] {email.getId()});
+        }
+        template.batchUpdate(SQL_SET_SENT, args);
+    }
+
+    public void setFailed(OutboxEmail email, int attempts, long retryDelaySeconds, String error) {
+        template.update(SQL_SET_FAILED, attempts, retryDelaySeconds, truncate(error), email.getId());
+    }
+
+    public void setGivenUp(OutboxEmail email, int attempts, String error) {
+        template.update(SQL_SET_GIVEN_UP, attempts, truncate(error), email.getId());
+    }
+
+    public int getPendingCount() {
+        Integer count = template.queryForObject(SQL_COUNT_PENDING, Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    //</editor-fold>
+}
@@ -3,75 +3,234 @@ package org.verapdf.crawler.repository.jobs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.verapdf.crawler.app.configuration.CacheSettings;
 import org.verapdf.crawler.domain.crawling.BatchJob;
+import org.verapdf.crawler.domain.crawling.BatchJobPage;
+import org.verapdf.crawler.repository.DaoUtils;
+import org.verapdf.crawler.repository.ReadThroughCache;
 import org.verapdf.crawler.repository.mappers.BatchJobMapper;
 
 import javax.sql.DataSource;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BatchJobDao {
     private final JdbcTemplate template;
+    private final ReadThroughCache<BatchJob> batchJobs;
+    // Changed on every update made through this DAO, lets clients revalidate batch job lists without a query
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified = startTime;
     private static final String BATCH_JOB_TABLE_NAME = "batch_crawl_jobs";
     private static final String BATCH_REFERENCE_TABLE_NAME = "crawl_jobs_in_batch";
     public static final String FIELD_ID = "id";
     public static final String FIELD_IS_FINISHED = "is_finished";
     public static final String FIELD_REPORT_EMAIL = "report_email";
     public static final String FIELD_CRAWL_SINCE = "crawl_since";
+    public static final String FIELD_PRIORITY = "priority";
+    public static final String FIELD_CREATED_TIME = "created_time";
     private static final String FIELD_BATCH_JOB_ID = "batch_job_id";
     private static final String FIELD_CRAWL_JOB_ID = "crawl_job_id";
 
+    //<editor-fold desc="Statements">
+    private static final String SQL_INSERT = String.format("insert into %s (%s, %s, %s, %s, %s) values (?,false,?,?,?)",
+            BATCH_JOB_TABLE_NAME, FIELD_ID, FIELD_IS_FINISHED, FIELD_REPORT_EMAIL, FIELD_CRAWL_SINCE, FIELD_PRIORITY);
+    private static final String SQL_INSERT_CRAWL_JOB = String.format("insert into %s (%s, %s) values (?, ?)",
+            BATCH_REFERENCE_TABLE_NAME, FIELD_BATCH_JOB_ID, FIELD_CRAWL_JOB_ID);
+    private static final String SQL_SELECT_BY_ID = String.format("select %s from %s where %s=?",
+            BatchJobMapper.COLUMNS, BATCH_JOB_TABLE_NAME, FIELD_ID);
+    // Batch jobs with their crawl jobs, one row per crawl job
+    private static final String SQL_SELECT_ALL = String.format("select %s, %s from %s left join %s on %s=%s order by %s, %s",
+            BatchJobMapper.COLUMNS, FIELD_CRAWL_JOB_ID, BATCH_JOB_TABLE_NAME, BATCH_REFERENCE_TABLE_NAME,
+            FIELD_ID, FIELD_BATCH_JOB_ID, FIELD_CREATED_TIME, FIELD_ID);
+    // Page of batch jobs after the cursor, newest first. Every filter is skipped when its parameter is null
+    private static final String SQL_SELECT_PAGE = String.format("select %1$s, %2$s from (select %1$s from %3$s " +
+                    "where (? is null or %5$s=?) and (? is null or %6$s>=?) and (? is null or %6$s<?) and (? is null or %7$s=?) " +
+                    "and (? is null or %6$s<? or (%6$s=? and %8$s<?)) order by %6$s desc, %8$s desc limit ?) b " +
+                    "left join %4$s on %9$s=%8$s order by %6$s desc, %8$s desc",
+            BatchJobMapper.COLUMNS, FIELD_CRAWL_JOB_ID, BATCH_JOB_TABLE_NAME, BATCH_REFERENCE_TABLE_NAME,
+            FIELD_IS_FINISHED, FIELD_CREATED_TIME, FIELD_REPORT_EMAIL, FIELD_ID, FIELD_BATCH_JOB_ID);
+    private static final String SQL_COUNT_BY_ID = String.format("select count(*) from %s where %s=?",
+            BATCH_JOB_TABLE_NAME, FIELD_ID);
+    private static final String SQL_SELECT_CRAWL_JOBS = String.format("select %s from %s where %s=?",
+            FIELD_CRAWL_JOB_ID, BATCH_REFERENCE_TABLE_NAME, FIELD_BATCH_JOB_ID);
+    private static final String SQL_SELECT_BATCH_JOBS_OF_CRAWL_JOB = String.format("select %s from %s where %s=?",
+            FIELD_BATCH_JOB_ID, BATCH_REFERENCE_TABLE_NAME, FIELD_CRAWL_JOB_ID);
+    private static final String SQL_SET_FINISHED = String.format("update %s set %s=? where %s=?",
+            BATCH_JOB_TABLE_NAME, FIELD_IS_FINISHED, FIELD_ID);
+    private static final String SQL_SET_REPORT_EMAIL = String.format("update %s set %s=? where %s=?",
+            BATCH_JOB_TABLE_NAME, FIELD_REPORT_EMAIL, FIELD_ID);
+    private static final String SQL_SELECT_CRAWL_SINCE = String.format("select %s from %s where %s=?",
+            FIELD_CRAWL_SINCE, BATCH_JOB_TABLE_NAME, FIELD_ID);
+    private static final String SQL_SELECT_CRAWL_JOB_PRIORITY = String.format("select max(b.%s) from %s b join %s r on b.%s=r.%s where r.%s=?",
+            FIELD_PRIORITY, BATCH_JOB_TABLE_NAME, BATCH_REFERENCE_TABLE_NAME, FIELD_ID, FIELD_BATCH_JOB_ID, FIELD_CRAWL_JOB_ID);
+    private static final String SQL_SELECT_REPORT_EMAIL = String.format("select %s from %s where %s=?",
+            FIELD_REPORT_EMAIL, BATCH_JOB_TABLE_NAME, FIELD_ID);
+    //</editor-fold>
+
+    private static final BatchJobMapper MAPPER = new BatchJobMapper();
+    private static final DateTimeFormatter CURSOR_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final String CURSOR_SEPARATOR = "_";
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
 
     public BatchJobDao(DataSource dataSource) {
+        this(dataSource, new CacheSettings(0, 0));
+    }
+
+    public BatchJobDao(DataSource dataSource, CacheSettings cacheSettings) {
         this.template = new JdbcTemplate(dataSource);
+        this.batchJobs = new ReadThroughCache<>(cacheSettings, BatchJob::new);
+    }
+
+    public ReadThroughCache<BatchJob> getCache() {
+        return batchJobs;
     }
 
     public void addBatchJob(BatchJob batchJob) {
         logger.info("Batch job inserted into database: " + batchJob.getId());
-        template.update(String.format("insert into %s (%s, %s, %s, %s) values (?,false,?,?)"
-                , BATCH_JOB_TABLE_NAME, FIELD_ID, FIELD_IS_FINISHED, FIELD_REPORT_EMAIL, FIELD_CRAWL_SINCE)
-                , batchJob.getId(), batchJob.getEmailAddress(), batchJob.getCrawlSinceTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        template.update(SQL_INSERT, batchJob.getId(), batchJob.getEmailAddress(),
+                batchJob.getCrawlSinceTime().format(DaoUtils.SQL_TIME_FORMATTER), batchJob.getPriority());
         for (String crawlJobId: batchJob.getCrawlJobs()) {
-            template.update(String.format("insert into %s (%s, %s) values (?, ?)",
-                    BATCH_REFERENCE_TABLE_NAME, FIELD_BATCH_JOB_ID, FIELD_CRAWL_JOB_ID), batchJob.getId(), crawlJobId);
+            template.update(SQL_INSERT_CRAWL_JOB, batchJob.getId(), crawlJobId);
         }
+        batchJobs.invalidate(batchJob.getId());
+        onModified();
     }
 
     public BatchJob getBatchJob(String batchJobId) {
-        BatchJob result = template.query(String.format("select * from %s where %s=?" ,BATCH_JOB_TABLE_NAME, FIELD_ID), new BatchJobMapper(), batchJobId).get(0);
-        result.setCrawlJobs(getCrawlJobsForBatch(batchJobId));
-        return result;
+        return batchJobs.get(batchJobId, () -> {
+            BatchJob result = template.query(SQL_SELECT_BY_ID, MAPPER, batchJobId).get(0);
+            result.setCrawlJobs(getCrawlJobsForBatch(batchJobId));
+            return result;
+        });
+    }
+
+    public boolean doesBatchJobExist(String batchJobId) {
+        Integer count = template.queryForObject(SQL_COUNT_BY_ID, Integer.class, batchJobId);
+        return count != null && count != 0;
     }
 
     private List<String> getCrawlJobsForBatch(String batchJobId) {
-        return template.queryForList(String.format("select %s from %s where %s=?", FIELD_CRAWL_JOB_ID, BATCH_REFERENCE_TABLE_NAME, FIELD_BATCH_JOB_ID), String.class, batchJobId);
+        return template.queryForList(SQL_SELECT_CRAWL_JOBS, String.class, batchJobId);
     }
 
     public List<BatchJob> getBatchJobs() {
-        List<BatchJob> result = template.query("select * from " + BATCH_JOB_TABLE_NAME, new BatchJobMapper());
-        for(BatchJob batchJob: result) {
-            batchJob.setCrawlJobs(getCrawlJobsForBatch(batchJob.getId()));
+        return queryWithCrawlJobs(SQL_SELECT_ALL);
+    }
+
+    // Keyset pagination by creation time, so that every page costs the same regardless of the number of batch jobs
+    public BatchJobPage getBatchJobs(Boolean isFinished, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                     String reportEmail, String cursor, int limit) {
+        Timestamp from = createdFrom == null ? null : Timestamp.valueOf(createdFrom);
+        Timestamp to = createdTo == null ? null : Timestamp.valueOf(createdTo);
+        Timestamp afterTime = null;
+        String afterId = null;
+        if (cursor != null) {
+            afterTime = Timestamp.valueOf(getCursorTime(cursor));
+            afterId = getCursorId(cursor);
         }
-        return result;
+        // One row more than requested tells whether there is a next page
+        List<BatchJob> result = queryWithCrawlJobs(SQL_SELECT_PAGE, isFinished, isFinished, from, from, to, to,
+                reportEmail, reportEmail, afterTime, afterTime, afterTime, afterId, limit + 1);
+        String nextCursor = null;
+        if (result.size() > limit) {
+            result = new ArrayList<>(result.subList(0, limit));
+            BatchJob last = result.get(limit - 1);
+            nextCursor = formatCursor(last.getCreatedTime(), last.getId());
+        }
+        return new BatchJobPage(result, nextCursor);
+    }
+
+    public String getVersion() {
+        return startTime + "-" + version.get();
+    }
+
+    public long getLastModified() {
+        return lastModified;
     }
 
     public void setJobFinished(String batchJob) {
-        template.update(String.format("update %s set %s=? where %s=?", BATCH_JOB_TABLE_NAME, FIELD_IS_FINISHED, FIELD_ID), true, batchJob);
+        template.update(SQL_SET_FINISHED, true, batchJob);
+        batchJobs.invalidate(batchJob);
+        onModified();
     }
 
     public void setReportEmail(String jobId, String emailAddress) {
         logger.info("Email address " + emailAddress + " was associated with job " + jobId + " in database");
-        template.update(String.format("update %s set %s=? where %s=?", BATCH_JOB_TABLE_NAME, FIELD_REPORT_EMAIL, FIELD_ID), emailAddress, jobId);
+        template.update(SQL_SET_REPORT_EMAIL, emailAddress, jobId);
+        batchJobs.invalidate(jobId);
+        onModified();
     }
 
     public LocalDateTime getCrawlSince(String jobId) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        return LocalDateTime.parse(template.queryForObject(String.format("select %s from %s where %s=?", FIELD_CRAWL_SINCE, BATCH_JOB_TABLE_NAME, FIELD_ID), new Object[] {jobId}, String.class), formatter);
+        Timestamp crawlSince = template.queryForObject(SQL_SELECT_CRAWL_SINCE, new Object[] {jobId}, Timestamp.class);
+        return crawlSince == null ? null : crawlSince.toLocalDateTime();
+    }
+
+    // Crawl job is shared by all batches which requested its URL
+    public List<String> getBatchJobIds(String crawlJobId) {
+        return template.queryForList(SQL_SELECT_BATCH_JOBS_OF_CRAWL_JOB, String.class, crawlJobId);
+    }
+
+    // Crawl job shared by several batches is served with the highest priority among them
+    public int getCrawlJobPriority(String crawlJobId) {
+        Integer priority = template.queryForObject(SQL_SELECT_CRAWL_JOB_PRIORITY, new Object[] {crawlJobId}, Integer.class);
+        return priority == null || priority < 1 ? BatchJob.DEFAULT_PRIORITY : priority;
     }
 
     public String getReportEmail(String jobId) {
-        return template.queryForObject(String.format("select %s from %s where %s=?", FIELD_REPORT_EMAIL, BATCH_JOB_TABLE_NAME, FIELD_ID), new Object[] {jobId}, String.class);
+        return template.queryForObject(SQL_SELECT_REPORT_EMAIL, new Object[] {jobId}, String.class);
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // Rows of the same batch job follow each other, the crawl job column is null for batches without crawl jobs
+    private List<BatchJob> queryWithCrawlJobs(String sql, Object... args) {
+        List<BatchJob> result = new ArrayList<>();
+        template.query(sql, resultSet -> {
+            BatchJob last = result.isEmpty() ? null : result.get(result.size() - 1);
+            if (last == null || !last.getId().equals(resultSet.getString(1))) {
+                last = MAPPER.mapRow(resultSet, result.size());
+                result.add(last);
+            }
+            String crawlJobId = resultSet.getString(BatchJobMapper.COLUMN_COUNT + 1);
+            if (crawlJobId != null) {
+                last.getCrawlJobs().add(crawlJobId);
+            }
+        }, args);
+        return result;
+    }
+
+    // Cursor is the creation time and id of the last batch job on the page
+    static String formatCursor(LocalDateTime createdTime, String id) {
+        return createdTime.format(CURSOR_TIME_FORMATTER) + CURSOR_SEPARATOR + id;
+    }
+
+    static LocalDateTime getCursorTime(String cursor) {
+        return LocalDateTime.parse(cursor.substring(0, getCursorSeparator(cursor)), CURSOR_TIME_FORMATTER);
     }
+
+    static String getCursorId(String cursor) {
+        return cursor.substring(getCursorSeparator(cursor) + 1);
+    }
+
+    // Time never contains the separator, the id after it may
+    private static int getCursorSeparator(String cursor) {
+        int result = cursor.indexOf(CURSOR_SEPARATOR);
+        if (result < 0) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor);
+        }
+        return result;
+    }
+
+    private void onModified() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
+    //</editor-fold>
 }
@@ -0,0 +1,87 @@
+package org.verapdf.crawler.repository.jobs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.domain.report.CrawlJobReport;
+import org.verapdf.crawler.domain.report.PDFValidationStatistics;
+import org.verapdf.crawler.repository.mappers.BatchStatusMapper;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read model of batch job progress: the latest report of every crawl job of a batch, written by the reconciler
+ * and read by the status endpoints without calls to Heritrix.
+ */
+public class BatchStatusDao {
+    private static final String BATCH_STATUS_TABLE_NAME = "batch_status";
+    public static final String FIELD_BATCH_JOB_ID = "batch_job_id";
+    public static final String FIELD_CRAWL_JOB_ID = "crawl_job_id";
+    public static final String FIELD_POSITION = "position";
+    public static final String FIELD_CRAWL_URL = "crawl_url";
+    public static final String FIELD_STATUS = "status";
+    public static final String FIELD_QUEUE_POSITION = "queue_position";
+    public static final String FIELD_CRAWLED_URLS = "crawled_urls";
+    public static final String FIELD_VALID_PDFS = "valid_pdfs";
+    public static final String FIELD_INVALID_PDFS = "invalid_pdfs";
+    public static final String FIELD_ODF_DOCUMENTS = "odf_documents";
+    public static final String FIELD_OFFICE_DOCUMENTS = "office_documents";
+    public static final String FIELD_OOXML_DOCUMENTS = "ooxml_documents";
+    public static final String FIELD_PDF_PROPERTIES = "pdf_properties";
+    public static final String FIELD_START_TIME = "start_time";
+    public static final String FIELD_FINISH_TIME = "finish_time";
+    public static final String FIELD_PAUSED_REASON = "paused_reason";
+    private static final String FIELD_UPDATED_TIME = "updated_time";
+
+    //<editor-fold desc="Statements">
+    private static final String SQL_UPSERT = String.format("insert into %s (%s, %s, %s) values (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,now()) " +
+                    "on duplicate key update %s",
+            BATCH_STATUS_TABLE_NAME, FIELD_BATCH_JOB_ID, BatchStatusMapper.COLUMNS, FIELD_UPDATED_TIME,
+            String.join(", ", updateValue(FIELD_POSITION), updateValue(FIELD_CRAWL_URL), updateValue(FIELD_STATUS),
+                    updateValue(FIELD_QUEUE_POSITION), updateValue(FIELD_CRAWLED_URLS), updateValue(FIELD_VALID_PDFS),
+                    updateValue(FIELD_INVALID_PDFS), updateValue(FIELD_ODF_DOCUMENTS), updateValue(FIELD_OFFICE_DOCUMENTS),
+                    updateValue(FIELD_OOXML_DOCUMENTS), updateValue(FIELD_PDF_PROPERTIES), updateValue(FIELD_START_TIME),
+                    updateValue(FIELD_FINISH_TIME), updateValue(FIELD_PAUSED_REASON), updateValue(FIELD_UPDATED_TIME)));
+    private static final String SQL_SELECT_BY_BATCH = String.format("select %s from %s where %s=? order by %s",
+            BatchStatusMapper.COLUMNS, BATCH_STATUS_TABLE_NAME, FIELD_BATCH_JOB_ID, FIELD_POSITION);
+    //</editor-fold>
+
+    private static final BatchStatusMapper MAPPER = new BatchStatusMapper();
+    private final JdbcTemplate template;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public BatchStatusDao(DataSource dataSource) {
+        this.template = new JdbcTemplate(dataSource);
+    }
+
+    // Position keeps crawl jobs in the order of the batch job
+    public void saveReport(String batchJobId, int position, CrawlJobReport report, CurrentJob crawlJob) throws JsonProcessingException {
+        PDFValidationStatistics pdfStatistics = report.getPdfStatistics();
+        template.update(SQL_UPSERT, batchJobId, report.getId(), position, report.getUrl(), report.getStatus(),
+                report.getQueuePosition(), report.getNumberOfCrawledUrls(),
+                pdfStatistics.getNumberOfValidPdfDocuments(), pdfStatistics.getNumberOfInvalidPdfDocuments(),
+                report.getNumberOfODFDocuments(), report.getNumberOfOfficeDocuments(), report.getNumberOfOoxmlDocuments(),
+                mapper.writeValueAsString(pdfStatistics.getStatistics()),
+                toTimestamp(crawlJob.getStartTime()), toTimestamp(crawlJob.getFinishTime()), report.getPausedReason());
+    }
+
+    public List<CrawlJobReport> getReports(String batchJobId) {
+        return template.query(SQL_SELECT_BY_BATCH, MAPPER, batchJobId);
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private static String updateValue(String field) {
+        return String.format("%1$s=values(%1$s)", field);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+
+    //</editor-fold>
+}
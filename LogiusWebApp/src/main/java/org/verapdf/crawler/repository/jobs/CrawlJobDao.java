@@ -2,15 +2,16 @@ package org.verapdf.crawler.repository.jobs;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.verapdf.crawler.app.configuration.CacheSettings;
 import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.repository.DaoUtils;
+import org.verapdf.crawler.repository.ReadThroughCache;
 import org.verapdf.crawler.repository.mappers.CrawlJobMapper;
 
 import javax.sql.DataSource;
-import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Date;
 import java.util.List;
 
 public class CrawlJobDao {
@@ -24,11 +25,56 @@ public class CrawlJobDao {
     public static final String FIELD_FINISH_TIME = "finish_time";
     public static final String FIELD_IS_FINISHED = "is_finished";
 
+    //<editor-fold desc="Statements">
+    private static final String SQL_INSERT = String.format("insert into %s (%s, %s, %s, %s) values (?,?,?,?)",
+            CRAWL_JOB_TABLE_NAME, FIELD_ID, FIELD_CRAWL_URL, FIELD_JOB_URL, FIELD_STATUS);
+    private static final String SQL_DELETE = String.format("delete from %s where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_ID);
+    private static final String SQL_SET_FINISH_TIME = String.format("update %s set %s=?, %s=? where %s=?",
+            CRAWL_JOB_TABLE_NAME, FIELD_FINISH_TIME, FIELD_IS_FINISHED, FIELD_ID);
+    private static final String SQL_SELECT_BY_ID = String.format("select %s from %s where %s=?",
+            CrawlJobMapper.COLUMNS, CRAWL_JOB_TABLE_NAME, FIELD_ID);
+    private static final String SQL_SELECT_BY_CRAWL_URL = String.format("select %s from %s where %s=?",
+            CrawlJobMapper.COLUMNS, CRAWL_JOB_TABLE_NAME, FIELD_CRAWL_URL);
+    private static final String SQL_COUNT_BY_CRAWL_URL = String.format("select count(*) from %s where %s=?",
+            CRAWL_JOB_TABLE_NAME, FIELD_CRAWL_URL);
+    private static final String SQL_SET_FINISHED = String.format("update %s set %s=? where %s=?",
+            CRAWL_JOB_TABLE_NAME, FIELD_IS_FINISHED, FIELD_ID);
+    private static final String SQL_SET_STATUS = String.format("update %s set %s=? where %s=?",
+            CRAWL_JOB_TABLE_NAME, FIELD_STATUS, FIELD_ID);
+    private static final String SQL_SET_LAUNCHED = String.format("update %s set %s=?, %s=? where %s=?",
+            CRAWL_JOB_TABLE_NAME, FIELD_STATUS, FIELD_START_TIME, FIELD_ID);
+    private static final String SQL_SET_JOB_URL = String.format("update %s set %s=? where %s=?",
+            CRAWL_JOB_TABLE_NAME, FIELD_JOB_URL, FIELD_ID);
+    private static final String SQL_SET_QUEUED = String.format("update %s set %s=?, %s='', %s=null, %s=false where %s=?",
+            CRAWL_JOB_TABLE_NAME, FIELD_STATUS, FIELD_JOB_URL, FIELD_FINISH_TIME, FIELD_IS_FINISHED, FIELD_ID);
+    // Launched jobs which were neither reported finished nor torn down, job URL is set only on teardown
+    private static final String SQL_SELECT_RUNNING = String.format(
+            "select %s from %s where %s='' and %s not in (?,?,?) and %s not like 'finished%%' and %s not like 'aborted%%'",
+            CrawlJobMapper.COLUMNS, CRAWL_JOB_TABLE_NAME, FIELD_JOB_URL, FIELD_STATUS, FIELD_STATUS, FIELD_STATUS);
+    //</editor-fold>
+
+    private static final CrawlJobMapper MAPPER = new CrawlJobMapper();
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
     private final JdbcTemplate template;
+    private final ReadThroughCache<CurrentJob> jobs;
+    private final ReadThroughCache<String> jobIdsByCrawlUrl;
 
     public CrawlJobDao(DataSource dataSource) {
+        this(dataSource, new CacheSettings(0, 0));
+    }
+
+    public CrawlJobDao(DataSource dataSource, CacheSettings cacheSettings) {
         this.template = new JdbcTemplate(dataSource);
+        this.jobs = new ReadThroughCache<>(cacheSettings, CurrentJob::new);
+        this.jobIdsByCrawlUrl = new ReadThroughCache<>(cacheSettings, id -> id);
+    }
+
+    public ReadThroughCache<CurrentJob> getJobCache() {
+        return jobs;
+    }
+
+    public ReadThroughCache<String> getCrawlUrlCache() {
+        return jobIdsByCrawlUrl;
     }
 
     /*public List<CurrentJob> getAllJobs() {
@@ -36,56 +82,91 @@ public class CrawlJobDao {
     }*/
 
     public void addJob(CurrentJob job) {
+        addJob(job, CurrentJob.STATUS_ACTIVE);
+    }
+
+    public void addJob(CurrentJob job, String status) {
         logger.info("Job inserted into database: " + job.getId());
-        template.update(String.format("insert into %s (%s, %s, %s, %s) values (?,?,?,'active')"
-                , CRAWL_JOB_TABLE_NAME, FIELD_ID, FIELD_CRAWL_URL, FIELD_JOB_URL, FIELD_STATUS)
-                , job.getId(), job.getCrawlURL(), job.getJobURL());
+        template.update(SQL_INSERT, job.getId(), job.getCrawlURL(), job.getJobURL(), status);
+        jobs.invalidate(job.getId());
+        jobIdsByCrawlUrl.invalidate(job.getCrawlURL());
     }
 
     public void removeJob(CurrentJob job) {
         logger.info("Job removed from database: " + job.getId());
-        template.update(String.format("delete from %s where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_ID), job.getId());
+        template.update(SQL_DELETE, job.getId());
+        jobs.invalidate(job.getId());
+        jobIdsByCrawlUrl.invalidate(job.getCrawlURL());
     }
 
     public String writeFinishTime(String jobId) {
         logger.info("Job marked as finished in database: " + jobId);
-        SimpleDateFormat sdfDate = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        Date now = new Date();
-        template.update(String.format("update %s set %s=?, %s=? where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_FINISH_TIME, FIELD_IS_FINISHED, FIELD_ID),
-                sdfDate.format(now), true, jobId);
-        return sdfDate.format(now);
+        String now = LocalDateTime.now().format(DaoUtils.SQL_TIME_FORMATTER);
+        template.update(SQL_SET_FINISH_TIME, now, true, jobId);
+        jobs.invalidate(jobId);
+        return now;
     }
 
     public CurrentJob getCrawlJob(String jobId) {
-        List<CurrentJob> resultList = template.query(String.format("select * from %s where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_ID), new CrawlJobMapper(), jobId);
-        if(resultList.isEmpty()) {
-            return null;
-        }
-        return resultList.get(0);
+        return jobs.get(jobId, () -> {
+            List<CurrentJob> resultList = template.query(SQL_SELECT_BY_ID, MAPPER, jobId);
+            if(resultList.isEmpty()) {
+                return null;
+            }
+            return resultList.get(0);
+        });
     }
 
     public CurrentJob getCrawlJobByCrawlUrl(String url) {
-        return template.query(String.format("select * from %s where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_CRAWL_URL), new CrawlJobMapper(), url).get(0);
+        String jobId = jobIdsByCrawlUrl.get(url, () -> template.query(SQL_SELECT_BY_CRAWL_URL, MAPPER, url).get(0).getId());
+        return getCrawlJob(jobId);
     }
 
+    // Crawl URL of a job never changes, so it is taken from the cached job
     public String getCrawlUrl(String jobId) {
-        return template.queryForObject(String.format("select %s from %s where %s=?", FIELD_CRAWL_URL, CRAWL_JOB_TABLE_NAME, FIELD_ID), new Object[] {jobId}, String.class);
+        CurrentJob job = getCrawlJob(jobId);
+        if (job == null) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        return job.getCrawlURL();
+    }
+
+    // Jobs which still occupy Heritrix, finish time is no indication of it as it is written for all jobs on startup
+    public List<CurrentJob> getRunningJobs() {
+        return template.query(SQL_SELECT_RUNNING, MAPPER,
+                CurrentJob.STATUS_QUEUED, CurrentJob.STATUS_FAILED, CurrentJob.STATUS_CANCELLED);
     }
 
     public boolean doesJobExist(String url) {
-        Integer count = template.queryForObject(String.format("select count(*) from %s where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_CRAWL_URL), Integer.class, url);
+        Integer count = template.queryForObject(SQL_COUNT_BY_CRAWL_URL, Integer.class, url);
         return count != null && count != 0;
     }
 
     public void setJobFinished(String jobId, boolean isFinished) {
-        template.update(String.format("update %s set %s=? where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_IS_FINISHED, FIELD_ID), isFinished, jobId);
+        template.update(SQL_SET_FINISHED, isFinished, jobId);
+        jobs.invalidate(jobId);
     }
 
     public void setStatus(String jobId, String status) {
-        template.update(String.format("update %s set %s=? where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_STATUS, FIELD_ID), status, jobId);
+        template.update(SQL_SET_STATUS, status, jobId);
+        jobs.invalidate(jobId);
+    }
+
+    public void setJobLaunched(String jobId) {
+        logger.info("Job marked as launched in database: " + jobId);
+        template.update(SQL_SET_LAUNCHED, CurrentJob.STATUS_ACTIVE, LocalDateTime.now().format(DaoUtils.SQL_TIME_FORMATTER), jobId);
+        jobs.invalidate(jobId);
+    }
+
+    // Job is crawled again from the start, e.g. on restart
+    public void setJobQueued(String jobId) {
+        logger.info("Job marked as queued in database: " + jobId);
+        template.update(SQL_SET_QUEUED, CurrentJob.STATUS_QUEUED, jobId);
+        jobs.invalidate(jobId);
     }
 
     public void setJobUrl(String jobId, String jobUrl) {
-        template.update(String.format("update %s set %s=? where %s=?", CRAWL_JOB_TABLE_NAME, FIELD_JOB_URL, FIELD_ID), jobUrl, jobId);
+        template.update(SQL_SET_JOB_URL, jobUrl, jobId);
+        jobs.invalidate(jobId);
     }
 }
@@ -0,0 +1,54 @@
+package org.verapdf.crawler.repository.jobs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.verapdf.crawler.domain.crawling.QueuedCrawlJob;
+import org.verapdf.crawler.repository.mappers.QueuedCrawlJobMapper;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CrawlJobQueueDao {
+    private static final String CRAWL_JOB_QUEUE_TABLE_NAME = "crawl_job_queue";
+    private static final String FIELD_ID = "id";
+    public static final String FIELD_CRAWL_JOB_ID = "crawl_job_id";
+    public static final String FIELD_BATCH_JOB_ID = "batch_job_id";
+    public static final String FIELD_CRAWL_URLS = "crawl_urls";
+    public static final String FIELD_CRAWL_PROFILE = "crawl_profile";
+
+    //<editor-fold desc="Statements">
+    private static final String SQL_INSERT = String.format("insert into %s (%s, %s, %s, %s) values (?, ?, ?, ?)",
+            CRAWL_JOB_QUEUE_TABLE_NAME, FIELD_CRAWL_JOB_ID, FIELD_BATCH_JOB_ID, FIELD_CRAWL_URLS, FIELD_CRAWL_PROFILE);
+    private static final String SQL_SELECT_ALL = String.format("select %s from %s order by %s",
+            QueuedCrawlJobMapper.COLUMNS, CRAWL_JOB_QUEUE_TABLE_NAME, FIELD_ID);
+    private static final String SQL_DELETE = String.format("delete from %s where %s=?", CRAWL_JOB_QUEUE_TABLE_NAME, FIELD_CRAWL_JOB_ID);
+    //</editor-fold>
+
+    private static final QueuedCrawlJobMapper MAPPER = new QueuedCrawlJobMapper();
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private final JdbcTemplate template;
+
+    public CrawlJobQueueDao(DataSource dataSource) {
+        this.template = new JdbcTemplate(dataSource);
+    }
+
+    public void addJobs(List<QueuedCrawlJob> jobs) {
+        List<Object[]> rows = new ArrayList<>();
+        for (QueuedCrawlJob job : jobs) {
+            rows.add(new Object[] {job.getCrawlJobId(), job.getBatchJobId(), String.join(" ", job.getCrawlUrls()),
+                    job.getCrawlProfile()});
+        }
+        template.batchUpdate(SQL_INSERT, rows);
+        logger.info(jobs.size() + " crawl jobs added to launch queue");
+    }
+
+    public List<QueuedCrawlJob> getQueuedJobs() {
+        return template.query(SQL_SELECT_ALL, MAPPER);
+    }
+
+    public void removeJob(String crawlJobId) {
+        template.update(SQL_DELETE, crawlJobId);
+    }
+}
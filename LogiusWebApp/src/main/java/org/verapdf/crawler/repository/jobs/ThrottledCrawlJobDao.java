@@ -0,0 +1,46 @@
+package org.verapdf.crawler.repository.jobs;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Crawl jobs paused by Logius because validation falls behind, kept so that they are resumed after a restart as well
+public class ThrottledCrawlJobDao {
+    private static final String THROTTLED_CRAWL_JOBS_TABLE_NAME = "throttled_crawl_jobs";
+    private static final String FIELD_CRAWL_JOB_ID = "crawl_job_id";
+    private static final String FIELD_REASON = "reason";
+    private static final String FIELD_PAUSED_TIME = "paused_time";
+
+    //<editor-fold desc="Statements">
+    private static final String SQL_INSERT = String.format("insert into %s (%s, %s) values (?, ?) on duplicate key update %3$s=values(%3$s)",
+            THROTTLED_CRAWL_JOBS_TABLE_NAME, FIELD_CRAWL_JOB_ID, FIELD_REASON);
+    private static final String SQL_SELECT_ALL = String.format("select %s, %s from %s order by %s",
+            FIELD_CRAWL_JOB_ID, FIELD_REASON, THROTTLED_CRAWL_JOBS_TABLE_NAME, FIELD_PAUSED_TIME);
+    private static final String SQL_DELETE = String.format("delete from %s where %s=?",
+            THROTTLED_CRAWL_JOBS_TABLE_NAME, FIELD_CRAWL_JOB_ID);
+    //</editor-fold>
+
+    private final JdbcTemplate template;
+
+    public ThrottledCrawlJobDao(DataSource dataSource) {
+        this.template = new JdbcTemplate(dataSource);
+    }
+
+    public void addJob(String crawlJobId, String reason) {
+        template.update(SQL_INSERT, crawlJobId, reason);
+    }
+
+    // Reasons by crawl job id, in the order jobs were paused
+    public Map<String, String> getJobs() {
+        Map<String, String> result = new LinkedHashMap<>();
+        template.query(SQL_SELECT_ALL, (RowCallbackHandler) resultSet -> result.put(resultSet.getString(1), resultSet.getString(2)));
+        return result;
+    }
+
+    public void removeJob(String crawlJobId) {
+        template.update(SQL_DELETE, crawlJobId);
+    }
+}
@@ -6,39 +6,61 @@ import org.verapdf.crawler.repository.DaoUtils;
 import org.verapdf.crawler.repository.mappers.ValidationJobMapper;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ValidationJobDao {
     private final JdbcTemplate template;
     private static final String VALIDATION_JOB_TABLE_NAME = "validation_jobs";
+    public static final String FIELD_ID = "id";
     public static final String FIELD_FILEPATH = "filepath";
     public static final String FIELD_JOB_DIRECTORY = "job_directory";
     public static final String FIELD_FILE_URL = "file_url";
     public static final String FIELD_LAST_MODIFIED= "time_last_modified";
+    public static final String FIELD_CRAWL_JOB_ID = "crawl_job_id";
+    public static final String FIELD_FILE_SIZE = "file_size";
+    public static final String FIELD_TIME_ADDED = "time_added";
+
+    //<editor-fold desc="Statements">
+    private static final String SQL_SELECT_PAGE = String.format("select %s from %s where %s>? order by %s limit ?",
+            ValidationJobMapper.COLUMNS, VALIDATION_JOB_TABLE_NAME, FIELD_ID, FIELD_ID);
+    private static final String SQL_DELETE = String.format("delete from %s where %s=?", VALIDATION_JOB_TABLE_NAME, FIELD_ID);
+    private static final String SQL_INSERT = String.format("insert into %s (%s, %s, %s, %s, %s, %s) values (?,?,?,?,?,?)",
+            VALIDATION_JOB_TABLE_NAME, FIELD_FILEPATH, FIELD_JOB_DIRECTORY, FIELD_FILE_URL, FIELD_LAST_MODIFIED,
+            FIELD_CRAWL_JOB_ID, FIELD_FILE_SIZE);
+    private static final String SQL_COUNT = String.format("select count(*) from %s", VALIDATION_JOB_TABLE_NAME);
+    //</editor-fold>
+
+    private static final ValidationJobMapper MAPPER = new ValidationJobMapper();
 
     public ValidationJobDao(DataSource dataSource) {
         this.template = new JdbcTemplate(dataSource);
     }
 
-    public List<ValidationJobData> removeAll() {
-        List<ValidationJobData> result = template.query("select * from " + VALIDATION_JOB_TABLE_NAME, new ValidationJobMapper());
-        for(ValidationJobData data: result) {
-            deleteJob(data);
-        }
-        return result;
+    // Page of at most limit jobs with ids above the given one, in order of ids
+    public List<ValidationJobData> getJobs(long afterId, int limit) {
+        return template.query(SQL_SELECT_PAGE, MAPPER, afterId, limit);
     }
 
-    private void deleteJob(ValidationJobData job) {
-        template.update(String.format("delete from %s where %s=?", VALIDATION_JOB_TABLE_NAME, FIELD_FILEPATH), job.getFilepath());
+    public void removeJob(long id) {
+        template.update(SQL_DELETE, id);
     }
 
     public void addJob(ValidationJobData job) {
-        template.update(String.format("insert into %s (%s, %s, %s, %s) values (?,?,?,?)",
-                VALIDATION_JOB_TABLE_NAME, FIELD_FILEPATH, FIELD_JOB_DIRECTORY, FIELD_FILE_URL,FIELD_LAST_MODIFIED),
-                job.getFilepath(), job.getJobDirectory(), job.getUri(), DaoUtils.getSqlTimeFromLastmodified(job.getTime()));
+        template.update(SQL_INSERT, job.getFilepath(), job.getJobDirectory(), job.getUri(), DaoUtils.getSqlTimeFromLastmodified(job.getTime()),
+                job.getCrawlJobId(), job.getFileSize());
+    }
+
+    public void addJobs(List<ValidationJobData> jobs) {
+        List<Object[]> rows = new ArrayList<>(jobs.size());
+        for (ValidationJobData job : jobs) {
+            rows.add(new Object[] {job.getFilepath(), job.getJobDirectory(), job.getUri(),
+                    DaoUtils.getSqlTimeFromLastmodified(job.getTime()), job.getCrawlJobId(), job.getFileSize()});
+        }
+        template.batchUpdate(SQL_INSERT, rows);
     }
 
     public Integer getQueueSize() {
-        return template.queryForObject(String.format("select count(*) from %s", VALIDATION_JOB_TABLE_NAME), Integer.class);
+        return template.queryForObject(SQL_COUNT, Integer.class);
     }
 }
@@ -6,18 +6,27 @@ import org.verapdf.crawler.repository.jobs.BatchJobDao;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.sql.Timestamp;
 
 public class BatchJobMapper implements RowMapper<BatchJob> {
+    // Columns are read by index, so queries mapped by this mapper select exactly these columns in this order
+    public static final String COLUMNS = String.join(", ", BatchJobDao.FIELD_ID, BatchJobDao.FIELD_REPORT_EMAIL,
+            BatchJobDao.FIELD_CRAWL_SINCE, BatchJobDao.FIELD_IS_FINISHED, BatchJobDao.FIELD_PRIORITY,
+            BatchJobDao.FIELD_CREATED_TIME);
+    public static final int COLUMN_COUNT = 6;
 
     @Override
     public BatchJob mapRow(ResultSet resultSet, int i) throws SQLException {
-        BatchJob result = new BatchJob(resultSet.getString(BatchJobDao.FIELD_ID),
-                                resultSet.getString(BatchJobDao.FIELD_REPORT_EMAIL),
-                LocalDateTime.parse(resultSet.getString(BatchJobDao.FIELD_CRAWL_SINCE),
-                        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        result.setFinished(resultSet.getBoolean(BatchJobDao.FIELD_IS_FINISHED));
+        Timestamp crawlSince = resultSet.getTimestamp(3);
+        BatchJob result = new BatchJob(resultSet.getString(1),
+                                resultSet.getString(2),
+                crawlSince == null ? null : crawlSince.toLocalDateTime());
+        result.setFinished(resultSet.getBoolean(4));
+        result.setPriority(resultSet.getInt(5));
+        Timestamp createdTime = resultSet.getTimestamp(6);
+        if (createdTime != null) {
+            result.setCreatedTime(createdTime.toLocalDateTime());
+        }
         return result;
     }
 }
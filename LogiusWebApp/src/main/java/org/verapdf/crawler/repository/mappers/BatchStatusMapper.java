@@ -0,0 +1,59 @@
+package org.verapdf.crawler.repository.mappers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.verapdf.crawler.domain.report.CrawlJobReport;
+import org.verapdf.crawler.domain.report.PDFValidationStatistics;
+import org.verapdf.crawler.domain.report.PdfPropertyStatistics;
+import org.verapdf.crawler.repository.jobs.BatchStatusDao;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+public class BatchStatusMapper implements RowMapper<CrawlJobReport> {
+    // Columns are read by index, so queries mapped by this mapper select exactly these columns in this order
+    public static final String COLUMNS = String.join(", ", BatchStatusDao.FIELD_CRAWL_JOB_ID,
+            BatchStatusDao.FIELD_POSITION, BatchStatusDao.FIELD_CRAWL_URL, BatchStatusDao.FIELD_STATUS,
+            BatchStatusDao.FIELD_QUEUE_POSITION, BatchStatusDao.FIELD_CRAWLED_URLS, BatchStatusDao.FIELD_VALID_PDFS,
+            BatchStatusDao.FIELD_INVALID_PDFS, BatchStatusDao.FIELD_ODF_DOCUMENTS, BatchStatusDao.FIELD_OFFICE_DOCUMENTS,
+            BatchStatusDao.FIELD_OOXML_DOCUMENTS, BatchStatusDao.FIELD_PDF_PROPERTIES, BatchStatusDao.FIELD_START_TIME,
+            BatchStatusDao.FIELD_FINISH_TIME, BatchStatusDao.FIELD_PAUSED_REASON);
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm:ss");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<PdfPropertyStatistics>> PROPERTIES_TYPE = new TypeReference<List<PdfPropertyStatistics>>() {};
+
+    @Override
+    public CrawlJobReport mapRow(ResultSet resultSet, int i) throws SQLException {
+        CrawlJobReport result = new CrawlJobReport(resultSet.getString(1),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                resultSet.getInt(6));
+        result.setQueuePosition(resultSet.getInt(5));
+        List<PdfPropertyStatistics> properties;
+        try {
+            properties = MAPPER.readValue(resultSet.getString(12), PROPERTIES_TYPE);
+        } catch (IOException e) {
+            throw new SQLException("Invalid PDF properties of crawl job " + resultSet.getString(1), e);
+        }
+        result.setPdfStatistics(new PDFValidationStatistics(properties, resultSet.getInt(8), resultSet.getInt(7)));
+        result.setNumberOfODFDocuments(resultSet.getInt(9));
+        result.setNumberOfOfficeDocuments(resultSet.getInt(10));
+        result.setNumberOfOoxmlDocuments(resultSet.getInt(11));
+        Timestamp startTime = resultSet.getTimestamp(13);
+        if (startTime != null) {
+            result.setStartTime(startTime.toLocalDateTime().format(FORMATTER) + " GMT");
+        }
+        Timestamp finishTime = resultSet.getTimestamp(14);
+        if (finishTime != null) {
+            result.setFinishTime(finishTime.toLocalDateTime().format(FORMATTER) + " GMT");
+        }
+        result.setPausedReason(resultSet.getString(15));
+        return result;
+    }
+}
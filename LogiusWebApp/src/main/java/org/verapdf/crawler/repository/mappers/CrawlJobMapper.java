@@ -6,25 +6,27 @@ import org.verapdf.crawler.repository.jobs.CrawlJobDao;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.sql.Timestamp;
 
 public class CrawlJobMapper implements RowMapper<CurrentJob> {
+    // Columns are read by index, so queries mapped by this mapper select exactly these columns in this order
+    public static final String COLUMNS = String.join(", ", CrawlJobDao.FIELD_ID, CrawlJobDao.FIELD_JOB_URL,
+            CrawlJobDao.FIELD_CRAWL_URL, CrawlJobDao.FIELD_START_TIME, CrawlJobDao.FIELD_IS_FINISHED,
+            CrawlJobDao.FIELD_STATUS, CrawlJobDao.FIELD_FINISH_TIME);
+
     @Override
     public CurrentJob mapRow(ResultSet resultSet, int i) throws SQLException {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        CurrentJob result = new CurrentJob(resultSet.getString(CrawlJobDao.FIELD_ID),
-                                        resultSet.getString(CrawlJobDao.FIELD_JOB_URL),
-                                        resultSet.getString(CrawlJobDao.FIELD_CRAWL_URL),
-                                        LocalDateTime.parse(resultSet.getString(CrawlJobDao.FIELD_START_TIME), formatter));
-        if(resultSet.getBoolean(CrawlJobDao.FIELD_IS_FINISHED)) {
+        CurrentJob result = new CurrentJob(resultSet.getString(1),
+                                        resultSet.getString(2),
+                                        resultSet.getString(3),
+                                        resultSet.getTimestamp(4).toLocalDateTime());
+        if(resultSet.getBoolean(5)) {
             result.setFinished(true);
         }
-        result.setStatus(resultSet.getString(CrawlJobDao.FIELD_STATUS));
-        if(resultSet.getString(CrawlJobDao.FIELD_FINISH_TIME) != null && !resultSet.getString(CrawlJobDao.FIELD_FINISH_TIME).isEmpty()) {
-            result.setFinishTime(LocalDateTime.parse(resultSet.getString(CrawlJobDao.FIELD_FINISH_TIME), formatter));
+        result.setStatus(resultSet.getString(6));
+        Timestamp finishTime = resultSet.getTimestamp(7);
+        if(finishTime != null) {
+            result.setFinishTime(finishTime.toLocalDateTime());
         }
         return result;
     }
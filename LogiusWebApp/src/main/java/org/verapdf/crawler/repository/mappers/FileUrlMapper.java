@@ -5,9 +5,10 @@ import org.springframework.jdbc.core.RowMapper;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+// Maps the first column, queries select document_url only
 public class FileUrlMapper implements RowMapper<String> {
     @Override
     public String mapRow(ResultSet resultSet, int i) throws SQLException {
-        return resultSet.getString("document_url");
+        return resultSet.getString(1);
     }
 }
@@ -0,0 +1,25 @@
+package org.verapdf.crawler.repository.mappers;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.verapdf.crawler.domain.email.OutboxEmail;
+import org.verapdf.crawler.repository.email.EmailOutboxDao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class OutboxEmailMapper implements RowMapper<OutboxEmail> {
+    // Columns are read by index, so queries mapped by this mapper select exactly these columns in this order
+    public static final String COLUMNS = String.join(", ", EmailOutboxDao.FIELD_ID, EmailOutboxDao.FIELD_RECIPIENT,
+            EmailOutboxDao.FIELD_SUBJECT, EmailOutboxDao.FIELD_TEXT, EmailOutboxDao.FIELD_CREATED_TIME,
+            EmailOutboxDao.FIELD_ATTEMPTS);
+
+    @Override
+    public OutboxEmail mapRow(ResultSet resultSet, int i) throws SQLException {
+        return new OutboxEmail(resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                resultSet.getTimestamp(5).toLocalDateTime(),
+                resultSet.getInt(6));
+    }
+}
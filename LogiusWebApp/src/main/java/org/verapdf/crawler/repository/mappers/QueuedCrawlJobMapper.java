@@ -0,0 +1,25 @@
+package org.verapdf.crawler.repository.mappers;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.verapdf.crawler.domain.crawling.QueuedCrawlJob;
+import org.verapdf.crawler.repository.jobs.CrawlJobQueueDao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+public class QueuedCrawlJobMapper implements RowMapper<QueuedCrawlJob> {
+    // Columns are read by index, so queries mapped by this mapper select exactly these columns in this order
+    public static final String COLUMNS = String.join(", ", CrawlJobQueueDao.FIELD_CRAWL_JOB_ID,
+            CrawlJobQueueDao.FIELD_BATCH_JOB_ID, CrawlJobQueueDao.FIELD_CRAWL_URLS, CrawlJobQueueDao.FIELD_CRAWL_PROFILE);
+    private static final Pattern URL_SEPARATOR = Pattern.compile("\\s+");
+
+    @Override
+    public QueuedCrawlJob mapRow(ResultSet resultSet, int i) throws SQLException {
+        return new QueuedCrawlJob(resultSet.getString(1),
+                resultSet.getString(2),
+                Arrays.asList(URL_SEPARATOR.split(resultSet.getString(3))),
+                resultSet.getString(4));
+    }
+}
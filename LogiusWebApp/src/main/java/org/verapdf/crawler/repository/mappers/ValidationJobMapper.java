@@ -6,15 +6,27 @@ import org.verapdf.crawler.repository.jobs.ValidationJobDao;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 
 public class ValidationJobMapper implements RowMapper<ValidationJobData> {
+    // Columns are read by index, so queries mapped by this mapper select exactly these columns in this order
+    public static final String COLUMNS = String.join(", ", ValidationJobDao.FIELD_FILEPATH,
+            ValidationJobDao.FIELD_JOB_DIRECTORY, ValidationJobDao.FIELD_FILE_URL, ValidationJobDao.FIELD_LAST_MODIFIED,
+            ValidationJobDao.FIELD_ID, ValidationJobDao.FIELD_CRAWL_JOB_ID, ValidationJobDao.FIELD_FILE_SIZE,
+            ValidationJobDao.FIELD_TIME_ADDED);
+
     @Override
     public ValidationJobData mapRow(ResultSet resultSet, int i) throws SQLException {
         ValidationJobData data = new ValidationJobData();
-        data.setFilepath(resultSet.getString(ValidationJobDao.FIELD_FILEPATH));
-        data.setJobDirectory(resultSet.getString(ValidationJobDao.FIELD_JOB_DIRECTORY));
-        data.setUri(resultSet.getString(ValidationJobDao.FIELD_FILE_URL));
-        data.setTime(resultSet.getString(ValidationJobDao.FIELD_LAST_MODIFIED));
+        data.setFilepath(resultSet.getString(1));
+        data.setJobDirectory(resultSet.getString(2));
+        data.setUri(resultSet.getString(3));
+        data.setTime(resultSet.getString(4));
+        data.setId(resultSet.getLong(5));
+        data.setCrawlJobId(resultSet.getString(6));
+        data.setFileSize(resultSet.getLong(7));
+        Timestamp timeAdded = resultSet.getTimestamp(8);
+        data.setTimeAdded(timeAdded == null ? null : timeAdded.getTime());
         return data;
     }
 }
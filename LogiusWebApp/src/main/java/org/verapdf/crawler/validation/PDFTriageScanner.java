@@ -0,0 +1,251 @@
+package org.verapdf.crawler.validation;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cheap check of a PDF file before full validation. The file is memory mapped and only scanned for
+ * the header, the end-of-file marker, the encryption key of the trailer and the pdfaid schema of XMP metadata,
+ * only trailer and cross-reference stream dictionaries are parsed. PDF/A forbids filters on the metadata stream, so the pdfaid properties
+ * of a file which claims PDF/A conformance are always readable as plain text.
+ */
+public class PDFTriageScanner {
+    private static final byte[] HEADER = bytes("%PDF-");
+    private static final byte[] EOF_MARKER = bytes("%%EOF");
+    private static final byte[] TRAILER_KEYWORD = bytes("trailer");
+    private static final byte[] OBJECT_KEYWORD = bytes("obj");
+    private static final String ENCRYPT_KEY = "Encrypt";
+    private static final String TYPE_KEY = "Type";
+    private static final String XREF_TYPE = "XRef";
+    private static final byte[] PDFAID_PART = bytes("pdfaid:part");
+    private static final byte[] PDFAID_CONFORMANCE = bytes("pdfaid:conformance");
+    // Header may be preceded by garbage, trailer may be followed by it
+    private static final int HEADER_WINDOW = 1024;
+    private static final int TRAILER_WINDOW = 64 * 1024;
+    private static final int MAX_VALUE_LENGTH = 8;
+
+    private PDFTriageScanner() {}
+
+    public static TriageResult scan(String filepath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) { // Can not be mapped at once, leave it to validator
+                return new TriageResult(TriageResult.Verdict.VALIDATE, null, null, null, null);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int length = (int) size;
+
+            int header = indexOf(buffer, HEADER, 0, Math.min(length, HEADER_WINDOW));
+            if (header < 0) {
+                return new TriageResult(TriageResult.Verdict.BROKEN, null, null, null, "File has no PDF header");
+            }
+            String version = readToken(buffer, header + HEADER.length, length);
+            int tailStart = Math.max(0, length - TRAILER_WINDOW);
+            if (indexOf(buffer, EOF_MARKER, tailStart, length) < 0) {
+                return new TriageResult(TriageResult.Verdict.BROKEN, version, null, null, "File is truncated, end-of-file marker is missing");
+            }
+            // Trailer of a linearized file is at the beginning of the file
+            if (isEncrypted(buffer, tailStart, length) || isEncrypted(buffer, 0, Math.min(length, TRAILER_WINDOW))) {
+                return new TriageResult(TriageResult.Verdict.ENCRYPTED, version, null, null, null);
+            }
+            String part = readXmpValue(buffer, PDFAID_PART, length);
+            if (part == null) {
+                return new TriageResult(TriageResult.Verdict.NOT_PDFA, version, null, null, null);
+            }
+            String conformance = readXmpValue(buffer, PDFAID_CONFORMANCE, length);
+            return new TriageResult(TriageResult.Verdict.VALIDATE, version, part, conformance, null);
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // Encryption key counts only in the trailer or in a cross-reference stream, the same text may occur in any stream
+    private static boolean isEncrypted(MappedByteBuffer buffer, int from, int to) {
+        int position = from;
+        while ((position = indexOf(buffer, TRAILER_KEYWORD, position, to)) >= 0) {
+            position += TRAILER_KEYWORD.length;
+            if (hasEncryptKey(buffer, skipWhitespace(buffer, position, to), to, false)) {
+                return true;
+            }
+        }
+        position = from;
+        while ((position = indexOf(buffer, OBJECT_KEYWORD, position, to)) >= 0) {
+            // Skips endobj and the keyword inside of other words
+            boolean isKeyword = position > 0 && isWhitespace(buffer.get(position - 1));
+            position += OBJECT_KEYWORD.length;
+            if (isKeyword && hasEncryptKey(buffer, skipWhitespace(buffer, position, to), to, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether the dictionary at the position has the top level encryption key, nested objects and strings are skipped
+    private static boolean hasEncryptKey(MappedByteBuffer buffer, int position, int to, boolean isXRefRequired) {
+        if (position + 1 >= to || buffer.get(position) != '<' || buffer.get(position + 1) != '<') {
+            return false;
+        }
+        boolean hasEncryptKey = false;
+        boolean isXRef = false;
+        String previousName = null;
+        int depth = 0;
+        int i = position;
+        while (i < to) {
+            byte b = buffer.get(i);
+            if (b == '<' && i + 1 < to && buffer.get(i + 1) == '<') {
+                depth++;
+                i += 2;
+            } else if (b == '>' && i + 1 < to && buffer.get(i + 1) == '>') {
+                depth--;
+                i += 2;
+                if (depth == 0) {
+                    return hasEncryptKey && (isXRef || !isXRefRequired);
+                }
+            } else if (b == '[') {
+                depth++;
+                i++;
+            } else if (b == ']') {
+                depth--;
+                i++;
+            } else if (b == '(') {
+                i = skipString(buffer, i, to);
+            } else if (b == '<') {
+                i = skipTo(buffer, (byte) '>', i, to) + 1;
+            } else if (b == '%') {
+                i = skipTo(buffer, (byte) '\n', i, to);
+            } else if (b == '/') {
+                int end = i + 1;
+                while (end < to && !isDelimiter(buffer.get(end))) {
+                    end++;
+                }
+                if (depth == 1) {
+                    String name = readString(buffer, i + 1, end);
+                    hasEncryptKey |= ENCRYPT_KEY.equals(name);
+                    isXRef |= TYPE_KEY.equals(previousName) && XREF_TYPE.equals(name);
+                    previousName = name;
+                }
+                i = end;
+            } else {
+                if (depth == 1 && !isWhitespace(b)) {
+                    previousName = null;
+                }
+                i++;
+            }
+        }
+        // Dictionary does not end inside of the window
+        return false;
+    }
+
+    // Literal strings may contain balanced parentheses and escaped ones
+    private static int skipString(MappedByteBuffer buffer, int from, int to) {
+        int depth = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '\\') {
+                i++;
+            } else if (b == '(') {
+                depth++;
+            } else if (b == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    private static int skipTo(MappedByteBuffer buffer, byte target, int from, int to) {
+        int i = from;
+        while (i < to && buffer.get(i) != target) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(MappedByteBuffer buffer, int from, int to) {
+        int i = from;
+        while (i < to && isWhitespace(buffer.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String readString(MappedByteBuffer buffer, int from, int to) {
+        StringBuilder builder = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            builder.append((char) buffer.get(i));
+        }
+        return builder.toString();
+    }
+
+    // Value is written either as attribute pdfaid:part="1" or as element <pdfaid:part>1</pdfaid:part>
+    private static String readXmpValue(MappedByteBuffer buffer, byte[] name, int length) {
+        int from = 0;
+        int position;
+        while ((position = indexOf(buffer, name, from, length)) >= 0) {
+            int i = position + name.length;
+            while (i < length && isWhitespace(buffer.get(i))) {
+                i++;
+            }
+            if (i < length && (buffer.get(i) == '=' || buffer.get(i) == '>')) {
+                i++;
+                while (i < length && (isWhitespace(buffer.get(i)) || buffer.get(i) == '"' || buffer.get(i) == '\'')) {
+                    i++;
+                }
+                String value = readToken(buffer, i, length);
+                if (!value.isEmpty()) {
+                    return value;
+                }
+            }
+            from = position + name.length;
+        }
+        return null;
+    }
+
+    private static String readToken(MappedByteBuffer buffer, int from, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = from; i < length && builder.length() < MAX_VALUE_LENGTH; i++) {
+            byte b = buffer.get(i);
+            if (isWhitespace(b) || b == '"' || b == '\'' || b == '<' || b == '%') {
+                break;
+            }
+            builder.append((char) b);
+        }
+        return builder.toString();
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, byte[] pattern, int from, int to) {
+        int last = to - pattern.length;
+        byte first = pattern[0];
+        for (int i = from; i <= last; i++) {
+            if (buffer.get(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < pattern.length && buffer.get(i + j) == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return isWhitespace(b) || b == '(' || b == ')' || b == '<' || b == '>' || b == '[' || b == ']'
+                || b == '{' || b == '}' || b == '/' || b == '%';
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    //</editor-fold>
+}
@@ -1,7 +1,8 @@
 package org.verapdf.crawler.validation;
 
+import org.verapdf.crawler.domain.validation.VeraPDFValidationResult;
 import org.verapdf.crawler.repository.document.ValidatedPDFDao;
 
 public interface PDFValidator {
-    boolean validateAndWirteResult(String localFilename, String fileUrl, ValidatedPDFDao validatedPDFDao) throws Exception;
+    VeraPDFValidationResult validate(String localFilename, ValidatedPDFDao validatedPDFDao) throws Exception;
 }
@@ -0,0 +1,59 @@
+package org.verapdf.crawler.validation;
+
+public class TriageResult {
+    public enum Verdict {
+        // Claims PDF/A conformance, full validation is needed
+        VALIDATE("validate"),
+        NOT_PDFA("not_pdfa"),
+        ENCRYPTED("encrypted"),
+        BROKEN("broken");
+
+        private final String name;
+
+        Verdict(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Verdict verdict;
+    private final String pdfVersion;
+    private final String pdfaPart;
+    private final String pdfaConformance;
+    private final String message;
+
+    TriageResult(Verdict verdict, String pdfVersion, String pdfaPart, String pdfaConformance, String message) {
+        this.verdict = verdict;
+        this.pdfVersion = pdfVersion;
+        this.pdfaPart = pdfaPart;
+        this.pdfaConformance = pdfaConformance;
+        this.message = message;
+    }
+
+    public boolean needsValidation() {
+        return verdict == Verdict.VALIDATE;
+    }
+
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    public String getPdfVersion() {
+        return pdfVersion;
+    }
+
+    public String getPdfaPart() {
+        return pdfaPart;
+    }
+
+    public String getPdfaConformance() {
+        return pdfaConformance;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,57 @@
+package org.verapdf.crawler.validation;
+
+import com.codahale.metrics.Timer;
+import org.verapdf.crawler.app.configuration.ValidationLaneSettings;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+// Documents of a size range with their own queue, workers, timeout budget and latency timer
+class ValidationLane {
+    private static final double THROUGHPUT_SMOOTHING = 0.1;
+
+    private final ValidationLaneSettings settings;
+    private final ValidationQueue queue = new ValidationQueue();
+    private final Timer latency;
+    private volatile double workerThroughput;
+
+    ValidationLane(ValidationLaneSettings settings, PipelineMetrics metrics) {
+        this.settings = settings;
+        this.latency = metrics.getLaneLatency(settings.getName());
+    }
+
+    ValidationLaneSettings getSettings() {
+        return settings;
+    }
+
+    ValidationQueue getQueue() {
+        return queue;
+    }
+
+    Timer getLatency() {
+        return latency;
+    }
+
+    boolean accepts(long fileSize) {
+        return settings.getMaxFileSize() == null || fileSize <= settings.getMaxFileSize();
+    }
+
+    int getWorkerCount() {
+        return settings.getConcurrency() != null ? settings.getConcurrency() : settings.getVerapdfUrls().size();
+    }
+
+    // Validation throughput of the lane in cost units (bytes plus per-document cost) per second
+    double getThroughput() {
+        return workerThroughput * getWorkerCount();
+    }
+
+    // Exponentially weighted average over documents validated by any worker of the lane
+    synchronized void recordValidation(long cost, long elapsedNanos) {
+        latency.update(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (elapsedNanos <= 0) {
+            return;
+        }
+        double sample = cost * 1e9 / elapsedNanos;
+        workerThroughput = workerThroughput == 0 ? sample : THROUGHPUT_SMOOTHING * sample + (1 - THROUGHPUT_SMOOTHING) * workerThroughput;
+    }
+}
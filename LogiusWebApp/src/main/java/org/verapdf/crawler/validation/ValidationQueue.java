@@ -0,0 +1,143 @@
+package org.verapdf.crawler.validation;
+
+import org.verapdf.crawler.domain.validation.ValidationJobData;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * In-memory validation queue with weighted fair scheduling between crawl jobs (start-time fair queuing).
+ * Every crawl job is a flow with its own queue in which smaller files go first. The flow with the smallest
+ * virtual time is served next, and its virtual time grows by the cost of the served document divided by the
+ * flow weight, so a flow of weight 2 gets twice as much validator time as a flow of weight 1.
+ * A flow becoming active again starts at the current virtual time and gets no credit for its idle period.
+ */
+public class ValidationQueue {
+    // Fixed per-document overhead in bytes, so that flows of tiny files do not get an unlimited number of documents
+    public static final long DOCUMENT_COST = 64 * 1024;
+
+    private final Map<String, Flow> flows = new HashMap<>();
+    private double virtualTime;
+
+    public static long getCost(ValidationJobData job) {
+        return DOCUMENT_COST + Math.max(0, job.getFileSize());
+    }
+
+    // Weight of a flow is requested only when its first document arrives
+    public synchronized void add(List<ValidationJobData> jobs, Function<String, Integer> weights) {
+        for (ValidationJobData job : jobs) {
+            Flow flow = flows.get(job.getCrawlJobId());
+            if (flow == null) {
+                flow = new Flow(job.getCrawlJobId(), Math.max(1, weights.apply(job.getCrawlJobId())), virtualTime);
+                flows.put(job.getCrawlJobId(), flow);
+            }
+            flow.jobs.add(job);
+            flow.queuedBytes += Math.max(0, job.getFileSize());
+        }
+        notifyAll();
+    }
+
+    // Waits up to timeoutMs for a job, returns null if the queue is still empty
+    public synchronized ValidationJobData poll(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long remaining = timeoutMs;
+        while (flows.isEmpty() && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return poll();
+    }
+
+    public synchronized ValidationJobData poll() {
+        Flow next = null;
+        for (Flow flow : flows.values()) {
+            if (next == null || flow.virtualTime < next.virtualTime) {
+                next = flow;
+            }
+        }
+        if (next == null) {
+            return null;
+        }
+        ValidationJobData job = next.jobs.poll();
+        next.queuedBytes -= Math.max(0, job.getFileSize());
+        virtualTime = next.virtualTime;
+        next.virtualTime += (double) getCost(job) / next.weight;
+        if (next.jobs.isEmpty()) {
+            flows.remove(next.crawlJobId);
+        }
+        return job;
+    }
+
+    public synchronized boolean isEmpty() {
+        return flows.isEmpty();
+    }
+
+    public synchronized int size() {
+        int result = 0;
+        for (Flow flow : flows.values()) {
+            result += flow.jobs.size();
+        }
+        return result;
+    }
+
+    public synchronized List<FlowSnapshot> getFlows() {
+        List<FlowSnapshot> result = new ArrayList<>();
+        for (Flow flow : flows.values()) {
+            result.add(new FlowSnapshot(flow.crawlJobId, flow.weight, flow.jobs.size(), flow.queuedBytes));
+        }
+        return result;
+    }
+
+    public static class FlowSnapshot {
+        private final String crawlJobId;
+        private final int weight;
+        private final int queuedDocuments;
+        private final long queuedBytes;
+
+        FlowSnapshot(String crawlJobId, int weight, int queuedDocuments, long queuedBytes) {
+            this.crawlJobId = crawlJobId;
+            this.weight = weight;
+            this.queuedDocuments = queuedDocuments;
+            this.queuedBytes = queuedBytes;
+        }
+
+        public String getCrawlJobId() {
+            return crawlJobId;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public int getQueuedDocuments() {
+            return queuedDocuments;
+        }
+
+        public long getQueuedBytes() {
+            return queuedBytes;
+        }
+
+        public long getQueuedCost() {
+            return queuedBytes + queuedDocuments * DOCUMENT_COST;
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private static class Flow {
+        private final String crawlJobId;
+        private final int weight;
+        private final PriorityQueue<ValidationJobData> jobs = new PriorityQueue<>(
+                Comparator.comparingLong(ValidationJobData::getFileSize).thenComparingLong(ValidationJobData::getId));
+        private double virtualTime;
+        private long queuedBytes;
+
+        private Flow(String crawlJobId, int weight, double virtualTime) {
+            this.crawlJobId = crawlJobId;
+            this.weight = weight;
+            this.virtualTime = virtualTime;
+        }
+    }
+
+    //</editor-fold>
+}
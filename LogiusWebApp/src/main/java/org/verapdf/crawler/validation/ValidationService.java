@@ -1,23 +1,71 @@
 package org.verapdf.crawler.validation;
 
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.Snapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.app.configuration.ValidationLaneSettings;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.domain.crawling.BatchJob;
+import org.verapdf.crawler.domain.validation.LeasedValidationJob;
+import org.verapdf.crawler.domain.validation.ValidationError;
 import org.verapdf.crawler.domain.validation.ValidationJobData;
+import org.verapdf.crawler.domain.validation.ValidationJobResult;
+import org.verapdf.crawler.domain.validation.ValidationLaneStatistics;
+import org.verapdf.crawler.domain.validation.ValidationQueueStatistics;
+import org.verapdf.crawler.domain.validation.VeraPDFServiceStatistics;
+import org.verapdf.crawler.domain.validation.VeraPDFValidationResult;
 import org.verapdf.crawler.repository.document.InsertDocumentDao;
 import org.verapdf.crawler.repository.document.ValidatedPDFDao;
+import org.verapdf.crawler.repository.jobs.BatchJobDao;
 import org.verapdf.crawler.repository.jobs.ValidationJobDao;
 
 import javax.sql.DataSource;
 import java.io.*;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ValidationService implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
-    private final PDFValidator validator;
+    private static final String SPOOL_REFS_DIRECTORY = "refs";
+    private static final String PROPERTY_TRIAGE = "triage";
+    private static final String PROPERTY_PDF_VERSION = "header_version";
+    private static final String PROPERTY_CLAIMED_FLAVOUR = "claimed_flavour";
+    private static final long REFILL_INTERVAL_MS = 10 * 1000;
+    private static final long WORKER_POLL_TIMEOUT_MS = 60 * 1000;
+    private static final long LEASE_POLL_INTERVAL_MS = 500;
+    private static final long LEASE_GRACE_SECONDS = 60;
+    // Jobs held in memory by lane queues, workers and leases, the rest waits in the database
+    private static final int MAX_HELD_JOBS = 10000;
+    private static final int REFILL_PAGE_SIZE = 1000;
+    private static final int TRIAGE_THREADS = 2;
     private final ValidationJobDao validationJobDao;
     private final InsertDocumentDao insertDocumentDao;
     private final ValidatedPDFDao validatedPDFDao;
-    private List<ValidationJobData> validationJobs;
+    private final boolean isTriageEnabled;
+    private final BatchJobDao batchJobDao;
+    private final List<ValidationLane> lanes = new ArrayList<>();
+    private final VerapdfServiceBalancer balancer;
+    private final boolean isUploadEnabled;
+    private final PipelineMetrics metrics;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+    private final AtomicInteger leaseLaneCounter = new AtomicInteger();
+    // Ids of jobs loaded from the database and not removed from it yet
+    private final Set<Long> heldJobIds = ConcurrentHashMap.newKeySet();
+    // Triage reads the files, so it runs apart from the refill loop which only pages the database
+    private final ExecutorService triageExecutor = Executors.newFixedThreadPool(TRIAGE_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "validation-triage");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public boolean isRunning() {
         return isRunning;
@@ -27,63 +75,466 @@ public class ValidationService implements Runnable {
         isRunning = true;
     }
 
-    private boolean isRunning;
-    public ValidationService(String verapdfUrl, DataSource dataSource, ValidatedPDFDao validatedPDFDao) {
+    private volatile boolean isRunning;
+    public ValidationService(List<ValidationLaneSettings> laneSettings, DataSource dataSource, ValidatedPDFDao validatedPDFDao,
+                             BatchJobDao batchJobDao, boolean isTriageEnabled, PipelineMetrics metrics,
+                             VerapdfServiceBalancer balancer, boolean isUploadEnabled) {
+        this.isTriageEnabled = isTriageEnabled;
         validationJobDao = new ValidationJobDao(dataSource);
         insertDocumentDao = new InsertDocumentDao(dataSource);
+        this.batchJobDao = batchJobDao;
         isRunning = true;
         this.validatedPDFDao = validatedPDFDao;
-        validator = new VerapdfServiceValidator(verapdfUrl);
+        this.balancer = balancer;
+        this.isUploadEnabled = isUploadEnabled;
+        this.metrics = metrics;
+        // Counted once at startup and maintained on every insert and removal afterwards
+        queueDepth.set(validationJobDao.getQueueSize());
+        metrics.registerGauge(queueDepth::get, "validation", "queue", "depth");
+        metrics.registerGauge(leases::size, "validation", "queue", "leased");
+        for (ValidationLaneSettings settings : laneSettings) {
+            ValidationLane lane = new ValidationLane(settings, metrics);
+            lanes.add(lane);
+            metrics.registerGauge(() -> lane.getQueue().size(), "validation", "lane", settings.getName(), "queued");
+        }
+        // Documents go to the first lane which accepts their size, the unbounded lane is tried last
+        lanes.sort(Comparator.comparing(lane -> lane.getSettings().getMaxFileSize(),
+                Comparator.nullsLast(Comparator.naturalOrder())));
     }
 
     public void addJob(ValidationJobData data) throws IOException {
+        prepareJob(data);
         validationJobDao.addJob(data);
+        queueDepth.incrementAndGet();
         logger.info("Added validation job " + data.getUri());
     }
 
+    public void addJobs(List<ValidationJobData> jobs) {
+        for (ValidationJobData job : jobs) {
+            prepareJob(job);
+        }
+        validationJobDao.addJobs(jobs);
+        queueDepth.addAndGet(jobs.size());
+        logger.info("Added " + jobs.size() + " validation jobs");
+    }
+
+    // Jobs stay in the database until processed, so the count includes jobs loaded into the queue and leased ones
     public Integer getQueueSize() {
-        return validationJobDao.getQueueSize() + validationJobs.size();
+        return (int) queueDepth.get();
+    }
+
+    // Unfinished batch jobs with documents in the lane queues, batches are looked up only for active crawl jobs
+    public List<ValidationQueueStatistics> getQueueStatistics() {
+        Map<String, List<BatchJob>> batchJobsByCrawlJob = new HashMap<>();
+        Map<String, ValidationQueueStatistics> statisticsByBatch = new LinkedHashMap<>();
+        for (ValidationLane lane : lanes) {
+            List<ValidationQueue.FlowSnapshot> flows = lane.getQueue().getFlows();
+            long totalWeight = 0;
+            for (ValidationQueue.FlowSnapshot flow : flows) {
+                totalWeight += flow.getWeight();
+            }
+            double throughput = lane.getThroughput();
+            for (ValidationQueue.FlowSnapshot flow : flows) {
+                List<BatchJob> batchJobs = batchJobsByCrawlJob.computeIfAbsent(flow.getCrawlJobId(), this::getUnfinishedBatchJobs);
+                for (BatchJob batchJob : batchJobs) {
+                    ValidationQueueStatistics statistics = statisticsByBatch.computeIfAbsent(batchJob.getId(),
+                            id -> new ValidationQueueStatistics(id, batchJob.getPriority()));
+                    statistics.setQueuedDocuments(statistics.getQueuedDocuments() + flow.getQueuedDocuments());
+                    statistics.setQueuedBytes(statistics.getQueuedBytes() + flow.getQueuedBytes());
+                    if (statistics.getEstimatedWaitSeconds() < 0) {
+                        continue;
+                    }
+                    if (throughput <= 0) {
+                        statistics.setEstimatedWaitSeconds(-1);
+                        continue;
+                    }
+                    // Flow gets its weighted share of the lane while other flows stay active, lanes work in parallel
+                    double flowThroughput = throughput * flow.getWeight() / totalWeight;
+                    long waitSeconds = (long) Math.ceil(flow.getQueuedCost() / flowThroughput);
+                    statistics.setEstimatedWaitSeconds(Math.max(statistics.getEstimatedWaitSeconds(), waitSeconds));
+                }
+            }
+        }
+        return new ArrayList<>(statisticsByBatch.values());
+    }
+
+    // Queued documents of every crawl job over all lanes
+    public Map<String, Integer> getQueuedDocumentsByCrawlJob() {
+        Map<String, Integer> result = new HashMap<>();
+        for (ValidationLane lane : lanes) {
+            for (ValidationQueue.FlowSnapshot flow : lane.getQueue().getFlows()) {
+                result.merge(flow.getCrawlJobId(), flow.getQueuedDocuments(), Integer::sum);
+            }
+        }
+        return result;
+    }
+
+    // Time to validate all queued documents at the current throughput of the lanes, -1 while throughput is unknown
+    public long getEstimatedDrainSeconds() {
+        long result = 0;
+        for (ValidationLane lane : lanes) {
+            long queuedCost = 0;
+            for (ValidationQueue.FlowSnapshot flow : lane.getQueue().getFlows()) {
+                queuedCost += flow.getQueuedCost();
+            }
+            if (queuedCost == 0) {
+                continue;
+            }
+            double throughput = lane.getThroughput();
+            if (throughput <= 0) {
+                return -1;
+            }
+            // Lanes work in parallel, so the slowest one decides
+            result = Math.max(result, (long) Math.ceil(queuedCost / throughput));
+        }
+        return result;
+    }
+
+    public List<ValidationLaneStatistics> getLaneStatistics() {
+        List<ValidationLaneStatistics> result = new ArrayList<>();
+        for (ValidationLane lane : lanes) {
+            ValidationLaneStatistics statistics = new ValidationLaneStatistics(lane.getSettings().getName(),
+                    lane.getSettings().getMaxFileSize(), lane.getWorkerCount());
+            for (ValidationQueue.FlowSnapshot flow : lane.getQueue().getFlows()) {
+                statistics.setQueuedDocuments(statistics.getQueuedDocuments() + flow.getQueuedDocuments());
+                statistics.setQueuedBytes(statistics.getQueuedBytes() + flow.getQueuedBytes());
+            }
+            Snapshot latency = lane.getLatency().getSnapshot();
+            statistics.setValidatedDocuments(lane.getLatency().getCount());
+            statistics.setMeanLatencyMs(TimeUnit.NANOSECONDS.toMillis((long) latency.getMean()));
+            statistics.setMedianLatencyMs(TimeUnit.NANOSECONDS.toMillis((long) latency.getMedian()));
+            statistics.setP95LatencyMs(TimeUnit.NANOSECONDS.toMillis((long) latency.get95thPercentile()));
+            statistics.setMaxLatencyMs(TimeUnit.NANOSECONDS.toMillis(latency.getMax()));
+            result.add(statistics);
+        }
+        return result;
+    }
+
+    // Pull workers take jobs from the same lane queues as local workers, waiting up to waitMs for the first one
+    public List<LeasedValidationJob> leaseJobs(int count, long waitMs) throws InterruptedException {
+        List<LeasedValidationJob> result = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (isRunning) {
+            // Lanes take turns in being served first, so that pull workers do not starve the large lane
+            int first = leaseLaneCounter.getAndIncrement();
+            for (int i = 0; i < lanes.size() && result.size() < count; i++) {
+                ValidationLane lane = lanes.get(Math.floorMod(first + i, lanes.size()));
+                ValidationJobData data;
+                while (result.size() < count && (data = lane.getQueue().poll()) != null) {
+                    long leaseSeconds = lane.getSettings().getTimeoutSeconds(data.getFileSize()) + LEASE_GRACE_SECONDS;
+                    leases.put(data.getId(), new Lease(data, lane, leaseSeconds));
+                    result.add(new LeasedValidationJob(data.getId(), data.getUri(), data.getFilepath(), data.getFileSize(), leaseSeconds));
+                }
+            }
+            if (!result.isEmpty() || System.currentTimeMillis() >= deadline) {
+                break;
+            }
+            Thread.sleep(LEASE_POLL_INTERVAL_MS);
+        }
+        if (!result.isEmpty()) {
+            logger.info("Leased " + result.size() + " validation jobs");
+        }
+        return result;
+    }
+
+    // File of a leased job, null if the lease is unknown or expired
+    public File getLeasedFile(long id) {
+        Lease lease = leases.get(id);
+        return lease == null ? null : new File(lease.job.getFilepath());
     }
 
+    // Returns false if the lease is unknown or expired, the job is then validated again by another worker
+    public boolean completeLeasedJob(ValidationJobResult jobResult) {
+        Lease lease = leases.remove(jobResult.getId());
+        if (lease == null) {
+            return false;
+        }
+        completeJob(lease.job, jobResult.getResult());
+        lease.lane.recordValidation(ValidationQueue.getCost(lease.job), System.nanoTime() - lease.leasedAt);
+        return true;
+    }
+
+    public List<VeraPDFServiceStatistics> getValidatorStatistics() {
+        return balancer.getStatistics();
+    }
+
+    // Starts lane workers and keeps their queues filled from the database
     @Override
     public void run() {
+        for (ValidationLane lane : lanes) {
+            for (int i = 0; i < lane.getWorkerCount(); i++) {
+                PDFValidator validator = new VerapdfServiceValidator(balancer, lane.getSettings(), isUploadEnabled, metrics);
+                Thread worker = new Thread(() -> runWorker(lane, validator),
+                        "validation-" + lane.getSettings().getName() + "-" + i);
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
         while (isRunning) {
-            validationJobs = validationJobDao.removeAll();
-            if(validationJobs != null && !validationJobs.isEmpty()) {
-                for(ValidationJobData data: validationJobs) {
-                    try {
-                        logger.info("Validating " + data.getUri());
-                        boolean validationResult;
-                        try {
-                                validationResult = validator.validateAndWirteResult(data.getFilepath(), data.getUri(), validatedPDFDao);
-                            } catch (Exception e) {
-                                logger.error("Error in validator",e);
-                                validationResult = false;
-                            }
-                            String[] parts = data.getJobDirectory().split("/");
-                            String jobId = parts[parts.length - 3];
-                            if (validationResult) {
-                                insertDocumentDao.addPdfFile(data, jobId);
-                            } else {
-                                insertDocumentDao.addInvalidPdfFile(data, jobId);
-                            }
-                    } catch (Exception e) {
-                        logger.error("Error in validation runner",e);
+            refillQueues();
+            requeueExpiredLeases();
+            try {
+                Thread.sleep(REFILL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                logger.info("Validation service stopped");
+                return;
+            }
+        }
+    }
+
+    private void runWorker(ValidationLane lane, PDFValidator validator) {
+        while (isRunning) {
+            ValidationJobData data;
+            try {
+                data = lane.getQueue().poll(WORKER_POLL_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (data == null) {
+                continue;
+            }
+            long startTime = System.nanoTime();
+            processJob(data, validator);
+            lane.recordValidation(ValidationQueue.getCost(data), System.nanoTime() - startTime);
+        }
+    }
+
+    private void processJob(ValidationJobData data, PDFValidator validator) {
+        if (data.getTimeAdded() != null) {
+            metrics.getStage(PipelineMetrics.STAGE_QUEUE_WAIT).update(
+                    System.currentTimeMillis() - data.getTimeAdded(), TimeUnit.MILLISECONDS);
+        }
+        VeraPDFValidationResult result = null;
+        try {
+            logger.info("Validating " + data.getUri());
+            result = validator.validate(data.getFilepath(), validatedPDFDao);
+        } catch (Exception e) {
+            logger.error("Error in validator",e);
+            result = new VeraPDFValidationResult();
+            result.setProcessingError(e.getMessage());
+        }
+        completeJob(data, result);
+    }
+
+    private boolean needsValidation(ValidationJobData data) {
+        TriageResult triage = triage(data);
+        if (triage == null || triage.needsValidation()) {
+            return true;
+        }
+        logger.info("Validation skipped for " + data.getUri() + ", triage result is " + triage.getVerdict().getName());
+        return false;
+    }
+
+    // Result is null for files which were not sent to validation
+    private void completeJob(ValidationJobData data, VeraPDFValidationResult result) {
+        Timer.Context persistTime = metrics.getStage(PipelineMetrics.STAGE_DB_PERSIST).time();
+        try {
+            boolean validationResult = result != null && writeResult(result, data.getUri());
+            metrics.getValidationResults(getResultName(result)).mark();
+            String jobId = data.getCrawlJobId() != null ? data.getCrawlJobId() : getCrawlJobId(data.getJobDirectory());
+            if (validationResult) {
+                insertDocumentDao.addPdfFile(data, jobId);
+            } else {
+                insertDocumentDao.addInvalidPdfFile(data, jobId);
+            }
+        } catch (Exception e) {
+            logger.error("Error in validation runner",e);
+        }
+        finally {
+            // File is released anyway, so the job can not be retried. Job which stays in the database stays held
+            try {
+                validationJobDao.removeJob(data.getId());
+                queueDepth.decrementAndGet();
+                heldJobIds.remove(data.getId());
+            } catch (Exception e) {
+                logger.error("Error on removing validation job " + data.getUri(), e);
+            }
+            persistTime.stop();
+            if(data.getFilepath() != null) {
+                releaseFile(data.getFilepath());
+            }
+        }
+    }
+
+    private static String getResultName(VeraPDFValidationResult result) {
+        if (result == null) {
+            // Rejected by triage
+            return PipelineMetrics.RESULT_INVALID;
+        }
+        if (result.getProcessingError() != null && !result.getProcessingError().isEmpty()) {
+            return PipelineMetrics.RESULT_FAILED;
+        }
+        return result.isValid() ? PipelineMetrics.RESULT_VALID : PipelineMetrics.RESULT_INVALID;
+    }
+
+    private boolean writeResult(VeraPDFValidationResult result, String fileUrl) {
+        for(ValidationError error: result.getValidationErrors()) {
+            validatedPDFDao.addErrorToDocument(error, fileUrl);
+        }
+        for(Map.Entry<String, String> property: result.getProperties().entrySet()) {
+            validatedPDFDao.insertPropertyForDocument(property.getKey(), property.getValue(), fileUrl);
+        }
+        validatedPDFDao.addProcessingError(result.getProcessingError(), fileUrl);
+        return result.isValid();
+    }
+
+    // Files which do not claim PDF/A, are encrypted or broken can not be valid, so they are not sent to validator
+    private TriageResult triage(ValidationJobData data) {
+        if (!isTriageEnabled) {
+            return null;
+        }
+        TriageResult result;
+        try {
+            result = PDFTriageScanner.scan(data.getFilepath());
+        } catch (IOException e) {
+            logger.error("Error on triage of " + data.getFilepath(), e);
+            return null;
+        }
+        validatedPDFDao.insertPropertyForDocument(PROPERTY_TRIAGE, result.getVerdict().getName(), data.getUri());
+        validatedPDFDao.insertPropertyForDocument(PROPERTY_PDF_VERSION, result.getPdfVersion(), data.getUri());
+        if (result.getPdfaPart() != null) {
+            String flavour = result.getPdfaPart() + (result.getPdfaConformance() == null ? "" : result.getPdfaConformance().toLowerCase());
+            validatedPDFDao.insertPropertyForDocument(PROPERTY_CLAIMED_FLAVOUR, flavour, data.getUri());
+        }
+        validatedPDFDao.addProcessingError(result.getMessage(), data.getUri());
+        return result;
+    }
+
+    // Crawl job is shared by all batches which requested its URL
+    private List<BatchJob> getUnfinishedBatchJobs(String crawlJobId) {
+        List<BatchJob> result = new ArrayList<>();
+        if (crawlJobId == null) {
+            return result;
+        }
+        for (String batchJobId : batchJobDao.getBatchJobIds(crawlJobId)) {
+            BatchJob batchJob = batchJobDao.getBatchJob(batchJobId);
+            if (!batchJob.isFinished()) {
+                result.add(batchJob);
+            }
+        }
+        return result;
+    }
+
+    // Files from the Heritrix extension spool are hard links to a content-addressed object,
+    // the object is removed together with its last ref
+    private void releaseFile(String filepath) {
+        File file = new File(filepath);
+        File refs = file.getParentFile();
+        try {
+            Files.deleteIfExists(file.toPath());
+            if (refs == null || !SPOOL_REFS_DIRECTORY.equals(refs.getName())) {
+                return;
+            }
+            String name = file.getName();
+            int hashEnd = name.indexOf('-');
+            if (hashEnd < 0) {
+                return;
+            }
+            int suffixStart = name.lastIndexOf('.');
+            String suffix = suffixStart > hashEnd ? name.substring(suffixStart) : "";
+            Path object = refs.toPath().resolveSibling(name.substring(0, hashEnd) + suffix);
+            if (Files.exists(object) && (Integer) Files.getAttribute(object, "unix:nlink") == 1) {
+                Files.deleteIfExists(object);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.error("Error on removing " + filepath, e);
+        }
+    }
+
+    private void requeueExpiredLeases() {
+        long now = System.nanoTime();
+        for (Iterator<Lease> iterator = leases.values().iterator(); iterator.hasNext(); ) {
+            Lease lease = iterator.next();
+            if (now > lease.expiresAt) {
+                iterator.remove();
+                logger.info("Lease of " + lease.job.getUri() + " expired, job is queued again");
+                lease.lane.getQueue().add(Collections.singletonList(lease.job), batchJobDao::getCrawlJobPriority);
+            }
+        }
+    }
+
+    // Table is scanned from the start in pages, so jobs committed out of id order are found in a later round
+    private void refillQueues() {
+        try {
+            long lastId = 0;
+            while (heldJobIds.size() < MAX_HELD_JOBS) {
+                List<ValidationJobData> page = validationJobDao.getJobs(lastId, REFILL_PAGE_SIZE);
+                Map<ValidationLane, List<ValidationJobData>> jobsByLane = new HashMap<>();
+                for (ValidationJobData job : page) {
+                    lastId = job.getId();
+                    if (heldJobIds.size() >= MAX_HELD_JOBS || !heldJobIds.add(job.getId())) {
+                        continue;
+                    }
+                    if (job.getCrawlJobId() == null) {
+                        job.setCrawlJobId(getCrawlJobId(job.getJobDirectory()));
                     }
-                    finally {
-                        if(data != null && data.getFilepath() != null) {
-                            new File(data.getFilepath()).delete();
-                        }
-                        }
+                    if (isTriageEnabled) {
+                        triageExecutor.execute(() -> queueAfterTriage(job));
+                        continue;
                     }
+                    jobsByLane.computeIfAbsent(getLane(job.getFileSize()), lane -> new ArrayList<>()).add(job);
                 }
-            else {
-                try {
-                    Thread.sleep(60 * 1000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+                for (Map.Entry<ValidationLane, List<ValidationJobData>> entry : jobsByLane.entrySet()) {
+                    entry.getKey().getQueue().add(entry.getValue(), batchJobDao::getCrawlJobPriority);
                 }
+                if (page.size() < REFILL_PAGE_SIZE) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error on loading validation jobs", e);
+        }
+    }
+
+    // Triage runs once per job before it is queued, so leased and requeued jobs go to validation straight away
+    private void queueAfterTriage(ValidationJobData job) {
+        try {
+            if (!needsValidation(job)) {
+                completeJob(job, null);
+                return;
             }
+        } catch (Exception e) {
+            logger.error("Error on triage of " + job.getUri() + ", job is queued for validation", e);
+        }
+        getLane(job.getFileSize()).getQueue().add(Collections.singletonList(job), batchJobDao::getCrawlJobPriority);
+    }
+
+    // Files larger than every lane limit go to the lane with the largest limit
+    private ValidationLane getLane(long fileSize) {
+        for (ValidationLane lane : lanes) {
+            if (lane.accepts(fileSize)) {
+                return lane;
+            }
+        }
+        return lanes.get(lanes.size() - 1);
+    }
+
+    private void prepareJob(ValidationJobData data) {
+        data.setCrawlJobId(getCrawlJobId(data.getJobDirectory()));
+        if (data.getFilepath() != null) {
+            data.setFileSize(new File(data.getFilepath()).length());
+        }
+    }
+
+    private static String getCrawlJobId(String jobDirectory) {
+        if (jobDirectory == null) {
+            return null;
+        }
+        String[] parts = jobDirectory.split("/");
+        return parts.length >= 3 ? parts[parts.length - 3] : null;
+    }
+
+    private static class Lease {
+        private final ValidationJobData job;
+        private final ValidationLane lane;
+        private final long leasedAt;
+        private final long expiresAt;
+
+        private Lease(ValidationJobData job, ValidationLane lane, long leaseSeconds) {
+            this.job = job;
+            this.lane = lane;
+            this.leasedAt = System.nanoTime();
+            this.expiresAt = leasedAt + TimeUnit.SECONDS.toNanos(leaseSeconds);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,194 @@
+package org.verapdf.crawler.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.domain.validation.VeraPDFServiceCapacity;
+import org.verapdf.crawler.domain.validation.VeraPDFServiceStatistics;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Spreads validation requests over VeraPDFService instances. Every request goes to the healthy instance
+ * with the lowest load, where load is the number of requests in flight relative to the capacity reported
+ * by the instance at /capacity. An instance is ejected after several consecutive failed requests or
+ * a failed capacity probe, and restored by the first successful probe.
+ */
+public class VerapdfServiceBalancer implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+    private static final int PROBE_TIMEOUT_MS = 5000;
+
+    private final Map<String, Instance> instances = new LinkedHashMap<>();
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long checkIntervalMs;
+    private volatile boolean isRunning = true;
+
+    public VerapdfServiceBalancer(Collection<String> urls, long checkIntervalMs) {
+        for (String url : urls) {
+            instances.put(url, new Instance(url));
+        }
+        this.checkIntervalMs = checkIntervalMs;
+        RequestConfig config = RequestConfig.custom().setConnectTimeout(PROBE_TIMEOUT_MS)
+                .setSocketTimeout(PROBE_TIMEOUT_MS).setConnectionRequestTimeout(PROBE_TIMEOUT_MS).build();
+        httpClient = HttpClientBuilder.create().setDefaultRequestConfig(config).build();
+    }
+
+    // Waits until one of the given instances is healthy and has a free slot, and reserves that slot
+    public synchronized Instance acquire(List<String> urls) throws InterruptedException {
+        while (true) {
+            Instance best = null;
+            for (String url : urls) {
+                Instance instance = instances.get(url);
+                if (instance == null || !instance.healthy || instance.getLoad() >= instance.capacity) {
+                    continue;
+                }
+                if (best == null || instance.getLoad() * best.capacity < best.getLoad() * instance.capacity
+                        || (instance.getLoad() * best.capacity == best.getLoad() * instance.capacity
+                        && instance.lastAcquired < best.lastAcquired)) {
+                    best = instance;
+                }
+            }
+            if (best != null) {
+                best.inFlight++;
+                best.lastAcquired = System.nanoTime();
+                return best;
+            }
+            wait();
+        }
+    }
+
+    // Instance which answered but returned no result, e.g. for a document it could not process, is not counted either way
+    public synchronized void release(Instance instance, boolean isHealthy, boolean isValidated) {
+        instance.inFlight--;
+        if (isValidated) {
+            instance.consecutiveFailures = 0;
+            instance.validatedDocuments++;
+        } else if (!isHealthy && ++instance.consecutiveFailures >= MAX_CONSECUTIVE_FAILURES && instance.healthy) {
+            logger.warn("VeraPDFService " + instance.url + " is ejected after " + instance.consecutiveFailures + " failures");
+            instance.healthy = false;
+        }
+        notifyAll();
+    }
+
+    // Instance turned the request down while busy with a job of another client, its slot is taken until the next probe
+    public synchronized void releaseBusy(Instance instance) {
+        instance.inFlight--;
+        instance.externalInFlight++;
+        notifyAll();
+    }
+
+    public synchronized List<VeraPDFServiceStatistics> getStatistics() {
+        List<VeraPDFServiceStatistics> result = new ArrayList<>();
+        for (Instance instance : instances.values()) {
+            result.add(new VeraPDFServiceStatistics(instance.url, instance.healthy, instance.capacity,
+                    instance.inFlight, instance.validatedDocuments, instance.consecutiveFailures));
+        }
+        return result;
+    }
+
+    // Share of the reported capacity of healthy instances which is busy, including requests of other clients
+    public synchronized double getUtilization() {
+        int capacity = 0;
+        int load = 0;
+        for (Instance instance : instances.values()) {
+            if (instance.healthy) {
+                capacity += instance.capacity;
+                load += Math.min(instance.getLoad(), instance.capacity);
+            }
+        }
+        return capacity == 0 ? 0 : (double) load / capacity;
+    }
+
+    public void stop() {
+        isRunning = false;
+    }
+
+    @Override
+    public void run() {
+        while (isRunning) {
+            for (Instance instance : getInstances()) {
+                probe(instance);
+            }
+            try {
+                Thread.sleep(checkIntervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.error("Error on closing VeraPDFService probe client", e);
+        }
+    }
+
+    public static class Instance {
+        private final String url;
+        private boolean healthy = true;
+        private int capacity = 1;
+        private int inFlight;
+        // Requests the instance reported beyond the ones sent from here, e.g. by other Logius instances
+        private int externalInFlight;
+        private int consecutiveFailures;
+        private long validatedDocuments;
+        private long lastAcquired;
+
+        private Instance(String url) {
+            this.url = url;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        private int getLoad() {
+            return inFlight + externalInFlight;
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private synchronized List<Instance> getInstances() {
+        return new ArrayList<>(instances.values());
+    }
+
+    private void probe(Instance instance) {
+        VeraPDFServiceCapacity capacity = null;
+        HttpGet get = new HttpGet(instance.url + "/capacity");
+        try (CloseableHttpResponse response = httpClient.execute(get)) {
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
+                capacity = mapper.readValue(response.getEntity().getContent(), VeraPDFServiceCapacity.class);
+            }
+        } catch (IOException e) {
+            logger.debug("VeraPDFService " + instance.url + " capacity probe failed", e);
+        }
+        synchronized (this) {
+            if (capacity == null) {
+                if (instance.healthy) {
+                    logger.warn("VeraPDFService " + instance.url + " is ejected, capacity probe failed");
+                }
+                instance.healthy = false;
+                return;
+            }
+            if (!instance.healthy) {
+                logger.info("VeraPDFService " + instance.url + " is restored");
+            }
+            instance.healthy = true;
+            instance.consecutiveFailures = 0;
+            instance.capacity = Math.max(1, capacity.getCapacity());
+            instance.externalInFlight = Math.max(0, capacity.getInFlight() - instance.inFlight);
+            notifyAll();
+        }
+    }
+
+    //</editor-fold>
+}
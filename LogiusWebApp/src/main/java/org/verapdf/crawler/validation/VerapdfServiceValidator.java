@@ -1,105 +1,149 @@
 package org.verapdf.crawler.validation;
 
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.verapdf.crawler.domain.validation.ValidationError;
+import org.verapdf.crawler.app.configuration.ValidationLaneSettings;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
 import org.verapdf.crawler.domain.validation.VeraPDFValidationResult;
 import org.verapdf.crawler.repository.document.ValidatedPDFDao;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 
 public class VerapdfServiceValidator implements PDFValidator {
 
-    private final static int MAX_VALIDATION_TIMEOUT_IN_MINUTES = 5;
-    private final static int MAX_VALIDATION_RETRIES = 2;
+    private final static int STATUS_POLL_INTERVAL_IN_SECONDS = 10;
+    private final static int RETRY_INTERVAL_IN_SECONDS = 5;
 
-    private final String verapdfUrl;
+    private final VerapdfServiceBalancer balancer;
+    private final ValidationLaneSettings settings;
+    private final boolean isUploadEnabled;
+    private final PipelineMetrics metrics;
     private final HttpClient httpClient;
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
 
-    VerapdfServiceValidator(String verapdfUrl) {
-        this.verapdfUrl = verapdfUrl;
+    VerapdfServiceValidator(VerapdfServiceBalancer balancer, ValidationLaneSettings settings, boolean isUploadEnabled,
+                            PipelineMetrics metrics) {
+        this.metrics = metrics;
+        this.balancer = balancer;
+        this.settings = settings;
+        this.isUploadEnabled = isUploadEnabled;
         httpClient = HttpClientBuilder.create().build();
     }
 
     @Override
-    public boolean validateAndWirteResult(String localFilename, String fileUrl, ValidatedPDFDao validatedPDFDao) throws Exception {
-        VeraPDFValidationResult result;
-        try {
-            result = validate(localFilename, validatedPDFDao);
-            while (result == null) {
-                logger.info("Could not reach validation service, retry in one minute");
-                Thread.sleep(60 * 1000);
-                result = validate(localFilename, validatedPDFDao);
+    public VeraPDFValidationResult validate(String localFilename, ValidatedPDFDao validatedPDFDao) throws Exception {
+        while (true) {
+            VeraPDFValidationResult result;
+            try {
+                result = validateOnInstance(localFilename, validatedPDFDao);
+            } catch (ServiceBusyException e) {
+                // Busy instance is skipped until the next capacity probe, so the retry goes to another one
+                logger.info(e.getMessage());
+                continue;
             }
+            if (result != null) {
+                return result;
+            }
+            // Instance which failed to respond is ejected after a few failures, so the retry goes to another one
+            logger.info("Could not reach validation service, retry in " + RETRY_INTERVAL_IN_SECONDS + " seconds");
+            Thread.sleep(RETRY_INTERVAL_IN_SECONDS * 1000);
         }
-        catch (Exception e) {
-            logger.error("Error in validation service",e);
-            validatedPDFDao.addProcessingError(e.getMessage(), fileUrl);
-            return false;
-        }
-        for(ValidationError error: result.getValidationErrors()) {
-            validatedPDFDao.addErrorToDocument(error, fileUrl);
-        }
-        for(Map.Entry<String, String> property: result.getProperties().entrySet()) {
-            validatedPDFDao.insertPropertyForDocument(property.getKey(), property.getValue(), fileUrl);
-        }
-        validatedPDFDao.addProcessingError(result.getProcessingError(), fileUrl);
-        return result.isValid();
     }
 
-    private VeraPDFValidationResult validate(String filename, ValidatedPDFDao validatedPDFDao) throws Exception {
-        logger.info("Sending file " + filename + " to validator");
+    private VeraPDFValidationResult validateOnInstance(String filename, ValidatedPDFDao validatedPDFDao) throws Exception {
+        VerapdfServiceBalancer.Instance instance = balancer.acquire(settings.getVerapdfUrls());
+        String verapdfUrl = instance.getUrl();
+        boolean isHealthy = true;
+        boolean isValidated = false;
+        boolean isBusy = false;
+        Timer.Context processTime = null;
+        logger.info("Sending file " + filename + " to validator " + verapdfUrl);
+        long timeoutSeconds = settings.getTimeoutSeconds(new File(filename).length());
         try {
-            sendValidationSettings(validatedPDFDao);
-            sendValidationRequest(filename);
+            sendValidationSettings(verapdfUrl, validatedPDFDao);
+            isBusy = !sendValidationRequest(verapdfUrl, filename);
+            if (isBusy) {
+                throw new ServiceBusyException(verapdfUrl);
+            }
+            processTime = metrics.getStage(PipelineMetrics.STAGE_VERAPDF_PROCESS).time();
 
             int validationRetries = 0;
-            for (int i = 0; i < MAX_VALIDATION_TIMEOUT_IN_MINUTES * 6; i++) {
-                int responseCode = getValidationStatus();
+            long deadline = System.currentTimeMillis() + timeoutSeconds * 1000;
+            while (System.currentTimeMillis() < deadline) {
+                int responseCode = getValidationStatus(verapdfUrl);
                 logger.info("Response code is " + responseCode);
                 if (responseCode == HttpStatus.SC_OK) { // Vaidation is finished
                     logger.info("Validation is finished");
-                    return getValidationResult();
+                    processTime.stop();
+                    processTime = null;
+                    VeraPDFValidationResult result = getValidationResult(verapdfUrl);
+                    isValidated = true;
+                    return result;
                 }
                 // Validation is in process
                 if (responseCode == HttpStatus.SC_PROCESSING) {
                     logger.info("Validation is in progress");
-                    Thread.sleep(10 * 1000);
+                    Thread.sleep(STATUS_POLL_INTERVAL_IN_SECONDS * 1000);
                     continue;
                 }
                 // Something went wrong and validation was not finished
                 if (responseCode == HttpStatus.SC_CONTINUE) {
                     logger.info("Something went wrong and validation was not finished");
                     validationRetries++;
-                    if (validationRetries == MAX_VALIDATION_RETRIES) {
+                    if (validationRetries >= settings.getMaxRetries()) {
                         throw new Exception("Failed to process document " + filename);
                     }
-                    sendValidationSettings(validatedPDFDao);
-                    sendValidationRequest(filename);
+                    processTime.stop();
+                    processTime = null;
+                    sendValidationSettings(verapdfUrl, validatedPDFDao);
+                    isBusy = !sendValidationRequest(verapdfUrl, filename);
+                    if (isBusy) {
+                        throw new ServiceBusyException(verapdfUrl);
+                    }
+                    processTime = metrics.getStage(PipelineMetrics.STAGE_VERAPDF_PROCESS).time();
                     // Reset timeout cycle
-                    i = 0;
+                    deadline = System.currentTimeMillis() + timeoutSeconds * 1000;
                 } else { // Got unexpected response code
-                    throw new Exception("Invalid response code from validation service, code was" + responseCode);
+                    isHealthy = false;
+                    throw new Exception("Invalid response code from validation service, code was " + responseCode);
                 }
             }
-            throw new Exception("Document " + filename + " was not validated in time (" + MAX_VALIDATION_TIMEOUT_IN_MINUTES + " minutes)");
+            // Free the service for the next document
+            discardCurrentJob(verapdfUrl);
+            throw new Exception("Document " + filename + " was not validated in time (" + timeoutSeconds + " seconds)");
         }
         catch (IOException e) {
-            logger.error("Error in validation service", e);
+            logger.error("Error in validation service " + verapdfUrl, e);
+            isHealthy = false;
             return null;
         }
+        finally {
+            if (processTime != null) {
+                processTime.stop();
+            }
+            if (isBusy) {
+                balancer.releaseBusy(instance);
+            } else {
+                balancer.release(instance, isHealthy, isValidated);
+            }
+        }
     }
 
-    private void sendValidationSettings(ValidatedPDFDao validatedPDFDao) throws IOException {
+    private void sendValidationSettings(String verapdfUrl, ValidatedPDFDao validatedPDFDao) throws IOException {
         HttpPost propertiesPost = new HttpPost(verapdfUrl + "/properties");
         propertiesPost.setHeader("Content-Type", "application/json");
         ObjectMapper mapper = new ObjectMapper();
@@ -110,25 +154,81 @@ public class VerapdfServiceValidator implements PDFValidator {
         logger.info("Validation settings have been sent");
     }
 
-    private void sendValidationRequest(String filename) throws IOException {
+    // False if the service is busy with a job of another client and did not start this one
+    private boolean sendValidationRequest(String verapdfUrl, String filename) throws Exception {
+        if (isUploadEnabled) {
+            try (Timer.Context ignored = metrics.getStage(PipelineMetrics.STAGE_FILE_TRANSFER).time()) {
+                return uploadFile(verapdfUrl, filename);
+            }
+        }
         HttpPost post = new HttpPost(verapdfUrl);
         post.setEntity(new StringEntity(filename));
-        httpClient.execute(post);
-        post.releaseConnection();
+        try {
+            if (!isAccepted(httpClient.execute(post).getStatusLine().getStatusCode(), verapdfUrl)) {
+                return false;
+            }
+        } finally {
+            post.releaseConnection();
+        }
         logger.info("Validation request have been sent");
+        return true;
     }
 
-    private int getValidationStatus() throws IOException {
+    // File is streamed from disk, so the service does not need access to the file system of Logius
+    private boolean uploadFile(String verapdfUrl, String filename) throws Exception {
+        HttpPost post = new HttpPost(verapdfUrl + "/upload");
+        post.setEntity(new FileEntity(new File(filename), ContentType.APPLICATION_OCTET_STREAM));
+        try {
+            int responseCode = httpClient.execute(post).getStatusLine().getStatusCode();
+            if (responseCode == HttpStatus.SC_REQUEST_TOO_LONG) {
+                throw new Exception("Document " + filename + " exceeds upload size limit of validation service");
+            }
+            if (!isAccepted(responseCode, verapdfUrl)) {
+                return false;
+            }
+        } finally {
+            post.releaseConnection();
+        }
+        logger.info("File " + filename + " has been uploaded for validation");
+        return true;
+    }
+
+    // Status of a busy service is polled by another client, so this one must not poll it for its own result
+    private static boolean isAccepted(int responseCode, String verapdfUrl) throws HttpResponseException {
+        if (responseCode == HttpStatus.SC_PROCESSING) {
+            return false;
+        }
+        if (responseCode != HttpStatus.SC_ACCEPTED) {
+            throw new HttpResponseException(responseCode, "Validation request was not accepted by " + verapdfUrl);
+        }
+        return true;
+    }
+
+    private void discardCurrentJob(String verapdfUrl) throws IOException {
+        HttpDelete delete = new HttpDelete(verapdfUrl);
+        httpClient.execute(delete);
+        delete.releaseConnection();
+    }
+
+    private int getValidationStatus(String verapdfUrl) throws IOException {
         HttpGet get = new HttpGet(verapdfUrl);
         int result = httpClient.execute(get).getStatusLine().getStatusCode();
         get.releaseConnection();
         return result;
     }
 
-    private VeraPDFValidationResult getValidationResult() throws IOException {
+    private VeraPDFValidationResult getValidationResult(String verapdfUrl) throws IOException {
         HttpGet get = new HttpGet(verapdfUrl);
-        VeraPDFValidationResult result = new ObjectMapper().readValue(httpClient.execute(new HttpGet(verapdfUrl)).getEntity().getContent(), VeraPDFValidationResult.class);
-        get.releaseConnection();
-        return result;
+        try (Timer.Context ignored = metrics.getStage(PipelineMetrics.STAGE_REPORT_PARSE).time()) {
+            return new ObjectMapper().readValue(httpClient.execute(get).getEntity().getContent(), VeraPDFValidationResult.class);
+        } finally {
+            get.releaseConnection();
+        }
+    }
+
+    private static class ServiceBusyException extends Exception {
+        ServiceBusyException(String verapdfUrl) {
+            super("Validation service " + verapdfUrl + " is busy with another job");
+        }
     }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ var URL = "/api/";
 $(document).ready(function() {
     document.getElementById("date_input").value = "01-01-2015";
     $("input:button").click(main);
+    $("#previous_page").click(function() { return showPage(pageIndex - 1); });
+    $("#next_page").click(function() { return showPage(pageIndex + 1); });
 
     var picker = new Pikaday(
     {
@@ -48,7 +50,7 @@ function main() {
         async:false,
         headers: {"Content-type":"application/json"}, data:postData,
         success: function(result){
-           loadAllJobs()
+           showPage(0)
         },
         error: function(result) {
                 reportError("Error on job creation");
@@ -67,15 +69,39 @@ function appendCrawlJob(id, url) {
     ul.appendChild(li);
 }
 
-function loadAllJobs() {
-    $.ajax({url: URL + "info/list",
+// Cursors of the shown page and the pages before it, the first page has none
+var pageCursors = [null];
+var pageIndex = 0;
+var reloadTimer;
+
+function showPage(index) {
+    pageIndex = index;
+    loadAllJobs(true);
+    return false;
+}
+
+function loadAllJobs(isPageChanged) {
+    clearTimeout(reloadTimer);
+    var cursor = pageCursors[pageIndex];
+    // Unchanged list is answered with 304 and result is undefined, a page opened again has to be shown anyway
+    $.ajax({url: URL + "info/batch_jobs" + (cursor ? "?after=" + encodeURIComponent(cursor) : ""),
             type:"GET",
+            ifModified: isPageChanged !== true,
             success: function(result){
-                $("#crawl_url_list").empty();
-                result.forEach(function(item, i, arr){
-                    appendCrawlJob(item.id, item.crawlURL + " - " + item.status)
-                });
-                setTimeout(loadAllJobs, 3000);
+                if(result) {
+                    $("#crawl_url_list").empty();
+                    result.batchJobs.forEach(function(item, i, arr){
+                        appendCrawlJob(item.id, item.crawlJobs.length + " domain(s) created " + item.createdTime +
+                            " - " + (item.finished ? "finished" : "running"))
+                    });
+                    pageCursors.length = pageIndex + 1;
+                    if(result.nextCursor) {
+                        pageCursors.push(result.nextCursor);
+                    }
+                    $("#previous_page").toggle(pageIndex > 0);
+                    $("#next_page").toggle(pageCursors.length > pageIndex + 1);
+                }
+                reloadTimer = setTimeout(loadAllJobs, 3000);
             },
             error: function(result) {
                 reportError("Error on job loading");
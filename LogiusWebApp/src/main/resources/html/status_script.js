@@ -1,60 +1,95 @@
 var URL = "../api/";
 
+// Reports of crawl jobs of the batch by crawl job id, updated by progress events
+var reports = {};
+
+function isFinished(status) {
+    return status && (status.includes("finished") || status.includes("aborted"));
+}
+
+function showStatus(jobId) {
+    var urls = [];
+    var statuses = [];
+    var crawled = 0;
+    var valid = 0;
+    var total = 0;
+    var odf = 0;
+    var office = 0;
+    var startTime;
+    var finishTime;
+    var isBatchFinished = Object.keys(reports).length > 0;
+    for (var id in reports) {
+        var result = reports[id];
+        urls.push(result.url);
+        if(undefined != result.queuePosition && result.queuePosition > 0)
+            statuses.push(result.status + ", position in launch queue is " + result.queuePosition);
+        else if(result.pausedReason)
+            statuses.push(result.status + " until validation catches up (" + result.pausedReason + ")");
+        else
+            statuses.push(result.status);
+        if(undefined != result.numberOfCrawledUrls)
+            crawled += result.numberOfCrawledUrls;
+        if(result.pdfStatistics) {
+            valid += result.pdfStatistics.numberOfValidPdfDocuments;
+            total += result.pdfStatistics.numberOfInvalidPdfDocuments + result.pdfStatistics.numberOfValidPdfDocuments;
+        }
+        odf += result.numberOfODFDocuments;
+        office += result.numberOfOfficeDocuments;
+        if(!startTime)
+            startTime = result.startTime;
+        finishTime = result.finishTime;
+        isBatchFinished = isBatchFinished && isFinished(result.status);
+    }
+    $("#start_time").text("Job started on " + startTime);
+    $("#status").text("Job is " + statuses.join(", "));
+    $("#crawl_url").text("Crawling url " + urls.join(", "));
+    $("#number_of_crawled_urls").text(crawled + " urls crawled.");
+    $("#valid").text(valid);
+    $("#total").text(total);
+    $("#odftotal").text(odf);
+    $("#office_total").text(office);
+    if(isBatchFinished) {
+        $("#finish_time").text("Job finished on " + finishTime);
+        $("#email_link").hide();
+        var crawlJobId = Object.keys(reports)[0];
+        $("#ods_report").text("Download report in ODS format");
+        $("#ods_report").attr("href", URL + "report/ods_report/" + jobId + "/" + crawlJobId);
+        $("#ods_report").show();
+    }
+    return isBatchFinished;
+}
+
+function reportError(text) {
+    $("#stats").html("<font color=\"red\">" + text + "</font>");
+    $("#odfs").html("");
+    $("#office").html("");
+}
+
+// Progress is pushed by the server: full snapshot on connect, changed crawl jobs afterwards
 function checkStatus() {
     var jobId = location.search.split("id=")[1];
     $("#email_link").attr("href","email?jobId=" + jobId)
-    $.ajax({url: URL + jobId,
-            type:"GET",
-            async:false,
-	    success: function(result){
-            status = result.status;
-            number = result.numberOfCrawledUrls;
-            crawlUrl = result.url;
-            $("#start_time").text("Job started on " + result.startTime);
-            $("#status").text("Job is " + status);
-            $("#crawl_url").text("Crawling url " + crawlUrl);
-            if(undefined != number)
-                $("#number_of_crawled_urls").text(number + " urls crawled.");
-
-            valid = result.pdfStatistics.numberOfValidPDFs;
-            total = result.pdfStatistics.numberOfInvalidPDFs +
-            result.pdfStatistics.numberOfValidPDFs;
-            $("#valid").text(valid);
-            $("#total").text(total);
-            $("#odftotal").text(result.numberOfODFDocuments);
-            $("#office_total").text(result.numberOfOfficeDocuments);
-            if(status.includes("finished") || status.includes("aborted")) {
-                $("#finish_time").text("Job finished on " + result.finishTime);
-                $("#email_link").hide();
-                $("#ods_report").text("Download report in ODS format");
-                $("#ods_report").attr("href", URL + "report/ods_report/" + jobId);
-                $("#ods_report").show();
-                $.ajax({ url: URL + "report/html_report/" + jobId,
-                        type:"GET",
-                        async:false,
-                        success:function(result) {
-                            $("#ods_report").addClass('hidden-element');
-                            $('#stats').addClass('hidden-element');
-                            $('#office').addClass('hidden-element');
-                            $('#odfs').addClass('hidden-element');
-                            $('#number_of_crawled_urls').addClass('hidden-element');
+    var source = new EventSource(URL + "progress/" + jobId);
+    source.addEventListener("snapshot", function(event) {
+        reports = {};
+        applyReports(source, jobId, JSON.parse(event.data));
+    });
+    source.addEventListener("update", function(event) {
+        applyReports(source, jobId, JSON.parse(event.data));
+    });
+    source.addEventListener("failure", function(event) {
+        source.close();
+        reportError("Error on getting job info.");
+    });
+}
 
-                            $('#html-report').removeClass('hidden-element')
-                            $("#html-report").html(result);
-                        },
-                        error: function(result) {
-                            $("#stats").html("<font color=\"red\">Failed to get HTML job report.</font>");
-                        }});
-            }
-            else {
-                setTimeout(checkStatus, 1000);
-            }
-	    },
-	    error: function(result) {
-            $("#stats").html("<font color=\"red\">Error on getting job info.</font>");
-            $("#odfs").html("");
-            $("#office").html("");
-	    }
-	});
+function applyReports(source, jobId, changed) {
+    changed.forEach(function(report, i, arr) {
+        reports[report.id] = report;
+    });
+    if(showStatus(jobId)) {
+        source.close();
+    }
 }
-window.onload = checkStatus;
\ No newline at end of file
+
+window.onload = checkStatus;
@@ -0,0 +1,316 @@
+package org.verapdf.crawler.app.engine;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.verapdf.crawler.app.configuration.BackpressureSettings;
+import org.verapdf.crawler.app.metrics.PipelineMetrics;
+import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.repository.jobs.CrawlJobDao;
+import org.verapdf.crawler.repository.jobs.ThrottledCrawlJobDao;
+import org.verapdf.crawler.validation.ValidationService;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class BackpressureControllerTest {
+    private final HeritrixClient client = mock(HeritrixClient.class);
+    private final CrawlJobScheduler scheduler = mock(CrawlJobScheduler.class);
+    private final ValidationService validationService = mock(ValidationService.class);
+    private final CrawlJobDao crawlJobDao = mock(CrawlJobDao.class);
+    private final ThrottledCrawlJobDao throttledCrawlJobDao = mock(ThrottledCrawlJobDao.class);
+    private final PipelineMetrics metrics = new PipelineMetrics(new MetricRegistry());
+    private final BackpressureSettings settings = new BackpressureSettings();
+    private final Map<String, CurrentJob> crawlJobs = new HashMap<>();
+    private final Map<String, Integer> queuedDocuments = new HashMap<>();
+    private int queueSize;
+    private long drainSeconds = -1;
+
+    @Before
+    public void setUp() {
+        settings.setQueueHighWatermark(100);
+        settings.setQueueLowWatermark(10);
+        settings.setDrainHighWatermarkSeconds(1000);
+        settings.setDrainLowWatermarkSeconds(500);
+        settings.setJobsPerCheck(1);
+        when(validationService.getQueueSize()).thenAnswer(invocation -> queueSize);
+        when(validationService.getEstimatedDrainSeconds()).thenAnswer(invocation -> drainSeconds);
+        when(validationService.getQueuedDocumentsByCrawlJob()).thenAnswer(invocation -> new HashMap<>(queuedDocuments));
+        when(crawlJobDao.getCrawlJob(anyString())).thenAnswer(invocation -> crawlJobs.get(invocation.<String>getArgument(0)));
+        when(scheduler.getLaunchedJobs()).thenAnswer(invocation -> new HashSet<>(crawlJobs.keySet()));
+        when(throttledCrawlJobDao.getJobs()).thenReturn(Collections.emptyMap());
+        addRunningJob("quiet", 5);
+        addRunningJob("busy", 50);
+    }
+
+    @Test
+    public void nothingIsPausedBelowHighWatermark() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 100;
+
+        controller.check();
+
+        assertFalse(controller.isThrottling());
+        verify(client, never()).pauseJob(anyString());
+        verify(scheduler, never()).setLaunchesHeld(anyBoolean());
+    }
+
+    @Test
+    public void busiestJobIsPausedAboveHighWatermark() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+
+        controller.check();
+
+        assertTrue(controller.isThrottling());
+        verify(scheduler).setLaunchesHeld(true);
+        verify(client).pauseJob("busy");
+        verify(client, never()).pauseJob("quiet");
+        verify(crawlJobDao).setStatus("busy", BackpressureController.STATUS_PAUSED);
+        verify(throttledCrawlJobDao).addJob(eq("busy"), anyString());
+        assertNotNull(controller.getPauseReason("busy"));
+        assertEquals(1, getActions(BackpressureController.ACTION_PAUSE));
+    }
+
+    @Test
+    public void moreJobsArePausedOnlyWhileBacklogGrows() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+
+        controller.check();
+        verify(client, never()).pauseJob("quiet");
+
+        queueSize = 140;
+        controller.check();
+        verify(client, never()).pauseJob("quiet");
+
+        queueSize = 160;
+        controller.check();
+        verify(client).pauseJob("quiet");
+        assertEquals(2, controller.getPausedJobCount());
+    }
+
+    @Test
+    public void drainTimeAboveHighWatermarkPauses() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 50;
+        drainSeconds = 2000;
+
+        controller.check();
+
+        assertTrue(controller.isThrottling());
+        verify(client).pauseJob("busy");
+    }
+
+    @Test
+    public void jobNotInHeritrixIsNotPaused() throws IOException {
+        crawlJobs.get("busy").setStatus(CurrentJob.STATUS_QUEUED);
+        BackpressureController controller = createController();
+        queueSize = 150;
+
+        controller.check();
+
+        verify(client, never()).pauseJob("busy");
+        verify(client).pauseJob("quiet");
+    }
+
+    @Test
+    public void failedPauseMovesToNextJob() throws IOException {
+        doThrow(new IOException("Heritrix is down")).when(client).pauseJob("busy");
+        BackpressureController controller = createController();
+        queueSize = 150;
+
+        controller.check();
+
+        verify(client).pauseJob("quiet");
+        assertNull(controller.getPauseReason("busy"));
+        verify(throttledCrawlJobDao, never()).addJob(eq("busy"), anyString());
+    }
+
+    @Test
+    public void jobsStayPausedBetweenWatermarks() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+
+        queueSize = 50;
+        controller.check();
+
+        assertTrue(controller.isThrottling());
+        verify(client, never()).unpauseJob(anyString());
+        verify(scheduler, never()).setLaunchesHeld(false);
+    }
+
+    @Test
+    public void jobsStayPausedWhileDrainTimeIsHigh() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+
+        queueSize = 5;
+        drainSeconds = 600;
+        controller.check();
+
+        assertTrue(controller.isThrottling());
+        verify(client, never()).unpauseJob(anyString());
+    }
+
+    @Test
+    public void jobsAreResumedInPauseOrderBelowLowWatermarks() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+        queueSize = 160;
+        controller.check();
+
+        queueSize = 5;
+        drainSeconds = 100;
+        controller.check();
+        verify(client).unpauseJob("busy");
+        verify(client, never()).unpauseJob("quiet");
+        assertTrue(controller.isThrottling());
+        verify(scheduler, never()).setLaunchesHeld(false);
+
+        controller.check();
+        InOrder inOrder = inOrder(client, scheduler);
+        inOrder.verify(client).unpauseJob("busy");
+        inOrder.verify(client).unpauseJob("quiet");
+        inOrder.verify(scheduler).setLaunchesHeld(false);
+        assertFalse(controller.isThrottling());
+        assertEquals(0, controller.getPausedJobCount());
+        verify(crawlJobDao).setStatus("quiet", BackpressureController.STATUS_RUNNING);
+        verify(throttledCrawlJobDao).removeJob("busy");
+        verify(throttledCrawlJobDao).removeJob("quiet");
+        assertEquals(2, getActions(BackpressureController.ACTION_RESUME));
+    }
+
+    @Test
+    public void failedResumeIsRetried() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+        doThrow(new IOException("Heritrix is down")).doNothing().when(client).unpauseJob("busy");
+
+        queueSize = 5;
+        controller.check();
+        assertTrue(controller.isThrottling());
+        assertNotNull(controller.getPauseReason("busy"));
+
+        controller.check();
+        assertFalse(controller.isThrottling());
+        verify(client, times(2)).unpauseJob("busy");
+    }
+
+    @Test
+    public void jobTornDownWhilePausedIsReleased() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+
+        tearDown("busy");
+        queueSize = 120;
+        controller.check();
+
+        assertNull(controller.getPauseReason("busy"));
+        verify(throttledCrawlJobDao).removeJob("busy");
+        assertTrue(controller.isThrottling());
+
+        queueSize = 5;
+        controller.check();
+        verify(client, never()).unpauseJob(anyString());
+        assertFalse(controller.isThrottling());
+        verify(scheduler).setLaunchesHeld(false);
+    }
+
+    @Test
+    public void removedJobIsReleased() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+
+        crawlJobs.remove("busy");
+        queuedDocuments.remove("busy");
+        queueSize = 5;
+        controller.check();
+
+        verify(client, never()).unpauseJob(anyString());
+        assertFalse(controller.isThrottling());
+    }
+
+    @Test
+    public void jobsPausedBeforeRestartHoldLaunches() throws IOException {
+        crawlJobs.get("busy").setStatus(BackpressureController.STATUS_PAUSED);
+        when(throttledCrawlJobDao.getJobs()).thenReturn(Collections.singletonMap("busy", "queue is full"));
+
+        BackpressureController controller = createController();
+
+        assertTrue(controller.isThrottling());
+        assertEquals("queue is full", controller.getPauseReason("busy"));
+        verify(scheduler).setLaunchesHeld(true);
+
+        queueSize = 5;
+        controller.check();
+        verify(client).unpauseJob("busy");
+        assertFalse(controller.isThrottling());
+    }
+
+    @Test
+    public void disabledControllerOnlyResumesJobs() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+
+        settings.setEnabled(false);
+        queueSize = 1000;
+        controller.check();
+
+        verify(client, times(1)).pauseJob(anyString());
+        verify(client).unpauseJob("busy");
+        assertFalse(controller.isThrottling());
+    }
+
+    @Test
+    public void releasedJobIsNotResumed() throws IOException {
+        BackpressureController controller = createController();
+        queueSize = 150;
+        controller.check();
+
+        // User resumed the job by hand
+        controller.release("busy");
+        queueSize = 5;
+        controller.check();
+
+        verify(client, never()).unpauseJob(anyString());
+        assertFalse(controller.isThrottling());
+    }
+
+    private BackpressureController createController() {
+        return new BackpressureController(client, scheduler, validationService, crawlJobDao, throttledCrawlJobDao,
+                settings, metrics);
+    }
+
+    private void addRunningJob(String id, int queued) {
+        CurrentJob job = new CurrentJob(id, "", "http://" + id + ".example.com", LocalDateTime.now());
+        job.setStatus(CurrentJob.STATUS_ACTIVE);
+        crawlJobs.put(id, job);
+        queuedDocuments.put(id, queued);
+    }
+
+    private void tearDown(String id) {
+        CurrentJob job = crawlJobs.get(id);
+        CurrentJob result = new CurrentJob(id, "https://localhost:8443/engine/job/" + id, job.getCrawlURL(), job.getStartTime());
+        result.setStatus("finished");
+        crawlJobs.put(id, result);
+    }
+
+    private long getActions(String action) {
+        return metrics.getBackpressureActions(action).getCount();
+    }
+}
@@ -0,0 +1,265 @@
+package org.verapdf.crawler.app.engine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.verapdf.crawler.domain.crawling.CurrentJob;
+import org.verapdf.crawler.domain.crawling.QueuedCrawlJob;
+import org.verapdf.crawler.repository.jobs.CrawlJobDao;
+import org.verapdf.crawler.repository.jobs.CrawlJobQueueDao;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CrawlJobSchedulerTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    private final HeritrixClient client = mock(HeritrixClient.class);
+    private final CrawlJobDao crawlJobDao = mock(CrawlJobDao.class);
+    private final CrawlJobQueueDao crawlJobQueueDao = mock(CrawlJobQueueDao.class);
+    private final Set<String> finishedJobs = Collections.synchronizedSet(new HashSet<>());
+    private CrawlJobScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        when(client.createJobAsync(anyString(), anyList(), any())).thenReturn(CompletableFuture.completedFuture("created"));
+        when(client.buildJobAsync(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        when(client.launchJobAsync(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        when(client.isJobFinishedAsync(anyString()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(finishedJobs.contains(invocation.<String>getArgument(0))));
+        when(crawlJobDao.getRunningJobs()).thenReturn(Collections.emptyList());
+        when(crawlJobQueueDao.getQueuedJobs()).thenReturn(Collections.emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void batchesAreServedRoundRobin() {
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 10);
+        scheduler.enqueue(Arrays.asList(job("a1", "a"), job("a2", "a"), job("a3", "a")));
+        scheduler.enqueue(Collections.singletonList(job("b1", "b")));
+        scheduler.enqueue(Arrays.asList(job("c1", "c"), job("c2", "c")));
+
+        assertEquals(Arrays.asList("a1", "b1", "c1", "a2", "c2", "a3"), getQueueIds());
+        assertEquals(5, scheduler.getQueuePosition("c2"));
+        assertEquals(0, scheduler.getQueuePosition("unknown"));
+
+        scheduler.schedule();
+
+        InOrder inOrder = inOrder(client);
+        for (String id : Arrays.asList("a1", "b1", "c1", "a2", "c2", "a3")) {
+            inOrder.verify(client).createJobAsync(eq(id), anyList(), any());
+        }
+        assertTrue(scheduler.getQueue().isEmpty());
+        verify(crawlJobQueueDao, times(3)).addJobs(anyList());
+    }
+
+    @Test
+    public void launchesStopAtMaxActiveJobs() {
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 2);
+        scheduler.enqueue(Arrays.asList(job("a1", "a"), job("a2", "a"), job("a3", "a")));
+
+        scheduler.schedule();
+
+        verify(client).createJobAsync(eq("a1"), anyList(), any());
+        verify(client).createJobAsync(eq("a2"), anyList(), any());
+        verify(client, never()).createJobAsync(eq("a3"), anyList(), any());
+        assertEquals(2, scheduler.getActiveJobCount());
+        assertEquals(1, scheduler.getQueuePosition("a3"));
+    }
+
+    @Test
+    public void launchedJobIsRecorded() {
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 1);
+        scheduler.enqueue(Collections.singletonList(new QueuedCrawlJob("a1", "a",
+                Collections.singletonList("http://a1.example.com"), "profile")));
+
+        scheduler.schedule();
+        awaitLaunched("a1");
+
+        InOrder inOrder = inOrder(client, crawlJobDao, crawlJobQueueDao);
+        inOrder.verify(client).createJobAsync("a1", Collections.singletonList("http://a1.example.com"), "profile");
+        inOrder.verify(client).buildJobAsync("a1");
+        inOrder.verify(client).launchJobAsync("a1");
+        inOrder.verify(crawlJobDao).setJobLaunched("a1");
+        inOrder.verify(crawlJobQueueDao).removeJob("a1");
+    }
+
+    @Test
+    public void finishedJobReleasesSlot() {
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 1);
+        scheduler.enqueue(Arrays.asList(job("a1", "a"), job("a2", "a")));
+        scheduler.schedule();
+        awaitLaunched("a1");
+
+        scheduler.schedule();
+        verify(client, never()).createJobAsync(eq("a2"), anyList(), any());
+
+        finishedJobs.add("a1");
+        scheduler.schedule();
+
+        verify(client).createJobAsync(eq("a2"), anyList(), any());
+        assertEquals(1, scheduler.getActiveJobCount());
+    }
+
+    @Test
+    public void jobIsNotCheckedWhileLaunching() {
+        CompletableFuture<Void> launch = new CompletableFuture<>();
+        when(client.launchJobAsync("a1")).thenReturn(launch);
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 1);
+        scheduler.enqueue(Collections.singletonList(job("a1", "a")));
+        scheduler.schedule();
+
+        scheduler.schedule();
+
+        verify(client, never()).isJobFinishedAsync("a1");
+        assertTrue(scheduler.getLaunchedJobs().isEmpty());
+        assertEquals(1, scheduler.getActiveJobCount());
+        launch.complete(null);
+        awaitLaunched("a1");
+    }
+
+    @Test
+    public void failedLaunchFreesSlot() {
+        CompletableFuture<String> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new IOException("Heritrix is down"));
+        when(client.createJobAsync(eq("a1"), anyList(), any())).thenReturn(failure);
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 1);
+        scheduler.enqueue(Arrays.asList(job("a1", "a"), job("a2", "a")));
+
+        scheduler.schedule();
+
+        verify(crawlJobDao, timeout(TIMEOUT_MS)).writeFinishTime("a1");
+        verify(crawlJobDao).setStatus("a1", CurrentJob.STATUS_FAILED);
+        verify(crawlJobDao, never()).setJobLaunched("a1");
+        verify(client, never()).buildJobAsync("a1");
+        verify(crawlJobQueueDao, timeout(TIMEOUT_MS)).removeJob("a1");
+        awaitActiveJobCount(0);
+
+        scheduler.schedule();
+        verify(client).createJobAsync(eq("a2"), anyList(), any());
+    }
+
+    @Test
+    public void cancelledJobIsNotLaunched() {
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 10);
+        scheduler.enqueue(Arrays.asList(job("a1", "a"), job("a2", "a")));
+
+        assertTrue(scheduler.cancel("a2"));
+        assertFalse(scheduler.cancel("a2"));
+        assertFalse(scheduler.cancel("unknown"));
+
+        verify(crawlJobQueueDao).removeJob("a2");
+        verify(crawlJobDao).setStatus("a2", CurrentJob.STATUS_CANCELLED);
+        verify(crawlJobDao).writeFinishTime("a2");
+        verify(crawlJobDao, never()).setStatus(eq("unknown"), anyString());
+        assertEquals(Collections.singletonList("a1"), getQueueIds());
+
+        scheduler.schedule();
+        verify(client, never()).createJobAsync(eq("a2"), anyList(), any());
+    }
+
+    @Test
+    public void cancelOfLastJobRemovesBatchFromRound() {
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 10);
+        scheduler.enqueue(Collections.singletonList(job("a1", "a")));
+        scheduler.enqueue(Arrays.asList(job("b1", "b"), job("b2", "b")));
+
+        scheduler.cancel("a1");
+
+        assertEquals(Arrays.asList("b1", "b2"), getQueueIds());
+    }
+
+    @Test
+    public void heldLaunchesWaitForRelease() {
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 10);
+        scheduler.enqueue(Collections.singletonList(job("a1", "a")));
+        scheduler.setLaunchesHeld(true);
+
+        scheduler.schedule();
+        verify(client, never()).createJobAsync(anyString(), anyList(), any());
+        assertTrue(scheduler.areLaunchesHeld());
+
+        scheduler.setLaunchesHeld(false);
+        scheduler.schedule();
+        verify(client).createJobAsync(eq("a1"), anyList(), any());
+    }
+
+    @Test
+    public void stateIsRestoredFromDatabase() {
+        CurrentJob running = new CurrentJob("r1", "", "http://r1.example.com", LocalDateTime.now());
+        running.setStatus(CurrentJob.STATUS_ACTIVE);
+        when(crawlJobDao.getRunningJobs()).thenReturn(Collections.singletonList(running));
+        when(crawlJobQueueDao.getQueuedJobs()).thenReturn(Arrays.asList(job("a1", "a"), job("a2", "a"), job("b1", "b")));
+
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 1);
+
+        assertEquals(Arrays.asList("a1", "b1", "a2"), getQueueIds());
+        assertEquals(Collections.singleton("r1"), scheduler.getLaunchedJobs());
+        // Job launched before restart keeps its slot until Heritrix reports it finished
+        scheduler.schedule();
+        verify(client, never()).createJobAsync(anyString(), anyList(), any());
+
+        finishedJobs.add("r1");
+        scheduler.schedule();
+        verify(client).createJobAsync(eq("a1"), anyList(), any());
+        verify(crawlJobQueueDao, never()).addJobs(anyList());
+    }
+
+    @Test
+    public void jobFinishedReleasesSlotWithoutStatusCheck() {
+        scheduler = new CrawlJobScheduler(client, crawlJobDao, crawlJobQueueDao, 1);
+        scheduler.enqueue(Arrays.asList(job("a1", "a"), job("a2", "a")));
+        scheduler.schedule();
+        awaitLaunched("a1");
+
+        scheduler.jobFinished("a1");
+        scheduler.jobFinished("unknown");
+
+        assertEquals(0, scheduler.getActiveJobCount());
+        scheduler.schedule();
+        verify(client).createJobAsync(eq("a2"), anyList(), any());
+    }
+
+    private static QueuedCrawlJob job(String crawlJobId, String batchJobId) {
+        return new QueuedCrawlJob(crawlJobId, batchJobId, Collections.singletonList("http://" + crawlJobId + ".example.com"), null);
+    }
+
+    private List<String> getQueueIds() {
+        List<String> result = new ArrayList<>();
+        for (QueuedCrawlJob job : scheduler.getQueue()) {
+            result.add(job.getCrawlJobId());
+        }
+        return result;
+    }
+
+    // Launch results are recorded on the launcher thread
+    private void awaitLaunched(String crawlJobId) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!scheduler.getLaunchedJobs().contains(crawlJobId) && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertTrue(scheduler.getLaunchedJobs().contains(crawlJobId));
+        verify(crawlJobDao, timeout(TIMEOUT_MS)).setJobLaunched(crawlJobId);
+    }
+
+    private void awaitActiveJobCount(int count) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (scheduler.getActiveJobCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(count, scheduler.getActiveJobCount());
+    }
+}
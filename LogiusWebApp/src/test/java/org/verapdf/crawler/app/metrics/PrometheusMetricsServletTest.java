@@ -0,0 +1,88 @@
+package org.verapdf.crawler.app.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PrometheusMetricsServletTest {
+    private final MetricRegistry registry = new MetricRegistry();
+
+    @Test
+    public void histogramIsWrittenAsSummaryWithSum() {
+        registry.histogram("logius.batch.size").update(10);
+        registry.histogram("logius.batch.size").update(30);
+
+        List<String> lines = scrape();
+
+        assertTrue(lines.contains("# TYPE logius_batch_size summary"));
+        assertTrue(lines.contains("logius_batch_size_sum 40.0"));
+        assertTrue(lines.contains("logius_batch_size_count 2"));
+    }
+
+    @Test
+    public void timerSumIsInSeconds() {
+        registry.timer("logius.validation").update(2, TimeUnit.SECONDS);
+        registry.timer("logius.validation").update(500, TimeUnit.MILLISECONDS);
+
+        List<String> lines = scrape();
+
+        assertTrue(lines.contains("# TYPE logius_validation_seconds summary"));
+        assertTrue(lines.contains("logius_validation_seconds_sum 2.5"));
+        assertTrue(lines.contains("logius_validation_seconds_count 2"));
+        assertTrue(lines.contains("# TYPE logius_validation_seconds_m1_rate gauge"));
+    }
+
+    @Test
+    public void collidingNamesAreWrittenOnce() {
+        registry.counter("logius.documents").inc(1);
+        registry.counter("logius_documents").inc(2);
+        registry.register("logius-documents", (Gauge<Integer>) () -> 3);
+
+        List<String> lines = scrape();
+
+        assertEquals(1, Collections.frequency(lines, "# TYPE logius_documents gauge"));
+        // Gauges are written first
+        assertTrue(lines.contains("logius_documents 3.0"));
+        assertUniqueTypes(lines);
+    }
+
+    @Test
+    public void summaryCollidingWithGaugeIsSkipped() {
+        registry.counter("logius.size_count").inc();
+        registry.histogram("logius.size").update(1);
+        registry.meter("logius.requests").mark();
+        registry.counter("logius.requests_total").inc();
+
+        List<String> lines = scrape();
+
+        assertFalse(lines.contains("# TYPE logius_size summary"));
+        assertTrue(lines.contains("logius_size_count 1.0"));
+        assertFalse(lines.contains("# TYPE logius_requests_total counter"));
+        assertFalse(lines.contains("# TYPE logius_requests_m1_rate gauge"));
+        assertUniqueTypes(lines);
+    }
+
+    private List<String> scrape() {
+        StringWriter result = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(result)) {
+            new PrometheusMetricsServlet(registry).write(writer);
+        }
+        return Arrays.asList(result.toString().split("\\R"));
+    }
+
+    private static void assertUniqueTypes(List<String> lines) {
+        Set<String> names = new HashSet<>();
+        for (String line : lines) {
+            if (line.startsWith("# TYPE ")) {
+                assertTrue(line, names.add(line.split(" ")[2]));
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.verapdf.crawler.app.resources;
+
+import org.junit.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.verapdf.crawler.domain.report.BulkIngestResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BulkNotificationReaderTest {
+    private static final int BATCH_SIZE = 3;
+
+    // Copies of the batches handed to the writer, the reader reuses its list
+    private final List<List<String>> batches = new ArrayList<>();
+    private final Set<String> failingUrls = new HashSet<>();
+
+    @Test
+    public void linesAreWrittenInBatches() throws IOException {
+        BulkIngestResult result = read(url("a"), url("b"), url("c"), url("d"));
+
+        assertEquals(4, result.getAccepted());
+        assertEquals(0, result.getRejected());
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Collections.singletonList("d")), batches);
+    }
+
+    @Test
+    public void trailingPartialBatchIsWritten() throws IOException {
+        BulkIngestResult result = read(url("a"), url("b"), url("c"), url("d"), url("e") + "\n\n");
+
+        assertEquals(5, result.getAccepted());
+        assertEquals(Arrays.asList("d", "e"), batches.get(1));
+        assertEquals(2, batches.size());
+    }
+
+    @Test
+    public void blankLinesAreSkippedButCounted() throws IOException {
+        BulkIngestResult result = read("", url("a"), "   ", "{\"url\":", url("b"));
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        // Line numbers match the body, blank lines included
+        assertEquals(Collections.singletonList(4), result.getRejectedLines());
+    }
+
+    @Test
+    public void malformedLinesAreRejected() throws IOException {
+        BulkIngestResult result = read(
+                url("a"),
+                "not json",
+                "[\"http://example.com/b.pdf\"]",
+                "{\"url\":\"http://example.com/c.pdf\"",
+                url("d") + " " + url("e"),
+                "{\"size\":10}",
+                url("f"));
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(5, result.getRejected());
+        assertEquals(Arrays.asList(2, 3, 4, 5, 6), result.getRejectedLines());
+        assertEquals(Collections.singletonList(Arrays.asList("a", "f")), batches);
+    }
+
+    @Test
+    public void nestedValuesAreSkipped() throws IOException {
+        BulkIngestResult result = read("{\"url\":\"http://example.com/a.pdf\",\"headers\":{\"url\":\"x\"},\"tags\":[1,2]}");
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(Collections.singletonList(Collections.singletonList("a")), batches);
+    }
+
+    @Test
+    public void failedBatchRejectsItsLines() throws IOException {
+        failingUrls.add("e");
+
+        BulkIngestResult result = read(url("a"), url("b"), url("c"), url("d"), "", "broken", url("e"), url("f"), url("g"));
+
+        assertEquals(4, result.getAccepted());
+        assertEquals(4, result.getRejected());
+        // Malformed line is counted once, the failed batch contains only the parsed lines
+        assertEquals(Arrays.asList(6, 4, 7, 8), result.getRejectedLines());
+        assertEquals(Arrays.asList("a", "b", "c"), batches.get(0));
+        assertEquals(Collections.singletonList("g"), batches.get(1));
+    }
+
+    @Test
+    public void failedTrailingBatchRejectsItsLines() throws IOException {
+        failingUrls.add("d");
+
+        BulkIngestResult result = read(url("a"), url("b"), url("c"), url("d"));
+
+        assertEquals(3, result.getAccepted());
+        assertEquals(Collections.singletonList(4), result.getRejectedLines());
+    }
+
+    @Test
+    public void emptyBodyIsAccepted() throws IOException {
+        BulkIngestResult result = read();
+
+        assertEquals(0, result.getAccepted());
+        assertEquals(0, result.getRejected());
+        assertTrue(batches.isEmpty());
+    }
+
+    private BulkIngestResult read(String... lines) throws IOException {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return BulkNotificationReader.read(new ByteArrayInputStream(body), BATCH_SIZE,
+                BulkNotificationReaderTest::toName, batch -> {
+                    for (String name : batch) {
+                        if (failingUrls.contains(name)) {
+                            throw new DataRetrievalFailureException("Insert of " + name + " failed");
+                        }
+                    }
+                    batches.add(new ArrayList<>(batch));
+                });
+    }
+
+    // Same contract as the converters of ControlResource
+    private static String toName(Map<String, String> fields) {
+        String url = fields.get("url");
+        if (url == null) {
+            throw new IllegalArgumentException("Notification has no url");
+        }
+        return url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+    }
+
+    private static String url(String name) {
+        return "{\"url\":\"http://example.com/" + name + ".pdf\"}";
+    }
+}
@@ -0,0 +1,147 @@
+package org.verapdf.crawler.repository;
+
+import org.junit.Test;
+import org.verapdf.crawler.app.configuration.CacheSettings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ReadThroughCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void loadedValueIsServedFromCache() {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(), ArrayList::new);
+
+        assertEquals(Collections.singletonList("row"), cache.get("key", () -> load("row")));
+        assertEquals(Collections.singletonList("row"), cache.get("key", () -> load("other")));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void callersGetOwnCopy() {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(), ArrayList::new);
+        List<String> first = cache.get("key", () -> load("row"));
+        first.add("changed");
+
+        List<String> second = cache.get("key", () -> load("other"));
+
+        assertNotSame(first, second);
+        assertEquals(Collections.singletonList("row"), second);
+    }
+
+    @Test
+    public void missingRowIsNotCached() {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(), ArrayList::new);
+
+        assertNull(cache.get("key", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals(Collections.singletonList("row"), cache.get("key", () -> load("row")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidatedValueIsLoadedAgain() {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(), ArrayList::new);
+        cache.get("key", () -> load("old"));
+
+        cache.invalidate("key");
+
+        assertEquals(Collections.singletonList("new"), cache.get("key", () -> load("new")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidateAllDropsEveryValue() {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(), ArrayList::new);
+        cache.get("first", () -> load("old"));
+        cache.get("second", () -> load("old"));
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.getSize());
+        assertEquals(Collections.singletonList("new"), cache.get("first", () -> load("new")));
+        assertEquals(Collections.singletonList("new"), cache.get("second", () -> load("new")));
+    }
+
+    @Test
+    public void valueLoadedAcrossInvalidationIsNotStored() {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(), ArrayList::new);
+
+        // Row is updated after it was read but before the read value is stored
+        List<String> stale = cache.get("key", () -> {
+            List<String> result = load("old");
+            cache.invalidate("key");
+            return result;
+        });
+
+        assertEquals(Collections.singletonList("old"), stale);
+        assertEquals(0, cache.getSize());
+        assertEquals(Collections.singletonList("new"), cache.get("key", () -> load("new")));
+    }
+
+    @Test
+    public void invalidationOfOtherKeyDuringLoadSkipsStore() {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(), ArrayList::new);
+
+        cache.get("key", () -> {
+            List<String> result = load("row");
+            cache.invalidateAll();
+            return result;
+        });
+
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void concurrentUpdateDuringLoadIsNotHidden() throws Exception {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(), ArrayList::new);
+        CountDownLatch isRead = new CountDownLatch(1);
+        CountDownLatch isUpdated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<String>> reader = executor.submit(() -> cache.get("key", () -> {
+                List<String> result = load("old");
+                isRead.countDown();
+                try {
+                    isUpdated.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return result;
+            }));
+            assertTrue(isRead.await(10, TimeUnit.SECONDS));
+            // Writer updates the row and invalidates while the reader holds the old value
+            cache.invalidate("key");
+            isUpdated.countDown();
+
+            assertEquals(Collections.singletonList("old"), reader.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(Collections.singletonList("new"), cache.get("key", () -> load("new")));
+    }
+
+    @Test
+    public void zeroSizeDisablesCaching() {
+        ReadThroughCache<List<String>> cache = new ReadThroughCache<>(new CacheSettings(0, 0), ArrayList::new);
+
+        assertEquals(Collections.singletonList("first"), cache.get("key", () -> load("first")));
+        assertEquals(Collections.singletonList("second"), cache.get("key", () -> load("second")));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getSize());
+    }
+
+    private List<String> load(String value) {
+        loads.incrementAndGet();
+        return new ArrayList<>(Collections.singletonList(value));
+    }
+}
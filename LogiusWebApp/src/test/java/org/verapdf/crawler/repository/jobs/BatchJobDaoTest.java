@@ -0,0 +1,73 @@
+package org.verapdf.crawler.repository.jobs;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchJobDaoTest {
+    private static final String ID = "0f8fad5b-d9cb-469f-a165-70867728950e";
+
+    @Test
+    public void cursorIsCreationTimeAndId() {
+        String cursor = BatchJobDao.formatCursor(LocalDateTime.of(2017, 3, 9, 14, 5, 7), ID);
+
+        assertEquals("20170309140507_" + ID, cursor);
+    }
+
+    @Test
+    public void formattedCursorIsParsedBack() {
+        LocalDateTime createdTime = LocalDateTime.of(2017, 12, 31, 23, 59, 59);
+        String cursor = BatchJobDao.formatCursor(createdTime, ID);
+
+        assertEquals(createdTime, BatchJobDao.getCursorTime(cursor));
+        assertEquals(ID, BatchJobDao.getCursorId(cursor));
+    }
+
+    @Test
+    public void cursorTimeIsTruncatedToSeconds() {
+        String cursor = BatchJobDao.formatCursor(LocalDateTime.of(2017, 3, 9, 14, 5, 7, 999000000), ID);
+
+        assertEquals(LocalDateTime.of(2017, 3, 9, 14, 5, 7), BatchJobDao.getCursorTime(cursor));
+    }
+
+    @Test
+    public void separatorInIdIsKept() {
+        String cursor = "20170309140507_batch_1";
+
+        assertEquals(LocalDateTime.of(2017, 3, 9, 14, 5, 7), BatchJobDao.getCursorTime(cursor));
+        assertEquals("batch_1", BatchJobDao.getCursorId(cursor));
+    }
+
+    @Test
+    public void emptyIdIsKept() {
+        assertEquals("", BatchJobDao.getCursorId("20170309140507_"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cursorWithoutSeparatorIsRejected() {
+        BatchJobDao.getCursorTime("20170309140507");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void idOfCursorWithoutSeparatorIsRejected() {
+        BatchJobDao.getCursorId(ID);
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void cursorWithInvalidTimeIsRejected() {
+        BatchJobDao.getCursorTime("2017-03-09_" + ID);
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void cursorWithImpossibleDateIsRejected() {
+        BatchJobDao.getCursorTime("20171332140507_" + ID);
+    }
+
+    @Test(expected = DateTimeParseException.class)
+    public void cursorWithEmptyTimeIsRejected() {
+        BatchJobDao.getCursorTime("_" + ID);
+    }
+}
@@ -0,0 +1,144 @@
+package org.verapdf.crawler.validation;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PDFTriageScannerTest {
+    private static final String PDFA_ATTRIBUTES = "<rdf:Description pdfaid:part=\"1\" pdfaid:conformance=\"B\"/>\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void claimedPdfaIsValidated() throws IOException {
+        TriageResult result = scan("%PDF-1.4\n", PDFA_ATTRIBUTES, "trailer << /Root 1 0 R >>\n%%EOF\n");
+        assertEquals(TriageResult.Verdict.VALIDATE, result.getVerdict());
+        assertEquals("1.4", result.getPdfVersion());
+        assertEquals("1", result.getPdfaPart());
+        assertEquals("B", result.getPdfaConformance());
+    }
+
+    @Test
+    public void headerAfterGarbageIsFound() throws IOException {
+        TriageResult result = scan(repeat('x', 900), "%PDF-1.7\n", PDFA_ATTRIBUTES, "%%EOF\n");
+        assertEquals(TriageResult.Verdict.VALIDATE, result.getVerdict());
+        assertEquals("1.7", result.getPdfVersion());
+    }
+
+    @Test
+    public void headerBeyondHeaderWindowIsBroken() throws IOException {
+        TriageResult result = scan(repeat('x', 2048), "%PDF-1.7\n", PDFA_ATTRIBUTES, "%%EOF\n");
+        assertEquals(TriageResult.Verdict.BROKEN, result.getVerdict());
+        assertNull(result.getPdfVersion());
+    }
+
+    @Test
+    public void missingEndOfFileMarkerIsBroken() throws IOException {
+        TriageResult result = scan("%PDF-1.4\n", PDFA_ATTRIBUTES, "trailer << /Root 1 0 R >>\n");
+        assertEquals(TriageResult.Verdict.BROKEN, result.getVerdict());
+        assertEquals("1.4", result.getPdfVersion());
+    }
+
+    @Test
+    public void endOfFileMarkerBeforeTrailingGarbageIsFound() throws IOException {
+        TriageResult result = scan("%PDF-1.4\n", PDFA_ATTRIBUTES, "%%EOF\n", repeat('\0', 512));
+        assertEquals(TriageResult.Verdict.VALIDATE, result.getVerdict());
+    }
+
+    @Test
+    public void encryptionKeyInTrailerIsEncrypted() throws IOException {
+        TriageResult result = scan("%PDF-1.4\n", PDFA_ATTRIBUTES, "trailer << /Encrypt 5 0 R >>\n%%EOF\n");
+        assertEquals(TriageResult.Verdict.ENCRYPTED, result.getVerdict());
+    }
+
+    @Test
+    public void encryptionKeyInLinearizedHeaderIsEncrypted() throws IOException {
+        // First page trailer of a linearized file is far from the end of the file
+        TriageResult result = scan("%PDF-1.6\n", "1 0 obj << /Linearized 1 >> endobj\n",
+                "trailer << /Encrypt 5 0 R /Prev 100 >>\n", PDFA_ATTRIBUTES, repeat(' ', 128 * 1024), "%%EOF\n");
+        assertEquals(TriageResult.Verdict.ENCRYPTED, result.getVerdict());
+    }
+
+    @Test
+    public void encryptionKeyInXRefStreamIsEncrypted() throws IOException {
+        TriageResult result = scan("%PDF-1.5\n", PDFA_ATTRIBUTES,
+                "9 0 obj\n<< /Type/XRef /Size 10 /W [1 2 1] /Encrypt 8 0 R /ID [<0a1b> <0a1b>] >>\nstream\n\u0001\u0002\nendstream\nendobj\n",
+                "startxref\n100\n%%EOF\n");
+        assertEquals(TriageResult.Verdict.ENCRYPTED, result.getVerdict());
+    }
+
+    @Test
+    public void encryptionKeyAfterStringWithDelimitersIsEncrypted() throws IOException {
+        TriageResult result = scan("%PDF-1.4\n", PDFA_ATTRIBUTES,
+                "trailer\n<< /Info (a >> b \\) c) /ID [<0a1b> <0a1b>] % comment >>\n/Encrypt 5 0 R >>\n%%EOF\n");
+        assertEquals(TriageResult.Verdict.ENCRYPTED, result.getVerdict());
+    }
+
+    @Test
+    public void encryptionKeyOutsideOfTrailerIsNotEncrypted() throws IOException {
+        // Uncompressed content stream and a string of an annotation mention the key
+        TriageResult result = scan("%PDF-1.4\n", PDFA_ATTRIBUTES,
+                "4 0 obj << /Length 44 >>\nstream\nBT (<< /Encrypt 5 0 R >>) Tj ET /Encrypt 5 0 R\nendstream\nendobj\n",
+                "6 0 obj << /Type /Annot /Contents (/Encrypt) >> endobj\n",
+                "7 0 obj << /Type /ObjStm /Encrypt 5 0 R >> endobj\n",
+                "trailer << /Root 1 0 R /Info << /Encrypt 5 0 R >> /Size 8 >>\n%%EOF\n");
+        assertEquals(TriageResult.Verdict.VALIDATE, result.getVerdict());
+    }
+
+    @Test
+    public void pdfaIdentificationAsElementsIsRead() throws IOException {
+        TriageResult result = scan("%PDF-1.4\n", "<rdf:Description>\n<pdfaid:part>2</pdfaid:part>\n",
+                "<pdfaid:conformance>U</pdfaid:conformance>\n</rdf:Description>\n", "%%EOF\n");
+        assertEquals(TriageResult.Verdict.VALIDATE, result.getVerdict());
+        assertEquals("2", result.getPdfaPart());
+        assertEquals("U", result.getPdfaConformance());
+    }
+
+    @Test
+    public void pdfaIdentificationAsAttributesWithSpacesIsRead() throws IOException {
+        TriageResult result = scan("%PDF-1.4\n", "<rdf:Description pdfaid:part = '3' pdfaid:conformance = 'A'/>\n", "%%EOF\n");
+        assertEquals("3", result.getPdfaPart());
+        assertEquals("A", result.getPdfaConformance());
+    }
+
+    @Test
+    public void pdfaPartWithoutValueIsSkipped() throws IOException {
+        // Name mentioned outside of a property carries no value
+        TriageResult result = scan("%PDF-1.4\n", "<!-- pdfaid:part is set below -->\n", PDFA_ATTRIBUTES, "%%EOF\n");
+        assertEquals("1", result.getPdfaPart());
+    }
+
+    @Test
+    public void fileWithoutPdfaIdentificationIsNotPdfa() throws IOException {
+        TriageResult result = scan("%PDF-1.4\n", "<rdf:Description dc:format=\"application/pdf\"/>\n", "%%EOF\n");
+        assertEquals(TriageResult.Verdict.NOT_PDFA, result.getVerdict());
+        assertNull(result.getPdfaPart());
+    }
+
+    @Test
+    public void emptyFileIsBroken() throws IOException {
+        assertEquals(TriageResult.Verdict.BROKEN, scan().getVerdict());
+    }
+
+    private TriageResult scan(String... parts) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), String.join("", parts).getBytes(StandardCharsets.ISO_8859_1));
+        return PDFTriageScanner.scan(file.getAbsolutePath());
+    }
+
+    private static String repeat(char c, int count) {
+        char[] result = new char[count];
+        Arrays.fill(result, c);
+        return new String(result);
+    }
+}
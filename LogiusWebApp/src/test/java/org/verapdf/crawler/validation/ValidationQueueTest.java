@@ -0,0 +1,152 @@
+package org.verapdf.crawler.validation;
+
+import org.junit.Test;
+import org.verapdf.crawler.domain.validation.ValidationJobData;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ValidationQueueTest {
+    private long nextId = 1;
+
+    @Test
+    public void flowsShareValidationByWeight() {
+        ValidationQueue queue = new ValidationQueue();
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("heavy", 2);
+        weights.put("light", 1);
+        queue.add(jobs("heavy", 30, 1000), weights::get);
+        queue.add(jobs("light", 30, 1000), weights::get);
+
+        Map<String, Integer> served = poll(queue, 30);
+
+        assertEquals(30, served.get("heavy") + served.get("light"));
+        assertTrue("heavy flow got " + served.get("heavy"), Math.abs(served.get("heavy") - 20) <= 1);
+    }
+
+    @Test
+    public void flowsShareValidationByBytes() {
+        ValidationQueue queue = new ValidationQueue();
+        queue.add(jobs("large", 10, 15 * ValidationQueue.DOCUMENT_COST), job -> 1);
+        queue.add(jobs("small", 40, 0), job -> 1);
+
+        // Large document costs as much as 16 small ones
+        Map<String, Integer> served = poll(queue, 34);
+
+        assertTrue("large flow got " + served.get("large"), Math.abs(served.get("large") - 2) <= 1);
+        assertEquals(34, served.get("large") + served.get("small"));
+    }
+
+    @Test
+    public void smallerFilesOfFlowGoFirst() {
+        ValidationQueue queue = new ValidationQueue();
+        List<ValidationJobData> jobs = new ArrayList<>();
+        jobs.add(job("job", 300));
+        jobs.add(job("job", 100));
+        jobs.add(job("job", 200));
+        jobs.add(job("job", 100));
+        queue.add(jobs, job -> 1);
+
+        assertEquals(2, queue.poll().getId());
+        assertEquals(4, queue.poll().getId());
+        assertEquals(200, queue.poll().getFileSize());
+        assertEquals(300, queue.poll().getFileSize());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void idleFlowGetsNoCredit() {
+        ValidationQueue queue = new ValidationQueue();
+        queue.add(jobs("early", 40, 0), job -> 1);
+        poll(queue, 20);
+        queue.add(jobs("late", 40, 0), job -> 1);
+
+        // Late flow starts at the current virtual time instead of catching up on the 20 served documents
+        Map<String, Integer> served = poll(queue, 20);
+
+        assertTrue("late flow got " + served.get("late"), Math.abs(served.get("late") - 10) <= 1);
+    }
+
+    @Test
+    public void weightIsRequestedOncePerActiveFlow() {
+        ValidationQueue queue = new ValidationQueue();
+        List<String> requests = new ArrayList<>();
+        queue.add(jobs("job", 2, 0), job -> {
+            requests.add(job);
+            return 1;
+        });
+        queue.add(jobs("job", 2, 0), job -> {
+            requests.add(job);
+            return 1;
+        });
+        assertEquals(Collections.singletonList("job"), requests);
+
+        poll(queue, 4);
+        queue.add(jobs("job", 1, 0), job -> {
+            requests.add(job);
+            return 3;
+        });
+        assertEquals(Arrays.asList("job", "job"), requests);
+        assertEquals(3, queue.getFlows().get(0).getWeight());
+    }
+
+    @Test
+    public void nonPositiveWeightCountsAsOne() {
+        ValidationQueue queue = new ValidationQueue();
+        queue.add(jobs("job", 1, 0), job -> 0);
+        assertEquals(1, queue.getFlows().get(0).getWeight());
+    }
+
+    @Test
+    public void flowSnapshotsFollowQueuedJobs() {
+        ValidationQueue queue = new ValidationQueue();
+        queue.add(jobs("job", 3, 100), job -> 1);
+
+        ValidationQueue.FlowSnapshot flow = queue.getFlows().get(0);
+        assertEquals(3, flow.getQueuedDocuments());
+        assertEquals(300, flow.getQueuedBytes());
+        assertEquals(300 + 3 * ValidationQueue.DOCUMENT_COST, flow.getQueuedCost());
+        assertEquals(3, queue.size());
+
+        poll(queue, 3);
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.getFlows().isEmpty());
+    }
+
+    @Test
+    public void pollWaitsForJobs() throws InterruptedException {
+        ValidationQueue queue = new ValidationQueue();
+        assertNull(queue.poll(10));
+
+        Thread producer = new Thread(() -> queue.add(jobs("job", 1, 0), job -> 1));
+        producer.start();
+        assertNotNull(queue.poll(10000));
+        producer.join();
+    }
+
+    private List<ValidationJobData> jobs(String crawlJobId, int count, long fileSize) {
+        List<ValidationJobData> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(job(crawlJobId, fileSize));
+        }
+        return result;
+    }
+
+    private ValidationJobData job(String crawlJobId, long fileSize) {
+        ValidationJobData result = new ValidationJobData();
+        result.setId(nextId++);
+        result.setCrawlJobId(crawlJobId);
+        result.setFileSize(fileSize);
+        return result;
+    }
+
+    // Number of served documents by crawl job
+    private static Map<String, Integer> poll(ValidationQueue queue, int count) {
+        Map<String, Integer> result = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            result.merge(queue.poll().getCrawlJobId(), 1, Integer::sum);
+        }
+        return result;
+    }
+}
@@ -1,12 +1,16 @@
 package org.verapdf.crawler.app;
 
 import io.dropwizard.Application;
-import io.dropwizard.Configuration;
 import io.dropwizard.assets.AssetsBundle;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import org.verapdf.crawler.app.site.DocumentGenerator;
+import org.verapdf.crawler.app.site.SiteResource;
+import org.verapdf.crawler.app.site.SyntheticSite;
 
-public class Sample extends Application<Configuration> {
+import java.io.IOException;
+
+public class Sample extends Application<SampleConfiguration> {
     public static void main(String[] args) throws Exception {
         new Sample().run(args);
     }
@@ -17,13 +21,16 @@ public class Sample extends Application<Configuration> {
     }
 
     @Override
-    public void initialize(Bootstrap<Configuration> bootstrap) {
+    public void initialize(Bootstrap<SampleConfiguration> bootstrap) {
         bootstrap.addBundle(new AssetsBundle("/html", "/", "sample.html"));
     }
 
     @Override
-    public void run(Configuration configuration,
-                    Environment environment) {
+    public void run(SampleConfiguration configuration,
+                    Environment environment) throws IOException {
         environment.jersey().setUrlPattern("/crawl/*");
+        if (configuration.getSite() != null) {
+            environment.jersey().register(new SiteResource(new SyntheticSite(configuration.getSite()), new DocumentGenerator()));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package org.verapdf.crawler.app;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.Configuration;
+import org.verapdf.crawler.app.site.SiteSettings;
+
+public class SampleConfiguration extends Configuration {
+    private SiteSettings site = new SiteSettings();
+
+    @JsonProperty
+    public SiteSettings getSite() {
+        return site;
+    }
+
+    @JsonProperty
+    public void setSite(SiteSettings site) {
+        this.site = site;
+    }
+}
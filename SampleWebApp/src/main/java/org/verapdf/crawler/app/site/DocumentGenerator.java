@@ -0,0 +1,202 @@
+package org.verapdf.crawler.app.site;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes synthetic documents of the requested kind and approximate size. Documents are padded with a filler
+ * generated from the document seed, so they are streamed without holding the whole file in memory.
+ * PDF files are exact in size; zip based formats are padded with a deflated filler and are close to it.
+ * Legacy Office documents are the bundled sample file and have fixed size.
+ */
+public class DocumentGenerator {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String LEGACY_OFFICE_SAMPLE = "/html/word-sample.doc";
+    // Fixed entry time keeps archives byte-identical between requests, as their ETag promises
+    private static final long ZIP_ENTRY_TIME = 1483228800000L;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] legacyOfficeSample;
+
+    public DocumentGenerator() throws IOException {
+        try (InputStream sample = DocumentGenerator.class.getResourceAsStream(LEGACY_OFFICE_SAMPLE)) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = sample.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            legacyOfficeSample = content.toByteArray();
+        }
+    }
+
+    public void write(DocumentKind kind, long size, long seed, OutputStream output) throws IOException {
+        switch (kind) {
+            case PDFA:
+                writePdf(true, size, seed, output);
+                break;
+            case PDF:
+                writePdf(false, size, seed, output);
+                break;
+            case ODF:
+                writeOdf(size, seed, output);
+                break;
+            case OOXML:
+                writeOoxml(size, seed, output);
+                break;
+            default:
+                output.write(legacyOfficeSample);
+        }
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    // One page PDF with XMP metadata and an unreferenced filler stream; the filler is hex text,
+    // so it never contains markers looked for by Logius triage
+    private static void writePdf(boolean isPdfA, long size, long seed, OutputStream output) throws IOException {
+        String metadata = "<?xpacket begin=\"\" id=\"W5M0MpCehiHzreSzNTczkc9d\"?>\n" +
+                "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"><rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">\n" +
+                "<rdf:Description rdf:about=\"\" xmlns:dc=\"http://purl.org/dc/elements/1.1/\"" +
+                (isPdfA ? " xmlns:pdfaid=\"http://www.aiim.org/pdfa/ns/id/\" pdfaid:part=\"1\" pdfaid:conformance=\"B\"" : "") +
+                "><dc:title><rdf:Alt><rdf:li xml:lang=\"x-default\">Document " + seed + "</rdf:li></rdf:Alt></dc:title>" +
+                "</rdf:Description>\n</rdf:RDF></x:xmpmeta>\n<?xpacket end=\"w\"?>";
+        List<String> objects = new ArrayList<>();
+        objects.add("<</Type/Catalog/Pages 2 0 R/Metadata 4 0 R>>");
+        objects.add("<</Type/Pages/Kids[3 0 R]/Count 1>>");
+        objects.add("<</Type/Page/Parent 2 0 R/MediaBox[0 0 595 842]/Resources<<>>>>");
+        objects.add("<</Type/Metadata/Subtype/XML/Length " + metadata.length() + ">>\nstream\n" + metadata + "\nendstream");
+
+        long fillerSize = 0;
+        String head = null;
+        String tail = null;
+        // Length of the filler changes offsets in the xref table, so it is fitted until the size settles;
+        // at a digit boundary the file may end up a byte off
+        for (int attempt = 0; attempt < 4; attempt++) {
+            StringBuilder builder = new StringBuilder("%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+            List<Integer> offsets = new ArrayList<>();
+            for (int i = 0; i < objects.size(); i++) {
+                offsets.add(builder.length());
+                builder.append(i + 1).append(" 0 obj\n").append(objects.get(i)).append("\nendobj\n");
+            }
+            offsets.add(builder.length());
+            builder.append(objects.size() + 1).append(" 0 obj\n<</Length ").append(fillerSize).append(">>\nstream\n");
+            head = builder.toString();
+            long fillerEnd = head.length() + fillerSize;
+            String fillerObjectEnd = "\nendstream\nendobj\n";
+            builder = new StringBuilder(fillerObjectEnd);
+            builder.append("xref\n0 ").append(offsets.size() + 1).append("\n0000000000 65535 f \n");
+            for (int offset : offsets) {
+                builder.append(String.format("%010d 00000 n \n", offset));
+            }
+            String id = String.format("%032x", seed);
+            builder.append("trailer\n<</Size ").append(offsets.size() + 1).append("/Root 1 0 R/ID[<").append(id)
+                    .append("><").append(id).append(">]>>\nstartxref\n").append(fillerEnd + fillerObjectEnd.length())
+                    .append("\n%%EOF\n");
+            tail = builder.toString();
+            long newFillerSize = Math.max(0, size - head.length() - tail.length());
+            if (newFillerSize == fillerSize) {
+                break;
+            }
+            fillerSize = newFillerSize;
+        }
+        output.write(head.getBytes(StandardCharsets.ISO_8859_1));
+        writeFiller(fillerSize, seed, true, output);
+        output.write(tail.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static void writeOdf(long size, long seed, OutputStream output) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(output);
+        // Mimetype goes first and uncompressed, so that the type is recognized by the first bytes
+        byte[] mimetype = DocumentKind.ODF.getContentType().getBytes(StandardCharsets.US_ASCII);
+        ZipEntry mimetypeEntry = new ZipEntry("mimetype");
+        mimetypeEntry.setMethod(ZipEntry.STORED);
+        mimetypeEntry.setTime(ZIP_ENTRY_TIME);
+        mimetypeEntry.setSize(mimetype.length);
+        CRC32 crc = new CRC32();
+        crc.update(mimetype);
+        mimetypeEntry.setCrc(crc.getValue());
+        zip.putNextEntry(mimetypeEntry);
+        zip.write(mimetype);
+        zip.closeEntry();
+        writeZipEntry(zip, "META-INF/manifest.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<manifest:manifest xmlns:manifest=\"urn:oasis:names:tc:opendocument:xmlns:manifest:1.0\" manifest:version=\"1.2\">\n" +
+                "<manifest:file-entry manifest:full-path=\"/\" manifest:media-type=\"" + DocumentKind.ODF.getContentType() + "\"/>\n" +
+                "<manifest:file-entry manifest:full-path=\"content.xml\" manifest:media-type=\"text/xml\"/>\n" +
+                "</manifest:manifest>");
+        writeZipEntry(zip, "content.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<office:document-content xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\" " +
+                "xmlns:text=\"urn:oasis:names:tc:opendocument:xmlns:text:1.0\" office:version=\"1.2\">" +
+                "<office:body><office:text><text:p>Document " + seed + "</text:p></office:text></office:body>" +
+                "</office:document-content>");
+        writeZipFiller(zip, size, seed);
+        zip.finish();
+    }
+
+    private static void writeOoxml(long size, long seed, OutputStream output) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(output);
+        writeZipEntry(zip, "[Content_Types].xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                "<Override PartName=\"/word/document.xml\" " +
+                "ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/></Types>");
+        writeZipEntry(zip, "_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" " +
+                "Target=\"word/document.xml\"/></Relationships>");
+        writeZipEntry(zip, "word/document.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">" +
+                "<w:body><w:p><w:r><w:t>Document " + seed + "</w:t></w:r></w:p></w:body></w:document>");
+        writeZipFiller(zip, size, seed);
+        zip.finish();
+    }
+
+    private static void writeZipEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ZIP_ENTRY_TIME);
+        zip.putNextEntry(entry);
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    // Filler is random, so deflate does not shrink it and the archive ends up close to the requested size
+    private static void writeZipFiller(ZipOutputStream zip, long size, long seed) throws IOException {
+        long fillerSize = size - 1024;
+        if (fillerSize <= 0) {
+            return;
+        }
+        ZipEntry entry = new ZipEntry("filler.bin");
+        entry.setTime(ZIP_ENTRY_TIME);
+        zip.putNextEntry(entry);
+        writeFiller(fillerSize, seed, false, zip);
+        zip.closeEntry();
+    }
+
+    private static void writeFiller(long size, long seed, boolean isText, OutputStream output) throws IOException {
+        Random random = new Random(seed);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long left = size;
+        while (left > 0) {
+            int length = (int) Math.min(buffer.length, left);
+            random.nextBytes(buffer);
+            if (isText) {
+                for (int i = 0; i < length; i++) {
+                    buffer[i] = HEX_DIGITS[buffer[i] & 0xF];
+                }
+            }
+            output.write(buffer, 0, length);
+            left -= length;
+        }
+    }
+
+    //</editor-fold>
+}
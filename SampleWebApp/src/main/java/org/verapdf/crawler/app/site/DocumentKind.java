@@ -0,0 +1,27 @@
+package org.verapdf.crawler.app.site;
+
+public enum DocumentKind {
+    // PDF claiming PDF/A-1b conformance in XMP metadata, goes through Logius triage to veraPDF
+    PDFA("pdf", "application/pdf"),
+    // PDF without PDF/A claim, recorded as invalid by Logius triage
+    PDF("pdf", "application/pdf"),
+    ODF("odt", "application/vnd.oasis.opendocument.text"),
+    OOXML("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+    LEGACY_OFFICE("doc", "application/msword");
+
+    private final String extension;
+    private final String contentType;
+
+    DocumentKind(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,82 @@
+package org.verapdf.crawler.app.site;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.core.*;
+import java.util.Date;
+
+/**
+ * Synthetic site for crawl load tests: a deterministic graph of HTML pages, each linking to further pages
+ * and to generated documents. Documents carry Last-Modified and ETag and answer conditional requests.
+ */
+@Path("/site")
+public class SiteResource {
+    private final SyntheticSite site;
+    private final DocumentGenerator generator;
+
+    public SiteResource(SyntheticSite site, DocumentGenerator generator) {
+        this.site = site;
+        this.generator = generator;
+    }
+
+    @GET
+    public Response getIndex() throws InterruptedException {
+        return getPage(0);
+    }
+
+    @GET
+    @Path("/page/{page: \\d+}.html")
+    public Response getPage(@PathParam("page") int page) throws InterruptedException {
+        if (!site.hasPage(page)) {
+            throw new NotFoundException();
+        }
+        delay("page/" + page);
+        StringBuilder html = new StringBuilder("<html>\n<head>\n    <title>Page ").append(page)
+                .append("</title>\n</head>\n<body bgcolor=white>\n\n<p>Pages:\n<ul>\n");
+        for (int linkedPage : site.getLinkedPages(page)) {
+            html.append("    <li><a href=\"/crawl/site/page/").append(linkedPage).append(".html\">Page ")
+                    .append(linkedPage).append("</a></li>\n");
+        }
+        html.append("</ul>\n<p>Documents:\n<ul>\n");
+        for (long document : site.getDocuments(page)) {
+            html.append("    <li><a href=\"/crawl/site/document/").append(document).append(".")
+                    .append(site.getKind(document).getExtension()).append("\">Document ").append(document).append("</a></li>\n");
+        }
+        html.append("</ul>\n\n</body>\n</html>\n");
+        return Response.ok(html.toString(), MediaType.TEXT_HTML_TYPE).build();
+    }
+
+    @GET
+    @Path("/document/{document: \\d+}.{extension}")
+    public Response getDocument(@PathParam("document") long document, @PathParam("extension") String extension,
+                                @Context Request request) throws InterruptedException {
+        if (!site.hasDocument(document) || !site.getKind(document).getExtension().equals(extension)) {
+            throw new NotFoundException();
+        }
+        delay("document/" + document);
+        DocumentKind kind = site.getKind(document);
+        Date lastModified = new Date(site.getLastModified(document));
+        EntityTag eTag = new EntityTag(site.getETag(document));
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(lastModified, eTag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        long size = site.getSize(document);
+        long seed = site.getSeed() * 31 + document;
+        StreamingOutput content = output -> generator.write(kind, size, seed, output);
+        return Response.ok(content, kind.getContentType()).lastModified(lastModified).tag(eTag).build();
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private void delay(String path) throws InterruptedException {
+        long latency = site.getLatency(path);
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+
+    //</editor-fold>
+}
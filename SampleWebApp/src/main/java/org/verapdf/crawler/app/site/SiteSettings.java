@@ -0,0 +1,188 @@
+package org.verapdf.crawler.app.site;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class SiteSettings {
+    private long seed = 1;
+    private int pages = 100;
+    private int linksPerPage = 5;
+    private int crossLinksPerPage = 2;
+    private int documentsPerPage = 5;
+    private double pdfaShare = 0.4;
+    private double pdfShare = 0.3;
+    private double odfShare = 0.1;
+    private double ooxmlShare = 0.1;
+    private double legacyOfficeShare = 0.1;
+    private long minDocumentSize = 4 * 1024;
+    private long maxDocumentSize = 1024 * 1024;
+    private long latencyMs = 0;
+    private long latencyJitterMs = 0;
+    private String latestModification = "2017-06-01T00:00:00Z";
+    private int modificationSpreadDays = 3 * 365;
+
+    // Same seed always produces the same site
+    @JsonProperty
+    public long getSeed() {
+        return seed;
+    }
+
+    @JsonProperty
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @JsonProperty
+    public int getPages() {
+        return pages;
+    }
+
+    @JsonProperty
+    public void setPages(int pages) {
+        this.pages = pages;
+    }
+
+    // Pages form a tree with this number of children per page, so the depth is about log(pages) of it; 1 gives a chain
+    @JsonProperty
+    public int getLinksPerPage() {
+        return linksPerPage;
+    }
+
+    @JsonProperty
+    public void setLinksPerPage(int linksPerPage) {
+        this.linksPerPage = linksPerPage;
+    }
+
+    // Links to pseudo-randomly chosen pages on top of the tree
+    @JsonProperty
+    public int getCrossLinksPerPage() {
+        return crossLinksPerPage;
+    }
+
+    @JsonProperty
+    public void setCrossLinksPerPage(int crossLinksPerPage) {
+        this.crossLinksPerPage = crossLinksPerPage;
+    }
+
+    @JsonProperty
+    public int getDocumentsPerPage() {
+        return documentsPerPage;
+    }
+
+    @JsonProperty
+    public void setDocumentsPerPage(int documentsPerPage) {
+        this.documentsPerPage = documentsPerPage;
+    }
+
+    @JsonProperty
+    public double getPdfaShare() {
+        return pdfaShare;
+    }
+
+    @JsonProperty
+    public void setPdfaShare(double pdfaShare) {
+        this.pdfaShare = pdfaShare;
+    }
+
+    @JsonProperty
+    public double getPdfShare() {
+        return pdfShare;
+    }
+
+    @JsonProperty
+    public void setPdfShare(double pdfShare) {
+        this.pdfShare = pdfShare;
+    }
+
+    @JsonProperty
+    public double getOdfShare() {
+        return odfShare;
+    }
+
+    @JsonProperty
+    public void setOdfShare(double odfShare) {
+        this.odfShare = odfShare;
+    }
+
+    @JsonProperty
+    public double getOoxmlShare() {
+        return ooxmlShare;
+    }
+
+    @JsonProperty
+    public void setOoxmlShare(double ooxmlShare) {
+        this.ooxmlShare = ooxmlShare;
+    }
+
+    @JsonProperty
+    public double getLegacyOfficeShare() {
+        return legacyOfficeShare;
+    }
+
+    @JsonProperty
+    public void setLegacyOfficeShare(double legacyOfficeShare) {
+        this.legacyOfficeShare = legacyOfficeShare;
+    }
+
+    @JsonProperty
+    public long getMinDocumentSize() {
+        return minDocumentSize;
+    }
+
+    @JsonProperty
+    public void setMinDocumentSize(long minDocumentSize) {
+        this.minDocumentSize = minDocumentSize;
+    }
+
+    @JsonProperty
+    public long getMaxDocumentSize() {
+        return maxDocumentSize;
+    }
+
+    @JsonProperty
+    public void setMaxDocumentSize(long maxDocumentSize) {
+        this.maxDocumentSize = maxDocumentSize;
+    }
+
+    // Delay before every response
+    @JsonProperty
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    @JsonProperty
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    // Upper bound of a per-URL pseudo-random delay added to latencyMs
+    @JsonProperty
+    public long getLatencyJitterMs() {
+        return latencyJitterMs;
+    }
+
+    @JsonProperty
+    public void setLatencyJitterMs(long latencyJitterMs) {
+        this.latencyJitterMs = latencyJitterMs;
+    }
+
+    // Last-Modified of documents is spread over modificationSpreadDays before this ISO-8601 instant
+    @JsonProperty
+    public String getLatestModification() {
+        return latestModification;
+    }
+
+    @JsonProperty
+    public void setLatestModification(String latestModification) {
+        this.latestModification = latestModification;
+    }
+
+    @JsonProperty
+    public int getModificationSpreadDays() {
+        return modificationSpreadDays;
+    }
+
+    @JsonProperty
+    public void setModificationSpreadDays(int modificationSpreadDays) {
+        this.modificationSpreadDays = modificationSpreadDays;
+    }
+}
@@ -0,0 +1,127 @@
+package org.verapdf.crawler.app.site;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deterministic model of the generated site: every property of a page or document is a function of the seed
+ * and its number, so nothing is stored and the same configuration always serves the same site.
+ */
+public class SyntheticSite {
+    private static final long SALT_CROSS_LINK = 1;
+    private static final long SALT_KIND = 2;
+    private static final long SALT_SIZE = 3;
+    private static final long SALT_MODIFIED = 4;
+    private static final long SALT_LATENCY = 5;
+
+    private final SiteSettings settings;
+    private final DocumentKind[] kinds = DocumentKind.values();
+    private final double[] cumulativeShares;
+    private final long latestModification;
+
+    public SyntheticSite(SiteSettings settings) {
+        if (settings.getPages() < 1 || settings.getLinksPerPage() < 1) {
+            throw new IllegalArgumentException("Site should have at least one page and one link per page");
+        }
+        if (settings.getMinDocumentSize() > settings.getMaxDocumentSize()) {
+            throw new IllegalArgumentException("minDocumentSize is greater than maxDocumentSize");
+        }
+        this.settings = settings;
+        double[] shares = {settings.getPdfaShare(), settings.getPdfShare(), settings.getOdfShare(),
+                settings.getOoxmlShare(), settings.getLegacyOfficeShare()};
+        double total = 0;
+        for (double share : shares) {
+            total += Math.max(0, share);
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one document share should be positive");
+        }
+        cumulativeShares = new double[shares.length];
+        double sum = 0;
+        for (int i = 0; i < shares.length; i++) {
+            sum += Math.max(0, shares[i]) / total;
+            cumulativeShares[i] = sum;
+        }
+        latestModification = Instant.parse(settings.getLatestModification()).toEpochMilli();
+    }
+
+    public boolean hasPage(int page) {
+        return page >= 0 && page < settings.getPages();
+    }
+
+    public boolean hasDocument(long document) {
+        return document >= 0 && document < (long) settings.getPages() * settings.getDocumentsPerPage();
+    }
+
+    // Children in the page tree followed by cross links, without duplicates
+    public List<Integer> getLinkedPages(int page) {
+        Set<Integer> result = new LinkedHashSet<>();
+        long firstChild = (long) page * settings.getLinksPerPage() + 1;
+        for (long child = firstChild; child < firstChild + settings.getLinksPerPage() && child < settings.getPages(); child++) {
+            result.add((int) child);
+        }
+        for (int i = 0; i < settings.getCrossLinksPerPage(); i++) {
+            int target = (int) Long.remainderUnsigned(hash(SALT_CROSS_LINK, (long) page * 1024 + i), settings.getPages());
+            if (target != page) {
+                result.add(target);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    public List<Long> getDocuments(int page) {
+        List<Long> result = new ArrayList<>();
+        for (int i = 0; i < settings.getDocumentsPerPage(); i++) {
+            result.add((long) page * settings.getDocumentsPerPage() + i);
+        }
+        return result;
+    }
+
+    public DocumentKind getKind(long document) {
+        double value = (hash(SALT_KIND, document) >>> 11) / (double) (1L << 53);
+        for (int i = 0; i < cumulativeShares.length; i++) {
+            if (value < cumulativeShares[i]) {
+                return kinds[i];
+            }
+        }
+        return kinds[kinds.length - 1];
+    }
+
+    public long getSize(long document) {
+        long range = settings.getMaxDocumentSize() - settings.getMinDocumentSize() + 1;
+        return settings.getMinDocumentSize() + Long.remainderUnsigned(hash(SALT_SIZE, document), range);
+    }
+
+    // Rounded to seconds, as Last-Modified has no finer precision
+    public long getLastModified(long document) {
+        long spread = TimeUnit.DAYS.toSeconds(Math.max(1, settings.getModificationSpreadDays()));
+        return latestModification - TimeUnit.SECONDS.toMillis(Long.remainderUnsigned(hash(SALT_MODIFIED, document), spread));
+    }
+
+    public String getETag(long document) {
+        return Long.toHexString(hash(getKind(document).ordinal(), document) ^ getSize(document));
+    }
+
+    public long getLatency(String path) {
+        if (settings.getLatencyJitterMs() <= 0) {
+            return settings.getLatencyMs();
+        }
+        return settings.getLatencyMs() + Long.remainderUnsigned(hash(SALT_LATENCY, path.hashCode()), settings.getLatencyJitterMs() + 1);
+    }
+
+    public long getSeed() {
+        return settings.getSeed();
+    }
+
+    // SplitMix64 finalizer over seed, salt and value
+    private long hash(long salt, long value) {
+        long result = settings.getSeed() * 0x9E3779B97F4A7C15L + salt * 0xC2B2AE3D27D4EB4FL + value;
+        result = (result ^ (result >>> 30)) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+        return result ^ (result >>> 31);
+    }
+}
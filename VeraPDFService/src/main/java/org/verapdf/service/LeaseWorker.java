@@ -0,0 +1,246 @@
+package org.verapdf.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.lifecycle.Managed;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.domain.validation.LeasedValidationJob;
+import org.verapdf.crawler.domain.validation.ValidationJobResult;
+import org.verapdf.crawler.domain.validation.VeraPDFValidationResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker mode of the service: jobs are leased from Logius by long polling, validated by a fixed number
+ * of local veraPDF processes and results are posted back in batches. A worker only asks for as many jobs
+ * as it has free threads, so every node takes as much work as it can handle.
+ */
+public class LeaseWorker implements Managed {
+    private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final long RETRY_INTERVAL_MS = 10 * 1000;
+    private static final long RESULT_FLUSH_INTERVAL_MS = 1000;
+    private static final int MAX_RESULT_BATCH_SIZE = 100;
+
+    private final LeaseWorkerSettings settings;
+    private final String veraPDFPath;
+    private final String veraPDFHeapSize;
+    private final File scratchDirectory;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<ValidationJobResult> results = new LinkedBlockingQueue<>();
+    private final Semaphore freeThreads;
+    private final CloseableHttpClient httpClient;
+    private final MetricRegistry metrics;
+    private final AtomicInteger activeValidations = new AtomicInteger();
+    private ExecutorService validators;
+    private ScheduledExecutorService timeouts;
+    private Thread leaseThread;
+    private Thread resultThread;
+    private volatile boolean isRunning;
+
+    LeaseWorker(LeaseWorkerSettings settings, String veraPDFPath, String veraPDFHeapSize, File scratchDirectory,
+                MetricRegistry metrics) {
+        this.settings = settings;
+        this.metrics = metrics;
+        // Share of worker threads busy with a job, including download of the file
+        metrics.register(MetricRegistry.name(VeraPDFProcessor.METRICS_PREFIX, "worker", "utilization"),
+                (Gauge<Double>) () -> (double) activeValidations.get() / settings.getThreads());
+        this.veraPDFPath = veraPDFPath;
+        this.veraPDFHeapSize = veraPDFHeapSize;
+        this.scratchDirectory = scratchDirectory;
+        this.freeThreads = new Semaphore(settings.getThreads());
+        int socketTimeoutMs = (int) TimeUnit.SECONDS.toMillis(settings.getLeaseWaitSeconds() + 30);
+        httpClient = HttpClientBuilder.create()
+                .setDefaultRequestConfig(RequestConfig.custom().setSocketTimeout(socketTimeoutMs).build())
+                .build();
+    }
+
+    @Override
+    public void start() {
+        isRunning = true;
+        validators = Executors.newFixedThreadPool(settings.getThreads());
+        timeouts = Executors.newSingleThreadScheduledExecutor();
+        leaseThread = new Thread(this::leaseJobs, "lease-worker");
+        resultThread = new Thread(this::postResults, "lease-worker-results");
+        leaseThread.start();
+        resultThread.start();
+        logger.info("Lease worker started with " + settings.getThreads() + " threads, Logius at " + settings.getLogiusUrl());
+    }
+
+    @Override
+    public void stop() throws Exception {
+        isRunning = false;
+        leaseThread.interrupt();
+        validators.shutdown();
+        validators.awaitTermination(1, TimeUnit.MINUTES);
+        timeouts.shutdownNow();
+        resultThread.interrupt();
+        resultThread.join();
+        httpClient.close();
+    }
+
+    //<editor-fold desc="Private helpers">
+
+    private void leaseJobs() {
+        while (isRunning) {
+            try {
+                freeThreads.acquire();
+                int count = 1 + freeThreads.drainPermits();
+                List<LeasedValidationJob> jobs;
+                try {
+                    jobs = lease(count);
+                } catch (IOException e) {
+                    logger.error("Error on leasing validation jobs from " + settings.getLogiusUrl(), e);
+                    jobs = new ArrayList<>();
+                    Thread.sleep(RETRY_INTERVAL_MS);
+                }
+                freeThreads.release(count - jobs.size());
+                for (LeasedValidationJob job : jobs) {
+                    validators.submit(() -> {
+                        activeValidations.incrementAndGet();
+                        try {
+                            results.add(new ValidationJobResult(job.getId(), validate(job)));
+                        } finally {
+                            activeValidations.decrementAndGet();
+                            freeThreads.release();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private List<LeasedValidationJob> lease(int count) throws IOException {
+        HttpPost post = new HttpPost(settings.getLogiusUrl() + "api/validation/lease?count=" + count +
+                "&wait=" + settings.getLeaseWaitSeconds());
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new IOException("Lease request failed with code " + response.getStatusLine().getStatusCode());
+            }
+            return mapper.readValue(response.getEntity().getContent(), new TypeReference<List<LeasedValidationJob>>() {});
+        }
+    }
+
+    private VeraPDFValidationResult validate(LeasedValidationJob job) {
+        File file = null;
+        boolean isDownloaded = false;
+        try {
+            if (!settings.isDownloadFiles() && job.getFilepath() != null && new File(job.getFilepath()).canRead()) {
+                file = new File(job.getFilepath());
+            } else {
+                file = download(job);
+                isDownloaded = true;
+            }
+            CompletableFuture<VeraPDFValidationResult> result = new CompletableFuture<>();
+            VeraPDFProcessor processor = new VeraPDFProcessor(veraPDFPath, veraPDFHeapSize, file.getAbsolutePath(),
+                    false, result::complete, metrics);
+            // Process is stopped when the lease runs out, Logius gives the job to another worker then anyway
+            ScheduledFuture<?> timeout = timeouts.schedule(processor::stopProcess, job.getLeaseSeconds(), TimeUnit.SECONDS);
+            processor.run();
+            timeout.cancel(false);
+            return result.isDone() ? result.get() :
+                    problemResult("Document was not validated in time (" + job.getLeaseSeconds() + " seconds)");
+        } catch (Exception e) {
+            logger.error("Error on validation of " + job.getUri(), e);
+            return problemResult(e.getMessage());
+        } finally {
+            if (isDownloaded && file != null && !file.delete()) {
+                logger.info("Downloaded file " + file.getAbsolutePath() + " has not been deleted");
+            }
+        }
+    }
+
+    private File download(LeasedValidationJob job) throws IOException {
+        File file = File.createTempFile("lease", ".pdf", scratchDirectory);
+        HttpGet get = new HttpGet(settings.getLogiusUrl() + "api/validation/lease/" + job.getId() + "/file");
+        try (Timer.Context ignored = metrics.timer(MetricRegistry.name(VeraPDFProcessor.METRICS_PREFIX, "file_transfer")).time();
+             CloseableHttpResponse response = httpClient.execute(get)) {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new IOException("Download of " + job.getUri() + " failed with code " + response.getStatusLine().getStatusCode());
+            }
+            try (InputStream content = response.getEntity().getContent()) {
+                Files.copy(content, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return file;
+        } catch (IOException e) {
+            if (!file.delete()) {
+                logger.info("Downloaded file " + file.getAbsolutePath() + " has not been deleted");
+            }
+            throw e;
+        }
+    }
+
+    // Results are sent in batches; a batch which could not be delivered is retried until the worker stops
+    private void postResults() {
+        List<ValidationJobResult> batch = new ArrayList<>();
+        while (isRunning || !results.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    ValidationJobResult first = results.poll(RESULT_FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                results.drainTo(batch, MAX_RESULT_BATCH_SIZE - batch.size());
+                sendResults(batch);
+                batch.clear();
+            } catch (IOException e) {
+                logger.error("Error on sending " + batch.size() + " validation results to " + settings.getLogiusUrl(), e);
+                if (!isRunning) {
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_INTERVAL_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                if (results.isEmpty() && batch.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void sendResults(List<ValidationJobResult> batch) throws IOException {
+        HttpPost post = new HttpPost(settings.getLogiusUrl() + "api/validation/results");
+        post.setEntity(new ByteArrayEntity(mapper.writeValueAsBytes(batch), ContentType.APPLICATION_JSON));
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                throw new IOException("Posting results failed with code " + response.getStatusLine().getStatusCode());
+            }
+        }
+        logger.info("Sent " + batch.size() + " validation results");
+    }
+
+    private static VeraPDFValidationResult problemResult(String message) {
+        VeraPDFValidationResult result = new VeraPDFValidationResult();
+        result.setProcessingError(message);
+        return result;
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,53 @@
+package org.verapdf.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class LeaseWorkerSettings {
+	private String logiusUrl;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int leaseWaitSeconds = 30;
+	private boolean downloadFiles = true;
+
+	// Base url of Logius, e.g. http://localhost:9000/
+	@JsonProperty
+	public String getLogiusUrl() {
+		return logiusUrl;
+	}
+
+	@JsonProperty
+	public void setLogiusUrl(String logiusUrl) {
+		this.logiusUrl = logiusUrl;
+	}
+
+	// Number of documents validated simultaneously, one per core by default
+	@JsonProperty
+	public int getThreads() {
+		return threads;
+	}
+
+	@JsonProperty
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	@JsonProperty
+	public int getLeaseWaitSeconds() {
+		return leaseWaitSeconds;
+	}
+
+	@JsonProperty
+	public void setLeaseWaitSeconds(int leaseWaitSeconds) {
+		this.leaseWaitSeconds = leaseWaitSeconds;
+	}
+
+	// Files are read from the path given by Logius if false, which requires access to the Logius file system
+	@JsonProperty
+	public boolean isDownloadFiles() {
+		return downloadFiles;
+	}
+
+	@JsonProperty
+	public void setDownloadFiles(boolean downloadFiles) {
+		this.downloadFiles = downloadFiles;
+	}
+}
@@ -1,8 +1,12 @@
 package org.verapdf.service;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.verapdf.crawler.domain.validation.VeraPDFServiceCapacity;
 import org.verapdf.crawler.domain.validation.VeraPDFValidationResult;
 
 import javax.ws.rs.*;
@@ -11,6 +15,7 @@ import javax.ws.rs.core.Response;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.EnumSet;
@@ -24,15 +29,29 @@ import java.util.concurrent.Executors;
 public class ValidationResource {
 
     private static final Logger logger = LoggerFactory.getLogger("CustomLogger");
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
     private final ExecutorService service = Executors.newFixedThreadPool(1);
     private final String veraPDFPath;
-    private VeraPDFProcessor veraPDFProcessor;
+    private final String veraPDFHeapSize;
+    private final File scratchDirectory;
+    private final long maxUploadSize;
+    private final MetricRegistry metrics;
+    // Changed under the lock of this resource, read without it by status requests and the utilization gauge
+    private volatile VeraPDFProcessor veraPDFProcessor;
+    private volatile boolean isUploading;
     private Map<String, String> validationSettings;
-    private VeraPDFValidationResult validationResult;
+    private volatile VeraPDFValidationResult validationResult;
 
-    ValidationResource(String veraPDFPath) {
+    ValidationResource(String veraPDFPath, String veraPDFHeapSize, File scratchDirectory, long maxUploadSize,
+                       MetricRegistry metrics) {
+        this.metrics = metrics;
+        metrics.register(MetricRegistry.name(VeraPDFProcessor.METRICS_PREFIX, "utilization"),
+                (Gauge<Integer>) () -> evaluateStatus() == Status.ACTIVE ? 1 : 0);
         this.validationSettings = new HashMap<>();
         this.veraPDFPath = veraPDFPath;
+        this.veraPDFHeapSize = veraPDFHeapSize;
+        this.scratchDirectory = scratchDirectory;
+        this.maxUploadSize = maxUploadSize;
     }
 
     @POST
@@ -46,18 +65,60 @@ public class ValidationResource {
     @Timed
     public Response processValidateRequest(String filename) throws InterruptedException {
         logger.info("Starting processing of " + filename);
+        // Job is started under the lock, so that a concurrent request can not replace it
         synchronized (this) {
             if (evaluateStatus() == Status.ACTIVE) {
                 return Response.status(102).build();
             }
+            validate(filename, false);
         }
-        validate(filename);
         return Response.accepted().build();
     }
 
+    // Validates the file sent in request body, so that the service needs no access to files of Logius.
+    // Body is spooled to scratch directory with a fixed size buffer and removed after validation.
+    @POST
+    @Path("/upload")
+    @Timed
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    public Response processUploadRequest(InputStream body) throws IOException {
+        synchronized (this) {
+            if (evaluateStatus() == Status.ACTIVE) {
+                return Response.status(102).build();
+            }
+            isUploading = true;
+        }
+        File file = null;
+        try {
+            file = File.createTempFile("upload", ".pdf", scratchDirectory);
+            logger.info("Receiving uploaded file into " + file.getAbsolutePath());
+            boolean isSpooled;
+            try (Timer.Context ignored = metrics.timer(MetricRegistry.name(VeraPDFProcessor.METRICS_PREFIX, "file_transfer")).time()) {
+                isSpooled = spool(body, file);
+            }
+            if (!isSpooled) {
+                logger.info("Uploaded file exceeds " + maxUploadSize + " bytes");
+                return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE).build();
+            }
+            synchronized (this) {
+                validate(file.getAbsolutePath(), true);
+                isUploading = false;
+            }
+            file = null;
+            return Response.accepted().build();
+        } finally {
+            synchronized (this) {
+                isUploading = false;
+            }
+            if (file != null && !file.delete()) {
+                logger.info("Uploaded file " + file.getAbsolutePath() + " has not been deleted");
+            }
+        }
+    }
+
     @GET
     @Timed
-    public Response getStatus() {
+    public synchronized Response getStatus() {
         if(evaluateStatus() == Status.ACTIVE) {
             return Response.status(102).build();
         }
@@ -67,9 +128,16 @@ public class ValidationResource {
         return Response.status(100).build();
     }
 
+    // Lightweight probe for Logius load balancing, the service validates one document at a time
+    @GET
+    @Path("/capacity")
+    public VeraPDFServiceCapacity getCapacity() {
+        return new VeraPDFServiceCapacity(1, evaluateStatus() == Status.ACTIVE ? 1 : 0);
+    }
+
     @DELETE
     @Timed
-    public void discardCurrentJob() {
+    public synchronized void discardCurrentJob() {
         logger.info("Terminating current job");
         if (this.veraPDFProcessor != null) {
             this.veraPDFProcessor.stopProcess();
@@ -78,19 +146,36 @@ public class ValidationResource {
         validationResult = null;
     }
 
-    private void validate(String filename) {
-        this.veraPDFProcessor = new VeraPDFProcessor(veraPDFPath, filename, this);
+    private void validate(String filename, boolean isTemporaryFile) {
+        this.veraPDFProcessor = new VeraPDFProcessor(veraPDFPath, veraPDFHeapSize, filename, isTemporaryFile, this::validationFinished,
+                metrics);
         service.submit(veraPDFProcessor);
     }
 
-    void validationFinished(VeraPDFValidationResult result) {
+    private boolean spool(InputStream body, File file) throws IOException {
+        byte[] buffer = new byte[UPLOAD_BUFFER_SIZE];
+        long size = 0;
+        try (OutputStream out = new FileOutputStream(file)) {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                size += read;
+                if (size > maxUploadSize) {
+                    return false;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return true;
+    }
+
+    synchronized void validationFinished(VeraPDFValidationResult result) {
         this.validationResult = result;
         this.veraPDFProcessor = null;
         //TODO: send message to main service
     }
 
     private Status evaluateStatus() {
-        if (this.veraPDFProcessor != null) {
+        if (this.veraPDFProcessor != null || isUploading) {
             return Status.ACTIVE;
         } else {
             return validationResult == null ? Status.IDLE : Status.FINISHED;
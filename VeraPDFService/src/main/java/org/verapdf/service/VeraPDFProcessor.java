@@ -1,5 +1,7 @@
 package org.verapdf.service;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.verapdf.crawler.domain.validation.ValidationError;
@@ -20,6 +22,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Maksim Bezrukov
@@ -31,29 +34,41 @@ public class VeraPDFProcessor implements Runnable {
 	private static final String BASE_PATH = "/report/jobs/job/";
 	private static final String VALIDATION_REPORT_PATH = BASE_PATH + "validationReport/";
 
+	static final String METRICS_PREFIX = "verapdf";
+
 	private final String verapdfPath;
+	private final String heapSize;
 	private final String filePath;
+	private final boolean isTemporaryFile;
 	private Process process;
-	private ValidationResource resource;
+	private final Consumer<VeraPDFValidationResult> callback;
+	private final MetricRegistry metrics;
 	private boolean stopped = false;
 
-	VeraPDFProcessor(String verapdfPath, String filePath, ValidationResource resource) {
+	VeraPDFProcessor(String verapdfPath, String heapSize, String filePath, boolean isTemporaryFile,
+					 Consumer<VeraPDFValidationResult> callback, MetricRegistry metrics) {
+		this.metrics = metrics;
 		this.verapdfPath = verapdfPath;
+		this.heapSize = heapSize;
 		this.filePath = filePath;
-		this.resource = resource;
+		this.isTemporaryFile = isTemporaryFile;
+		this.callback = callback;
 	}
 
 	private File getVeraPDFReport(String filename) throws IOException, InterruptedException {
 		String[] cmd = {verapdfPath, "--extract", "--format", "mrr", "--maxfailuresdisplayed", "1", filename};
 		ProcessBuilder pb = new ProcessBuilder().inheritIO();
+		// Created empty by createTempFile, veraPDF output replaces its content
 		Path outputPath = Files.createTempFile("veraPDFReport", ".xml");
 		File file = outputPath.toFile();
-		if (!file.createNewFile()) {
-			return null;
-		}
 		file.deleteOnExit();
 		pb.redirectOutput(file);
 		pb.command(cmd);
+		if (heapSize != null) {
+			// veraPDF launcher script passes JAVA_OPTS to the JVM
+			String javaOpts = pb.environment().get("JAVA_OPTS");
+			pb.environment().put("JAVA_OPTS", (javaOpts == null ? "" : javaOpts + " ") + "-Xmx" + heapSize);
+		}
 		this.process = pb.start();
 		this.process.waitFor();
 		return file;
@@ -64,19 +79,13 @@ public class VeraPDFProcessor implements Runnable {
 		VeraPDFValidationResult result = null;
 		File report = null;
 		try {
-			report = getVeraPDFReport(this.filePath);
+			try (Timer.Context ignored = metrics.timer(MetricRegistry.name(METRICS_PREFIX, "process")).time()) {
+				report = getVeraPDFReport(this.filePath);
+			}
 			if (report != null) {
-				DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-				dbf.setNamespaceAware(true);
-				DocumentBuilder db = dbf.newDocumentBuilder();
-				Document document = db.parse(report);
-				XPathFactory xpf = XPathFactory.newInstance();
-				XPath xpath = xpf.newXPath();
-				// Uncomment this for specifying namespaces if it will be necessary
-//		SimpleNamespaceContext nsc = new SimpleNamespaceContext();
-//		nsc.setPrefix(SchematronGenerator.SCH_PREFIX, SchematronGenerator.SCH_NAMESPACE);
-//		xpath.setNamespaceContext(nsc);
-				result = generateBaseResult(document, xpath);
+				try (Timer.Context ignored = metrics.timer(MetricRegistry.name(METRICS_PREFIX, "report_parse")).time()) {
+					result = parseReport(report);
+				}
 				// TODO: add properties evaluating here
 			} else {
 				result = generateProblemResult("Some problem in report generation");
@@ -93,13 +102,30 @@ public class VeraPDFProcessor implements Runnable {
 			if (report != null && !report.delete()) {
 				logger.info("Report has not been deleted manually");
 			}
+			if (isTemporaryFile && !new File(this.filePath).delete()) {
+				logger.info("Uploaded file " + this.filePath + " has not been deleted");
+			}
 		}
 		if (!stopped) {
-			this.resource.validationFinished(result);
+			this.callback.accept(result);
 		}
 	}
 
-	private VeraPDFValidationResult generateBaseResult(Document document, XPath xpath) throws XPathExpressionException {
+	static VeraPDFValidationResult parseReport(File report) throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		DocumentBuilder db = dbf.newDocumentBuilder();
+		Document document = db.parse(report);
+		XPathFactory xpf = XPathFactory.newInstance();
+		XPath xpath = xpf.newXPath();
+		// Uncomment this for specifying namespaces if it will be necessary
+//		SimpleNamespaceContext nsc = new SimpleNamespaceContext();
+//		nsc.setPrefix(SchematronGenerator.SCH_PREFIX, SchematronGenerator.SCH_NAMESPACE);
+//		xpath.setNamespaceContext(nsc);
+		return generateBaseResult(document, xpath);
+	}
+
+	private static VeraPDFValidationResult generateBaseResult(Document document, XPath xpath) throws XPathExpressionException {
 		VeraPDFValidationResult result = new VeraPDFValidationResult();
 		String exceptionPath = BASE_PATH + "taskResult/exceptionMessage";
 		String exception = (String) xpath.evaluate(exceptionPath,
@@ -108,19 +134,20 @@ public class VeraPDFProcessor implements Runnable {
 		result.setProcessingError(exception);
 
 		String isCompliantPath = VALIDATION_REPORT_PATH + "@isCompliant";
-		Boolean isCompliant = (Boolean) xpath.evaluate(isCompliantPath,
+		// Evaluated as string, boolean value of an attribute only tells whether it exists
+		String isCompliant = (String) xpath.evaluate(isCompliantPath,
 				document,
-				XPathConstants.BOOLEAN);
-		if (isCompliant != null) {
-			result.setValid(isCompliant);
-			if (!isCompliant) {
+				XPathConstants.STRING);
+		if (!isCompliant.isEmpty()) {
+			result.setValid(Boolean.parseBoolean(isCompliant));
+			if (!result.isValid()) {
 				result.setValidationErrors(getvalidationErrors(document, xpath));
 			}
 		}
 		return result;
 	}
 
-	private List<ValidationError> getvalidationErrors(Document document, XPath xpath) throws XPathExpressionException {
+	private static List<ValidationError> getvalidationErrors(Document document, XPath xpath) throws XPathExpressionException {
 		List<ValidationError> res = new ArrayList<>();
 		String rulesPath = VALIDATION_REPORT_PATH + "details/rule";
 		NodeList rules = (NodeList) xpath.evaluate(rulesPath,
@@ -138,7 +165,7 @@ public class VeraPDFProcessor implements Runnable {
 				for (int j = 0; j < children.getLength(); ++j) {
 					Node child = children.item(j);
 					if (child.getNodeName().equals("description")) {
-						description = child.getNodeValue();
+						description = child.getTextContent();
 					}
 				}
 				res.add(new ValidationError(specification, clause, testNumber, description));
@@ -5,6 +5,10 @@ import io.dropwizard.Configuration;
 
 public class VeraPDFServiceConfiguration extends Configuration {
 	private String verapdfPath;
+	private String verapdfHeapSize;
+	private String scratchDirectory = System.getProperty("java.io.tmpdir");
+	private long maxUploadSize = 2L * 1024 * 1024 * 1024;
+	private LeaseWorkerSettings worker;
 
 	@JsonProperty
 	public String getVerapdfPath() {
@@ -15,4 +19,47 @@ public class VeraPDFServiceConfiguration extends Configuration {
 	public void setVerapdfPath(String verapdfPath) {
 		this.verapdfPath = verapdfPath;
 	}
+
+	// Maximum heap of veraPDF processes in java -Xmx format, e.g. 4g for an instance serving large documents
+	@JsonProperty
+	public String getVerapdfHeapSize() {
+		return verapdfHeapSize;
+	}
+
+	@JsonProperty
+	public void setVerapdfHeapSize(String verapdfHeapSize) {
+		this.verapdfHeapSize = verapdfHeapSize;
+	}
+
+	// Directory for files uploaded for validation, they are removed once validated
+	@JsonProperty
+	public String getScratchDirectory() {
+		return scratchDirectory;
+	}
+
+	@JsonProperty
+	public void setScratchDirectory(String scratchDirectory) {
+		this.scratchDirectory = scratchDirectory;
+	}
+
+	@JsonProperty
+	public long getMaxUploadSize() {
+		return maxUploadSize;
+	}
+
+	@JsonProperty
+	public void setMaxUploadSize(long maxUploadSize) {
+		this.maxUploadSize = maxUploadSize;
+	}
+
+	// Service also leases validation jobs from Logius if set
+	@JsonProperty
+	public LeaseWorkerSettings getWorker() {
+		return worker;
+	}
+
+	@JsonProperty
+	public void setWorker(LeaseWorkerSettings worker) {
+		this.worker = worker;
+	}
 }
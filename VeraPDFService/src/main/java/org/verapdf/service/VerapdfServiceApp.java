@@ -3,6 +3,9 @@ package org.verapdf.service;
 import io.dropwizard.Application;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import org.verapdf.crawler.app.metrics.PrometheusMetricsServlet;
+
+import java.io.File;
 
 public class VerapdfServiceApp extends Application<VeraPDFServiceConfiguration> {
 
@@ -21,6 +24,17 @@ public class VerapdfServiceApp extends Application<VeraPDFServiceConfiguration>
     @Override
     public void run(VeraPDFServiceConfiguration configuration, Environment environment) {
         environment.jersey().setUrlPattern("/*");
-        environment.jersey().register(new ValidationResource(configuration.getVerapdfPath()));
+        File scratchDirectory = new File(configuration.getScratchDirectory());
+        if (!scratchDirectory.isDirectory() && !scratchDirectory.mkdirs()) {
+            throw new IllegalStateException("Can not create scratch directory " + scratchDirectory);
+        }
+        environment.jersey().register(new ValidationResource(configuration.getVerapdfPath(), configuration.getVerapdfHeapSize(),
+                scratchDirectory, configuration.getMaxUploadSize(), environment.metrics()));
+        if (configuration.getWorker() != null) {
+            environment.lifecycle().manage(new LeaseWorker(configuration.getWorker(), configuration.getVerapdfPath(),
+                    configuration.getVerapdfHeapSize(), scratchDirectory, environment.metrics()));
+        }
+        environment.admin().addServlet("prometheus", new PrometheusMetricsServlet(environment.metrics()))
+                .addMapping("/prometheus");
     }
 }